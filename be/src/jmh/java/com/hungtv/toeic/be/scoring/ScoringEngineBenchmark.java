@@ -0,0 +1,114 @@
+package com.hungtv.toeic.be.scoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.Test;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.payload.request.SaveTestResultRequest;
+
+/**
+ * Số bài nộp chấm được mỗi giây với bài thi 100 và 200 câu.
+ *
+ * kernel: chỉ vòng chấm điểm trên các mảng đã chuẩn bị sẵn.
+ * fromRequest: giống TestResultService.saveTestResult, gồm cả bước chuyển danh sách
+ * câu trả lời của request sang mảng.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringEngineBenchmark {
+
+    @Param({ "100", "200" })
+    private int questionCount;
+
+    private AnswerKey key;
+    private List<SaveTestResultRequest.UserAnswerRequest> requestAnswers;
+    private long[] questionIds;
+    private String[] answers;
+    private int[] indexes;
+    private boolean[] correct;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] keys = { "A", "B", "C", "D" };
+        QuestionGroup.QuestionType[] types = QuestionGroup.QuestionType.values();
+
+        // Nhóm 4 câu hỏi, loại nhóm xoay vòng
+        List<TestSnapshot.GroupSnapshot> groups = new ArrayList<>();
+        long questionId = 1000;
+        for (int g = 0; g * 4 < questionCount; g++) {
+            QuestionGroup group = new QuestionGroup();
+            group.setId((long) g + 1);
+            group.setQuestionType(types[g % types.length]);
+            group.setPart(g % 7 + 1);
+            List<ToeicQuestion> questions = new ArrayList<>();
+            for (int q = 0; q < 4 && g * 4 + q < questionCount; q++) {
+                ToeicQuestion question = new ToeicQuestion();
+                question.setId(questionId);
+                questionId += 1 + random.nextInt(5);
+                question.setQuestionOrder(q + 1);
+                question.setCorrectAnswer(keys[random.nextInt(keys.length)]);
+                question.setQuestionGroup(group);
+                questions.add(question);
+            }
+            groups.add(new TestSnapshot.GroupSnapshot(group, questions));
+        }
+        Test test = new Test();
+        test.setId(1L);
+        TestSnapshot snapshot = new TestSnapshot(test, groups);
+        key = AnswerKey.of(snapshot);
+
+        requestAnswers = new ArrayList<>(questionCount);
+        for (TestSnapshot.QuestionSnapshot question : snapshot.getQuestions()) {
+            requestAnswers.add(new SaveTestResultRequest.UserAnswerRequest(question.getId(),
+                    keys[random.nextInt(keys.length)]));
+        }
+        questionIds = new long[questionCount];
+        answers = new String[questionCount];
+        for (int i = 0; i < questionCount; i++) {
+            questionIds[i] = requestAnswers.get(i).getQuestionId();
+            answers[i] = requestAnswers.get(i).getUserAnswer();
+        }
+        indexes = new int[questionCount];
+        correct = new boolean[questionCount];
+    }
+
+    @Benchmark
+    public ScoreResult kernel() {
+        return ScoringEngine.score(key, questionIds, answers, questionCount, indexes, correct);
+    }
+
+    @Benchmark
+    public ScoreResult fromRequest() {
+        int count = requestAnswers.size();
+        long[] ids = new long[count];
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            SaveTestResultRequest.UserAnswerRequest answer = requestAnswers.get(i);
+            ids[i] = answer.getQuestionId() != null ? answer.getQuestionId() : -1L;
+            values[i] = answer.getUserAnswer();
+        }
+        return ScoringEngine.score(key, ids, values, count, new int[count], new boolean[count]);
+    }
+}
@@ -0,0 +1,183 @@
+package com.hungtv.toeic.be.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.BeApplication;
+import com.hungtv.toeic.be.exception.SubmissionQueueFullException;
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.Test;
+import com.hungtv.toeic.be.models.TestResult;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.models.UserAnswer;
+import com.hungtv.toeic.be.payload.request.SaveTestResultRequest;
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+import com.hungtv.toeic.be.repositories.UserAnswerRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.submission.SubmissionWriteBehind;
+
+/**
+ * Số bài nộp đầy đủ lưu được mỗi giây khi nhiều người dùng nộp bài cùng lúc,
+ * trên database nhúng (H2, cấu hình của src/test/resources).
+ *
+ * batchedSubmit: TestResultService.saveTestResult (TestResult lưu một lần, câu trả lời nén trong TestResult).
+ * writeBehindSubmit: TestResultService.submitTestResult với hàng đợi write-behind (chấm điểm, ghi spool rồi trả về;
+ *                    bài nộp bị từ chối 429 vẫn được tính là một lần gọi).
+ * entityPerRowSubmit: cách lưu cũ (saveAll từng UserAnswer với khóa IDENTITY, TestResult lưu hai lần), để so sánh.
+ *
+ * Số luồng nộp bài đồng thời đổi bằng -t, ví dụ: -Djmh.args="SubmissionPersistence -t 16"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class SubmissionPersistenceBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionPersistenceBenchmark.class);
+
+    @Param({ "200" })
+    private int questionCount;
+
+    private ConfigurableApplicationContext context;
+    private TestResultService testResultService;
+    private TestResultRepository testResultRepository;
+    private UserAnswerRepository userAnswerRepository;
+    private ToeicQuestionRepository questionRepository;
+    private TestRepository testRepository;
+    private UserRepository userRepository;
+    private TransactionTemplate transactionTemplate;
+
+    private Long testId;
+    private List<SaveTestResultRequest.UserAnswerRequest> answers;
+    private final AtomicInteger userSequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(BeApplication.class)
+                .properties("server.port=0",
+                        "app.submission.write-behind.enabled=true",
+                        "app.submission.spool-dir=target/benchmark-spool")
+                .run();
+        testResultService = context.getBean(TestResultService.class);
+        testResultRepository = context.getBean(TestResultRepository.class);
+        userAnswerRepository = context.getBean(UserAnswerRepository.class);
+        questionRepository = context.getBean(ToeicQuestionRepository.class);
+        testRepository = context.getBean(TestRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        seedTest(context.getBean(QuestionGroupRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        logger.info("Thống kê hàng đợi bài nộp: {}", context.getBean(SubmissionWriteBehind.class).getStats());
+        context.close();
+    }
+
+    /**
+     * Mỗi luồng nộp bài với một người dùng riêng
+     */
+    @State(Scope.Thread)
+    public static class Submitter {
+        private String username;
+
+        @Setup(Level.Trial)
+        public void login(SubmissionPersistenceBenchmark benchmark) {
+            username = "bench" + benchmark.userSequence.incrementAndGet();
+            benchmark.userRepository.save(new User(username, "x", username + "@bench.local", username));
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(username, null, List.of()));
+        }
+    }
+
+    @Benchmark
+    public Object batchedSubmit(Submitter submitter) {
+        return testResultService.saveTestResult(new SaveTestResultRequest(testId, 60, answers));
+    }
+
+    @Benchmark
+    public Object writeBehindSubmit(Submitter submitter) {
+        try {
+            return testResultService.submitTestResult(new SaveTestResultRequest(testId, 60, answers));
+        } catch (SubmissionQueueFullException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object entityPerRowSubmit(Submitter submitter) {
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findByUsername(submitter.username).orElseThrow();
+            TestResult result = testResultRepository.save(new TestResult(user, testRepository.getReferenceById(testId)));
+            List<UserAnswer> rows = new ArrayList<>(answers.size());
+            for (SaveTestResultRequest.UserAnswerRequest answer : answers) {
+                rows.add(new UserAnswer(null, result, questionRepository.getReferenceById(answer.getQuestionId()),
+                        answer.getUserAnswer(), Boolean.TRUE));
+            }
+            userAnswerRepository.saveAll(rows);
+            result.setTotalQuestions(rows.size());
+            return testResultRepository.save(result).getId();
+        });
+    }
+
+    private void seedTest(QuestionGroupRepository groupRepository) {
+        answers = new ArrayList<>(questionCount);
+        testId = transactionTemplate.execute(status -> {
+            Test test = new Test();
+            test.setTitle("Benchmark " + questionCount);
+            test.setType(Test.TestType.FULL);
+            test.setDuration(120);
+            String[] keys = { "A", "B", "C", "D" };
+            for (int g = 0; g * 4 < questionCount; g++) {
+                QuestionGroup group = new QuestionGroup();
+                group.setTitle("Nhóm " + g);
+                group.setQuestionType(g % 2 == 0 ? QuestionGroup.QuestionType.LISTENING : QuestionGroup.QuestionType.READING);
+                group.setPart(g % 7 + 1);
+                group = groupRepository.save(group);
+                for (int q = 0; q < 4 && g * 4 + q < questionCount; q++) {
+                    ToeicQuestion question = new ToeicQuestion();
+                    question.setQuestion("Câu hỏi " + g + "." + q);
+                    question.setQuestionOrder(q + 1);
+                    question.setCorrectAnswer(keys[(g + q) % keys.length]);
+                    question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+                    question.setQuestionGroup(group);
+                    question = questionRepository.save(question);
+                    answers.add(new SaveTestResultRequest.UserAnswerRequest(question.getId(), keys[q % keys.length]));
+                }
+                test.addQuestionGroup(group);
+            }
+            return testRepository.save(test).getId();
+        });
+    }
+}
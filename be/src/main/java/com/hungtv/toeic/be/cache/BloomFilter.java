@@ -0,0 +1,103 @@
+package com.hungtv.toeic.be.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter trên chuỗi, kích thước cố định, an toàn khi nhiều luồng cùng đọc và ghi mà không cần khóa.
+ *
+ * mightContain trả về false thì chắc chắn chuỗi chưa được thêm; trả về true thì có thể là dương tính
+ * giả, người gọi phải kiểm tra lại bằng nguồn chính xác. Không xóa được phần tử: khi cần bỏ phần tử
+ * thì dựng filter mới rồi thay thế.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        int wordCount = (int) Math.max(1, (bitCount + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Tạo filter cho số phần tử dự kiến và tỉ lệ dương tính giả mong muốn
+     *
+     * @param expectedEntries Số phần tử dự kiến
+     * @param falsePositiveRate Tỉ lệ dương tính giả, ví dụ 0.01
+     * @return BloomFilter rỗng
+     */
+    public static BloomFilter create(long expectedEntries, double falsePositiveRate) {
+        long n = Math.max(1, expectedEntries);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long bits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int hashes = (int) Math.max(1, Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(Math.min(bits, (long) Integer.MAX_VALUE << 6), Math.min(hashes, 16));
+    }
+
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Tỉ lệ bit đã bật, dùng để biết khi nào filter đã quá đầy và nên dựng lại với kích thước lớn hơn
+     */
+    public double getFillRatio() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return (double) set / bitCount;
+    }
+
+    /**
+     * FNV-1a 64 bit trên UTF-8 rồi trộn lại để các bit thấp phân bố đều
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
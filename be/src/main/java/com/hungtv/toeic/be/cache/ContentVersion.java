@@ -0,0 +1,50 @@
+package com.hungtv.toeic.be.cache;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Phiên bản nội dung của một bài thi hoặc nhóm câu hỏi, dùng để sinh ETag và Last-Modified.
+ */
+public final class ContentVersion {
+
+    private final long version;
+    private final LocalDateTime updatedAt;
+
+    public ContentVersion(Long version, LocalDateTime updatedAt) {
+        this.version = version != null ? version : 0L;
+        this.updatedAt = updatedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Thời điểm cập nhật tính theo epoch millis, -1 nếu chưa có
+     */
+    public long getLastModifiedMillis() {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1L;
+    }
+
+    /**
+     * Sinh ETag mạnh (strong) cho một biểu diễn của tài nguyên. Mỗi cách mã hóa
+     * (gzip, deflate) là một biểu diễn khác nhau nên có ETag riêng.
+     *
+     * @param resource Tên biểu diễn, ví dụ "test-12"
+     * @param encoding Content-Encoding (null nếu không nén)
+     * @return ETag đã có dấu nháy kép
+     */
+    public String toETag(String resource, String encoding) {
+        StringBuilder tag = new StringBuilder(resource.length() + 24);
+        tag.append('"').append(resource).append("-v").append(version);
+        if (encoding != null) {
+            tag.append('-').append(encoding);
+        }
+        return tag.append('"').toString();
+    }
+}
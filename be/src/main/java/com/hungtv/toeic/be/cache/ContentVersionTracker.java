@@ -0,0 +1,247 @@
+package com.hungtv.toeic.be.cache;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.support.StatsCounters;
+import com.hungtv.toeic.be.support.TransactionCallbacks;
+
+/**
+ * Quản lý phiên bản nội dung (content_version) của bài thi và nhóm câu hỏi.
+ *
+ * Các service ghi chỉ cần đánh dấu bài thi/nhóm đã thay đổi; phiên bản trong database
+ * được tăng một lần ngay trước khi transaction commit, và cache cục bộ được làm mới
+ * sau khi commit. Việc đọc phiên bản là một cache hit hoặc một truy vấn theo khóa chính.
+ */
+@Component
+public class ContentVersionTracker {
+    private static final Logger logger = LoggerFactory.getLogger(ContentVersionTracker.class);
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Thời gian tin cậy phiên bản đã cache trước khi kiểm tra lại database
+    // (để nhận thay đổi từ các node khác)
+    @Value("${app.cache.content-version-ttl-ms:5000}")
+    private long versionTtlMs;
+
+    private final ConcurrentMap<Long, CachedVersion> testVersions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, CachedVersion> groupVersions = new ConcurrentHashMap<>();
+    private final List<Consumer<Long>> testListeners = new CopyOnWriteArrayList<>();
+    // Tăng sau mỗi lần công bố thay đổi; kết quả đọc database bắt đầu trước đó không được đưa vào cache
+    private final AtomicLong publishStamp = new AtomicLong();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder hits = counters.register("hits");
+    private final LongAdder lookups = counters.register("lookups");
+    private final LongAdder testBumps = counters.register("testBumps");
+    private final LongAdder groupBumps = counters.register("groupBumps");
+
+    /**
+     * Phiên bản nội dung hiện tại của bài thi
+     *
+     * @param testId ID của bài thi
+     * @return ContentVersion, null nếu không tồn tại bài thi
+     */
+    public ContentVersion getTestVersion(Long testId) {
+        CachedVersion cached = testVersions.get(testId);
+        if (cached != null && cached.isFresh(versionTtlMs)) {
+            hits.increment();
+            return cached.value;
+        }
+        lookups.increment();
+        long stamp = publishStamp.get();
+        ContentVersion version = testRepository.findContentVersionById(testId).orElse(null);
+        if (version != null && publishStamp.get() == stamp) {
+            testVersions.put(testId, new CachedVersion(version));
+        }
+        return version;
+    }
+
+    /**
+     * Phiên bản nội dung hiện tại của nhóm câu hỏi
+     *
+     * @param groupId ID của nhóm câu hỏi
+     * @return ContentVersion, null nếu không tồn tại nhóm
+     */
+    public ContentVersion getGroupVersion(Long groupId) {
+        CachedVersion cached = groupVersions.get(groupId);
+        if (cached != null && cached.isFresh(versionTtlMs)) {
+            hits.increment();
+            return cached.value;
+        }
+        lookups.increment();
+        long stamp = publishStamp.get();
+        ContentVersion version = questionGroupRepository.findContentVersionById(groupId).orElse(null);
+        if (version != null && publishStamp.get() == stamp) {
+            groupVersions.put(groupId, new CachedVersion(version));
+        }
+        return version;
+    }
+
+    /**
+     * Đánh dấu nội dung bài thi đã thay đổi trong transaction hiện tại
+     *
+     * @param testId ID của bài thi
+     */
+    public void testChanged(Long testId) {
+        if (testId == null) {
+            return;
+        }
+        PendingChanges pending = pendingChanges();
+        if (pending != null) {
+            pending.testIds.add(testId);
+        } else {
+            PendingChanges changes = new PendingChanges();
+            changes.testIds.add(testId);
+            applyNow(changes);
+        }
+    }
+
+    /**
+     * Đánh dấu nhiều bài thi đã thay đổi
+     *
+     * @param testIds Danh sách ID bài thi
+     */
+    public void testsChanged(Collection<Long> testIds) {
+        for (Long testId : testIds) {
+            testChanged(testId);
+        }
+    }
+
+    /**
+     * Đánh dấu nhóm câu hỏi đã thay đổi, kéo theo tất cả bài thi đang chứa nhóm.
+     * Phải gọi trước khi quan hệ giữa nhóm và bài thi bị xóa.
+     *
+     * @param groupId ID của nhóm câu hỏi
+     */
+    public void groupChanged(Long groupId) {
+        if (groupId == null) {
+            return;
+        }
+        PendingChanges pending = pendingChanges();
+        if (pending == null) {
+            PendingChanges changes = new PendingChanges();
+            changes.groupIds.add(groupId);
+            changes.testIds.addAll(testRepository.findIdsByQuestionGroupId(groupId));
+            applyNow(changes);
+            return;
+        }
+        if (pending.groupIds.add(groupId)) {
+            pending.testIds.addAll(testRepository.findIdsByQuestionGroupId(groupId));
+        }
+    }
+
+    /**
+     * Đăng ký callback được gọi (sau commit) mỗi khi nội dung một bài thi thay đổi
+     *
+     * @param listener Callback nhận ID bài thi
+     */
+    public void addTestListener(Consumer<Long> listener) {
+        testListeners.add(listener);
+    }
+
+    /**
+     * Thống kê hoạt động
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedTests", testVersions.size());
+        stats.put("cachedGroups", groupVersions.size());
+        counters.putInto(stats);
+        return stats;
+    }
+
+    /**
+     * Tăng phiên bản trong database (phải chạy trong transaction)
+     */
+    private void bump(PendingChanges changes) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!changes.testIds.isEmpty()) {
+            testRepository.incrementContentVersion(changes.testIds, now);
+            testBumps.add(changes.testIds.size());
+        }
+        if (!changes.groupIds.isEmpty()) {
+            questionGroupRepository.incrementContentVersion(changes.groupIds, now);
+            groupBumps.add(changes.groupIds.size());
+        }
+    }
+
+    /**
+     * Bỏ phiên bản đã cache và thông báo cho các cache phụ thuộc (sau commit)
+     */
+    private void publish(PendingChanges changes) {
+        publishStamp.incrementAndGet();
+        for (Long groupId : changes.groupIds) {
+            groupVersions.remove(groupId);
+        }
+        for (Long testId : changes.testIds) {
+            testVersions.remove(testId);
+            for (Consumer<Long> listener : testListeners) {
+                listener.accept(testId);
+            }
+        }
+        logger.debug("Đã tăng phiên bản nội dung: tests={}, groups={}", changes.testIds, changes.groupIds);
+    }
+
+    private void applyNow(PendingChanges changes) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> bump(changes));
+        publish(changes);
+    }
+
+    /**
+     * Lấy (hoặc tạo) danh sách thay đổi gắn với transaction hiện tại
+     */
+    private PendingChanges pendingChanges() {
+        return TransactionCallbacks.bindToTransaction(this, PendingChanges::new, this::bump, this::publish);
+    }
+
+    private static final class CachedVersion {
+        private final ContentVersion value;
+        private final long loadedAtNanos = System.nanoTime();
+
+        private CachedVersion(ContentVersion value) {
+            this.value = value;
+        }
+
+        private boolean isFresh(long ttlMs) {
+            return System.nanoTime() - loadedAtNanos < TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        }
+    }
+
+    private static final class PendingChanges {
+        private final Set<Long> testIds = new HashSet<>();
+        private final Set<Long> groupIds = new HashSet<>();
+    }
+}
@@ -0,0 +1,187 @@
+package com.hungtv.toeic.be.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Nội dung JSON đã được serialize sẵn (UTF-8) kèm các bản nén gzip và deflate.
+ * Được dựng một lần cho mỗi phiên bản nội dung và ghi thẳng ra response.
+ * Các mảng byte được dùng chung giữa nhiều request nên tuyệt đối không được sửa đổi.
+ */
+public final class SerializedPayload {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private final ContentVersion contentVersion;
+    private final Variant identity;
+    private final Variant gzip;
+    private final Variant deflate;
+
+    public SerializedPayload(ContentVersion contentVersion, byte[] json) {
+        this.contentVersion = contentVersion;
+        this.identity = new Variant(null, json);
+        this.gzip = new Variant(GZIP, gzip(json));
+        this.deflate = new Variant(DEFLATE, deflate(json));
+    }
+
+    public long getVersion() {
+        return contentVersion.getVersion();
+    }
+
+    public ContentVersion getContentVersion() {
+        return contentVersion;
+    }
+
+    public Variant getIdentity() {
+        return identity;
+    }
+
+    public Variant getGzip() {
+        return gzip;
+    }
+
+    public Variant getDeflate() {
+        return deflate;
+    }
+
+    /**
+     * Tổng số byte đang giữ trong bộ nhớ (cả 3 biến thể)
+     */
+    public long getRetainedBytes() {
+        return identity.getLength() + gzip.getLength() + deflate.getLength();
+    }
+
+    /**
+     * Chọn biến thể phù hợp với header Accept-Encoding của client: mã hóa có q lớn nhất
+     * (gzip khi bằng nhau); mã hóa được nêu rõ dùng q của chính nó, "*" chỉ áp dụng cho mã
+     * hóa không được nêu; q=0 nghĩa là không chấp nhận.
+     *
+     * @param acceptEncoding Giá trị header Accept-Encoding (có thể null)
+     * @return Variant
+     */
+    public Variant select(String acceptEncoding) {
+        String encoding = selectEncoding(acceptEncoding);
+        if (GZIP.equals(encoding)) {
+            return gzip;
+        }
+        return DEFLATE.equals(encoding) ? deflate : identity;
+    }
+
+    /**
+     * Xác định mã hóa sẽ dùng cho header Accept-Encoding mà không cần có payload
+     * (dùng để sinh ETag khi trả về 304)
+     *
+     * @param acceptEncoding Giá trị header Accept-Encoding (có thể null)
+     * @return GZIP, DEFLATE hoặc null nếu không nén
+     */
+    public static String selectEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        // -1 = không được nêu
+        double gzipQ = -1;
+        double deflateQ = -1;
+        double anyQ = -1;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double q = quality(parts);
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzipQ = Math.max(gzipQ, q);
+            } else if (coding.equals(DEFLATE)) {
+                deflateQ = Math.max(deflateQ, q);
+            } else if (coding.equals("*")) {
+                anyQ = Math.max(anyQ, q);
+            }
+        }
+        if (gzipQ < 0) {
+            gzipQ = anyQ;
+        }
+        if (deflateQ < 0) {
+            deflateQ = anyQ;
+        }
+        if (gzipQ > 0 && gzipQ >= deflateQ) {
+            return GZIP;
+        }
+        return deflateQ > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * Giá trị q của một mã hóa (mặc định 1, không hợp lệ coi như 0)
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    double q = Double.parseDouble(param.substring(2));
+                    return q > 0 ? Math.min(q, 1.0) : 0.0;
+                } catch (NumberFormatException e) {
+                    return 0.0;
+                }
+            }
+        }
+        return 1.0;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        // Nén một lần rồi dùng lại nhiều lần nên dùng mức nén cao nhất
+        try (GZIPOutputStream gz = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(out, deflater)) {
+            dos.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Một biến thể mã hóa của nội dung
+     */
+    public static final class Variant {
+        private final String encoding;
+        private final byte[] body;
+
+        Variant(String encoding, byte[] body) {
+            this.encoding = encoding;
+            this.body = body;
+        }
+
+        /**
+         * Giá trị Content-Encoding, null nếu không nén
+         */
+        public String getEncoding() {
+            return encoding;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public int getLength() {
+            return body.length;
+        }
+    }
+}
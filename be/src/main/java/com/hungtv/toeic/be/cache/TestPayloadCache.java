@@ -0,0 +1,160 @@
+package com.hungtv.toeic.be.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache các payload JSON đã serialize và nén sẵn cho các endpoint đọc bài thi.
+ *
+ * Mỗi payload gắn với phiên bản của TestSnapshot dùng để dựng nó; khi phiên bản thay đổi
+ * payload được dựng lại đúng một lần, các request còn lại chỉ ghi mảng byte có sẵn ra response.
+ * Việc serialize và nén chạy ngoài map: request cùng bài thi và phiên bản chờ chung một lần
+ * dựng, còn request của bài thi khác không bị chặn.
+ */
+@Component
+public class TestPayloadCache {
+
+    /**
+     * Các dạng payload được cache cho mỗi bài thi
+     */
+    public enum View {
+        TEST,
+        QUESTIONS
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestSnapshotCache snapshotCache;
+
+    private final ConcurrentMap<PayloadKey, SerializedPayload> payloads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<BuildKey, CompletableFuture<SerializedPayload>> inFlight = new ConcurrentHashMap<>();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder hits = counters.register("hits");
+    private final LongAdder builds = counters.register("builds");
+    private final LongAdder evictions = counters.register("evictions");
+    private final LongAdder totalBuildNanos = new LongAdder();
+
+    @PostConstruct
+    public void registerInvalidation() {
+        snapshotCache.addInvalidationListener(this::evictTest);
+    }
+
+    /**
+     * Lấy payload của bài thi cho phiên bản ảnh chụp hiện tại, dựng mới nếu cần
+     *
+     * @param snapshot Ảnh chụp bài thi
+     * @param view Dạng payload
+     * @param body Hàm dựng đối tượng response (chỉ được gọi khi cần serialize lại)
+     * @return SerializedPayload
+     */
+    public SerializedPayload get(TestSnapshot snapshot, View view, Supplier<Object> body) {
+        PayloadKey key = new PayloadKey(snapshot.getTestId(), view);
+        SerializedPayload cached = payloads.get(key);
+        if (cached != null && cached.getVersion() == snapshot.getVersion()) {
+            hits.increment();
+            return cached;
+        }
+
+        BuildKey buildKey = new BuildKey(key, snapshot.getVersion());
+        CompletableFuture<SerializedPayload> future = new CompletableFuture<>();
+        CompletableFuture<SerializedPayload> existing = inFlight.putIfAbsent(buildKey, future);
+        if (existing != null) {
+            // Một request khác đang dựng cùng phiên bản, chờ kết quả của nó
+            return await(existing);
+        }
+
+        try {
+            long start = System.nanoTime();
+            SerializedPayload payload = new SerializedPayload(snapshot.getContentVersion(), serialize(body.get()));
+            builds.increment();
+            totalBuildNanos.add(System.nanoTime() - start);
+
+            // Không ghi đè payload mới hơn đã được dựng bởi request khác
+            payloads.merge(key, payload, (old, fresh) -> old.getVersion() > fresh.getVersion() ? old : fresh);
+            future.complete(payload);
+            return payload;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(buildKey, future);
+        }
+    }
+
+    /**
+     * Xóa toàn bộ payload của bài thi
+     *
+     * @param testId ID của bài thi
+     */
+    public void evictTest(Long testId) {
+        for (View view : View.values()) {
+            if (payloads.remove(new PayloadKey(testId, view)) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Thống kê hoạt động của cache
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        long retained = 0;
+        for (SerializedPayload payload : payloads.values()) {
+            retained += payload.getRetainedBytes();
+        }
+        long buildCount = builds.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", payloads.size());
+        counters.putInto(stats);
+        stats.put("retainedBytes", retained);
+        stats.put("avgBuildMillis", StatsCounters.averageMillis(totalBuildNanos.sum(), buildCount));
+        return stats;
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Không thể serialize dữ liệu bài thi: " + e.getMessage(), e);
+        }
+    }
+
+    private SerializedPayload await(CompletableFuture<SerializedPayload> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record PayloadKey(Long testId, View view) {
+    }
+
+    private record BuildKey(PayloadKey payload, long version) {
+    }
+}
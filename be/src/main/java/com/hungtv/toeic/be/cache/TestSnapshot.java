@@ -0,0 +1,276 @@
+package com.hungtv.toeic.be.cache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.Test;
+import com.hungtv.toeic.be.models.ToeicOption;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+
+/**
+ * Ảnh chụp bất biến (immutable) của một bài thi: thông tin bài thi, các nhóm câu hỏi,
+ * câu hỏi và tùy chọn. Được dựng một lần cho mỗi phiên bản nội dung và dùng chung
+ * cho mọi request đọc, không giữ tham chiếu tới entity JPA.
+ */
+public final class TestSnapshot {
+
+    private final Long testId;
+    private final ContentVersion contentVersion;
+    private final String title;
+    private final String description;
+    private final Test.TestType type;
+    private final Integer duration;
+    private final String instructions;
+    private final LocalDateTime createdAt;
+    private final String createdBy;
+    private final Boolean isActive;
+    private final List<GroupSnapshot> groups;
+    private final List<QuestionSnapshot> questions;
+
+    public TestSnapshot(Test test, List<GroupSnapshot> groups) {
+        this.testId = test.getId();
+        this.contentVersion = new ContentVersion(test.getContentVersion(), test.getContentUpdatedAt());
+        this.title = test.getTitle();
+        this.description = test.getDescription();
+        this.type = test.getType();
+        this.duration = test.getDuration();
+        this.instructions = test.getInstructions();
+        this.createdAt = test.getCreatedAt();
+        this.createdBy = test.getCreatedBy();
+        this.isActive = test.getIsActive();
+        this.groups = Collections.unmodifiableList(new ArrayList<>(groups));
+
+        // Danh sách câu hỏi phẳng theo đúng thứ tự hiển thị (nhóm -> thứ tự câu hỏi)
+        List<QuestionSnapshot> flat = new ArrayList<>();
+        for (GroupSnapshot group : groups) {
+            flat.addAll(group.getQuestions());
+        }
+        this.questions = Collections.unmodifiableList(flat);
+    }
+
+    public Long getTestId() {
+        return testId;
+    }
+
+    public long getVersion() {
+        return contentVersion.getVersion();
+    }
+
+    public ContentVersion getContentVersion() {
+        return contentVersion;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Test.TestType getType() {
+        return type;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public String getInstructions() {
+        return instructions;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public List<GroupSnapshot> getGroups() {
+        return groups;
+    }
+
+    public List<QuestionSnapshot> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * Nhóm câu hỏi trong ảnh chụp
+     */
+    public static final class GroupSnapshot {
+        private final Long id;
+        private final String title;
+        private final QuestionGroup.QuestionType questionType;
+        private final Integer part;
+        private final String audioUrl;
+        private final String imageUrl;
+        private final String passage;
+        private final Long testId;
+        private final List<QuestionSnapshot> questions;
+
+        public GroupSnapshot(QuestionGroup group, List<ToeicQuestion> orderedQuestions) {
+            this.id = group.getId();
+            this.title = group.getTitle();
+            this.questionType = group.getQuestionType();
+            this.part = group.getPart();
+            this.audioUrl = group.getAudioUrl();
+            this.imageUrl = group.getImageUrl();
+            this.passage = group.getPassage();
+            this.testId = group.getTest() != null ? group.getTest().getId() : null;
+
+            List<QuestionSnapshot> list = new ArrayList<>(orderedQuestions.size());
+            for (ToeicQuestion question : orderedQuestions) {
+                list.add(new QuestionSnapshot(question, this));
+            }
+            this.questions = Collections.unmodifiableList(list);
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public QuestionGroup.QuestionType getQuestionType() {
+            return questionType;
+        }
+
+        public Integer getPart() {
+            return part;
+        }
+
+        public String getAudioUrl() {
+            return audioUrl;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public String getPassage() {
+            return passage;
+        }
+
+        public Long getTestId() {
+            return testId;
+        }
+
+        public List<QuestionSnapshot> getQuestions() {
+            return questions;
+        }
+    }
+
+    /**
+     * Câu hỏi trong ảnh chụp, giữ tham chiếu ngược tới nhóm chứa nó
+     */
+    public static final class QuestionSnapshot {
+        private final Long id;
+        private final GroupSnapshot group;
+        private final String question;
+        private final Integer questionOrder;
+        private final String correctAnswer;
+        private final String explanation;
+        private final ToeicQuestion.DifficultyLevel difficultyLevel;
+        private final ToeicQuestion.QuestionCategory category;
+        private final List<OptionSnapshot> options;
+
+        QuestionSnapshot(ToeicQuestion question, GroupSnapshot group) {
+            this.id = question.getId();
+            this.group = group;
+            this.question = question.getQuestion();
+            this.questionOrder = question.getQuestionOrder();
+            this.correctAnswer = question.getCorrectAnswer();
+            this.explanation = question.getExplanation();
+            this.difficultyLevel = question.getDifficultyLevel();
+            this.category = question.getCategory();
+
+            // Sắp xếp tùy chọn theo optionKey để thứ tự ổn định giữa các lần dựng
+            List<OptionSnapshot> list = new ArrayList<>();
+            if (question.getOptions() != null) {
+                for (ToeicOption option : question.getOptions()) {
+                    list.add(new OptionSnapshot(option));
+                }
+            }
+            list.sort((a, b) -> {
+                if (a.getOptionKey() == null) return b.getOptionKey() == null ? 0 : 1;
+                if (b.getOptionKey() == null) return -1;
+                return a.getOptionKey().compareTo(b.getOptionKey());
+            });
+            this.options = Collections.unmodifiableList(list);
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public GroupSnapshot getGroup() {
+            return group;
+        }
+
+        public String getQuestion() {
+            return question;
+        }
+
+        public Integer getQuestionOrder() {
+            return questionOrder;
+        }
+
+        public String getCorrectAnswer() {
+            return correctAnswer;
+        }
+
+        public String getExplanation() {
+            return explanation;
+        }
+
+        public ToeicQuestion.DifficultyLevel getDifficultyLevel() {
+            return difficultyLevel;
+        }
+
+        public ToeicQuestion.QuestionCategory getCategory() {
+            return category;
+        }
+
+        public List<OptionSnapshot> getOptions() {
+            return options;
+        }
+    }
+
+    /**
+     * Tùy chọn trả lời trong ảnh chụp
+     */
+    public static final class OptionSnapshot {
+        private final Long id;
+        private final String optionKey;
+        private final String optionText;
+
+        OptionSnapshot(ToeicOption option) {
+            this.id = option.getId();
+            this.optionKey = option.getOptionKey();
+            this.optionText = option.getOptionText();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getOptionKey() {
+            return optionKey;
+        }
+
+        public String getOptionText() {
+            return optionText;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.hungtv.toeic.be.cache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache đọc xuyên (read-through) cho TestSnapshot, khóa theo ID bài thi và phiên bản nội dung.
+ *
+ * Phiên bản lấy từ ContentVersionTracker (cột content_version); mỗi thao tác ghi của admin
+ * chạm tới bài thi tăng phiên bản nên ảnh chụp cũ không bao giờ được phục vụ lại.
+ * Các request cùng lúc cho cùng một phiên bản chỉ dựng ảnh chụp một lần.
+ */
+@Component
+public class TestSnapshotCache {
+    private static final Logger logger = LoggerFactory.getLogger(TestSnapshotCache.class);
+
+    @Autowired
+    private TestSnapshotLoader snapshotLoader;
+
+    @Autowired
+    private ContentVersionTracker contentVersions;
+
+    private final ConcurrentMap<Long, TestSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SnapshotKey, CompletableFuture<TestSnapshot>> inFlight = new ConcurrentHashMap<>();
+    private final List<Consumer<Long>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder hits = counters.register("hits");
+    private final LongAdder misses = counters.register("misses");
+    private final LongAdder builds = counters.register("builds");
+    private final LongAdder buildFailures = counters.register("buildFailures");
+    private final LongAdder evictions = counters.register("evictions");
+    private final LongAdder totalBuildNanos = new LongAdder();
+    private final AtomicLong maxBuildNanos = new AtomicLong();
+
+    /**
+     * Lấy ảnh chụp hiện hành của bài thi, dựng mới nếu chưa có trong cache
+     *
+     * @param testId ID của bài thi
+     * @return TestSnapshot
+     * @throws RuntimeException nếu không tìm thấy bài thi
+     */
+    public TestSnapshot get(Long testId) {
+        ContentVersion current = contentVersions.getTestVersion(testId);
+        if (current == null) {
+            throw new RuntimeException("Không tìm thấy bài thi với ID: " + testId);
+        }
+        long version = current.getVersion();
+        TestSnapshot cached = snapshots.get(testId);
+        if (cached != null && cached.getVersion() >= version) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        SnapshotKey key = new SnapshotKey(testId, version);
+        CompletableFuture<TestSnapshot> future = new CompletableFuture<>();
+        CompletableFuture<TestSnapshot> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            // Một request khác đang dựng cùng phiên bản, chờ kết quả của nó
+            return await(existing);
+        }
+
+        try {
+            long start = System.nanoTime();
+            TestSnapshot snapshot = snapshotLoader.load(testId);
+            recordBuild(System.nanoTime() - start);
+
+            // Không ghi đè ảnh chụp mới hơn đã được dựng bởi request khác
+            snapshots.merge(testId, snapshot,
+                    (old, fresh) -> old.getVersion() > fresh.getVersion() ? old : fresh);
+            future.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            buildFailures.increment();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @PostConstruct
+    public void registerInvalidation() {
+        contentVersions.addTestListener(this::invalidate);
+    }
+
+    /**
+     * Đăng ký callback được gọi mỗi khi một bài thi bị làm mới (sau commit),
+     * dùng cho các cache phụ thuộc vào ảnh chụp
+     *
+     * @param listener Callback nhận ID bài thi
+     */
+    public void addInvalidationListener(Consumer<Long> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Thống kê hoạt động của cache
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long buildCount = builds.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", snapshots.size());
+        counters.putInto(stats);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("avgBuildMillis", StatsCounters.averageMillis(totalBuildNanos.sum(), buildCount));
+        stats.put("maxBuildMillis", maxBuildNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private void invalidate(Long testId) {
+        snapshots.remove(testId);
+        evictions.increment();
+        for (Consumer<Long> listener : invalidationListeners) {
+            listener.accept(testId);
+        }
+        logger.debug("Đã làm mới cache bài thi ID={}", testId);
+    }
+
+    private void recordBuild(long nanos) {
+        builds.increment();
+        totalBuildNanos.add(nanos);
+        maxBuildNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private TestSnapshot await(CompletableFuture<TestSnapshot> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record SnapshotKey(Long testId, long version) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.hungtv.toeic.be.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.Test;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+
+/**
+ * Dựng TestSnapshot từ database với số truy vấn cố định:
+ * 1 truy vấn cho bài thi + nhóm câu hỏi, 1 truy vấn cho toàn bộ câu hỏi + tùy chọn.
+ */
+@Component
+public class TestSnapshotLoader {
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private ToeicQuestionRepository questionRepository;
+
+    /**
+     * Nạp ảnh chụp của bài thi
+     *
+     * @param testId ID của bài thi
+     * @return TestSnapshot (phiên bản lấy từ cột content_version đọc cùng transaction)
+     * @throws RuntimeException nếu không tìm thấy bài thi
+     */
+    @Transactional(readOnly = true)
+    public TestSnapshot load(Long testId) {
+        Test test = testRepository.findWithQuestionGroupsById(testId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy bài thi với ID: " + testId));
+
+        // Giữ nguyên thứ tự nhóm như trong bài thi, loại bỏ trùng lặp
+        Set<QuestionGroup> groups = new LinkedHashSet<>(test.getQuestionGroups());
+        if (groups.isEmpty()) {
+            return new TestSnapshot(test, new ArrayList<>());
+        }
+
+        List<Long> groupIds = new ArrayList<>(groups.size());
+        for (QuestionGroup group : groups) {
+            groupIds.add(group.getId());
+        }
+
+        // Câu hỏi đã được sắp xếp theo questionOrder, chỉ cần chia lại theo nhóm
+        Map<Long, List<ToeicQuestion>> questionsByGroup = new HashMap<>();
+        for (ToeicQuestion question : questionRepository.findWithOptionsByQuestionGroupIdIn(groupIds)) {
+            questionsByGroup
+                    .computeIfAbsent(question.getQuestionGroup().getId(), k -> new ArrayList<>())
+                    .add(question);
+        }
+
+        List<TestSnapshot.GroupSnapshot> groupSnapshots = new ArrayList<>(groups.size());
+        for (QuestionGroup group : groups) {
+            List<ToeicQuestion> questions = questionsByGroup.getOrDefault(group.getId(), new ArrayList<>());
+            groupSnapshots.add(new TestSnapshot.GroupSnapshot(group, questions));
+        }
+
+        return new TestSnapshot(test, groupSnapshots);
+    }
+}
@@ -0,0 +1,172 @@
+package com.hungtv.toeic.be.controllers;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.hungtv.toeic.be.payload.response.QuestionStatsResponse;
+import com.hungtv.toeic.be.services.AnswerSheetMigrationService;
+import com.hungtv.toeic.be.services.ItemAnalyticsService;
+import com.hungtv.toeic.be.services.RescoringService;
+import com.hungtv.toeic.be.services.UserStatisticsService;
+import com.hungtv.toeic.be.statistics.ScoreDistributionStore;
+
+@RestController
+@RequestMapping("/api/admin/maintenance")
+public class AdminMaintenanceController {
+
+    private static final int MAX_FLAGGED_QUESTIONS = 500;
+
+    @Autowired
+    private AnswerSheetMigrationService answerSheetMigration;
+
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private ScoreDistributionStore scoreDistributions;
+
+    @Autowired
+    private ItemAnalyticsService itemAnalytics;
+
+    @Autowired
+    private RescoringService rescoring;
+
+    /**
+     * Bắt đầu chuyển câu trả lời dạng dòng sang phiếu trả lời nén (chạy nền, Admin only).
+     * Trả về 409 nếu đang có lần chuyển đổi khác chạy.
+     */
+    @PostMapping("/answer-sheets/migrate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> migrateAnswerSheets() {
+        boolean started = answerSheetMigration.start();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(answerSheetMigration.getStatus());
+    }
+
+    /**
+     * Trạng thái của lần chuyển đổi gần nhất (Admin only)
+     */
+    @GetMapping("/answer-sheets/migrate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAnswerSheetMigration() {
+        return ResponseEntity.ok(answerSheetMigration.getStatus());
+    }
+
+    /**
+     * Tính lại thống kê của mọi người dùng từ lịch sử bài làm (chạy nền, song song, Admin only).
+     * Trả về 409 nếu đang có lần dựng lại khác chạy.
+     */
+    @PostMapping("/user-statistics/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildUserStatistics() {
+        boolean started = userStatisticsService.startRebuild();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(userStatisticsService.getRebuildStatus());
+    }
+
+    /**
+     * Trạng thái của lần dựng lại thống kê gần nhất (Admin only)
+     */
+    @GetMapping("/user-statistics/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getUserStatisticsRebuild() {
+        return ResponseEntity.ok(userStatisticsService.getRebuildStatus());
+    }
+
+    /**
+     * Tính lại phân bố điểm của mọi bài thi từ test_results (chạy nền, Admin only).
+     * Trả về 409 nếu đang có lần tính lại khác chạy.
+     */
+    @PostMapping("/score-distributions/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildScoreDistributions() {
+        boolean started = scoreDistributions.startRebuild();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(scoreDistributions.getRebuildStatus());
+    }
+
+    /**
+     * Trạng thái của lần tính lại phân bố điểm gần nhất (Admin only)
+     */
+    @GetMapping("/score-distributions/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getScoreDistributionRebuild() {
+        return ResponseEntity.ok(scoreDistributions.getRebuildStatus());
+    }
+
+    /**
+     * Tính thống kê câu hỏi (độ khó, độ phân biệt) từ các bài nộp (chạy nền, Admin only).
+     * incremental=true chỉ cộng các bài nộp mới từ lần tính trước. Trả về 409 nếu đang có lần tính khác chạy.
+     */
+    @PostMapping("/item-analytics/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> runItemAnalytics(
+            @RequestParam(defaultValue = "true") boolean incremental) {
+        boolean started = itemAnalytics.start(incremental);
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(itemAnalytics.getStatus());
+    }
+
+    /**
+     * Trạng thái của lần tính thống kê câu hỏi gần nhất (Admin only)
+     */
+    @GetMapping("/item-analytics/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getItemAnalyticsRun() {
+        return ResponseEntity.ok(itemAnalytics.getStatus());
+    }
+
+    /**
+     * Các câu hỏi có độ phân biệt thấp (nghi lỗi hoặc sai đáp án), thấp nhất trước (Admin only)
+     */
+    @GetMapping("/item-analytics/flagged")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<QuestionStatsResponse>> getFlaggedQuestions(
+            @RequestParam(defaultValue = "30") long minResponses,
+            @RequestParam(defaultValue = "0.1") double threshold,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(itemAnalytics.findLowDiscrimination(minResponses, threshold,
+                Math.max(1, Math.min(limit, MAX_FLAGGED_QUESTIONS))));
+    }
+
+    /**
+     * Chấm lại các bài nộp có câu trả lời cho các câu hỏi theo đáp án hiện hành (chạy nền, Admin only).
+     * Tự động chạy khi đổi đáp án; yêu cầu đến trong lúc đang chạy được gộp vào lần chạy sau.
+     */
+    @PostMapping("/rescoring")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rescore(@RequestParam List<Long> questionIds) {
+        rescoring.request(questionIds);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(rescoring.getStatus());
+    }
+
+    /**
+     * Tiến độ của lần chấm lại gần nhất (Admin only)
+     */
+    @GetMapping("/rescoring")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRescoring() {
+        return ResponseEntity.ok(rescoring.getStatus());
+    }
+
+    /**
+     * Đổi giới hạn tốc độ chấm lại, có hiệu lực ngay cả khi đang chạy (0 = không giới hạn, Admin only)
+     */
+    @PutMapping("/rescoring/throttle")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> throttleRescoring(@RequestParam double maxResultsPerSecond) {
+        rescoring.setMaxResultsPerSecond(maxResultsPerSecond);
+        return ResponseEntity.ok(rescoring.getStatus());
+    }
+}
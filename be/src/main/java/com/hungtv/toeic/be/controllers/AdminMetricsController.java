@@ -0,0 +1,122 @@
+package com.hungtv.toeic.be.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.hungtv.toeic.be.cache.ContentVersionTracker;
+import com.hungtv.toeic.be.cache.TestPayloadCache;
+import com.hungtv.toeic.be.cache.TestSnapshotCache;
+import com.hungtv.toeic.be.scoring.AnswerKeyCache;
+import com.hungtv.toeic.be.scoring.AnswerSheetLayouts;
+import com.hungtv.toeic.be.search.QuestionSearchIndex;
+import com.hungtv.toeic.be.security.services.BoundedPasswordEncoder;
+import com.hungtv.toeic.be.security.services.LoginRateLimiter;
+import com.hungtv.toeic.be.security.services.PrincipalCache;
+import com.hungtv.toeic.be.security.services.UsernameEmailBloomFilter;
+import com.hungtv.toeic.be.services.RefreshTokenService;
+import com.hungtv.toeic.be.services.UserImportService;
+import com.hungtv.toeic.be.services.UserStatisticsService;
+import com.hungtv.toeic.be.session.ExamDeadlineScheduler;
+import com.hungtv.toeic.be.session.ExamSessionStore;
+import com.hungtv.toeic.be.statistics.LeaderboardStore;
+import com.hungtv.toeic.be.statistics.ScoreDistributionStore;
+import com.hungtv.toeic.be.submission.IdempotencyCache;
+import com.hungtv.toeic.be.submission.SubmissionWriteBehind;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+public class AdminMetricsController {
+
+    @Autowired
+    private TestSnapshotCache snapshotCache;
+
+    @Autowired
+    private TestPayloadCache payloadCache;
+
+    @Autowired
+    private ContentVersionTracker contentVersions;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private AnswerSheetLayouts answerSheetLayouts;
+
+    @Autowired
+    private QuestionSearchIndex searchIndex;
+
+    @Autowired
+    private SubmissionWriteBehind submissionWriter;
+
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private ExamSessionStore examSessionStore;
+
+    @Autowired
+    private ExamDeadlineScheduler deadlineScheduler;
+
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private ScoreDistributionStore scoreDistributions;
+
+    @Autowired
+    private LeaderboardStore leaderboards;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private UsernameEmailBloomFilter usernameEmailFilter;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    /**
+     * Lấy số liệu hoạt động của các thành phần cache, chỉ mục tìm kiếm, hàng đợi ghi bài nộp, lượt làm bài và thống kê người dùng (Admin only)
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("testSnapshotCache", snapshotCache.getStats());
+        metrics.put("testPayloadCache", payloadCache.getStats());
+        metrics.put("contentVersions", contentVersions.getStats());
+        metrics.put("answerKeyCache", answerKeyCache.getStats());
+        metrics.put("answerSheets", answerSheetLayouts.getStats());
+        metrics.put("questionSearch", searchIndex.getStats());
+        metrics.put("submissionQueue", submissionWriter.getStats());
+        metrics.put("submissionIdempotency", idempotencyCache.getStats());
+        metrics.put("examSessions", examSessionStore.getStats());
+        metrics.put("examDeadlines", deadlineScheduler.getStats());
+        metrics.put("userStatistics", userStatisticsService.getStats());
+        metrics.put("scoreDistributions", scoreDistributions.getStats());
+        metrics.put("leaderboards", leaderboards.getStats());
+        metrics.put("principalCache", principalCache.getStats());
+        metrics.put("refreshTokens", refreshTokenService.getStats());
+        metrics.put("loginRateLimiter", loginRateLimiter.getStats());
+        metrics.put("passwordHashing", passwordEncoder.getStats());
+        metrics.put("usernameEmailFilter", usernameEmailFilter.getStats());
+        metrics.put("userImport", userImportService.getStats());
+        return ResponseEntity.ok(metrics);
+    }
+}
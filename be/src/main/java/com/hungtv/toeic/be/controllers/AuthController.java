@@ -1,11 +1,15 @@
 package com.hungtv.toeic.be.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import java.util.List;
+
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -13,11 +17,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.hungtv.toeic.be.exception.AuthThrottledException;
+import com.hungtv.toeic.be.exception.TokenRefreshException;
 import com.hungtv.toeic.be.payload.request.ForgotPasswordRequest;
 import com.hungtv.toeic.be.payload.request.LoginRequest;
 import com.hungtv.toeic.be.payload.request.PasswordResetRequest;
 import com.hungtv.toeic.be.payload.request.RegisterRequest;
-import com.hungtv.toeic.be.payload.response.JwtResponse;
 import com.hungtv.toeic.be.payload.response.MessageResponse;
 import com.hungtv.toeic.be.payload.response.UserStatusResponse;
 import com.hungtv.toeic.be.security.services.UserDetailsImpl;
@@ -31,6 +36,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -47,6 +53,7 @@ public class AuthController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Đăng nhập thành công"),
             @ApiResponse(responseCode = "401", description = "Đăng nhập thất bại - sai tên đăng nhập hoặc mật khẩu", ref = "unauthorized"),
+            @ApiResponse(responseCode = "429", description = "Quá nhiều lần thử đăng nhập hoặc hệ thống đang quá tải"),
             @ApiResponse(responseCode = "400", description = "Dữ liệu không hợp lệ", ref = "badRequest")
     })
     @PostMapping("/login")
@@ -71,13 +78,20 @@ public class AuthController {
                             }
                     )
             )
-            @Valid @RequestBody LoginRequest loginRequest) {
-        JwtResponse jwtResponse = authService.authenticateUser(loginRequest);
-        ResponseCookie jwtCookie = authService.getJwtCookie();
+            @Valid @RequestBody LoginRequest loginRequest,
+            HttpServletRequest request) {
+        AuthService.AuthResult result;
+        try {
+            result = authService.authenticateUser(loginRequest, request.getRemoteAddr());
+        } catch (AuthThrottledException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
         
         return ResponseEntity.ok()
-            .header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
-            .body(jwtResponse);
+            .header(HttpHeaders.SET_COOKIE, toHeaderValues(result.cookies()))
+            .body(result.body());
     }
 
     @Operation(
@@ -124,11 +138,13 @@ public class AuthController {
             @ApiResponse(responseCode = "200", description = "Đăng xuất thành công")
     })
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
-        ResponseCookie cookie = authService.logoutUser();
+    public ResponseEntity<?> logout(
+            @CookieValue(name = "${app.jwt.cookieName}", required = false) String accessToken,
+            @CookieValue(name = "${app.jwt.refreshCookieName}", required = false) String refreshToken) {
+        List<ResponseCookie> cookies = authService.logoutUser(accessToken, refreshToken);
         
         return ResponseEntity.ok()
-                .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                .header(HttpHeaders.SET_COOKIE, toHeaderValues(cookies))
                 .body(new MessageResponse("Đăng xuất thành công!"));
     }
 
@@ -181,16 +197,31 @@ public class AuthController {
 
     @Operation(
             summary = "Làm mới token",
-            description = "API làm mới JWT token"
+            description = "API đổi refresh token (cookie) lấy access token và refresh token mới; refresh token cũ không dùng lại được"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Làm mới token thành công"),
-            @ApiResponse(responseCode = "401", description = "Không được phép", ref = "unauthorized")
+            @ApiResponse(responseCode = "401", description = "Không được phép", ref = "unauthorized"),
+            @ApiResponse(responseCode = "409", description = "Refresh token vừa được làm mới bởi request khác, thử lại với cookie mới")
     })
     @PostMapping("/refresh-token")
-    public ResponseEntity<?> refreshToken() {
-        // Xử lý refresh token (sẽ được cài đặt sau)
-        return ResponseEntity.ok(new MessageResponse("Refresh token thành công!"));
+    public ResponseEntity<?> refreshToken(
+            @CookieValue(name = "${app.jwt.refreshCookieName}", required = false) String refreshToken) {
+        try {
+            AuthService.AuthResult result = authService.refreshToken(refreshToken);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, toHeaderValues(result.cookies()))
+                    .body(result.body());
+        } catch (TokenRefreshException e) {
+            if (e.isConcurrent()) {
+                // Request làm mới song song đã nhận cookie mới: giữ nguyên cookie để client thử lại
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new MessageResponse(e.getMessage(), false));
+            }
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .header(HttpHeaders.SET_COOKIE, toHeaderValues(authService.getCleanCookies()))
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
     }
 
     @Operation(
@@ -277,4 +308,8 @@ public class AuthController {
         
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+
+    private static String[] toHeaderValues(List<ResponseCookie> cookies) {
+        return cookies.stream().map(ResponseCookie::toString).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,117 @@
+package com.hungtv.toeic.be.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.hungtv.toeic.be.exception.SubmissionQueueFullException;
+import com.hungtv.toeic.be.payload.request.StartExamSessionRequest;
+import com.hungtv.toeic.be.payload.request.UpdateExamAnswersRequest;
+import com.hungtv.toeic.be.payload.response.ExamSessionResponse;
+import com.hungtv.toeic.be.payload.response.MessageResponse;
+import com.hungtv.toeic.be.payload.response.TestResultResponse;
+import com.hungtv.toeic.be.services.ExamSessionService;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/exam-sessions")
+public class ExamSessionController {
+    
+    @Autowired
+    private ExamSessionService examSessionService;
+    
+    /**
+     * Bắt đầu làm bài thi (hoặc tiếp tục lượt làm bài đang diễn ra của bài thi đó)
+     * 
+     * @param request ID của bài thi
+     * @return ExamSessionResponse
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> startSession(@Valid @RequestBody StartExamSessionRequest request) {
+        try {
+            return ResponseEntity.ok(examSessionService.startSession(request.getTestId()));
+        } catch (SubmissionQueueFullException e) {
+            return tooManyRequests(e);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+    
+    /**
+     * Lấy lượt làm bài cùng các câu trả lời đã lưu
+     * 
+     * @param sessionId ID lượt làm bài
+     * @return ExamSessionResponse
+     */
+    @GetMapping("/{sessionId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<ExamSessionResponse> getSession(@PathVariable Long sessionId) {
+        try {
+            return ResponseEntity.ok(examSessionService.getSession(sessionId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Lưu các câu trả lời thay đổi (userAnswer null để xóa câu trả lời).
+     * Trả về 409 khi lượt làm bài đã kết thúc hoặc đã hết giờ.
+     * 
+     * @param sessionId ID lượt làm bài
+     * @param request Các câu trả lời thay đổi
+     * @return ExamSessionResponse
+     */
+    @PatchMapping("/{sessionId}/answers")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> updateAnswers(@PathVariable Long sessionId,
+            @Valid @RequestBody UpdateExamAnswersRequest request) {
+        try {
+            return ResponseEntity.ok(examSessionService.updateAnswers(sessionId, request.getAnswers()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage(), false));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse(e.getMessage(), false));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Kết thúc lượt làm bài và nộp bài.
+     * Trả về 202 khi bài nộp được ghi bất đồng bộ, 429 kèm Retry-After khi hàng đợi ghi đầy.
+     * 
+     * @param sessionId ID lượt làm bài
+     * @return TestResultResponse
+     */
+    @PostMapping("/{sessionId}/finalize")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> finalizeSession(@PathVariable Long sessionId) {
+        try {
+            TestResultResponse result = examSessionService.finalizeSession(sessionId);
+            return result.isPending() ? ResponseEntity.accepted().body(result) : ResponseEntity.ok(result);
+        } catch (SubmissionQueueFullException e) {
+            return tooManyRequests(e);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse(e.getMessage(), false));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+    
+    private static ResponseEntity<MessageResponse> tooManyRequests(SubmissionQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new MessageResponse(e.getMessage(), false));
+    }
+}
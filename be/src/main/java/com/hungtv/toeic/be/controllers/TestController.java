@@ -7,7 +7,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -16,10 +19,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.hungtv.toeic.be.cache.ContentVersion;
+import com.hungtv.toeic.be.cache.SerializedPayload;
 import com.hungtv.toeic.be.payload.request.CreateTestRequest;
 import com.hungtv.toeic.be.payload.response.ApiResponse;
 import com.hungtv.toeic.be.payload.response.MessageResponse;
@@ -75,10 +82,21 @@ public class TestController {
      * Lấy thông tin bài thi theo ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<TestResponse> getTestById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getTestById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
         try {
-            TestResponse test = testService.getTestById(id);
-            return ResponseEntity.ok(test);
+            ContentVersion version = testService.getTestVersion(id);
+            if (version == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            }
+            String resource = "test-" + id;
+            if (isNotModified(request, version, resource, acceptEncoding)) {
+                return notModified(version, resource, acceptEncoding);
+            }
+            SerializedPayload payload = testService.getTestPayload(id);
+            return writePayload(payload, resource, acceptEncoding);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(null);
@@ -184,10 +202,21 @@ public class TestController {
      * Lấy danh sách nhóm câu hỏi của bài thi
      */
     @GetMapping("/{id}/questions")
-    public ResponseEntity<List<QuestionGroupResponse>> getTestQuestions(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getTestQuestions(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
         try {
-            List<QuestionGroupResponse> questions = testService.getTestQuestions(id);
-            return ResponseEntity.ok(questions);
+            ContentVersion version = testService.getTestVersion(id);
+            if (version == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            String resource = "test-" + id + "-questions";
+            if (isNotModified(request, version, resource, acceptEncoding)) {
+                return notModified(version, resource, acceptEncoding);
+            }
+            SerializedPayload payload = testService.getTestQuestionsPayload(id);
+            return writePayload(payload, resource, acceptEncoding);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -226,4 +255,49 @@ public class TestController {
                     .body(new MessageResponse("Lỗi khi xóa nhóm câu hỏi: " + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Ghi payload đã serialize sẵn ra response, chọn bản nén theo Accept-Encoding.
+     * ETag lấy theo phiên bản của chính payload để luôn khớp với nội dung trả về.
+     */
+    private ResponseEntity<byte[]> writePayload(SerializedPayload payload, String resource, String acceptEncoding) {
+        SerializedPayload.Variant variant = payload.select(acceptEncoding);
+        ResponseEntity.BodyBuilder builder = validatorHeaders(ResponseEntity.ok(), payload.getContentVersion(),
+                resource, variant.getEncoding())
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(variant.getLength());
+        if (variant.getEncoding() != null) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, variant.getEncoding());
+        }
+        return builder.body(variant.getBody());
+    }
+
+    /**
+     * Kiểm tra If-None-Match (hoặc If-Modified-Since khi không có If-None-Match) với phiên bản
+     * hiện tại, không cần dựng ảnh chụp hay payload
+     */
+    private boolean isNotModified(WebRequest request, ContentVersion version, String resource, String acceptEncoding) {
+        String eTag = version.toETag(resource, SerializedPayload.selectEncoding(acceptEncoding));
+        return request.checkNotModified(eTag, version.getLastModifiedMillis());
+    }
+
+    private ResponseEntity<byte[]> notModified(ContentVersion version, String resource, String acceptEncoding) {
+        return validatorHeaders(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version, resource,
+                SerializedPayload.selectEncoding(acceptEncoding))
+                .build();
+    }
+
+    /**
+     * ETag, Last-Modified và Cache-Control: no-cache để trình duyệt luôn gửi GET có điều kiện
+     */
+    private ResponseEntity.BodyBuilder validatorHeaders(ResponseEntity.BodyBuilder builder, ContentVersion version,
+                                                        String resource, String encoding) {
+        builder.eTag(version.toETag(resource, encoding))
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (version.getUpdatedAt() != null) {
+            builder.lastModified(version.getLastModifiedMillis());
+        }
+        return builder;
+    }
+}
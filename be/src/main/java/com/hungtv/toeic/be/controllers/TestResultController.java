@@ -7,18 +7,27 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.hungtv.toeic.be.exception.SubmissionQueueFullException;
 import com.hungtv.toeic.be.payload.request.SaveTestResultRequest;
+import com.hungtv.toeic.be.payload.response.LeaderboardResponse;
+import com.hungtv.toeic.be.payload.response.MessageResponse;
+import com.hungtv.toeic.be.payload.response.ScoreDistributionResponse;
+import com.hungtv.toeic.be.payload.response.ScorePercentileResponse;
 import com.hungtv.toeic.be.payload.response.TestResultResponse;
+import com.hungtv.toeic.be.payload.response.TestResultReviewResponse;
 import com.hungtv.toeic.be.payload.response.UserStatisticsResponse;
 import com.hungtv.toeic.be.services.TestResultService;
 
@@ -32,16 +41,46 @@ public class TestResultController {
     private TestResultService testResultService;
     
     /**
-     * Lưu kết quả bài thi của người dùng
+     * Lưu kết quả bài thi của người dùng.
+     * Khi bài nộp được ghi bất đồng bộ (write-behind) trả về 202 cùng điểm số và submissionId;
+     * khi hàng đợi ghi đầy trả về 429 kèm header Retry-After.
+     * Gửi lại với cùng header Idempotency-Key trả về kết quả của lần nộp đầu tiên.
      * 
      * @param request Thông tin kết quả bài thi
+     * @param idempotencyKey Khóa idempotency do client sinh cho lần làm bài (tùy chọn, tối đa 64 ký tự)
      * @return TestResultResponse
      */
     @PostMapping("/submit")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<TestResultResponse> submitTestResult(@Valid @RequestBody SaveTestResultRequest request) {
-        TestResultResponse result = testResultService.saveTestResult(request);
-        return ResponseEntity.ok(result);
+    public ResponseEntity<?> submitTestResult(@Valid @RequestBody SaveTestResultRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            TestResultResponse result = testResultService.submitTestResult(request, idempotencyKey);
+            return result.isPending() ? ResponseEntity.accepted().body(result) : ResponseEntity.ok(result);
+        } catch (SubmissionQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new MessageResponse(e.getMessage(), false));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+    
+    /**
+     * Lấy trạng thái bài nộp theo mã bài nộp (202 khi bài nộp còn đang chờ ghi)
+     * 
+     * @param submissionId Mã bài nộp
+     * @return TestResultResponse
+     */
+    @GetMapping("/submissions/{submissionId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<TestResultResponse> getSubmission(@PathVariable String submissionId) {
+        try {
+            TestResultResponse result = testResultService.getSubmission(submissionId);
+            return result.isPending() ? ResponseEntity.accepted().body(result) : ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
     
     /**
@@ -75,6 +114,61 @@ public class TestResultController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * Lấy đáp án đúng và giải thích để xem lại một bài làm đã nộp
+     * 
+     * @param resultId ID của kết quả bài thi
+     * @return TestResultReviewResponse
+     */
+    @GetMapping("/{resultId}/review")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<TestResultReviewResponse> getTestResultReview(@PathVariable Long resultId) {
+        TestResultReviewResponse review = testResultService.getTestResultReview(resultId);
+        return ResponseEntity.ok(review);
+    }
+    
+    /**
+     * Lấy thứ hạng phần trăm của một kết quả so với các bài nộp khác của cùng bài thi
+     * 
+     * @param resultId ID của kết quả bài thi
+     * @return ScorePercentileResponse
+     */
+    @GetMapping("/{resultId}/percentile")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<ScorePercentileResponse> getResultPercentile(@PathVariable Long resultId) {
+        ScorePercentileResponse percentile = testResultService.getResultPercentile(resultId);
+        return ResponseEntity.ok(percentile);
+    }
+    
+    /**
+     * Lấy phân bố điểm của một bài thi
+     * 
+     * @param testId ID của bài thi
+     * @return ScoreDistributionResponse
+     */
+    @GetMapping("/distribution/{testId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<ScoreDistributionResponse> getScoreDistribution(@PathVariable Long testId) {
+        ScoreDistributionResponse distribution = testResultService.getScoreDistribution(testId);
+        return ResponseEntity.ok(distribution);
+    }
+    
+    /**
+     * Lấy bảng xếp hạng của một bài thi và thứ hạng của người dùng hiện tại
+     * 
+     * @param testId ID của bài thi
+     * @param limit Số vị trí đầu bảng (mặc định 10, tối đa 100)
+     * @return LeaderboardResponse
+     */
+    @GetMapping("/leaderboard/{testId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<LeaderboardResponse> getLeaderboard(
+            @PathVariable Long testId,
+            @RequestParam(defaultValue = "10") int limit) {
+        LeaderboardResponse leaderboard = testResultService.getLeaderboard(testId, limit);
+        return ResponseEntity.ok(leaderboard);
+    }
+    
     /**
      * Lấy thống kê bài làm của người dùng hiện tại
      * 
@@ -8,8 +8,12 @@ import java.util.Optional;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,14 +26,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.hungtv.toeic.be.cache.ContentVersion;
+import com.hungtv.toeic.be.exception.QuestionGroupListTooLargeException;
 import com.hungtv.toeic.be.models.QuestionGroup;
 import com.hungtv.toeic.be.models.ToeicQuestion;
 import com.hungtv.toeic.be.payload.response.ApiResponse;
 import com.hungtv.toeic.be.payload.response.QuestionGroupResponse;
 import com.hungtv.toeic.be.payload.response.QuestionResponse;
 import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.search.SearchFilter;
 import com.hungtv.toeic.be.services.ToeicQuestionService;
 
 import jakarta.validation.Valid;
@@ -43,6 +51,19 @@ public class ToeicQuestionController {
     
     @Autowired
     private QuestionGroupRepository questionGroupRepository;
+    
+    // Số nhóm tối đa trên một trang của danh sách nhóm câu hỏi
+    private static final int MAX_GROUP_PAGE_SIZE = 200;
+    
+    // Tham số chỉ dùng cho danh sách phân trang, bị từ chối ở danh sách đầy đủ
+    private static final List<String> PAGING_PARAMS = List.of("page", "size", "afterId", "summary", "part", "questionType");
+    
+    // Số nhóm tối đa mà danh sách đầy đủ trả về
+    @Value("${app.question-groups.legacy-max:1000}")
+    private int legacyMaxGroups;
+    
+    // Số kết quả tối đa trên một trang tìm kiếm
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
 
     // Lấy tất cả câu hỏi với phân trang
     @GetMapping
@@ -50,16 +71,67 @@ public class ToeicQuestionController {
         return ResponseEntity.ok(questionService.getAllQuestions(pageable));
     }
 
-    // Lấy tất cả nhóm câu hỏi
+    // Lấy tất cả nhóm câu hỏi kèm câu hỏi và tùy chọn (hợp đồng cũ: một List đầy đủ, không phân trang).
+    // Tham số phân trang không được nhận ở đường dẫn này (400), và nếu số nhóm vượt quá
+    // app.question-groups.legacy-max thì trả 422 thay vì một danh sách bị cắt bớt.
     @GetMapping("/question-groups")
-    public ResponseEntity<List<QuestionGroupResponse>> getAllQuestionGroups() {
+    public ResponseEntity<?> getAllQuestionGroups(@RequestParam Map<String, String> params) {
+        for (String param : PAGING_PARAMS) {
+            if (params.containsKey(param)) {
+                return ResponseEntity.badRequest().body(new ApiResponse<>(false,
+                        "Tham số " + param + " không được hỗ trợ ở /question-groups; "
+                        + "hãy dùng /question-groups/page hoặc /question-groups/keyset"));
+            }
+        }
+        try {
+            return ResponseEntity.ok(questionService.getAllQuestionGroups(legacyMaxGroups));
+        } catch (QuestionGroupListTooLargeException e) {
+            return ResponseEntity.unprocessableEntity().body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+
+    // Lấy một trang nhóm câu hỏi theo page/size (size tối đa 200), lọc theo part/questionType.
+    // summary=true: chỉ trả thông tin nhóm và số câu hỏi, không kèm câu hỏi/tùy chọn.
+    @GetMapping("/question-groups/page")
+    public ResponseEntity<?> getQuestionGroupPage(
+            @RequestParam(value = "part", required = false) Integer part,
+            @RequestParam(value = "questionType", required = false) QuestionGroup.QuestionType questionType,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "summary", defaultValue = "false") boolean summary) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), groupPageSize(size), Sort.by("id"));
         try {
-            return ResponseEntity.ok(questionService.getAllQuestionGroups());
+            return ResponseEntity.ok(summary
+                    ? questionService.getQuestionGroupSummaries(questionType, part, pageable)
+                    : questionService.getQuestionGroups(questionType, part, pageable));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // Lấy một trang nhóm câu hỏi theo khóa: các nhóm có id > afterId, trang sau dùng afterId = nextAfterId.
+    // summary=true: chỉ trả thông tin nhóm và số câu hỏi, không kèm câu hỏi/tùy chọn.
+    @GetMapping("/question-groups/keyset")
+    public ResponseEntity<?> getQuestionGroupKeysetPage(
+            @RequestParam(value = "part", required = false) Integer part,
+            @RequestParam(value = "questionType", required = false) QuestionGroup.QuestionType questionType,
+            @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "summary", defaultValue = "false") boolean summary) {
+        int pageSize = groupPageSize(size);
+        try {
+            return ResponseEntity.ok(summary
+                    ? questionService.getQuestionGroupSummariesAfter(questionType, part, afterId, pageSize)
+                    : questionService.getQuestionGroupsAfter(questionType, part, afterId, pageSize));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static int groupPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_GROUP_PAGE_SIZE));
+    }
+
     // Lấy câu hỏi theo ID
     @GetMapping("/{id}")
     public ResponseEntity<QuestionResponse> getQuestionById(@PathVariable Long id) {
@@ -97,6 +169,27 @@ public class ToeicQuestionController {
         return ResponseEntity.ok(questionService.searchStandaloneQuestions(keyword, pageable));
     }
 
+    // Tìm kiếm toàn văn trong câu hỏi, giải thích, tùy chọn và đoạn văn, xếp hạng theo độ liên quan.
+    // Từ cuối của q được tìm theo tiền tố; kết quả kèm số lượng theo part/category/difficulty.
+    @GetMapping("/search")
+    public ResponseEntity<?> searchQuestions(
+            @RequestParam("q") String query,
+            @RequestParam(value = "part", required = false) Integer part,
+            @RequestParam(value = "category", required = false) ToeicQuestion.QuestionCategory category,
+            @RequestParam(value = "difficulty", required = false) ToeicQuestion.DifficultyLevel difficulty,
+            @RequestParam(value = "standalone", required = false) Boolean standalone,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        try {
+            return ResponseEntity.ok(questionService.searchQuestions(query,
+                    new SearchFilter(part, category, difficulty, standalone), Math.max(page, 0), pageSize));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ApiResponse<>(false, e.getMessage()));
+        }
+    }
+
     // Tạo câu hỏi mới
     @PostMapping
     public ResponseEntity<QuestionResponse> createQuestion(
@@ -167,10 +260,29 @@ public class ToeicQuestionController {
     }
     
     // Lấy câu hỏi theo nhóm ID
+    // Hỗ trợ GET có điều kiện: trả về 304 nếu If-None-Match (hoặc If-Modified-Since) khớp phiên bản nội dung hiện tại
     @GetMapping("/question-group/{groupId}")
-    public ResponseEntity<QuestionGroupResponse> getQuestionsByGroupId(@PathVariable Long groupId) {
+    public ResponseEntity<QuestionGroupResponse> getQuestionsByGroupId(
+            @PathVariable Long groupId,
+            WebRequest request) {
         try {
-            return ResponseEntity.ok(questionService.getQuestionsByGroupId(groupId));
+            ContentVersion version = questionService.getQuestionGroupVersion(groupId);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            String eTag = version.toETag("question-group-" + groupId, null);
+            boolean notModified = request.checkNotModified(eTag, version.getLastModifiedMillis());
+            ResponseEntity.BodyBuilder builder = notModified
+                    ? ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    : ResponseEntity.ok();
+            builder.eTag(eTag).cacheControl(CacheControl.noCache());
+            if (version.getUpdatedAt() != null) {
+                builder.lastModified(version.getLastModifiedMillis());
+            }
+            if (notModified) {
+                return builder.build();
+            }
+            return builder.body(questionService.getQuestionsByGroupId(groupId));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
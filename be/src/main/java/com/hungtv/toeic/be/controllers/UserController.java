@@ -1,9 +1,12 @@
 package com.hungtv.toeic.be.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -16,7 +19,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import com.hungtv.toeic.be.models.User;
 import com.hungtv.toeic.be.payload.request.CreateUserRequest;
@@ -24,9 +29,12 @@ import com.hungtv.toeic.be.payload.request.UpdatePasswordRequest;
 import com.hungtv.toeic.be.payload.request.UpdateProfileRequest;
 import com.hungtv.toeic.be.payload.request.UpdateUserRequest;
 import com.hungtv.toeic.be.payload.response.MessageResponse;
+import com.hungtv.toeic.be.payload.response.UserImportResponse;
 import com.hungtv.toeic.be.payload.response.UserResponse;
+import com.hungtv.toeic.be.services.UserImportService;
 import com.hungtv.toeic.be.services.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -36,6 +44,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
     /**
      * Lấy danh sách tất cả người dùng
      * @return Danh sách người dùng
@@ -85,6 +96,48 @@ public class UserController {
         }
     }
 
+    /**
+     * Nhập người dùng hàng loạt từ tệp tải lên (.json là mảng CreateUserRequest, còn lại là CSV có
+     * dòng tiêu đề username,password,email,fullName,role)
+     * @param file Tệp người dùng
+     * @return Báo cáo kết quả từng dòng
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importUsers(@RequestParam("file") MultipartFile file) {
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        boolean json = name.endsWith(".json") || MediaType.APPLICATION_JSON_VALUE.equals(file.getContentType());
+        try (InputStream input = file.getInputStream()) {
+            return runImport(input, json);
+        } catch (IOException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse("Không thể đọc tệp: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Nhập người dùng hàng loạt từ nội dung CSV gửi thẳng trong body, đọc theo luồng
+     * @param request HTTP request chứa CSV
+     * @return Báo cáo kết quả từng dòng
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importUsersCsv(HttpServletRequest request) {
+        return importBody(request, false);
+    }
+
+    /**
+     * Nhập người dùng hàng loạt từ mảng JSON gửi thẳng trong body, đọc theo luồng
+     * @param request HTTP request chứa JSON
+     * @return Báo cáo kết quả từng dòng
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importUsersJson(HttpServletRequest request) {
+        return importBody(request, true);
+    }
+
     /**
      * Cập nhật thông tin người dùng
      * @param id ID của người dùng cần cập nhật
@@ -192,6 +245,27 @@ public class UserController {
      * Lấy thông tin người dùng hiện tại từ Authentication
      * @return User người dùng hiện tại
      */
+    private ResponseEntity<?> importBody(HttpServletRequest request, boolean json) {
+        try (InputStream input = request.getInputStream()) {
+            return runImport(input, json);
+        } catch (IOException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse("Không thể đọc dữ liệu: " + e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> runImport(InputStream input, boolean json) throws IOException {
+        try {
+            UserImportResponse report = json ? userImportService.importJson(input) : userImportService.importCsv(input);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
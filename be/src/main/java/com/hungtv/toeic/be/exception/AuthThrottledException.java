@@ -0,0 +1,25 @@
+package com.hungtv.toeic.be.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Đăng nhập bị từ chối trước khi kiểm tra mật khẩu: vượt giới hạn số lần thử hoặc hàng đợi băm
+ * mật khẩu đã đầy; client nên thử lại sau retryAfterSeconds giây
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class AuthThrottledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public AuthThrottledException(String message, long retryAfterMillis) {
+        super(message + ", vui lòng thử lại sau " + Math.max(1, (retryAfterMillis + 999) / 1000) + " giây");
+        this.retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,26 @@
+package com.hungtv.toeic.be.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Danh sách đầy đủ nhóm câu hỏi vượt quá giới hạn; client cần chuyển sang danh sách phân trang
+ * thay vì nhận một danh sách bị cắt bớt
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class QuestionGroupListTooLargeException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+
+    private final int maxGroups;
+
+    public QuestionGroupListTooLargeException(int maxGroups) {
+        super("Có hơn " + maxGroups + " nhóm câu hỏi, không thể trả về toàn bộ; hãy dùng "
+                + "/api/toeic-questions/question-groups/page hoặc /api/toeic-questions/question-groups/keyset");
+        this.maxGroups = maxGroups;
+    }
+
+    public int getMaxGroups() {
+        return maxGroups;
+    }
+}
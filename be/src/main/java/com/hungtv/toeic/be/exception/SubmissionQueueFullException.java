@@ -0,0 +1,24 @@
+package com.hungtv.toeic.be.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Hàng đợi ghi bài nộp đã đầy; client nên gửi lại sau retryAfterSeconds giây
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class SubmissionQueueFullException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public SubmissionQueueFullException(long retryAfterSeconds) {
+        super("Hệ thống đang xử lý nhiều bài nộp, vui lòng thử lại sau " + retryAfterSeconds + " giây");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hungtv.toeic.be.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Refresh token không dùng được (không có, không hợp lệ, hết hạn, bị thu hồi hoặc bị dùng lại);
+ * client phải đăng nhập lại. Riêng trường hợp concurrent (token vừa được xoay vòng bởi một request
+ * làm mới song song) thì client chỉ cần dùng cookie mới mà request kia nhận được
+ */
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class TokenRefreshException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+
+    private final boolean concurrent;
+
+    public TokenRefreshException(String message) {
+        this(message, false);
+    }
+
+    public TokenRefreshException(String message, boolean concurrent) {
+        super(message);
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * Token vừa được xoay vòng bởi một request làm mới khác trong thời gian ân hạn: phiên vẫn còn
+     * hiệu lực, không được xóa cookie
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+}
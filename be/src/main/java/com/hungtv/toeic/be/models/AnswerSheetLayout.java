@@ -0,0 +1,120 @@
+package com.hungtv.toeic.be.models;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Thứ tự câu hỏi của một phiên bản bài thi, dùng chung cho mọi phiếu trả lời nén
+ * (TestResult.answerSheet) được ghi với phiên bản đó. Chỉ được ghi một lần cho mỗi phiên bản.
+ */
+@Entity
+@Table(name = "answer_sheet_layouts", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_answer_sheet_layouts_test_version", columnNames = { "test_id", "content_version" })
+})
+public class AnswerSheetLayout {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "test_id", nullable = false)
+    private Long testId;
+    
+    @Column(name = "content_version", nullable = false)
+    private Long contentVersion;
+    
+    @Column(name = "question_count", nullable = false)
+    private Integer questionCount;
+    
+    // ID câu hỏi (8 byte mỗi câu, big-endian) theo thứ tự câu hỏi của ảnh chụp bài thi
+    @Lob
+    @Column(name = "question_ids", nullable = false)
+    private byte[] questionIds;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public AnswerSheetLayout() {
+    }
+    
+    public AnswerSheetLayout(Long testId, Long contentVersion, Integer questionCount, byte[] questionIds) {
+        this.testId = testId;
+        this.contentVersion = contentVersion;
+        this.questionCount = questionCount;
+        this.questionIds = questionIds;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
+    public Long getContentVersion() {
+        return contentVersion;
+    }
+
+    public void setContentVersion(Long contentVersion) {
+        this.contentVersion = contentVersion;
+    }
+
+    public Integer getQuestionCount() {
+        return questionCount;
+    }
+
+    public void setQuestionCount(Integer questionCount) {
+        this.questionCount = questionCount;
+    }
+
+    public byte[] getQuestionIds() {
+        return questionIds;
+    }
+
+    public void setQuestionIds(byte[] questionIds) {
+        this.questionIds = questionIds;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    // equals, hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AnswerSheetLayout that = (AnswerSheetLayout) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,220 @@
+package com.hungtv.toeic.be.models;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * Một lượt làm bài thi đang diễn ra trên server.
+ *
+ * Câu trả lời được lưu thành phiếu trả lời nhỏ gọn: một byte cho mỗi câu hỏi theo vị trí
+ * của câu hỏi trong đáp án (AnswerKey) tại thời điểm bắt đầu; question_layout giữ danh sách
+ * ID câu hỏi theo đúng thứ tự đó (ghi một lần) để ánh xạ lại nếu bài thi bị sửa giữa chừng.
+ */
+@Entity
+@Table(name = "exam_sessions", indexes = {
+    @Index(name = "idx_exam_sessions_user_test_status", columnList = "user_id, test_id, status")
+})
+public class ExamSession {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "test_id", nullable = false)
+    private Test test;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.IN_PROGRESS;
+    
+    // Phiên bản đáp án (content_version của bài thi) dùng để dựng phiếu trả lời
+    @Column(name = "key_version", nullable = false)
+    private Long keyVersion;
+    
+    // ID câu hỏi (8 byte mỗi câu, big-endian) theo thứ tự vị trí trong phiếu trả lời
+    @Lob
+    @Column(name = "question_layout", nullable = false)
+    private byte[] questionLayout;
+    
+    // Mã câu trả lời theo vị trí: 0 = chưa trả lời, 1..26 = 'A'..'Z'
+    @Column(name = "answer_sheet", nullable = false, length = 4000)
+    private byte[] answerSheet;
+    
+    @Column(name = "answered_count", nullable = false)
+    private Integer answeredCount = 0;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    // Hạn nộp bài (null nếu bài thi không giới hạn thời gian)
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "last_saved_at")
+    private LocalDateTime lastSavedAt;
+    
+    @Column(name = "finalized_at")
+    private LocalDateTime finalizedAt;
+    
+    // Trạng thái của lượt làm bài
+    public enum Status {
+        IN_PROGRESS, FINALIZED, EXPIRED
+    }
+    
+    // Constructors
+    public ExamSession() {
+    }
+    
+    public ExamSession(User user, Test test, Long keyVersion, byte[] questionLayout, byte[] answerSheet,
+                       LocalDateTime startedAt, LocalDateTime expiresAt) {
+        this.user = user;
+        this.test = test;
+        this.keyVersion = keyVersion;
+        this.questionLayout = questionLayout;
+        this.answerSheet = answerSheet;
+        this.startedAt = startedAt;
+        this.expiresAt = expiresAt;
+        this.lastSavedAt = startedAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Test getTest() {
+        return test;
+    }
+
+    public void setTest(Test test) {
+        this.test = test;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getKeyVersion() {
+        return keyVersion;
+    }
+
+    public void setKeyVersion(Long keyVersion) {
+        this.keyVersion = keyVersion;
+    }
+
+    public byte[] getQuestionLayout() {
+        return questionLayout;
+    }
+
+    public void setQuestionLayout(byte[] questionLayout) {
+        this.questionLayout = questionLayout;
+    }
+
+    public byte[] getAnswerSheet() {
+        return answerSheet;
+    }
+
+    public void setAnswerSheet(byte[] answerSheet) {
+        this.answerSheet = answerSheet;
+    }
+
+    public Integer getAnsweredCount() {
+        return answeredCount;
+    }
+
+    public void setAnsweredCount(Integer answeredCount) {
+        this.answeredCount = answeredCount;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getLastSavedAt() {
+        return lastSavedAt;
+    }
+
+    public void setLastSavedAt(LocalDateTime lastSavedAt) {
+        this.lastSavedAt = lastSavedAt;
+    }
+
+    public LocalDateTime getFinalizedAt() {
+        return finalizedAt;
+    }
+
+    public void setFinalizedAt(LocalDateTime finalizedAt) {
+        this.finalizedAt = finalizedAt;
+    }
+    
+    // equals, hashCode và toString
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ExamSession that = (ExamSession) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "ExamSession{" +
+               "id=" + id +
+               ", status=" + status +
+               ", answeredCount=" + answeredCount +
+               ", startedAt=" + startedAt +
+               ", expiresAt=" + expiresAt +
+               '}';
+    }
+}
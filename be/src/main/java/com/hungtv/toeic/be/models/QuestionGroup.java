@@ -1,5 +1,6 @@
 package com.hungtv.toeic.be.models;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -12,6 +13,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -19,7 +21,10 @@ import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "question_groups")
+@Table(name = "question_groups", indexes = {
+    // Phục vụ danh sách nhóm lọc theo type/part và phân trang theo id
+    @Index(name = "idx_question_groups_type_part", columnList = "question_type, part, id")
+})
 public class QuestionGroup {
     
     @Id
@@ -52,6 +57,14 @@ public class QuestionGroup {
     
     @OneToMany(mappedBy = "questionGroup", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<ToeicQuestion> questions = new HashSet<>();
+
+    // Phiên bản nội dung, chỉ được tăng bằng câu lệnh UPDATE riêng (ContentVersionTracker)
+    // nên không bao giờ bị ghi đè khi entity được lưu
+    @Column(name = "content_version", nullable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long contentVersion = 0L;
+    
+    @Column(name = "content_updated_at", updatable = false)
+    private LocalDateTime contentUpdatedAt = LocalDateTime.now();
     
     // Enum cho phân loại listening/reading
     public enum QuestionType {
@@ -147,6 +160,14 @@ public class QuestionGroup {
     public void setQuestions(Set<ToeicQuestion> questions) {
         this.questions = questions;
     }
+
+    public Long getContentVersion() {
+        return contentVersion;
+    }
+
+    public LocalDateTime getContentUpdatedAt() {
+        return contentUpdatedAt;
+    }
     
     // Phương thức tiện ích để thêm/xóa câu hỏi
     public void addQuestion(ToeicQuestion question) {
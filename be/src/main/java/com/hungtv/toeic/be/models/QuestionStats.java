@@ -0,0 +1,146 @@
+package com.hungtv.toeic.be.models;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Thống kê của một câu hỏi trên các bài nộp đã chấm (ItemAnalyticsService): độ khó (tỉ lệ trả
+ * lời đúng) và độ phân biệt (hệ số tương quan điểm-nhị phân giữa đúng/sai và điểm tổng).
+ *
+ * Các tổng thô được giữ lại để lần tính tăng dần chỉ cần cộng thêm các bài nộp mới; p_value và
+ * discrimination được tính lại từ các tổng mỗi lần ghi.
+ */
+@Entity
+@Table(name = "question_stats", indexes = {
+    @Index(name = "idx_question_stats_discrimination", columnList = "discrimination")
+})
+public class QuestionStats {
+    
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+    
+    // Số lần câu hỏi được trả lời (câu bỏ trống không tính)
+    @Column(name = "responses", nullable = false)
+    private Long responses;
+    
+    @Column(name = "correct_count", nullable = false)
+    private Long correctCount;
+    
+    // Tổng, tổng bình phương điểm tổng của các bài nộp đã trả lời câu hỏi, và tổng điểm của các bài trả lời đúng
+    @Column(name = "score_sum", nullable = false)
+    private Long scoreSum;
+    
+    @Column(name = "score_square_sum", nullable = false)
+    private Long scoreSquareSum;
+    
+    @Column(name = "correct_score_sum", nullable = false)
+    private Long correctScoreSum;
+    
+    @Column(name = "p_value")
+    private Double pValue;
+    
+    // null khi chưa đủ dữ liệu (mọi người cùng đúng/cùng sai hoặc điểm tổng không đổi)
+    @Column(name = "discrimination")
+    private Double discrimination;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public QuestionStats() {
+    }
+    
+    // Getters and Setters
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public Long getResponses() {
+        return responses;
+    }
+
+    public void setResponses(Long responses) {
+        this.responses = responses;
+    }
+
+    public Long getCorrectCount() {
+        return correctCount;
+    }
+
+    public void setCorrectCount(Long correctCount) {
+        this.correctCount = correctCount;
+    }
+
+    public Long getScoreSum() {
+        return scoreSum;
+    }
+
+    public void setScoreSum(Long scoreSum) {
+        this.scoreSum = scoreSum;
+    }
+
+    public Long getScoreSquareSum() {
+        return scoreSquareSum;
+    }
+
+    public void setScoreSquareSum(Long scoreSquareSum) {
+        this.scoreSquareSum = scoreSquareSum;
+    }
+
+    public Long getCorrectScoreSum() {
+        return correctScoreSum;
+    }
+
+    public void setCorrectScoreSum(Long correctScoreSum) {
+        this.correctScoreSum = correctScoreSum;
+    }
+
+    public Double getPValue() {
+        return pValue;
+    }
+
+    public void setPValue(Double pValue) {
+        this.pValue = pValue;
+    }
+
+    public Double getDiscrimination() {
+        return discrimination;
+    }
+
+    public void setDiscrimination(Double discrimination) {
+        this.discrimination = discrimination;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    // equals, hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        QuestionStats that = (QuestionStats) o;
+        return Objects.equals(questionId, that.questionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(questionId);
+    }
+}
@@ -0,0 +1,142 @@
+package com.hungtv.toeic.be.models;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Một lần tính thống kê câu hỏi đã ghi vào question_stats: các bài nộp có ID trong
+ * (from_result_id, to_result_id] đã được cộng vào. to_result_id lớn nhất là mốc của lần tính
+ * tăng dần tiếp theo.
+ */
+@Entity
+@Table(name = "question_stats_runs")
+public class QuestionStatsRun {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // FULL hoặc INCREMENTAL
+    @Column(name = "run_mode", nullable = false, length = 20)
+    private String mode;
+    
+    @Column(name = "from_result_id", nullable = false)
+    private Long fromResultId;
+    
+    @Column(name = "to_result_id", nullable = false)
+    private Long toResultId;
+    
+    // Số phiếu trả lời nén và số dòng user_answers đã đọc
+    @Column(name = "answer_sheets", nullable = false)
+    private Long answerSheets;
+    
+    @Column(name = "answer_rows", nullable = false)
+    private Long answerRows;
+    
+    @Column(name = "responses", nullable = false)
+    private Long responses;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at", nullable = false)
+    private LocalDateTime finishedAt;
+    
+    // Constructors
+    public QuestionStatsRun() {
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public Long getFromResultId() {
+        return fromResultId;
+    }
+
+    public void setFromResultId(Long fromResultId) {
+        this.fromResultId = fromResultId;
+    }
+
+    public Long getToResultId() {
+        return toResultId;
+    }
+
+    public void setToResultId(Long toResultId) {
+        this.toResultId = toResultId;
+    }
+
+    public Long getAnswerSheets() {
+        return answerSheets;
+    }
+
+    public void setAnswerSheets(Long answerSheets) {
+        this.answerSheets = answerSheets;
+    }
+
+    public Long getAnswerRows() {
+        return answerRows;
+    }
+
+    public void setAnswerRows(Long answerRows) {
+        this.answerRows = answerRows;
+    }
+
+    public Long getResponses() {
+        return responses;
+    }
+
+    public void setResponses(Long responses) {
+        this.responses = responses;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    // equals, hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        QuestionStatsRun that = (QuestionStatsRun) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,186 @@
+package com.hungtv.toeic.be.models;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * Refresh token đã cấp. Chỉ lưu SHA-256 của token; mỗi lần làm mới, token cũ bị đánh dấu ROTATED
+ * và token mới thuộc cùng họ (family_id) với token cũ. Một token ROTATED được dùng lại nghĩa là
+ * token đã bị lộ, cả họ bị thu hồi.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_tokens_user_access_expires", columnList = "user_id, access_expires_at")
+})
+public class RefreshToken {
+    
+    public enum RevokeReason {
+        ROTATED,
+        LOGOUT,
+        REUSED,
+        PASSWORD_CHANGED,
+        USER_DELETED
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    // SHA-256 (hex) của token gửi cho client
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+    
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+    
+    // jti của access token cấp cùng lúc, để thu hồi cả access token khi thu hồi họ
+    @Column(name = "access_token_id", nullable = false, length = 36)
+    private String accessTokenId;
+    
+    @Column(name = "access_expires_at", nullable = false)
+    private LocalDateTime accessExpiresAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "revoke_reason", length = 20)
+    private RevokeReason revokeReason;
+    
+    // Constructors
+    public RefreshToken() {
+    }
+    
+    // Business methods
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+    
+    public boolean isRevoked() {
+        return revokedAt != null;
+    }
+    
+    public void revoke(RevokeReason reason) {
+        this.revokedAt = LocalDateTime.now();
+        this.revokeReason = reason;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    public String getAccessTokenId() {
+        return accessTokenId;
+    }
+
+    public void setAccessTokenId(String accessTokenId) {
+        this.accessTokenId = accessTokenId;
+    }
+
+    public LocalDateTime getAccessExpiresAt() {
+        return accessExpiresAt;
+    }
+
+    public void setAccessExpiresAt(LocalDateTime accessExpiresAt) {
+        this.accessExpiresAt = accessExpiresAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public RevokeReason getRevokeReason() {
+        return revokeReason;
+    }
+
+    public void setRevokeReason(RevokeReason revokeReason) {
+        this.revokeReason = revokeReason;
+    }
+    
+    // equals, hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RefreshToken that = (RefreshToken) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,125 @@
+package com.hungtv.toeic.be.models;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Phần phân bố điểm của một bài thi do một node ghi (node_id = tên node), hoặc phần tính lại
+ * từ test_results (node_id = "rebuild"). Phân bố đầy đủ là tổng các phần của cùng bài thi và
+ * loại điểm; mỗi node chỉ cộng vào dòng của chính nó. Phần tính lại ghi ID kết quả lớn nhất đã
+ * đếm, các node bỏ số đếm chờ ghi của bài nộp có ID không lớn hơn mốc này.
+ */
+@Entity
+@Table(name = "score_histogram_shards", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_score_histogram_shards_test_metric_node", columnNames = { "test_id", "metric", "node_id" })
+})
+public class ScoreHistogramShard {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "test_id", nullable = false)
+    private Long testId;
+    
+    // Tên của ScoreHistogram.Metric
+    @Column(name = "metric", nullable = false, length = 20)
+    private String metric;
+    
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+    
+    // Số đếm của các ô (4 byte mỗi ô, big-endian)
+    @Column(name = "counts", nullable = false, length = 512)
+    private byte[] counts;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // ID kết quả lớn nhất đã đếm (chỉ có ở phần tính lại)
+    @Column(name = "counted_through_id")
+    private Long countedThroughId;
+    
+    // Constructors
+    public ScoreHistogramShard() {
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public byte[] getCounts() {
+        return counts;
+    }
+
+    public void setCounts(byte[] counts) {
+        this.counts = counts;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getCountedThroughId() {
+        return countedThroughId;
+    }
+
+    public void setCountedThroughId(Long countedThroughId) {
+        this.countedThroughId = countedThroughId;
+    }
+    
+    // equals, hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScoreHistogramShard that = (ScoreHistogramShard) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
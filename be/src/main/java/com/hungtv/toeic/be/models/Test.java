@@ -51,6 +51,14 @@ public class Test {
     
     @Column(name = "is_active")
     private Boolean isActive = true;
+
+    // Phiên bản nội dung, chỉ được tăng bằng câu lệnh UPDATE riêng (ContentVersionTracker)
+    // nên không bao giờ bị ghi đè khi entity được lưu
+    @Column(name = "content_version", nullable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long contentVersion = 0L;
+    
+    @Column(name = "content_updated_at", updatable = false)
+    private LocalDateTime contentUpdatedAt = LocalDateTime.now();
     
     @ManyToMany
     @JoinTable(
@@ -155,6 +163,14 @@ public class Test {
     public void setIsActive(Boolean isActive) {
         this.isActive = isActive;
     }
+
+    public Long getContentVersion() {
+        return contentVersion;
+    }
+
+    public LocalDateTime getContentUpdatedAt() {
+        return contentUpdatedAt;
+    }
     
     public List<QuestionGroup> getQuestionGroups() {
         return questionGroups;
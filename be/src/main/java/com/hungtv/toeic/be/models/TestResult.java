@@ -13,13 +13,19 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "test_results")
+@Table(name = "test_results", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_test_results_user_idempotency", columnNames = { "user_id", "idempotency_key" })
+}, indexes = {
+    @Index(name = "idx_test_results_sheet_layout", columnList = "sheet_layout_id")
+})
 public class TestResult {
     
     @Id
@@ -64,6 +70,26 @@ public class TestResult {
     @Column(name = "total_questions")
     private Integer totalQuestions;
     
+    // Mã bài nộp do server sinh, dùng để tra cứu bài nộp ghi write-behind và chống ghi trùng
+    @Column(name = "submission_id", length = 36, unique = true)
+    private String submissionId;
+    
+    // Khóa idempotency do client gửi (Idempotency-Key), duy nhất theo người dùng
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+    
+    // Câu trả lời dạng nén (PackedAnswerSheet) theo thứ tự câu hỏi của answer_sheet_layouts;
+    // null với bài nộp cũ hoặc có câu trả lời không nén được (khi đó câu trả lời nằm ở user_answers)
+    @Column(name = "answer_sheet", length = 4001)
+    private byte[] answerSheet;
+    
+    // Bitset đúng/sai theo vị trí câu hỏi của phiếu trả lời
+    @Column(name = "correct_bits", length = 512)
+    private byte[] correctBits;
+    
+    @Column(name = "sheet_layout_id")
+    private Long sheetLayoutId;
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -208,6 +234,46 @@ public class TestResult {
         this.totalQuestions = totalQuestions;
     }
 
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(String submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public byte[] getAnswerSheet() {
+        return answerSheet;
+    }
+
+    public void setAnswerSheet(byte[] answerSheet) {
+        this.answerSheet = answerSheet;
+    }
+
+    public byte[] getCorrectBits() {
+        return correctBits;
+    }
+
+    public void setCorrectBits(byte[] correctBits) {
+        this.correctBits = correctBits;
+    }
+
+    public Long getSheetLayoutId() {
+        return sheetLayoutId;
+    }
+
+    public void setSheetLayoutId(Long sheetLayoutId) {
+        this.sheetLayoutId = sheetLayoutId;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -7,12 +7,15 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "user_answers")
+@Table(name = "user_answers", indexes = {
+    @Index(name = "idx_user_answers_question_result", columnList = "question_id, test_result_id")
+})
 public class UserAnswer {
     
     @Id
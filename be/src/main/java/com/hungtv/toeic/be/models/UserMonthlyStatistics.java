@@ -0,0 +1,107 @@
+package com.hungtv.toeic.be.models;
+
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Số bài nộp và tổng điểm của một người dùng trong một tháng (yyyy-MM), đi kèm UserStatistics
+ */
+@Entity
+@Table(name = "user_monthly_statistics", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_user_monthly_statistics_user_month", columnNames = { "user_id", "stat_month" })
+})
+public class UserMonthlyStatistics {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "stat_month", nullable = false, length = 7)
+    private String month;
+    
+    @Column(name = "tests_taken", nullable = false)
+    private Long testsTaken;
+    
+    @Column(name = "scored_count", nullable = false)
+    private Long scoredCount;
+    
+    @Column(name = "score_sum", nullable = false)
+    private Long scoreSum;
+    
+    // Constructors
+    public UserMonthlyStatistics() {
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    public Long getTestsTaken() {
+        return testsTaken;
+    }
+
+    public void setTestsTaken(Long testsTaken) {
+        this.testsTaken = testsTaken;
+    }
+
+    public Long getScoredCount() {
+        return scoredCount;
+    }
+
+    public void setScoredCount(Long scoredCount) {
+        this.scoredCount = scoredCount;
+    }
+
+    public Long getScoreSum() {
+        return scoreSum;
+    }
+
+    public void setScoreSum(Long scoreSum) {
+        this.scoreSum = scoreSum;
+    }
+    
+    // equals, hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserMonthlyStatistics that = (UserMonthlyStatistics) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,105 @@
+package com.hungtv.toeic.be.models;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Số liệu thống kê tích lũy của một người dùng, được cập nhật trong cùng transaction với
+ * mỗi bài nộp (UserStatisticsWriter) và có thể dựng lại từ test_results.
+ */
+@Entity
+@Table(name = "user_statistics")
+public class UserStatistics {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "tests_taken", nullable = false)
+    private Long testsTaken;
+    
+    // Số bài có điểm tổng (điểm trung bình chỉ tính trên các bài này)
+    @Column(name = "scored_count", nullable = false)
+    private Long scoredCount;
+    
+    @Column(name = "score_sum", nullable = false)
+    private Long scoreSum;
+    
+    @Column(name = "best_score")
+    private Integer bestScore;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public UserStatistics() {
+    }
+    
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getTestsTaken() {
+        return testsTaken;
+    }
+
+    public void setTestsTaken(Long testsTaken) {
+        this.testsTaken = testsTaken;
+    }
+
+    public Long getScoredCount() {
+        return scoredCount;
+    }
+
+    public void setScoredCount(Long scoredCount) {
+        this.scoredCount = scoredCount;
+    }
+
+    public Long getScoreSum() {
+        return scoreSum;
+    }
+
+    public void setScoreSum(Long scoreSum) {
+        this.scoreSum = scoreSum;
+    }
+
+    public Integer getBestScore() {
+        return bestScore;
+    }
+
+    public void setBestScore(Integer bestScore) {
+        this.bestScore = bestScore;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    // equals, hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserStatistics that = (UserStatistics) o;
+        return Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId);
+    }
+}
@@ -0,0 +1,26 @@
+package com.hungtv.toeic.be.payload.request;
+
+import jakarta.validation.constraints.NotNull;
+
+public class StartExamSessionRequest {
+    
+    @NotNull(message = "ID bài thi không được để trống")
+    private Long testId;
+    
+    // Constructors
+    public StartExamSessionRequest() {
+    }
+    
+    public StartExamSessionRequest(Long testId) {
+        this.testId = testId;
+    }
+    
+    // Getters and Setters
+    public Long getTestId() {
+        return testId;
+    }
+    
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+}
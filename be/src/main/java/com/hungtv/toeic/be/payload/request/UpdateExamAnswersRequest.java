@@ -0,0 +1,31 @@
+package com.hungtv.toeic.be.payload.request;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+public class UpdateExamAnswersRequest {
+    
+    // Câu trả lời thay đổi; userAnswer null để xóa câu trả lời
+    @NotEmpty(message = "Danh sách câu trả lời không được để trống")
+    @Valid
+    private List<SaveTestResultRequest.UserAnswerRequest> answers;
+    
+    // Constructors
+    public UpdateExamAnswersRequest() {
+    }
+    
+    public UpdateExamAnswersRequest(List<SaveTestResultRequest.UserAnswerRequest> answers) {
+        this.answers = answers;
+    }
+    
+    // Getters and Setters
+    public List<SaveTestResultRequest.UserAnswerRequest> getAnswers() {
+        return answers;
+    }
+    
+    public void setAnswers(List<SaveTestResultRequest.UserAnswerRequest> answers) {
+        this.answers = answers;
+    }
+}
@@ -0,0 +1,96 @@
+package com.hungtv.toeic.be.payload.response;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class ExamSessionResponse {
+    private Long id;
+    private Long testId;
+    private String status;
+    private Integer answeredCount;
+    private Integer totalQuestions;
+    private LocalDateTime startedAt;
+    private LocalDateTime expiresAt;
+    // ID câu hỏi -> câu trả lời (chỉ có khi lấy chi tiết lượt làm bài)
+    private Map<Long, String> answers;
+    
+    // Constructors
+    public ExamSessionResponse() {
+    }
+    
+    public ExamSessionResponse(Long id, Long testId, String status, Integer answeredCount, Integer totalQuestions,
+                               LocalDateTime startedAt, LocalDateTime expiresAt) {
+        this.id = id;
+        this.testId = testId;
+        this.status = status;
+        this.answeredCount = answeredCount;
+        this.totalQuestions = totalQuestions;
+        this.startedAt = startedAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAnsweredCount() {
+        return answeredCount;
+    }
+
+    public void setAnsweredCount(Integer answeredCount) {
+        this.answeredCount = answeredCount;
+    }
+
+    public Integer getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public void setTotalQuestions(Integer totalQuestions) {
+        this.totalQuestions = totalQuestions;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Map<Long, String> getAnswers() {
+        return answers;
+    }
+
+    public void setAnswers(Map<Long, String> answers) {
+        this.answers = answers;
+    }
+}
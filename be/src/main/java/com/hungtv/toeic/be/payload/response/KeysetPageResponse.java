@@ -0,0 +1,58 @@
+package com.hungtv.toeic.be.payload.response;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả phân trang theo khóa (keyset): trang tiếp theo được lấy bằng
+ * afterId = nextAfterId thay vì OFFSET, nên chi phí không tăng theo số trang đã đi qua.
+ */
+public class KeysetPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private Long nextAfterId;
+    private boolean hasMore;
+    
+    // Constructors
+    public KeysetPageResponse() {
+    }
+    
+    public KeysetPageResponse(List<T> content, int size, Long nextAfterId, boolean hasMore) {
+        this.content = content;
+        this.size = size;
+        this.nextAfterId = nextAfterId;
+        this.hasMore = hasMore;
+    }
+    
+    // Getters and Setters
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,141 @@
+package com.hungtv.toeic.be.payload.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class LeaderboardResponse {
+    private Long testId;
+    private Integer totalUsers;
+    private List<Entry> entries;
+    // Lần tốt nhất và thứ hạng của người dùng hiện tại, null nếu chưa làm bài thi này
+    private Entry me;
+    
+    // Constructors
+    public LeaderboardResponse() {
+    }
+    
+    public LeaderboardResponse(Long testId, Integer totalUsers, List<Entry> entries, Entry me) {
+        this.testId = testId;
+        this.totalUsers = totalUsers;
+        this.entries = entries;
+        this.me = me;
+    }
+    
+    // Getters and Setters
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
+    public Integer getTotalUsers() {
+        return totalUsers;
+    }
+
+    public void setTotalUsers(Integer totalUsers) {
+        this.totalUsers = totalUsers;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public Entry getMe() {
+        return me;
+    }
+
+    public void setMe(Entry me) {
+        this.me = me;
+    }
+    
+    /**
+     * Một vị trí trên bảng xếp hạng (lần làm bài tốt nhất của một người dùng)
+     */
+    public static class Entry {
+        private Integer rank;
+        private Long userId;
+        private String username;
+        private String fullName;
+        private Integer score;
+        private Long resultId;
+        private LocalDateTime achievedAt;
+        
+        // Constructors
+        public Entry() {
+        }
+        
+        public Entry(Integer rank, Long userId, String username, String fullName, Integer score, Long resultId,
+                     LocalDateTime achievedAt) {
+            this.rank = rank;
+            this.userId = userId;
+            this.username = username;
+            this.fullName = fullName;
+            this.score = score;
+            this.resultId = resultId;
+            this.achievedAt = achievedAt;
+        }
+        
+        // Getters and Setters
+        public Integer getRank() {
+            return rank;
+        }
+
+        public void setRank(Integer rank) {
+            this.rank = rank;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(Long userId) {
+            this.userId = userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public void setFullName(String fullName) {
+            this.fullName = fullName;
+        }
+
+        public Integer getScore() {
+            return score;
+        }
+
+        public void setScore(Integer score) {
+            this.score = score;
+        }
+
+        public Long getResultId() {
+            return resultId;
+        }
+
+        public void setResultId(Long resultId) {
+            this.resultId = resultId;
+        }
+
+        public LocalDateTime getAchievedAt() {
+            return achievedAt;
+        }
+
+        public void setAchievedAt(LocalDateTime achievedAt) {
+            this.achievedAt = achievedAt;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.hungtv.toeic.be.payload.response;
 
+import com.hungtv.toeic.be.cache.TestSnapshot;
 import com.hungtv.toeic.be.models.ToeicOption;
 
 public class OptionResponse {
@@ -16,6 +17,12 @@ public class OptionResponse {
         this.optionText = option.getOptionText();
     }
     
+    public OptionResponse(TestSnapshot.OptionSnapshot option) {
+        this.id = option.getId();
+        this.optionKey = option.getOptionKey();
+        this.optionText = option.getOptionText();
+    }
+    
     public Long getId() {
         return id;
     }
@@ -1,6 +1,9 @@
 package com.hungtv.toeic.be.payload.response;
 
 import java.util.List;
+import java.util.stream.Collectors;
+
+import com.hungtv.toeic.be.cache.TestSnapshot;
 
 public class QuestionGroupResponse {
     private Long id;
@@ -15,6 +18,28 @@ public class QuestionGroupResponse {
     
     public QuestionGroupResponse() {
     }
+    
+    public QuestionGroupResponse(TestSnapshot.GroupSnapshot group) {
+        this(group, true);
+    }
+    
+    /**
+     * @param group Nhóm câu hỏi trong ảnh chụp
+     * @param includeAnswers false để tạo bản giao đề: câu hỏi không kèm đáp án đúng và giải thích
+     */
+    public QuestionGroupResponse(TestSnapshot.GroupSnapshot group, boolean includeAnswers) {
+        this.id = group.getId();
+        this.title = group.getTitle();
+        this.questionType = group.getQuestionType().name();
+        this.part = group.getPart();
+        this.audioUrl = group.getAudioUrl();
+        this.imageUrl = group.getImageUrl();
+        this.passage = group.getPassage();
+        this.testId = group.getTestId();
+        this.questions = group.getQuestions().stream()
+                .map(question -> new QuestionResponse(question, includeAnswers))
+                .collect(Collectors.toList());
+    }
 
     public Long getId() {
         return id;
@@ -0,0 +1,94 @@
+package com.hungtv.toeic.be.payload.response;
+
+public class QuestionGroupSummaryResponse {
+    private Long id;
+    private String title;
+    private String questionType;
+    private Integer part;
+    private String audioUrl;
+    private String imageUrl;
+    private Long testId;
+    private long questionCount;
+    
+    // Constructors
+    public QuestionGroupSummaryResponse() {
+    }
+    
+    public QuestionGroupSummaryResponse(Long id, String title, String questionType, Integer part,
+                                        String audioUrl, String imageUrl, Long testId,
+                                        long questionCount) {
+        this.id = id;
+        this.title = title;
+        this.questionType = questionType;
+        this.part = part;
+        this.audioUrl = audioUrl;
+        this.imageUrl = imageUrl;
+        this.testId = testId;
+        this.questionCount = questionCount;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getQuestionType() {
+        return questionType;
+    }
+
+    public void setQuestionType(String questionType) {
+        this.questionType = questionType;
+    }
+
+    public Integer getPart() {
+        return part;
+    }
+
+    public void setPart(Integer part) {
+        this.part = part;
+    }
+
+    public String getAudioUrl() {
+        return audioUrl;
+    }
+
+    public void setAudioUrl(String audioUrl) {
+        this.audioUrl = audioUrl;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
+    public long getQuestionCount() {
+        return questionCount;
+    }
+
+    public void setQuestionCount(long questionCount) {
+        this.questionCount = questionCount;
+    }
+}
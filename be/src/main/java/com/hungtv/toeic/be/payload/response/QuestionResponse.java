@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hungtv.toeic.be.cache.TestSnapshot;
 import com.hungtv.toeic.be.models.QuestionGroup;
 import com.hungtv.toeic.be.models.ToeicQuestion;
 
@@ -17,12 +19,18 @@ public class QuestionResponse {
     private String passage;
     private String imageUrl;
     private Integer questionOrder;
+    // Không có trong bản giao đề (delivery), chỉ trả về ở bản đầy đủ/xem lại
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String correctAnswer;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String explanation;
     private String difficultyLevel;
     private Long testId;
     private String category;
     private List<OptionResponse> options = new ArrayList<>();
+    // Thống kê câu hỏi (độ khó, độ phân biệt), chỉ trả về cho admin
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private QuestionStatsResponse stats;
     
     public QuestionResponse() {
     }
@@ -67,6 +75,43 @@ public class QuestionResponse {
         }
     }
     
+    public QuestionResponse(TestSnapshot.QuestionSnapshot question) {
+        this(question, true);
+    }
+    
+    /**
+     * @param question Câu hỏi trong ảnh chụp
+     * @param includeAnswers false để tạo bản giao đề: không kèm đáp án đúng và giải thích
+     */
+    public QuestionResponse(TestSnapshot.QuestionSnapshot question, boolean includeAnswers) {
+        this.id = question.getId();
+        
+        // Lấy thông tin từ nhóm trong ảnh chụp
+        TestSnapshot.GroupSnapshot group = question.getGroup();
+        if (group != null) {
+            this.type = group.getQuestionType().name();
+            this.part = group.getPart();
+            this.audioUrl = group.getAudioUrl();
+            this.questionGroupId = group.getId();
+            this.passage = group.getPassage();
+            this.imageUrl = group.getImageUrl();
+            this.testId = group.getTestId();
+        } else if (question.getCategory() != null) {
+            this.category = question.getCategory().name();
+        }
+        
+        this.question = question.getQuestion();
+        this.questionOrder = question.getQuestionOrder();
+        if (includeAnswers) {
+            this.correctAnswer = question.getCorrectAnswer();
+            this.explanation = question.getExplanation();
+        }
+        this.difficultyLevel = question.getDifficultyLevel().name();
+        this.options = question.getOptions().stream()
+                .map(OptionResponse::new)
+                .collect(Collectors.toList());
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -187,4 +232,12 @@ public class QuestionResponse {
     public void setOptions(List<OptionResponse> options) {
         this.options = options;
     }
-}
\ No newline at end of file
+    
+    public QuestionStatsResponse getStats() {
+        return stats;
+    }
+    
+    public void setStats(QuestionStatsResponse stats) {
+        this.stats = stats;
+    }
+}
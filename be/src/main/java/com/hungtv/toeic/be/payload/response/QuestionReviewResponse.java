@@ -0,0 +1,95 @@
+package com.hungtv.toeic.be.payload.response;
+
+public class QuestionReviewResponse {
+    private Long questionId;
+    private Long questionGroupId;
+    private Integer questionOrder;
+    private String userAnswer;
+    private String correctAnswer;
+    private Boolean isCorrect;
+    private String explanation;
+    // false nếu câu hỏi đã bị gỡ khỏi bài thi sau lượt làm bài
+    private Boolean inCurrentTest;
+    
+    // Constructors
+    public QuestionReviewResponse() {
+    }
+    
+    public QuestionReviewResponse(Long questionId, Long questionGroupId, Integer questionOrder,
+                                  String userAnswer, String correctAnswer, Boolean isCorrect,
+                                  String explanation, Boolean inCurrentTest) {
+        this.questionId = questionId;
+        this.questionGroupId = questionGroupId;
+        this.questionOrder = questionOrder;
+        this.userAnswer = userAnswer;
+        this.correctAnswer = correctAnswer;
+        this.isCorrect = isCorrect;
+        this.explanation = explanation;
+        this.inCurrentTest = inCurrentTest;
+    }
+    
+    // Getters and Setters
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public Long getQuestionGroupId() {
+        return questionGroupId;
+    }
+
+    public void setQuestionGroupId(Long questionGroupId) {
+        this.questionGroupId = questionGroupId;
+    }
+
+    public Integer getQuestionOrder() {
+        return questionOrder;
+    }
+
+    public void setQuestionOrder(Integer questionOrder) {
+        this.questionOrder = questionOrder;
+    }
+
+    public String getUserAnswer() {
+        return userAnswer;
+    }
+
+    public void setUserAnswer(String userAnswer) {
+        this.userAnswer = userAnswer;
+    }
+
+    public String getCorrectAnswer() {
+        return correctAnswer;
+    }
+
+    public void setCorrectAnswer(String correctAnswer) {
+        this.correctAnswer = correctAnswer;
+    }
+
+    public Boolean getIsCorrect() {
+        return isCorrect;
+    }
+
+    public void setIsCorrect(Boolean isCorrect) {
+        this.isCorrect = isCorrect;
+    }
+
+    public String getExplanation() {
+        return explanation;
+    }
+
+    public void setExplanation(String explanation) {
+        this.explanation = explanation;
+    }
+
+    public Boolean getInCurrentTest() {
+        return inCurrentTest;
+    }
+
+    public void setInCurrentTest(Boolean inCurrentTest) {
+        this.inCurrentTest = inCurrentTest;
+    }
+}
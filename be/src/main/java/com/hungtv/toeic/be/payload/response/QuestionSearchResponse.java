@@ -0,0 +1,67 @@
+package com.hungtv.toeic.be.payload.response;
+
+import java.util.List;
+import java.util.Map;
+
+public class QuestionSearchResponse {
+    private List<QuestionResponse> content;
+    private long totalElements;
+    private int page;
+    private int size;
+    // Số kết quả theo part, category và difficulty trên toàn bộ kết quả khớp
+    private Map<String, Map<String, Long>> facets;
+    
+    // Constructors
+    public QuestionSearchResponse() {
+    }
+    
+    public QuestionSearchResponse(List<QuestionResponse> content, long totalElements, int page, int size,
+                                  Map<String, Map<String, Long>> facets) {
+        this.content = content;
+        this.totalElements = totalElements;
+        this.page = page;
+        this.size = size;
+        this.facets = facets;
+    }
+    
+    // Getters and Setters
+    public List<QuestionResponse> getContent() {
+        return content;
+    }
+
+    public void setContent(List<QuestionResponse> content) {
+        this.content = content;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Long>> facets) {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,81 @@
+package com.hungtv.toeic.be.payload.response;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.hungtv.toeic.be.models.QuestionStats;
+
+public class QuestionStatsResponse {
+    private Long questionId;
+    private Long responses;
+    private Long correctCount;
+    // Độ khó: tỉ lệ câu trả lời đúng (0..1)
+    private Double pValue;
+    // Độ phân biệt: tương quan điểm-nhị phân với điểm tổng (-1..1), âm thường là sai đáp án
+    private Double discrimination;
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public QuestionStatsResponse() {
+    }
+    
+    public QuestionStatsResponse(QuestionStats stats) {
+        this.questionId = stats.getQuestionId();
+        this.responses = stats.getResponses();
+        this.correctCount = stats.getCorrectCount();
+        this.pValue = stats.getPValue();
+        this.discrimination = stats.getDiscrimination();
+        this.updatedAt = stats.getUpdatedAt();
+    }
+    
+    // Getters and Setters
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public Long getResponses() {
+        return responses;
+    }
+
+    public void setResponses(Long responses) {
+        this.responses = responses;
+    }
+
+    public Long getCorrectCount() {
+        return correctCount;
+    }
+
+    public void setCorrectCount(Long correctCount) {
+        this.correctCount = correctCount;
+    }
+
+    @JsonProperty("pValue")
+    public Double getPValue() {
+        return pValue;
+    }
+
+    @JsonProperty("pValue")
+    public void setPValue(Double pValue) {
+        this.pValue = pValue;
+    }
+
+    public Double getDiscrimination() {
+        return discrimination;
+    }
+
+    public void setDiscrimination(Double discrimination) {
+        this.discrimination = discrimination;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
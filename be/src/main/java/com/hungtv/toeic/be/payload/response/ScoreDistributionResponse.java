@@ -0,0 +1,98 @@
+package com.hungtv.toeic.be.payload.response;
+
+import java.util.List;
+
+public class ScoreDistributionResponse {
+    private Long testId;
+    private List<Histogram> histograms;
+    
+    // Constructors
+    public ScoreDistributionResponse() {
+    }
+    
+    public ScoreDistributionResponse(Long testId, List<Histogram> histograms) {
+        this.testId = testId;
+        this.histograms = histograms;
+    }
+    
+    // Getters and Setters
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
+    public List<Histogram> getHistograms() {
+        return histograms;
+    }
+
+    public void setHistograms(List<Histogram> histograms) {
+        this.histograms = histograms;
+    }
+    
+    /**
+     * Phân bố của một loại điểm: counts[i] là số bài nộp có điểm trong [i * bucketWidth, (i + 1) * bucketWidth)
+     */
+    public static class Histogram {
+        private String metric;
+        private Integer bucketWidth;
+        private Integer maxScore;
+        private Long total;
+        private long[] counts;
+        
+        // Constructors
+        public Histogram() {
+        }
+        
+        public Histogram(String metric, Integer bucketWidth, Integer maxScore, Long total, long[] counts) {
+            this.metric = metric;
+            this.bucketWidth = bucketWidth;
+            this.maxScore = maxScore;
+            this.total = total;
+            this.counts = counts;
+        }
+        
+        // Getters and Setters
+        public String getMetric() {
+            return metric;
+        }
+
+        public void setMetric(String metric) {
+            this.metric = metric;
+        }
+
+        public Integer getBucketWidth() {
+            return bucketWidth;
+        }
+
+        public void setBucketWidth(Integer bucketWidth) {
+            this.bucketWidth = bucketWidth;
+        }
+
+        public Integer getMaxScore() {
+            return maxScore;
+        }
+
+        public void setMaxScore(Integer maxScore) {
+            this.maxScore = maxScore;
+        }
+
+        public Long getTotal() {
+            return total;
+        }
+
+        public void setTotal(Long total) {
+            this.total = total;
+        }
+
+        public long[] getCounts() {
+            return counts;
+        }
+
+        public void setCounts(long[] counts) {
+            this.counts = counts;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.hungtv.toeic.be.payload.response;
+
+public class ScorePercentileResponse {
+    private Long resultId;
+    private Long testId;
+    private Long sampleSize;
+    private Integer totalScore;
+    private Double totalPercentile;
+    private Integer listeningScaledScore;
+    private Double listeningPercentile;
+    private Integer readingScaledScore;
+    private Double readingPercentile;
+    
+    // Constructors
+    public ScorePercentileResponse() {
+    }
+    
+    public ScorePercentileResponse(Long resultId, Long testId, Long sampleSize, Integer totalScore,
+                                   Double totalPercentile, Integer listeningScaledScore, Double listeningPercentile,
+                                   Integer readingScaledScore, Double readingPercentile) {
+        this.resultId = resultId;
+        this.testId = testId;
+        this.sampleSize = sampleSize;
+        this.totalScore = totalScore;
+        this.totalPercentile = totalPercentile;
+        this.listeningScaledScore = listeningScaledScore;
+        this.listeningPercentile = listeningPercentile;
+        this.readingScaledScore = readingScaledScore;
+        this.readingPercentile = readingPercentile;
+    }
+    
+    // Getters and Setters
+    public Long getResultId() {
+        return resultId;
+    }
+
+    public void setResultId(Long resultId) {
+        this.resultId = resultId;
+    }
+
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
+    public Long getSampleSize() {
+        return sampleSize;
+    }
+
+    public void setSampleSize(Long sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public Integer getTotalScore() {
+        return totalScore;
+    }
+
+    public void setTotalScore(Integer totalScore) {
+        this.totalScore = totalScore;
+    }
+
+    public Double getTotalPercentile() {
+        return totalPercentile;
+    }
+
+    public void setTotalPercentile(Double totalPercentile) {
+        this.totalPercentile = totalPercentile;
+    }
+
+    public Integer getListeningScaledScore() {
+        return listeningScaledScore;
+    }
+
+    public void setListeningScaledScore(Integer listeningScaledScore) {
+        this.listeningScaledScore = listeningScaledScore;
+    }
+
+    public Double getListeningPercentile() {
+        return listeningPercentile;
+    }
+
+    public void setListeningPercentile(Double listeningPercentile) {
+        this.listeningPercentile = listeningPercentile;
+    }
+
+    public Integer getReadingScaledScore() {
+        return readingScaledScore;
+    }
+
+    public void setReadingScaledScore(Integer readingScaledScore) {
+        this.readingScaledScore = readingScaledScore;
+    }
+
+    public Double getReadingPercentile() {
+        return readingPercentile;
+    }
+
+    public void setReadingPercentile(Double readingPercentile) {
+        this.readingPercentile = readingPercentile;
+    }
+}
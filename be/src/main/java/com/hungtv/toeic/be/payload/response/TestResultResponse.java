@@ -17,6 +17,9 @@ public class TestResultResponse {
     private Integer correctAnswers;
     private Integer totalQuestions;
     private LocalDateTime createdAt;
+    private String submissionId;
+    // true khi bài nộp đã được chấm điểm nhưng chưa được ghi xuống database (id còn null)
+    private boolean pending;
     
     // Constructors
     public TestResultResponse() {
@@ -155,4 +158,20 @@ public class TestResultResponse {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
-} 
\ No newline at end of file
+
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(String submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
+}
@@ -0,0 +1,89 @@
+package com.hungtv.toeic.be.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestResultReviewResponse {
+    private Long testResultId;
+    private Long testId;
+    private String testTitle;
+    private List<QuestionReviewResponse> questions = new ArrayList<>();
+    // Phiên bản nội dung bài thi lúc làm bài (null với bài cũ không có phiếu trả lời nén)
+    private Long attemptContentVersion;
+    private Long currentContentVersion;
+    // true nếu nội dung bài thi đã thay đổi sau lượt làm bài
+    private Boolean contentChanged;
+    
+    // Constructors
+    public TestResultReviewResponse() {
+    }
+    
+    public TestResultReviewResponse(Long testResultId, Long testId, String testTitle,
+                                    List<QuestionReviewResponse> questions, Long attemptContentVersion,
+                                    Long currentContentVersion, Boolean contentChanged) {
+        this.testResultId = testResultId;
+        this.testId = testId;
+        this.testTitle = testTitle;
+        this.questions = questions;
+        this.attemptContentVersion = attemptContentVersion;
+        this.currentContentVersion = currentContentVersion;
+        this.contentChanged = contentChanged;
+    }
+    
+    // Getters and Setters
+    public Long getTestResultId() {
+        return testResultId;
+    }
+
+    public void setTestResultId(Long testResultId) {
+        this.testResultId = testResultId;
+    }
+
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
+    public String getTestTitle() {
+        return testTitle;
+    }
+
+    public void setTestTitle(String testTitle) {
+        this.testTitle = testTitle;
+    }
+
+    public List<QuestionReviewResponse> getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(List<QuestionReviewResponse> questions) {
+        this.questions = questions;
+    }
+
+    public Long getAttemptContentVersion() {
+        return attemptContentVersion;
+    }
+
+    public void setAttemptContentVersion(Long attemptContentVersion) {
+        this.attemptContentVersion = attemptContentVersion;
+    }
+
+    public Long getCurrentContentVersion() {
+        return currentContentVersion;
+    }
+
+    public void setCurrentContentVersion(Long currentContentVersion) {
+        this.currentContentVersion = currentContentVersion;
+    }
+
+    public Boolean getContentChanged() {
+        return contentChanged;
+    }
+
+    public void setContentChanged(Boolean contentChanged) {
+        this.contentChanged = contentChanged;
+    }
+}
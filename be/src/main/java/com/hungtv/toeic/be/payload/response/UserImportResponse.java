@@ -0,0 +1,57 @@
+package com.hungtv.toeic.be.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserImportResponse {
+    private int total;
+    private int created;
+    private int failed;
+    private long elapsedMs;
+    private List<UserImportRowResponse> rows = new ArrayList<>();
+    
+    // Constructors
+    public UserImportResponse() {
+    }
+    
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public List<UserImportRowResponse> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<UserImportRowResponse> rows) {
+        this.rows = rows;
+    }
+}
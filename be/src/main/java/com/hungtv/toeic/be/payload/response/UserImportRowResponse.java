@@ -0,0 +1,75 @@
+package com.hungtv.toeic.be.payload.response;
+
+public class UserImportRowResponse {
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+    
+    // Số thứ tự dòng trong tệp (CSV tính cả dòng tiêu đề, JSON tính từ 1)
+    private int row;
+    private String username;
+    private String email;
+    private Status status;
+    private Long userId;
+    private String message;
+    
+    // Constructors
+    public UserImportRowResponse() {
+    }
+    
+    public UserImportRowResponse(int row, String username, String email) {
+        this.row = row;
+        this.username = username;
+        this.email = email;
+    }
+    
+    // Getters and Setters
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
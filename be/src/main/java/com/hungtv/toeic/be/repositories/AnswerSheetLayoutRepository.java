@@ -0,0 +1,15 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.models.AnswerSheetLayout;
+
+@Repository
+public interface AnswerSheetLayoutRepository extends JpaRepository<AnswerSheetLayout, Long> {
+    
+    // Tìm thứ tự câu hỏi của một phiên bản bài thi
+    Optional<AnswerSheetLayout> findByTestIdAndContentVersion(Long testId, Long contentVersion);
+}
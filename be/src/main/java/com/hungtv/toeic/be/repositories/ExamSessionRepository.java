@@ -0,0 +1,33 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.models.ExamSession;
+
+@Repository
+public interface ExamSessionRepository extends JpaRepository<ExamSession, Long> {
+    
+    // Tìm lượt làm bài gần nhất của người dùng cho một bài thi theo trạng thái
+    Optional<ExamSession> findFirstByUserIdAndTestIdAndStatusOrderByIdDesc(Long userId, Long testId, ExamSession.Status status);
+    
+    // Hạn nộp của các lượt làm bài đang diễn ra theo keyset (id > afterId), dùng để dựng lại bộ hẹn giờ
+    @Query("SELECT s.id AS id, s.expiresAt AS expiresAt FROM ExamSession s " +
+           "WHERE s.status = com.hungtv.toeic.be.models.ExamSession.Status.IN_PROGRESS " +
+           "AND s.expiresAt IS NOT NULL AND s.id > :afterId ORDER BY s.id")
+    List<Deadline> findActiveDeadlinesAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Hạn nộp của một lượt làm bài
+    interface Deadline {
+        Long getId();
+        
+        LocalDateTime getExpiresAt();
+    }
+}
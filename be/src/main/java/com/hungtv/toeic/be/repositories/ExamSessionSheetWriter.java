@@ -0,0 +1,73 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Ghi phiếu trả lời của nhiều lượt làm bài trong một JDBC batch (một câu UPDATE mỗi lượt),
+ * dùng cho lần lưu định kỳ của ExamSessionStore.
+ */
+@Repository
+public class ExamSessionSheetWriter {
+
+    // Chỉ cập nhật lượt làm bài còn đang diễn ra: không ghi đè lượt đã kết thúc
+    private static final String UPDATE_SQL =
+            "UPDATE exam_sessions SET answer_sheet = ?, answered_count = ?, last_saved_at = ? "
+            + "WHERE id = ? AND status = 'IN_PROGRESS'";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE exam_sessions SET answer_sheet = ?, answered_count = ?, status = ?, last_saved_at = ?, "
+            + "finalized_at = ? WHERE id = ? AND status = 'IN_PROGRESS'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Cập nhật phiếu trả lời
+     *
+     * @param sessionIds ID lượt làm bài
+     * @param sheets Phiếu trả lời tương ứng
+     * @param answeredCounts Số câu đã trả lời tương ứng
+     * @param count Số dòng cần cập nhật (phần tử đầu của các mảng)
+     * @param savedAt Thời điểm lưu
+     */
+    public void updateAll(long[] sessionIds, byte[][] sheets, int[] answeredCounts, int count, LocalDateTime savedAt) {
+        Timestamp timestamp = Timestamp.valueOf(savedAt);
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setBytes(1, sheets[i]);
+                ps.setInt(2, answeredCounts[i]);
+                ps.setTimestamp(3, timestamp);
+                ps.setLong(4, sessionIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Lưu phiếu trả lời cuối cùng và chuyển trạng thái của lượt làm bài đang diễn ra
+     *
+     * @param sessionId ID lượt làm bài
+     * @param sheet Phiếu trả lời cuối cùng
+     * @param answeredCount Số câu đã trả lời
+     * @param status Trạng thái mới
+     * @param completedAt Thời điểm kết thúc
+     * @return true nếu lượt làm bài còn đang diễn ra và đã được cập nhật
+     */
+    public boolean complete(long sessionId, byte[] sheet, int answeredCount, String status, LocalDateTime completedAt) {
+        Timestamp timestamp = Timestamp.valueOf(completedAt);
+        return jdbcTemplate.update(COMPLETE_SQL, sheet, answeredCount, status, timestamp, timestamp, sessionId) > 0;
+    }
+}
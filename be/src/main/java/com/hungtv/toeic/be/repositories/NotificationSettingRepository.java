@@ -44,6 +44,6 @@ public interface NotificationSettingRepository extends JpaRepository<Notificatio
      */
     @Query("SELECT ns FROM NotificationSetting ns WHERE ns.studyReminders = true " + 
            "AND ns.studyReminderTime = :reminderTime " +
-           "AND (ns.lastReminderSent IS NULL OR DATE(ns.lastReminderSent) < CURRENT_DATE)")  
+           "AND (ns.lastReminderSent IS NULL OR CAST(ns.lastReminderSent AS LocalDate) < CURRENT_DATE)")  
     List<NotificationSetting> findAllForStudyReminder(String reminderTime);
 } 
\ No newline at end of file
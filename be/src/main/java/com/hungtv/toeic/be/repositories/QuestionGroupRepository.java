@@ -1,11 +1,19 @@
 package com.hungtv.toeic.be.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.hungtv.toeic.be.cache.ContentVersion;
 import com.hungtv.toeic.be.models.QuestionGroup;
 
 @Repository
@@ -20,7 +28,55 @@ public interface QuestionGroupRepository extends JpaRepository<QuestionGroup, Lo
     // Lấy danh sách nhóm câu hỏi theo type và part
     List<QuestionGroup> findByQuestionTypeAndPart(QuestionGroup.QuestionType type, Integer part);
     
+    // Phân trang nhóm câu hỏi theo type và part (null = không lọc), kèm bài thi (legacy)
+    @Query(value = "SELECT qg FROM QuestionGroup qg LEFT JOIN FETCH qg.test " +
+                   "WHERE (:type IS NULL OR qg.questionType = :type) AND (:part IS NULL OR qg.part = :part)",
+           countQuery = "SELECT COUNT(qg) FROM QuestionGroup qg " +
+                   "WHERE (:type IS NULL OR qg.questionType = :type) AND (:part IS NULL OR qg.part = :part)")
+    Page<QuestionGroup> findByQuestionTypeAndPart(@Param("type") QuestionGroup.QuestionType type,
+                                                  @Param("part") Integer part, Pageable pageable);
+    
+    // Chỉ thông tin đầu nhóm (không đọc đoạn văn), phân trang theo type và part (null = không lọc):
+    // (id, title, questionType, part, audioUrl, imageUrl, testId)
+    @Query(value = "SELECT qg.id, qg.title, qg.questionType, qg.part, qg.audioUrl, qg.imageUrl, t.id " +
+                   "FROM QuestionGroup qg LEFT JOIN qg.test t " +
+                   "WHERE (:type IS NULL OR qg.questionType = :type) AND (:part IS NULL OR qg.part = :part)",
+           countQuery = "SELECT COUNT(qg) FROM QuestionGroup qg " +
+                   "WHERE (:type IS NULL OR qg.questionType = :type) AND (:part IS NULL OR qg.part = :part)")
+    Page<Object[]> findHeadersByQuestionTypeAndPart(@Param("type") QuestionGroup.QuestionType type,
+                                                    @Param("part") Integer part, Pageable pageable);
+    
+    // Chỉ thông tin đầu nhóm, phân trang theo khóa (id > afterId): cùng thứ tự cột như trên
+    @Query("SELECT qg.id, qg.title, qg.questionType, qg.part, qg.audioUrl, qg.imageUrl, t.id " +
+           "FROM QuestionGroup qg LEFT JOIN qg.test t " +
+           "WHERE qg.id > :afterId AND (:type IS NULL OR qg.questionType = :type) AND (:part IS NULL OR qg.part = :part) " +
+           "ORDER BY qg.id")
+    List<Object[]> findHeadersByQuestionTypeAndPartAfterId(@Param("type") QuestionGroup.QuestionType type,
+                                                           @Param("part") Integer part,
+                                                           @Param("afterId") Long afterId, Pageable pageable);
+    
+    // Phân trang theo khóa: các nhóm có id > afterId theo thứ tự id, số lượng giới hạn bởi pageable
+    @Query("SELECT qg FROM QuestionGroup qg LEFT JOIN FETCH qg.test " +
+           "WHERE qg.id > :afterId AND (:type IS NULL OR qg.questionType = :type) AND (:part IS NULL OR qg.part = :part) " +
+           "ORDER BY qg.id")
+    List<QuestionGroup> findByQuestionTypeAndPartAfterId(@Param("type") QuestionGroup.QuestionType type,
+                                                         @Param("part") Integer part,
+                                                         @Param("afterId") Long afterId, Pageable pageable);
+    
     // Query tùy chỉnh để tìm nhóm câu hỏi có chứa passage
     @Query("SELECT qg FROM QuestionGroup qg WHERE qg.passage IS NOT NULL AND qg.passage <> ''")
     List<QuestionGroup> findAllWithPassage();
-}
\ No newline at end of file
+    
+    // Đọc phiên bản nội dung theo khóa chính, không chạm tới bảng câu hỏi
+    @Query("SELECT new com.hungtv.toeic.be.cache.ContentVersion(qg.contentVersion, qg.contentUpdatedAt) FROM QuestionGroup qg WHERE qg.id = :id")
+    Optional<ContentVersion> findContentVersionById(@Param("id") Long id);
+    
+    // Các nhóm có nội dung thay đổi từ thời điểm since: (id, contentVersion, contentUpdatedAt)
+    @Query("SELECT qg.id, qg.contentVersion, qg.contentUpdatedAt FROM QuestionGroup qg WHERE qg.contentUpdatedAt >= :since")
+    List<Object[]> findContentChangesSince(@Param("since") LocalDateTime since);
+    
+    // Tăng phiên bản nội dung của các nhóm câu hỏi
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE QuestionGroup qg SET qg.contentVersion = qg.contentVersion + 1, qg.contentUpdatedAt = :now WHERE qg.id IN :ids")
+    int incrementContentVersion(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,21 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.models.QuestionStats;
+
+@Repository
+public interface QuestionStatsRepository extends JpaRepository<QuestionStats, Long> {
+    
+    // Các câu hỏi có độ phân biệt thấp nhất (đủ số câu trả lời), thường là câu hỏi lỗi hoặc sai đáp án
+    @Query("SELECT s FROM QuestionStats s WHERE s.responses >= :minResponses AND s.discrimination < :threshold "
+            + "ORDER BY s.discrimination")
+    List<QuestionStats> findLowDiscrimination(@Param("minResponses") long minResponses,
+                                              @Param("threshold") double threshold, Pageable pageable);
+}
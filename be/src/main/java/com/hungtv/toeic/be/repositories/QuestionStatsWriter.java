@@ -0,0 +1,203 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.statistics.ItemStatsAccumulator;
+
+/**
+ * Ghi thống kê câu hỏi (question_stats) và lịch sử các lần tính (question_stats_runs) bằng JDBC.
+ *
+ * Chỉ lần tính thống kê ghi vào question_stats; các lần ghi được tuần tự hóa bằng cách khóa các
+ * dòng question_stats_runs (lockWatermark) trong cùng transaction.
+ */
+@Repository
+public class QuestionStatsWriter {
+
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO question_stats (question_id, responses, correct_count, score_sum, score_square_sum, "
+            + "correct_score_sum, p_value, discrimination, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE question_stats SET responses = ?, correct_count = ?, score_sum = ?, score_square_sum = ?, "
+            + "correct_score_sum = ?, p_value = ?, discrimination = ?, updated_at = ? WHERE question_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Mốc hiện tại: ID kết quả lớn nhất đã được cộng vào question_stats
+     *
+     * @return ID kết quả, 0 nếu chưa có lần tính nào
+     */
+    public long findWatermark() {
+        Long watermark = jdbcTemplate.queryForObject("SELECT MAX(to_result_id) FROM question_stats_runs", Long.class);
+        return watermark != null ? watermark : 0;
+    }
+
+    /**
+     * Khóa lịch sử các lần tính đến hết transaction hiện tại và trả về mốc hiện tại
+     *
+     * @return ID kết quả, 0 nếu chưa có lần tính nào
+     */
+    public long lockWatermark() {
+        List<Long> watermarks = jdbcTemplate.queryForList(
+                "SELECT to_result_id FROM question_stats_runs FOR UPDATE", Long.class);
+        long watermark = 0;
+        for (Long value : watermarks) {
+            watermark = Math.max(watermark, value);
+        }
+        return watermark;
+    }
+
+    /**
+     * Thay toàn bộ question_stats bằng các tổng đã tính (phải chạy trong transaction)
+     *
+     * @param totals Tổng theo câu hỏi
+     */
+    public void replaceAll(ItemStatsAccumulator totals) {
+        jdbcTemplate.update("DELETE FROM question_stats");
+        List<Integer> indexes = new ArrayList<>(totals.size());
+        for (int i = 0; i < totals.size(); i++) {
+            indexes.add(i);
+        }
+        insert(totals, indexes, new long[totals.size()][], Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Cộng các tổng đã tính vào question_stats (phải chạy trong transaction, sau lockWatermark)
+     *
+     * @param totals Tổng theo câu hỏi
+     */
+    public void addAll(ItemStatsAccumulator totals) {
+        Map<Long, long[]> existing = findSums(totals);
+        List<Integer> updates = new ArrayList<>();
+        List<Integer> inserts = new ArrayList<>();
+        long[][] previous = new long[totals.size()][];
+        for (int i = 0; i < totals.size(); i++) {
+            previous[i] = existing.get(totals.questionIdAt(i));
+            (previous[i] != null ? updates : inserts).add(i);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                int index = updates.get(i);
+                setSums(ps, 1, totals, index, previous[index]);
+                ps.setTimestamp(8, now);
+                ps.setLong(9, totals.questionIdAt(index));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+        insert(totals, inserts, previous, now);
+    }
+
+    /**
+     * Ghi lại một lần tính
+     *
+     * @param mode FULL hoặc INCREMENTAL
+     * @param fromResultId ID kết quả bắt đầu (không bao gồm)
+     * @param toResultId ID kết quả kết thúc (bao gồm), là mốc mới
+     * @param answerSheets Số phiếu trả lời nén đã đọc
+     * @param answerRows Số dòng user_answers đã đọc
+     * @param responses Số câu trả lời đã cộng
+     * @param startedAt Thời điểm bắt đầu tính
+     */
+    public void insertRun(String mode, long fromResultId, long toResultId, long answerSheets, long answerRows,
+                          long responses, LocalDateTime startedAt) {
+        jdbcTemplate.update("INSERT INTO question_stats_runs (run_mode, from_result_id, to_result_id, answer_sheets, "
+                + "answer_rows, responses, started_at, finished_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                mode, fromResultId, toResultId, answerSheets, answerRows, responses, Timestamp.valueOf(startedAt),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void insert(ItemStatsAccumulator totals, List<Integer> indexes, long[][] previous, Timestamp now) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                int index = indexes.get(i);
+                ps.setLong(1, totals.questionIdAt(index));
+                setSums(ps, 2, totals, index, previous[index]);
+                ps.setTimestamp(9, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return indexes.size();
+            }
+        });
+    }
+
+    /**
+     * Đặt 5 tổng (cộng với tổng đã lưu nếu có), p_value và discrimination từ vị trí first
+     */
+    private static void setSums(PreparedStatement ps, int first, ItemStatsAccumulator totals, int index,
+                                long[] previous) throws SQLException {
+        long[] sums = {
+                totals.responsesAt(index), totals.correctAt(index), totals.scoreSumAt(index),
+                totals.scoreSquareSumAt(index), totals.correctScoreSumAt(index)
+        };
+        if (previous != null) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += previous[i];
+            }
+        }
+        for (int i = 0; i < sums.length; i++) {
+            ps.setLong(first + i, sums[i]);
+        }
+        setNullableDouble(ps, first + 5, ItemStatsAccumulator.pValue(sums[0], sums[1]));
+        setNullableDouble(ps, first + 6,
+                ItemStatsAccumulator.discrimination(sums[0], sums[1], sums[2], sums[3], sums[4]));
+    }
+
+    private Map<Long, long[]> findSums(ItemStatsAccumulator totals) {
+        Map<Long, long[]> sums = new HashMap<>();
+        for (int from = 0; from < totals.size(); from += IN_CLAUSE_SIZE) {
+            List<Long> ids = new ArrayList<>();
+            for (int i = from; i < Math.min(from + IN_CLAUSE_SIZE, totals.size()); i++) {
+                ids.add(totals.questionIdAt(i));
+            }
+            namedJdbcTemplate.query("SELECT question_id, responses, correct_count, score_sum, score_square_sum, "
+                    + "correct_score_sum FROM question_stats WHERE question_id IN (:ids)",
+                    new MapSqlParameterSource("ids", ids),
+                    rs -> {
+                        sums.put(rs.getLong(1), new long[] {
+                                rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)
+                        });
+                    });
+        }
+        return sums;
+    }
+
+    private static void setNullableDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+}
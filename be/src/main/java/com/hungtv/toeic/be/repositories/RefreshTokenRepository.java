@@ -0,0 +1,52 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.models.RefreshToken;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    
+    // Khóa dòng để hai lần làm mới cùng một token không cùng được cấp token mới
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.user WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashForUpdate(@Param("tokenHash") String tokenHash);
+    
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    
+    // Các access token của một họ hoặc một người dùng còn hạn, cần đưa vào danh sách thu hồi
+    @Query("SELECT t.accessTokenId, t.accessExpiresAt FROM RefreshToken t WHERE t.familyId = :familyId AND t.accessExpiresAt > :now")
+    List<Object[]> findLiveAccessTokensByFamilyId(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT t.accessTokenId, t.accessExpiresAt FROM RefreshToken t WHERE t.user.id = :userId AND t.accessExpiresAt > :now")
+    List<Object[]> findLiveAccessTokensByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now, t.revokeReason = :reason WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("reason") RefreshToken.RevokeReason reason,
+                     @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now, t.revokeReason = :reason WHERE t.user.id = :userId AND t.revokedAt IS NULL")
+    int revokeAllByUserId(@Param("userId") Long userId, @Param("reason") RefreshToken.RevokeReason reason,
+                          @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM RefreshToken t WHERE t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,30 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.models.RevokedToken;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    
+    boolean existsByTokenId(String tokenId);
+    
+    // Đọc theo trang các dòng mới hơn mốc (keyset theo ID), để nạp lúc khởi động và đồng bộ từ node khác
+    @Query("SELECT r FROM RevokedToken r WHERE r.id > :afterId AND r.expiresAt > :now ORDER BY r.id")
+    List<RevokedToken> findLiveAfter(@Param("afterId") Long afterId, @Param("now") LocalDateTime now, Pageable pageable);
+    
+    @Query("SELECT MAX(r.id) FROM RevokedToken r")
+    Long findMaxId();
+    
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,149 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.statistics.ScoreHistogram;
+
+/**
+ * Đọc/ghi các phần phân bố điểm (score_histogram_shards) bằng JDBC.
+ *
+ * Mỗi node chỉ cộng vào dòng của chính nó (khóa dòng khi đọc-sửa-ghi); việc tính lại một bài
+ * thi khóa mọi dòng của bài thi đó rồi thay bằng một dòng "rebuild" duy nhất, ghi kèm ID kết quả
+ * lớn nhất đã đếm (counted_through_id). Số đếm chờ ghi của các bài nộp có ID không lớn hơn mốc đó
+ * đã nằm trong số đếm lại và phải bị bỏ đi (xem lockWatermarks).
+ */
+@Repository
+public class ScoreHistogramWriter {
+
+    public static final String REBUILD_NODE_ID = "rebuild";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Số đếm cần cộng thêm cho một bài thi và loại điểm
+     *
+     * @param testId ID bài thi
+     * @param metric Loại điểm
+     * @param counts Số đếm của từng ô
+     */
+    public record Delta(long testId, ScoreHistogram.Metric metric, long[] counts) {
+    }
+
+    /**
+     * Khóa mọi dòng của các bài thi (chặn việc tính lại chạy xen) và đọc mốc ID kết quả đã được
+     * tính lại của từng bài thi (phải chạy trong transaction, trước addAll)
+     *
+     * @param testIds ID các bài thi
+     * @return Map test_id -> ID kết quả lớn nhất đã đếm lại (0 nếu chưa tính lại lần nào)
+     */
+    public Map<Long, Long> lockWatermarks(Collection<Long> testIds) {
+        Map<Long, Long> watermarks = new HashMap<>();
+        // Khóa theo thứ tự cố định để tránh deadlock với việc tính lại
+        for (Long testId : new TreeSet<>(testIds)) {
+            long[] watermark = { 0 };
+            jdbcTemplate.query("SELECT counted_through_id FROM score_histogram_shards WHERE test_id = ? FOR UPDATE",
+                    rs -> {
+                        watermark[0] = Math.max(watermark[0], rs.getLong(1));
+                    }, testId);
+            watermarks.put(testId, watermark[0]);
+        }
+        return watermarks;
+    }
+
+    /**
+     * Cộng số đếm vào các dòng của node (phải chạy trong transaction)
+     *
+     * @param nodeId Tên node
+     * @param deltas Danh sách số đếm cần cộng
+     */
+    public void addAll(String nodeId, List<Delta> deltas) {
+        // Khóa các dòng theo thứ tự cố định để tránh deadlock với việc tính lại
+        List<Delta> sorted = deltas.stream()
+                .sorted(Comparator.comparingLong(Delta::testId).thenComparing(Delta::metric))
+                .toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Delta delta : sorted) {
+            long[] counts = delta.counts().clone();
+            List<byte[]> existing = jdbcTemplate.query(
+                    "SELECT counts FROM score_histogram_shards WHERE test_id = ? AND metric = ? AND node_id = ? FOR UPDATE",
+                    (rs, rowNum) -> rs.getBytes(1), delta.testId(), delta.metric().name(), nodeId);
+            if (existing.isEmpty()) {
+                insert(delta.testId(), delta.metric(), nodeId, counts, now, null);
+            } else {
+                ScoreHistogram.addEncoded(counts, existing.get(0));
+                jdbcTemplate.update("UPDATE score_histogram_shards SET counts = ?, updated_at = ? "
+                        + "WHERE test_id = ? AND metric = ? AND node_id = ?",
+                        ScoreHistogram.encode(counts), now, delta.testId(), delta.metric().name(), nodeId);
+            }
+        }
+    }
+
+    /**
+     * Duyệt mọi dòng phân bố điểm; callback nhận (test_id, metric, counts, counted_through_id)
+     *
+     * @param handler Xử lý từng dòng
+     */
+    public void forEachShard(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT test_id, metric, counts, counted_through_id FROM score_histogram_shards", handler);
+    }
+
+    /**
+     * Tính lại phân bố điểm của một bài thi từ test_results và thay mọi dòng của bài thi bằng
+     * kết quả đó, ghi kèm ID kết quả lớn nhất đã đếm (phải chạy trong transaction)
+     *
+     * @param testId ID bài thi
+     * @return Số bài nộp đã đếm
+     */
+    public long rebuild(long testId) {
+        // Chặn các node cộng vào dòng của bài thi trong lúc đếm lại; mốc không bao giờ giảm
+        long[] watermark = { 0 };
+        jdbcTemplate.query("SELECT counted_through_id FROM score_histogram_shards WHERE test_id = ? FOR UPDATE",
+                rs -> {
+                    watermark[0] = Math.max(watermark[0], rs.getLong(1));
+                }, testId);
+
+        ScoreHistogram.Metric[] metrics = ScoreHistogram.Metric.values();
+        long[][] counts = new long[metrics.length][];
+        for (ScoreHistogram.Metric metric : metrics) {
+            counts[metric.ordinal()] = new long[metric.bucketCount()];
+        }
+        long[] submissions = new long[1];
+        jdbcTemplate.query("SELECT id, total_score, listening_scaled_score, reading_scaled_score FROM test_results "
+                + "WHERE test_id = ? AND total_score IS NOT NULL",
+                rs -> {
+                    submissions[0]++;
+                    watermark[0] = Math.max(watermark[0], rs.getLong(1));
+                    for (ScoreHistogram.Metric metric : metrics) {
+                        int score = rs.getInt(metric.ordinal() + 2);
+                        counts[metric.ordinal()][metric.bucketOf(score)]++;
+                    }
+                }, testId);
+
+        jdbcTemplate.update("DELETE FROM score_histogram_shards WHERE test_id = ?", testId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (ScoreHistogram.Metric metric : metrics) {
+            insert(testId, metric, REBUILD_NODE_ID, counts[metric.ordinal()], now, watermark[0]);
+        }
+        return submissions[0];
+    }
+
+    private void insert(long testId, ScoreHistogram.Metric metric, String nodeId, long[] counts, Timestamp now,
+                        Long countedThroughId) {
+        jdbcTemplate.update("INSERT INTO score_histogram_shards (test_id, metric, node_id, counts, updated_at, "
+                + "counted_through_id) VALUES (?, ?, ?, ?, ?, ?)", testId, metric.name(), nodeId,
+                ScoreHistogram.encode(counts), now, countedThroughId);
+    }
+}
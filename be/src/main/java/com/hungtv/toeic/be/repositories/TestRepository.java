@@ -1,10 +1,18 @@
 package com.hungtv.toeic.be.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.hungtv.toeic.be.cache.ContentVersion;
 import com.hungtv.toeic.be.models.QuestionGroup;
 import com.hungtv.toeic.be.models.Test;
 
@@ -17,4 +25,22 @@ public interface TestRepository extends JpaRepository<Test, Long> {
     
     // Tìm tất cả bài thi chứa nhóm câu hỏi
     List<Test> findByQuestionGroupsContaining(QuestionGroup questionGroup);
-} 
\ No newline at end of file
+    
+    // Lấy bài thi kèm danh sách nhóm câu hỏi trong một truy vấn
+    @EntityGraph(attributePaths = "questionGroups")
+    @Query("SELECT t FROM Test t WHERE t.id = :id")
+    Optional<Test> findWithQuestionGroupsById(@Param("id") Long id);
+    
+    // Lấy ID các bài thi chứa nhóm câu hỏi (dùng để làm mới cache)
+    @Query("SELECT t.id FROM Test t JOIN t.questionGroups g WHERE g.id = :groupId")
+    List<Long> findIdsByQuestionGroupId(@Param("groupId") Long groupId);
+    
+    // Đọc phiên bản nội dung theo khóa chính, không chạm tới bảng câu hỏi
+    @Query("SELECT new com.hungtv.toeic.be.cache.ContentVersion(t.contentVersion, t.contentUpdatedAt) FROM Test t WHERE t.id = :id")
+    Optional<ContentVersion> findContentVersionById(@Param("id") Long id);
+    
+    // Tăng phiên bản nội dung của các bài thi
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Test t SET t.contentVersion = t.contentVersion + 1, t.contentUpdatedAt = :now WHERE t.id IN :ids")
+    int incrementContentVersion(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
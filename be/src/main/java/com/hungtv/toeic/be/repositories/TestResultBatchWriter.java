@@ -0,0 +1,213 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+import com.hungtv.toeic.be.submission.PendingSubmission;
+
+/**
+ * Ghi nhiều bài nộp (test_results) trong một JDBC batch, dùng cho bộ ghi write-behind.
+ *
+ * ID sinh tự động được đọc lại theo submission_id (cột unique) thay vì getGeneratedKeys,
+ * vì không phải driver nào cũng trả khóa cho batch đã được gộp.
+ */
+@Repository
+public class TestResultBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO test_results (submission_id, idempotency_key, user_id, test_id, listening_score, reading_score, "
+            + "grammar_score, vocabulary_score, total_score, listening_scaled_score, reading_scaled_score, "
+            + "completion_time_in_minutes, correct_answers, total_questions, created_at, answer_sheet, correct_bits, "
+            + "sheet_layout_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SHEET_SQL =
+            "UPDATE test_results SET answer_sheet = ?, correct_bits = ?, sheet_layout_id = ? WHERE id = ?";
+
+    private static final String UPDATE_SCORES_SQL =
+            "UPDATE test_results SET listening_score = ?, reading_score = ?, grammar_score = ?, vocabulary_score = ?, "
+            + "total_score = ?, listening_scaled_score = ?, reading_scaled_score = ?, correct_answers = ?, "
+            + "total_questions = ?, correct_bits = ? WHERE id = ?";
+
+    /**
+     * Điểm chấm lại của một kết quả bài thi
+     *
+     * @param id ID kết quả bài thi
+     * @param scores Các điểm theo thứ tự của mảng scores trong PendingSubmission
+     * @param correctBits Bitset đúng/sai mới của phiếu trả lời nén, null với câu trả lời dạng dòng
+     */
+    public record Rescore(long id, int[] scores, byte[] correctBits) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Chèn các bài nộp vào test_results
+     *
+     * @param submissions Danh sách bài nộp
+     * @param sheets Phiếu trả lời nén tương ứng (phần tử null: câu trả lời được lưu dạng dòng)
+     * @return Map submission_id -> ID kết quả bài thi
+     */
+    public Map<String, Long> insertAll(List<PendingSubmission> submissions, List<PackedAnswerSheet> sheets) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingSubmission s = submissions.get(i);
+                ps.setString(1, s.getSubmissionId());
+                ps.setString(2, s.getIdempotencyKey());
+                ps.setLong(3, s.getUserId());
+                ps.setLong(4, s.getTestId());
+                ps.setInt(5, s.getListeningScore());
+                ps.setInt(6, s.getReadingScore());
+                ps.setInt(7, s.getGrammarScore());
+                ps.setInt(8, s.getVocabularyScore());
+                ps.setInt(9, s.getTotalScore());
+                ps.setInt(10, s.getListeningScaledScore());
+                ps.setInt(11, s.getReadingScaledScore());
+                if (s.getCompletionTimeInMinutes() != null) {
+                    ps.setInt(12, s.getCompletionTimeInMinutes());
+                } else {
+                    ps.setNull(12, Types.INTEGER);
+                }
+                ps.setInt(13, s.getCorrectAnswers());
+                ps.setInt(14, s.getTotalQuestions());
+                ps.setTimestamp(15, Timestamp.valueOf(s.getCreatedAt()));
+                setSheet(ps, 16, sheets.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return submissions.size();
+            }
+        });
+        return findIdsBySubmissionIds(submissions.stream().map(PendingSubmission::getSubmissionId).toList());
+    }
+
+    /**
+     * Ghi phiếu trả lời nén cho các kết quả bài thi đã có (chuyển đổi từ dạng dòng)
+     *
+     * @param testResultIds ID kết quả bài thi
+     * @param sheets Phiếu trả lời nén tương ứng
+     */
+    public void updateAnswerSheets(List<Long> testResultIds, List<PackedAnswerSheet> sheets) {
+        jdbcTemplate.batchUpdate(UPDATE_SHEET_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setSheet(ps, 1, sheets.get(i));
+                ps.setLong(4, testResultIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return testResultIds.size();
+            }
+        });
+    }
+
+    /**
+     * Duyệt các dòng (id, test_id, user_id, sheet_layout_id, answer_sheet, correct_bits) của nhiều kết quả
+     * bài thi, đọc theo luồng
+     *
+     * @param testResultIds ID kết quả bài thi
+     * @param handler Xử lý từng dòng
+     */
+    public void forEachAnswerSheet(Collection<Long> testResultIds, RowCallbackHandler handler) {
+        if (testResultIds.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.query("SELECT id, test_id, user_id, sheet_layout_id, answer_sheet, correct_bits FROM test_results "
+                + "WHERE id IN (:ids) ORDER BY id",
+                new MapSqlParameterSource("ids", testResultIds), handler);
+    }
+
+    /**
+     * Ghi điểm chấm lại (và bitset đúng/sai của phiếu nén) cho các kết quả bài thi
+     *
+     * @param rescores Điểm chấm lại
+     */
+    public void updateScores(List<Rescore> rescores) {
+        jdbcTemplate.batchUpdate(UPDATE_SCORES_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Rescore rescore = rescores.get(i);
+                for (int column = 0; column < rescore.scores().length; column++) {
+                    ps.setInt(column + 1, rescore.scores()[column]);
+                }
+                if (rescore.correctBits() != null) {
+                    ps.setBytes(10, rescore.correctBits());
+                } else {
+                    ps.setNull(10, Types.VARBINARY);
+                }
+                ps.setLong(11, rescore.id());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rescores.size();
+            }
+        });
+    }
+
+    private static void setSheet(PreparedStatement ps, int index, PackedAnswerSheet sheet) throws SQLException {
+        if (sheet != null) {
+            ps.setBytes(index, sheet.getSheet());
+            ps.setBytes(index + 1, sheet.getCorrectBits());
+            ps.setLong(index + 2, sheet.getLayoutId());
+        } else {
+            ps.setNull(index, Types.VARBINARY);
+            ps.setNull(index + 1, Types.VARBINARY);
+            ps.setNull(index + 2, Types.BIGINT);
+        }
+    }
+
+    /**
+     * Tìm ID kết quả bài thi theo submission_id
+     *
+     * @param submissionIds Danh sách submission_id
+     * @return Map submission_id -> ID (chỉ gồm các bài nộp đã tồn tại)
+     */
+    public Map<String, Long> findIdsBySubmissionIds(Collection<String> submissionIds) {
+        Map<String, Long> ids = new HashMap<>();
+        if (submissionIds.isEmpty()) {
+            return ids;
+        }
+        namedJdbcTemplate.query("SELECT id, submission_id FROM test_results WHERE submission_id IN (:ids)",
+                new MapSqlParameterSource("ids", submissionIds),
+                rs -> {
+                    ids.put(rs.getString(2), rs.getLong(1));
+                });
+        return ids;
+    }
+
+    /**
+     * Kiểm tra người dùng đã có kết quả bài thi với khóa idempotency này chưa
+     *
+     * @param userId ID người dùng
+     * @param idempotencyKey Khóa idempotency
+     * @return true nếu đã tồn tại
+     */
+    public boolean existsByIdempotencyKey(long userId, String idempotencyKey) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM test_results WHERE user_id = ? AND idempotency_key = ?",
+                Integer.class, userId, idempotencyKey);
+        return count != null && count > 0;
+    }
+}
@@ -2,6 +2,7 @@ package com.hungtv.toeic.be.repositories;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -59,4 +60,35 @@ public interface TestResultRepository extends JpaRepository<TestResult, Long> {
      * @return Số lượng bài thi
      */
     int countByUserAndCreatedAtAfter(User user, LocalDateTime date);
-} 
\ No newline at end of file
+
+    // Các kết quả bài thi gần nhất của người dùng (giới hạn theo pageable, không đếm tổng)
+    @Query("SELECT tr FROM TestResult tr JOIN FETCH tr.test WHERE tr.user.id = :userId ORDER BY tr.createdAt DESC")
+    List<TestResult> findRecentByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    // Lấy ID các người dùng đã có kết quả bài thi theo keyset (userId > afterId)
+    @Query("SELECT DISTINCT tr.user.id FROM TestResult tr WHERE tr.user.id > :afterId ORDER BY tr.user.id")
+    List<Long> findUserIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Lấy ID các bài thi đã có kết quả theo keyset (testId > afterId)
+    @Query("SELECT DISTINCT tr.test.id FROM TestResult tr WHERE tr.test.id > :afterId ORDER BY tr.test.id")
+    List<Long> findTestIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // ID lớn nhất của các kết quả bài thi nộp trước thời điểm cho trước (null nếu chưa có)
+    @Query("SELECT MAX(tr.id) FROM TestResult tr WHERE tr.createdAt <= :before")
+    Long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+    
+    // Tìm kết quả bài thi theo mã bài nộp
+    Optional<TestResult> findBySubmissionId(String submissionId);
+
+    // Tìm kết quả bài thi của người dùng theo khóa idempotency
+    Optional<TestResult> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // Lấy (id, testId) của các kết quả bài thi chưa có phiếu trả lời nén theo keyset (id > afterId)
+    @Query("SELECT tr.id, tr.test.id FROM TestResult tr WHERE tr.answerSheet IS NULL AND tr.id > :afterId ORDER BY tr.id")
+    List<Object[]> findUnpackedAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Lấy ID các kết quả bài thi có phiếu trả lời nén theo layout, theo keyset (chỉ đọc index của sheet_layout_id)
+    @Query("SELECT tr.id FROM TestResult tr WHERE tr.sheetLayoutId = :layoutId AND tr.id > :afterId ORDER BY tr.id")
+    List<Long> findIdsBySheetLayoutAfter(@Param("layoutId") Long layoutId, @Param("afterId") Long afterId,
+            Pageable pageable);
+}
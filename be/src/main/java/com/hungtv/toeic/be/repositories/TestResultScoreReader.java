@@ -0,0 +1,95 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.sql.PreparedStatement;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Đọc điểm và câu trả lời của các bài nộp theo luồng (con trỏ chỉ đọc tiến, không nạp toàn bộ
+ * kết quả vào bộ nhớ). Khi đang đọc, kết nối bị chiếm cho đến hết kết quả: callback không được
+ * truy vấn database trong cùng transaction.
+ *
+ * MySQL Connector/J chỉ trả kết quả theo luồng khi fetch size là Integer.MIN_VALUE; các
+ * database khác dùng fetch size dương thông thường.
+ */
+@Repository
+public class TestResultScoreReader {
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    @PostConstruct
+    public void init() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (product != null && product.toLowerCase().contains("mysql")) {
+            fetchSize = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Duyệt các bài nộp có điểm của bài thi; callback nhận (user_id, id, total_score, created_at)
+     *
+     * @param testId ID bài thi
+     * @param handler Xử lý từng dòng
+     */
+    public void forEachScore(long testId, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT user_id, id, total_score, created_at "
+                    + "FROM test_results WHERE test_id = ? AND total_score IS NOT NULL");
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, testId);
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Duyệt các phiếu trả lời nén của bài nộp có điểm với ID trong (afterId, toId]; callback nhận
+     * (total_score, sheet_layout_id, answer_sheet, correct_bits)
+     *
+     * @param afterId ID kết quả bắt đầu (không bao gồm)
+     * @param toId ID kết quả kết thúc (bao gồm)
+     * @param handler Xử lý từng dòng
+     */
+    public void forEachAnswerSheet(long afterId, long toId, RowCallbackHandler handler) {
+        stream("SELECT total_score, sheet_layout_id, answer_sheet, correct_bits FROM test_results "
+                + "WHERE id > ? AND id <= ? AND answer_sheet IS NOT NULL AND total_score IS NOT NULL",
+                afterId, toId, handler);
+    }
+
+    /**
+     * Duyệt các câu trả lời dạng dòng (user_answers) của bài nộp có điểm chưa có phiếu nén, với
+     * ID kết quả trong (afterId, toId]; callback nhận (total_score, question_id, is_correct)
+     *
+     * @param afterId ID kết quả bắt đầu (không bao gồm)
+     * @param toId ID kết quả kết thúc (bao gồm)
+     * @param handler Xử lý từng dòng
+     */
+    public void forEachAnswerRow(long afterId, long toId, RowCallbackHandler handler) {
+        stream("SELECT tr.total_score, ua.question_id, ua.is_correct FROM user_answers ua "
+                + "JOIN test_results tr ON tr.id = ua.test_result_id "
+                + "WHERE tr.id > ? AND tr.id <= ? AND tr.answer_sheet IS NULL AND tr.total_score IS NOT NULL "
+                + "AND ua.user_answer IS NOT NULL AND ua.user_answer <> ''",
+                afterId, toId, handler);
+    }
+
+    private void stream(String sql, long afterId, long toId, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, afterId);
+            ps.setLong(2, toId);
+            return ps;
+        }, handler);
+    }
+}
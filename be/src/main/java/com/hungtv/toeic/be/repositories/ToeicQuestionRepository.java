@@ -1,9 +1,11 @@
 package com.hungtv.toeic.be.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,6 +18,11 @@ import com.hungtv.toeic.be.models.ToeicQuestion.QuestionCategory;
 @Repository
 public interface ToeicQuestionRepository extends JpaRepository<ToeicQuestion, Long> {
     
+    // Nạp sẵn nhóm và bài thi của câu hỏi; tùy chọn được nạp theo lô (IN) qua default_batch_fetch_size
+    @Override
+    @EntityGraph(attributePaths = {"questionGroup", "questionGroup.test"})
+    Page<ToeicQuestion> findAll(Pageable pageable);
+    
     // Tìm các câu hỏi theo QuestionGroup
     List<ToeicQuestion> findByQuestionGroupOrderByQuestionOrder(QuestionGroup questionGroup);
     
@@ -26,9 +33,31 @@ public interface ToeicQuestionRepository extends JpaRepository<ToeicQuestion, Lo
     @Query("SELECT q FROM ToeicQuestion q WHERE q.id IN :ids")
     List<ToeicQuestion> findByIds(@Param("ids") List<Long> ids);
     
+    // Loại nhóm và category của các câu hỏi (id, questionType, category), để xếp phần thi khi chấm lại
+    @Query("SELECT q.id, g.questionType, q.category FROM ToeicQuestion q LEFT JOIN q.questionGroup g WHERE q.id IN :ids")
+    List<Object[]> findSectionsByIds(@Param("ids") Collection<Long> ids);
+    
     // Tìm câu hỏi theo questionGroup, sắp xếp theo thứ tự câu hỏi
     List<ToeicQuestion> findByQuestionGroupIdOrderByQuestionOrder(Long questionGroupId);
     
+    // Tìm câu hỏi của nhiều nhóm cùng lúc, nạp sẵn nhóm, bài thi và các tùy chọn trong một truy vấn (tránh N+1)
+    @Query("SELECT DISTINCT q FROM ToeicQuestion q JOIN FETCH q.questionGroup g LEFT JOIN FETCH g.test " +
+           "LEFT JOIN FETCH q.options WHERE g.id IN :groupIds ORDER BY q.questionOrder")
+    List<ToeicQuestion> findWithOptionsByQuestionGroupIdIn(@Param("groupIds") Collection<Long> groupIds);
+    
+    // Nạp câu hỏi theo danh sách ID kèm nhóm, bài thi (legacy) và tùy chọn trong một truy vấn
+    @Query("SELECT DISTINCT q FROM ToeicQuestion q LEFT JOIN FETCH q.questionGroup g LEFT JOIN FETCH g.test " +
+           "LEFT JOIN FETCH q.options WHERE q.id IN :ids")
+    List<ToeicQuestion> findWithOptionsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Lấy ID câu hỏi có id > afterId theo thứ tự, dùng để duyệt toàn bộ ngân hàng câu hỏi theo lô
+    @Query("SELECT q.id FROM ToeicQuestion q WHERE q.id > :afterId ORDER BY q.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Đếm số câu hỏi của từng nhóm: (questionGroupId, count)
+    @Query("SELECT q.questionGroup.id, COUNT(q) FROM ToeicQuestion q WHERE q.questionGroup.id IN :groupIds GROUP BY q.questionGroup.id")
+    List<Object[]> countByQuestionGroupIdIn(@Param("groupIds") Collection<Long> groupIds);
+    
     // Tìm câu hỏi theo questionGroup của loại listening, sắp xếp theo thứ tự câu hỏi
     @Query("SELECT q FROM ToeicQuestion q WHERE q.questionGroup.id = :groupId AND q.questionGroup.questionType = 'LISTENING' ORDER BY q.questionOrder")
     List<ToeicQuestion> findByListeningGroupOrderByQuestionOrder(@Param("groupId") Long groupId);
@@ -61,6 +90,7 @@ public interface ToeicQuestionRepository extends JpaRepository<ToeicQuestion, Lo
     Page<ToeicQuestion> findStandaloneQuestionsByCategory(@Param("category") ToeicQuestion.QuestionCategory category, Pageable pageable);
     
     // Tìm câu hỏi theo category với phân trang
+    @EntityGraph(attributePaths = {"questionGroup", "questionGroup.test"})
     Page<ToeicQuestion> findByCategory(ToeicQuestion.QuestionCategory category, Pageable pageable);
     
     // Tìm kiếm câu hỏi không thuộc nhóm nào theo từ khóa
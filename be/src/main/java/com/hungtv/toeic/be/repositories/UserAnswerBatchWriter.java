@@ -0,0 +1,131 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Ghi câu trả lời dạng dòng của một bài nộp bằng JDBC batch (chỉ dùng khi câu trả lời
+ * không nén được thành PackedAnswerSheet), đọc/xóa các dòng khi chuyển sang dạng nén và cập nhật
+ * kết quả đúng/sai khi chấm lại.
+ *
+ * UserAnswer dùng khóa IDENTITY nên Hibernate không gộp được các câu INSERT; ở đây các dòng
+ * được gửi theo lô (với MySQL, rewriteBatchedStatements=true gộp mỗi lô thành một câu
+ * INSERT nhiều dòng). Chạy trong transaction hiện tại nên commit/rollback cùng TestResult.
+ */
+@Repository
+public class UserAnswerBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_answers (test_result_id, question_id, user_answer, is_correct) VALUES (?, ?, ?, ?)";
+
+    private static final String UPDATE_CORRECT_SQL =
+            "UPDATE user_answers SET is_correct = ? WHERE test_result_id = ? AND question_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // Số dòng tối đa mỗi lô
+    @Value("${app.submission.answer-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Chèn các câu trả lời của một bài nộp
+     *
+     * @param testResultId ID của kết quả bài thi (đã được lưu)
+     * @param questionIds ID câu hỏi
+     * @param userAnswers Câu trả lời tương ứng
+     * @param correct Kết quả đúng/sai tương ứng
+     * @param count Số dòng cần chèn (phần tử đầu của các mảng)
+     */
+    public void insertAll(long testResultId, long[] questionIds, String[] userAnswers, boolean[] correct, int count) {
+        for (int from = 0; from < count; from += batchSize) {
+            int offset = from;
+            int size = Math.min(batchSize, count - from);
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, testResultId);
+                    ps.setLong(2, questionIds[offset + i]);
+                    ps.setString(3, userAnswers[offset + i]);
+                    ps.setBoolean(4, correct[offset + i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    /**
+     * Duyệt các dòng (test_result_id, question_id, user_answer, is_correct) của nhiều bài nộp,
+     * đọc theo luồng (không dựng entity)
+     *
+     * @param testResultIds ID kết quả bài thi
+     * @param handler Xử lý từng dòng
+     */
+    public void forEachRow(Collection<Long> testResultIds, RowCallbackHandler handler) {
+        if (testResultIds.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.query("SELECT test_result_id, question_id, user_answer, is_correct FROM user_answers "
+                + "WHERE test_result_id IN (:ids) ORDER BY test_result_id, id",
+                new MapSqlParameterSource("ids", testResultIds), handler);
+    }
+
+    /**
+     * Cập nhật kết quả đúng/sai của các dòng câu trả lời (sau khi chấm lại)
+     *
+     * @param testResultIds ID kết quả bài thi của từng dòng
+     * @param questionIds ID câu hỏi tương ứng
+     * @param correct Kết quả đúng/sai mới tương ứng
+     * @param count Số dòng cần cập nhật (phần tử đầu của các mảng)
+     */
+    public void updateCorrect(long[] testResultIds, long[] questionIds, boolean[] correct, int count) {
+        for (int from = 0; from < count; from += batchSize) {
+            int offset = from;
+            int size = Math.min(batchSize, count - from);
+            jdbcTemplate.batchUpdate(UPDATE_CORRECT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setBoolean(1, correct[offset + i]);
+                    ps.setLong(2, testResultIds[offset + i]);
+                    ps.setLong(3, questionIds[offset + i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    /**
+     * Xóa các dòng câu trả lời của nhiều bài nộp
+     *
+     * @param testResultIds ID kết quả bài thi
+     * @return Số dòng đã xóa
+     */
+    public int deleteByTestResultIds(Collection<Long> testResultIds) {
+        if (testResultIds.isEmpty()) {
+            return 0;
+        }
+        return namedJdbcTemplate.update("DELETE FROM user_answers WHERE test_result_id IN (:ids)",
+                new MapSqlParameterSource("ids", testResultIds));
+    }
+}
@@ -2,6 +2,7 @@ package com.hungtv.toeic.be.repositories;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,6 +17,17 @@ public interface UserAnswerRepository extends JpaRepository<UserAnswer, Long> {
     // Tìm tất cả câu trả lời của người dùng trong một bài thi
     List<UserAnswer> findByTestResultOrderByQuestion_QuestionOrder(TestResult testResult);
     
+    // Lấy (questionId, userAnswer, isCorrect) của một bài làm, không nạp entity câu hỏi
+    @Query("SELECT ua.question.id, ua.userAnswer, ua.isCorrect FROM UserAnswer ua WHERE ua.testResult.id = :testResultId")
+    List<Object[]> findAnswerRowsByTestResultId(@Param("testResultId") Long testResultId);
+    
+    // Lấy ID các kết quả bài thi có câu trả lời dạng dòng cho câu hỏi, theo keyset
+    // (chỉ đọc index idx_user_answers_question_result)
+    @Query("SELECT DISTINCT ua.testResult.id FROM UserAnswer ua WHERE ua.question.id = :questionId "
+            + "AND ua.testResult.id > :afterId ORDER BY ua.testResult.id")
+    List<Long> findTestResultIdsByQuestionAfter(@Param("questionId") Long questionId, @Param("afterId") Long afterId,
+            Pageable pageable);
+    
     // Đếm số câu trả lời đúng trong một bài thi
     @Query("SELECT COUNT(ua) FROM UserAnswer ua WHERE ua.testResult = :testResult AND ua.isCorrect = true")
     Long countCorrectAnswersByTestResult(@Param("testResult") TestResult testResult);
@@ -0,0 +1,145 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Tạo người dùng hàng loạt bằng JDBC: kiểm tra trùng tên đăng nhập/email bằng truy vấn IN, chèn
+ * users và user_roles theo lô. User dùng khóa IDENTITY nên Hibernate không gộp được các câu INSERT.
+ * Chạy trong transaction hiện tại.
+ */
+@Repository
+public class UserBatchWriter {
+
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO users (username, password, email, full_name, active, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ROLE_SQL = "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+
+    /**
+     * Một người dùng cần chèn
+     */
+    public record NewUser(String username, String passwordHash, String email, String fullName, int roleId) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Các tên đăng nhập đã có trong database (theo collation của database, trả về dạng chữ thường)
+     *
+     * @param usernames Tên đăng nhập cần kiểm tra
+     * @return Tập tên đăng nhập đã tồn tại, chữ thường
+     */
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        return findExisting("username", usernames);
+    }
+
+    /**
+     * Các email đã có trong database (trả về dạng chữ thường)
+     *
+     * @param emails Email cần kiểm tra
+     * @return Tập email đã tồn tại, chữ thường
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return findExisting("email", emails);
+    }
+
+    /**
+     * Chèn người dùng và vai trò của họ
+     *
+     * @param users Người dùng cần chèn
+     * @param now Thời điểm tạo
+     * @return ID người dùng đã chèn, theo thứ tự của users
+     */
+    public long[] insertAll(List<NewUser> users, LocalDateTime now) {
+        Timestamp createdAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_USER_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                NewUser user = users.get(i);
+                ps.setString(1, user.username());
+                ps.setString(2, user.passwordHash());
+                ps.setString(3, user.email());
+                ps.setString(4, user.fullName());
+                ps.setBoolean(5, true);
+                ps.setTimestamp(6, createdAt);
+                ps.setTimestamp(7, createdAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return users.size();
+            }
+        });
+
+        // Đọc lại ID theo tên đăng nhập (unique) thay vì dựa vào generated keys của batch
+        List<String> usernames = new ArrayList<>(users.size());
+        for (NewUser user : users) {
+            usernames.add(user.username());
+        }
+        Map<String, Long> ids = new HashMap<>();
+        for (int from = 0; from < usernames.size(); from += IN_CLAUSE_SIZE) {
+            namedJdbcTemplate.query("SELECT id, username FROM users WHERE username IN (:usernames)",
+                    new MapSqlParameterSource("usernames",
+                            usernames.subList(from, Math.min(from + IN_CLAUSE_SIZE, usernames.size()))),
+                    rs -> {
+                        ids.put(rs.getString(2), rs.getLong(1));
+                    });
+        }
+        long[] userIds = new long[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            userIds[i] = ids.get(users.get(i).username());
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ROLE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, userIds[i]);
+                ps.setInt(2, users.get(i).roleId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return users.size();
+            }
+        });
+        return userIds;
+    }
+
+    private Set<String> findExisting(String column, Collection<String> values) {
+        List<String> list = new ArrayList<>(values);
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < list.size(); from += IN_CLAUSE_SIZE) {
+            namedJdbcTemplate.query("SELECT " + column + " FROM users WHERE " + column + " IN (:values)",
+                    new MapSqlParameterSource("values", list.subList(from, Math.min(from + IN_CLAUSE_SIZE, list.size()))),
+                    rs -> {
+                        existing.add(rs.getString(1).toLowerCase(Locale.ROOT));
+                    });
+        }
+        return existing;
+    }
+}
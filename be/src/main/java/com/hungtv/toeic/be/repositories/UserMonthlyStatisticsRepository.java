@@ -0,0 +1,15 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.models.UserMonthlyStatistics;
+
+@Repository
+public interface UserMonthlyStatisticsRepository extends JpaRepository<UserMonthlyStatistics, Long> {
+    
+    // Thống kê theo tháng của người dùng từ tháng fromMonth (yyyy-MM) trở đi
+    List<UserMonthlyStatistics> findByUserIdAndMonthGreaterThanEqualOrderByMonth(Long userId, String fromMonth);
+}
@@ -2,8 +2,12 @@ package com.hungtv.toeic.be.repositories;
 
 import com.hungtv.toeic.be.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +19,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
     
     Boolean existsByEmail(String email);
+    
+    // Lấy (id, username, fullName) của nhiều người dùng, không nạp entity và vai trò
+    @Query("SELECT u.id, u.username, u.fullName FROM User u WHERE u.id IN :ids")
+    List<Object[]> findNamesByIds(@Param("ids") Collection<Long> ids);
 } 
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.hungtv.toeic.be.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.hungtv.toeic.be.models.UserStatistics;
+
+@Repository
+public interface UserStatisticsRepository extends JpaRepository<UserStatistics, Long> {
+}
@@ -0,0 +1,278 @@
+package com.hungtv.toeic.be.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Cập nhật bảng thống kê người dùng (user_statistics, user_monthly_statistics) bằng JDBC.
+ *
+ * Mọi thay đổi của một người dùng đều cập nhật dòng user_statistics của người đó trước, nên
+ * khóa dòng này tuần tự hóa việc cộng dồn bài nộp và việc tính lại từ lịch sử. Dòng thống kê
+ * phải tồn tại trước khi cộng dồn (insertEmpty + recompute trong transaction riêng).
+ */
+@Repository
+public class UserStatisticsWriter {
+
+    private static final String UPDATE_TOTALS_SQL =
+            "UPDATE user_statistics SET tests_taken = tests_taken + ?, scored_count = scored_count + ?, "
+            + "score_sum = score_sum + ?, "
+            + "best_score = CASE WHEN best_score IS NULL OR best_score < ? THEN ? ELSE best_score END, "
+            + "updated_at = ? WHERE user_id = ?";
+
+    private static final String UPDATE_MONTH_SQL =
+            "UPDATE user_monthly_statistics SET tests_taken = tests_taken + ?, scored_count = scored_count + ?, "
+            + "score_sum = score_sum + ? WHERE user_id = ? AND stat_month = ?";
+
+    private static final String INSERT_MONTH_SQL =
+            "INSERT INTO user_monthly_statistics (user_id, stat_month, tests_taken, scored_count, score_sum) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Một bài nộp cần cộng vào thống kê
+     *
+     * @param userId ID người dùng
+     * @param totalScore Điểm tổng (null nếu bài không được chấm)
+     * @param createdAt Thời điểm nộp bài
+     */
+    public record Entry(long userId, Integer totalScore, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Tìm các người dùng chưa có dòng thống kê
+     *
+     * @param userIds Danh sách ID người dùng
+     * @return Tập ID người dùng chưa có dòng user_statistics
+     */
+    public Set<Long> findMissing(Collection<Long> userIds) {
+        Set<Long> missing = new HashSet<>(userIds);
+        if (missing.isEmpty()) {
+            return missing;
+        }
+        namedJdbcTemplate.query("SELECT user_id FROM user_statistics WHERE user_id IN (:ids)",
+                new MapSqlParameterSource("ids", missing),
+                rs -> {
+                    missing.remove(rs.getLong(1));
+                });
+        return missing;
+    }
+
+    /**
+     * Tạo dòng thống kê rỗng (vi phạm khóa chính nếu dòng đã tồn tại)
+     *
+     * @param userId ID người dùng
+     */
+    public void insertEmpty(long userId) {
+        jdbcTemplate.update("INSERT INTO user_statistics (user_id, tests_taken, scored_count, score_sum, best_score, "
+                + "updated_at) VALUES (?, 0, 0, 0, NULL, ?)", userId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Khóa dòng thống kê của người dùng đến hết transaction hiện tại
+     *
+     * @param userId ID người dùng
+     * @return false nếu người dùng chưa có dòng thống kê
+     */
+    public boolean lock(long userId) {
+        return !jdbcTemplate.queryForList("SELECT user_id FROM user_statistics WHERE user_id = ? FOR UPDATE",
+                Long.class, userId).isEmpty();
+    }
+
+    /**
+     * Tính lại thống kê của người dùng từ toàn bộ test_results (phải giữ khóa dòng thống kê)
+     *
+     * @param userId ID người dùng
+     */
+    public void recompute(long userId) {
+        Totals totals = new Totals();
+        Map<String, Totals> months = new TreeMap<>();
+        jdbcTemplate.query("SELECT total_score, created_at FROM test_results WHERE user_id = ?",
+                rs -> {
+                    Integer score = rs.getObject(1, Integer.class);
+                    LocalDateTime createdAt = rs.getTimestamp(2).toLocalDateTime();
+                    totals.add(score);
+                    months.computeIfAbsent(monthOf(createdAt), month -> new Totals()).add(score);
+                }, userId);
+
+        jdbcTemplate.update("UPDATE user_statistics SET tests_taken = ?, scored_count = ?, score_sum = ?, "
+                + "best_score = ?, updated_at = ? WHERE user_id = ?",
+                totals.tests, totals.scored, totals.sum, totals.best, Timestamp.valueOf(LocalDateTime.now()), userId);
+        jdbcTemplate.update("DELETE FROM user_monthly_statistics WHERE user_id = ?", userId);
+        List<MonthKey> keys = new ArrayList<>();
+        List<Totals> values = new ArrayList<>();
+        for (Map.Entry<String, Totals> entry : months.entrySet()) {
+            keys.add(new MonthKey(userId, entry.getKey()));
+            values.add(entry.getValue());
+        }
+        insertMonths(keys, values);
+    }
+
+    /**
+     * Cộng các bài nộp vào thống kê (chạy trong transaction ghi bài nộp; dòng thống kê phải tồn tại)
+     *
+     * @param entries Danh sách bài nộp
+     */
+    public void apply(List<Entry> entries) {
+        // Gộp theo người dùng và tháng; khóa các dòng theo thứ tự ID để tránh deadlock giữa các lô
+        Map<Long, Totals> users = new TreeMap<>();
+        Map<MonthKey, Totals> months = new TreeMap<>();
+        for (Entry entry : entries) {
+            users.computeIfAbsent(entry.userId(), id -> new Totals()).add(entry.totalScore());
+            months.computeIfAbsent(new MonthKey(entry.userId(), monthOf(entry.createdAt())), key -> new Totals())
+                    .add(entry.totalScore());
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+
+        List<Long> userIds = new ArrayList<>(users.keySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_TOTALS_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Totals totals = users.get(userIds.get(i));
+                ps.setLong(1, totals.tests);
+                ps.setLong(2, totals.scored);
+                ps.setLong(3, totals.sum);
+                setNullableInt(ps, 4, totals.best);
+                setNullableInt(ps, 5, totals.best);
+                ps.setTimestamp(6, now);
+                ps.setLong(7, userIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return userIds.size();
+            }
+        });
+
+        List<MonthKey> monthKeys = new ArrayList<>(months.keySet());
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_MONTH_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                MonthKey key = monthKeys.get(i);
+                Totals totals = months.get(key);
+                ps.setLong(1, totals.tests);
+                ps.setLong(2, totals.scored);
+                ps.setLong(3, totals.sum);
+                ps.setLong(4, key.userId());
+                ps.setString(5, key.month());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return monthKeys.size();
+            }
+        });
+
+        // Tháng chưa có dòng: chèn mới (an toàn vì đang giữ khóa dòng user_statistics của người dùng)
+        List<MonthKey> newKeys = new ArrayList<>();
+        List<Totals> newValues = new ArrayList<>();
+        for (int i = 0; i < monthKeys.size(); i++) {
+            if (updated[i] == 0) {
+                newKeys.add(monthKeys.get(i));
+                newValues.add(months.get(monthKeys.get(i)));
+            }
+        }
+        insertMonths(newKeys, newValues);
+    }
+
+    /**
+     * Xóa thống kê của người dùng
+     *
+     * @param userId ID người dùng
+     */
+    public void deleteByUserId(long userId) {
+        jdbcTemplate.update("DELETE FROM user_monthly_statistics WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_statistics WHERE user_id = ?", userId);
+    }
+
+    private void insertMonths(List<MonthKey> keys, List<Totals> values) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_MONTH_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Totals totals = values.get(i);
+                ps.setLong(1, keys.get(i).userId());
+                ps.setString(2, keys.get(i).month());
+                ps.setLong(3, totals.tests);
+                ps.setLong(4, totals.scored);
+                ps.setLong(5, totals.sum);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return keys.size();
+            }
+        });
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Tháng của thời điểm nộp bài, dạng yyyy-MM
+     */
+    public static String monthOf(LocalDateTime time) {
+        return YearMonth.from(time).toString();
+    }
+
+    private record MonthKey(long userId, String month) implements Comparable<MonthKey> {
+        @Override
+        public int compareTo(MonthKey other) {
+            int byUser = Long.compare(userId, other.userId);
+            return byUser != 0 ? byUser : month.compareTo(other.month);
+        }
+    }
+
+    /**
+     * Số bài, số bài có điểm, tổng điểm và điểm cao nhất của một nhóm bài nộp
+     */
+    private static final class Totals {
+        private long tests;
+        private long scored;
+        private long sum;
+        private Integer best;
+
+        private void add(Integer score) {
+            tests++;
+            if (score != null) {
+                scored++;
+                sum += score;
+                if (best == null || score > best) {
+                    best = score;
+                }
+            }
+        }
+    }
+}
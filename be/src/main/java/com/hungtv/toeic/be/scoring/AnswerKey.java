@@ -0,0 +1,245 @@
+package com.hungtv.toeic.be.scoring;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+
+/**
+ * Đáp án của một phiên bản bài thi dưới dạng mảng nguyên thủy, dùng cho chấm điểm:
+ * ID câu hỏi sắp tăng dần (tra cứu bằng tìm kiếm nhị phân), đáp án đúng mã hóa thành
+ * một byte và loại nhóm/category của câu hỏi gói trong một byte cờ.
+ *
+ * Bất biến và không giữ tham chiếu tới entity JPA nên dùng chung được giữa các luồng.
+ */
+public final class AnswerKey {
+
+    // Cờ loại nhóm câu hỏi (QuestionGroup.QuestionType)
+    public static final int GROUP_LISTENING = 1;
+    public static final int GROUP_READING = 1 << 1;
+    public static final int GROUP_GRAMMAR = 1 << 2;
+    public static final int GROUP_VOCABULARY = 1 << 3;
+    // Cờ category của câu hỏi (ToeicQuestion.QuestionCategory)
+    public static final int CATEGORY_GRAMMAR = 1 << 4;
+    public static final int CATEGORY_VOCABULARY = 1 << 5;
+    public static final int CATEGORY_LISTENING = 1 << 6;
+
+    // Mã đáp án: 0 = null, 1..26 = 'A'..'Z', OTHER = chuỗi khác (so sánh bằng chuỗi gốc)
+    static final byte NO_ANSWER = 0;
+    static final byte OTHER = -1;
+    private static final String[] LETTERS = new String[26];
+
+    static {
+        for (int i = 0; i < LETTERS.length; i++) {
+            LETTERS[i] = String.valueOf((char) ('A' + i));
+        }
+    }
+
+    private final Long testId;
+    private final long version;
+    private final long[] questionIds;
+    private final byte[] correctAnswers;
+    private final byte[] flags;
+    // Chỉ khác null khi có đáp án không mã hóa được thành một chữ cái
+    private final String[] otherAnswers;
+
+    private AnswerKey(Long testId, long version, long[] questionIds, byte[] correctAnswers, byte[] flags,
+                      String[] otherAnswers) {
+        this.testId = testId;
+        this.version = version;
+        this.questionIds = questionIds;
+        this.correctAnswers = correctAnswers;
+        this.flags = flags;
+        this.otherAnswers = otherAnswers;
+    }
+
+    /**
+     * Dựng đáp án từ ảnh chụp bài thi
+     *
+     * @param snapshot Ảnh chụp bài thi
+     * @return AnswerKey
+     */
+    public static AnswerKey of(TestSnapshot snapshot) {
+        List<TestSnapshot.QuestionSnapshot> questions = snapshot.getQuestions();
+        TestSnapshot.QuestionSnapshot[] sorted = questions.toArray(new TestSnapshot.QuestionSnapshot[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.getId(), b.getId()));
+
+        // Một câu hỏi có thể xuất hiện trong bài thi nhiều lần, chỉ giữ một bản
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1].getId().longValue() != sorted[i].getId().longValue()) {
+                sorted[size++] = sorted[i];
+            }
+        }
+
+        long[] ids = new long[size];
+        byte[] answers = new byte[size];
+        byte[] flags = new byte[size];
+        String[] others = null;
+        for (int i = 0; i < size; i++) {
+            TestSnapshot.QuestionSnapshot question = sorted[i];
+            ids[i] = question.getId();
+            answers[i] = encode(question.getCorrectAnswer());
+            if (answers[i] == OTHER) {
+                if (others == null) {
+                    others = new String[size];
+                }
+                others[i] = question.getCorrectAnswer();
+            }
+            flags[i] = (byte) flagsOf(question.getGroup().getQuestionType(), question.getCategory());
+        }
+        return new AnswerKey(snapshot.getTestId(), snapshot.getVersion(), ids, answers, flags, others);
+    }
+
+    /**
+     * Mã hóa một đáp án thành byte mà không cấp phát
+     */
+    static byte encode(String answer) {
+        if (answer == null) {
+            return NO_ANSWER;
+        }
+        if (answer.length() == 1) {
+            char c = answer.charAt(0);
+            if (c >= 'A' && c <= 'Z') {
+                return (byte) (c - 'A' + 1);
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Cờ loại nhóm/category của một câu hỏi
+     *
+     * @param type Loại nhóm (null nếu câu hỏi không thuộc nhóm)
+     * @param category Category của câu hỏi
+     * @return Cờ như flagsAt
+     */
+    public static int flagsOf(QuestionGroup.QuestionType type, ToeicQuestion.QuestionCategory category) {
+        return groupFlag(type) | categoryFlag(category);
+    }
+
+    private static int groupFlag(QuestionGroup.QuestionType type) {
+        if (type == null) {
+            return 0;
+        }
+        switch (type) {
+            case LISTENING:
+                return GROUP_LISTENING;
+            case READING:
+                return GROUP_READING;
+            case GRAMMAR:
+                return GROUP_GRAMMAR;
+            case VOCABULARY:
+                return GROUP_VOCABULARY;
+            default:
+                return 0;
+        }
+    }
+
+    private static int categoryFlag(ToeicQuestion.QuestionCategory category) {
+        if (category == null) {
+            return 0;
+        }
+        switch (category) {
+            case GRAMMAR:
+                return CATEGORY_GRAMMAR;
+            case VOCABULARY:
+                return CATEGORY_VOCABULARY;
+            case LISTENING:
+                return CATEGORY_LISTENING;
+            default:
+                return 0;
+        }
+    }
+
+    public Long getTestId() {
+        return testId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Số câu hỏi (không trùng lặp) của bài thi
+     */
+    public int size() {
+        return questionIds.length;
+    }
+
+    /**
+     * Vị trí của câu hỏi trong đáp án
+     *
+     * @param questionId ID câu hỏi
+     * @return Vị trí (0..size-1), số âm nếu câu hỏi không thuộc bài thi
+     */
+    public int indexOf(long questionId) {
+        return Arrays.binarySearch(questionIds, questionId);
+    }
+
+    public long questionIdAt(int index) {
+        return questionIds[index];
+    }
+
+    /**
+     * Cờ loại nhóm/category của câu hỏi tại vị trí index
+     */
+    public int flagsAt(int index) {
+        return flags[index];
+    }
+
+    /**
+     * So khớp câu trả lời với đáp án đúng (so sánh chính xác như Objects.equals trên chuỗi gốc)
+     *
+     * @param index Vị trí câu hỏi
+     * @param userAnswer Câu trả lời của người dùng
+     * @return true nếu đúng
+     */
+    public boolean isCorrect(int index, String userAnswer) {
+        byte expected = correctAnswers[index];
+        if (expected == OTHER) {
+            return otherAnswers[index].equals(userAnswer);
+        }
+        return encode(userAnswer) == expected;
+    }
+
+    /**
+     * So khớp mã câu trả lời (1..26 = 'A'..'Z') với đáp án đúng, dùng cho phiếu trả lời theo vị trí
+     *
+     * @param index Vị trí câu hỏi
+     * @param answerCode Mã câu trả lời, 0 = chưa trả lời
+     * @return true nếu đúng
+     */
+    public boolean isCorrect(int index, byte answerCode) {
+        return answerCode != NO_ANSWER && correctAnswers[index] == answerCode;
+    }
+
+    /**
+     * Mã hóa câu trả lời thành một byte: 0 cho null, 1..26 cho 'A'..'Z'
+     *
+     * @param answer Câu trả lời
+     * @return Mã câu trả lời, -1 nếu không phải một chữ cái in hoa
+     */
+    public static byte answerCode(String answer) {
+        return encode(answer);
+    }
+
+    /**
+     * Giải mã byte câu trả lời (ngược với answerCode)
+     *
+     * @param answerCode Mã câu trả lời
+     * @return Câu trả lời, null nếu chưa trả lời
+     */
+    public static String answerOf(byte answerCode) {
+        return answerCode > 0 && answerCode <= 26 ? LETTERS[answerCode - 1] : null;
+    }
+
+    /**
+     * Số byte ước tính của các mảng dữ liệu
+     */
+    public long getRetainedBytes() {
+        return questionIds.length * (8L + 1 + 1);
+    }
+}
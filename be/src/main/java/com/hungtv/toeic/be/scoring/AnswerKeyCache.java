@@ -0,0 +1,102 @@
+package com.hungtv.toeic.be.scoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.cache.TestSnapshotCache;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache AnswerKey theo bài thi. Mỗi AnswerKey gắn với phiên bản của TestSnapshot dùng để dựng nó
+ * và chỉ được dựng lại khi nội dung bài thi thay đổi.
+ */
+@Component
+public class AnswerKeyCache {
+
+    @Autowired
+    private TestSnapshotCache snapshotCache;
+
+    private final ConcurrentMap<Long, AnswerKey> keys = new ConcurrentHashMap<>();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder hits = counters.register("hits");
+    private final LongAdder builds = counters.register("builds");
+    private final LongAdder evictions = counters.register("evictions");
+
+    @PostConstruct
+    public void registerInvalidation() {
+        snapshotCache.addInvalidationListener(this::evictTest);
+    }
+
+    /**
+     * Lấy đáp án của phiên bản hiện hành của bài thi
+     *
+     * @param testId ID của bài thi
+     * @return AnswerKey
+     * @throws RuntimeException nếu không tìm thấy bài thi
+     */
+    public AnswerKey get(Long testId) {
+        return get(snapshotCache.get(testId));
+    }
+
+    /**
+     * Lấy đáp án tương ứng với ảnh chụp bài thi, dựng mới nếu cần
+     *
+     * @param snapshot Ảnh chụp bài thi
+     * @return AnswerKey
+     */
+    public AnswerKey get(TestSnapshot snapshot) {
+        AnswerKey cached = keys.get(snapshot.getTestId());
+        if (cached != null && cached.getVersion() == snapshot.getVersion()) {
+            hits.increment();
+            return cached;
+        }
+        return keys.compute(snapshot.getTestId(), (testId, current) -> {
+            if (current != null && current.getVersion() >= snapshot.getVersion()) {
+                hits.increment();
+                return current;
+            }
+            builds.increment();
+            return AnswerKey.of(snapshot);
+        });
+    }
+
+    /**
+     * Xóa đáp án đã cache của bài thi
+     *
+     * @param testId ID của bài thi
+     */
+    public void evictTest(Long testId) {
+        if (keys.remove(testId) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Thống kê hoạt động của cache
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        long retained = 0;
+        for (AnswerKey key : keys.values()) {
+            retained += key.getRetainedBytes();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", keys.size());
+        counters.putInto(stats);
+        stats.put("retainedBytes", retained);
+        return stats;
+    }
+}
@@ -0,0 +1,195 @@
+package com.hungtv.toeic.be.scoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.cache.TestSnapshotCache;
+import com.hungtv.toeic.be.models.AnswerSheetLayout;
+import com.hungtv.toeic.be.repositories.AnswerSheetLayoutRepository;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+/**
+ * Cache SheetLayout: layout hiện hành của từng bài thi (ghi phiếu trả lời mới) và layout theo ID
+ * (đọc phiếu trả lời đã lưu). Layout của một phiên bản bài thi được ghi xuống database một lần,
+ * trong transaction riêng, khi bài nộp đầu tiên của phiên bản đó được lưu.
+ */
+@Component
+public class AnswerSheetLayouts {
+
+    @Autowired
+    private TestSnapshotCache snapshotCache;
+
+    @Autowired
+    private AnswerSheetLayoutRepository layoutRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ConcurrentMap<Long, SheetLayout> currentByTest = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, SheetLayout> byId = new ConcurrentHashMap<>();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder created = counters.register("created");
+    private final LongAdder loads = counters.register("loads");
+    private final LongAdder packed = counters.register("packedSheets");
+    private final LongAdder unpackable = counters.register("rowFallbacks");
+
+    /**
+     * Layout của phiên bản hiện hành của bài thi
+     *
+     * @param testId ID của bài thi
+     * @return SheetLayout
+     * @throws RuntimeException nếu không tìm thấy bài thi
+     */
+    public SheetLayout current(Long testId) {
+        TestSnapshot snapshot = snapshotCache.get(testId);
+        SheetLayout cached = currentByTest.get(snapshot.getTestId());
+        if (cached != null && cached.getVersion() == snapshot.getVersion()) {
+            return cached;
+        }
+        // Mỗi phiên bản chỉ dựng một lần trên node này; giữa các node ràng buộc unique xử lý tranh chấp
+        synchronized (this) {
+            cached = currentByTest.get(snapshot.getTestId());
+            if (cached != null && cached.getVersion() == snapshot.getVersion()) {
+                return cached;
+            }
+            SheetLayout layout = findOrCreate(snapshot);
+            currentByTest.merge(snapshot.getTestId(), layout,
+                    (existing, fresh) -> existing.getVersion() >= fresh.getVersion() ? existing : fresh);
+            return layout;
+        }
+    }
+
+    /**
+     * Layout theo ID (của phiếu trả lời đã lưu)
+     *
+     * @param layoutId ID layout
+     * @return SheetLayout
+     */
+    public SheetLayout get(long layoutId) {
+        SheetLayout layout = byId.get(layoutId);
+        if (layout != null) {
+            return layout;
+        }
+        AnswerSheetLayout entity = layoutRepository.findById(layoutId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy thứ tự câu hỏi với ID: " + layoutId));
+        loads.increment();
+        return cache(entity);
+    }
+
+    /**
+     * ID các layout có chứa ít nhất một trong các câu hỏi (đọc mọi layout đã lưu)
+     *
+     * @param questionIds ID câu hỏi
+     * @return Danh sách ID layout, tăng dần
+     */
+    public List<Long> findLayoutIdsContaining(Collection<Long> questionIds) {
+        List<Long> layoutIds = new ArrayList<>();
+        for (AnswerSheetLayout entity : layoutRepository.findAll(Sort.by("id"))) {
+            SheetLayout layout = cache(entity);
+            for (Long questionId : questionIds) {
+                if (layout.positionOf(questionId) >= 0) {
+                    layoutIds.add(layout.getId());
+                    break;
+                }
+            }
+        }
+        return layoutIds;
+    }
+
+    /**
+     * Đóng gói câu trả lời theo layout hiện hành của bài thi
+     *
+     * @return PackedAnswerSheet, null nếu phải lưu dạng dòng (xem PackedAnswerSheet.pack)
+     */
+    public PackedAnswerSheet pack(Long testId, long[] questionIds, String[] answers, boolean[] correct, int count) {
+        SheetLayout layout;
+        try {
+            layout = current(testId);
+        } catch (RuntimeException e) {
+            // Ví dụ bài thi vừa bị xóa: vẫn lưu được câu trả lời dạng dòng
+            unpackable.increment();
+            return null;
+        }
+        PackedAnswerSheet sheet = PackedAnswerSheet.pack(layout, questionIds, answers, correct, count);
+        if (sheet != null) {
+            packed.increment();
+        } else {
+            unpackable.increment();
+        }
+        return sheet;
+    }
+
+    /**
+     * Thống kê hoạt động
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("layouts", byId.size());
+        counters.putInto(stats);
+        return stats;
+    }
+
+    private SheetLayout findOrCreate(TestSnapshot snapshot) {
+        Long testId = snapshot.getTestId();
+        long version = snapshot.getVersion();
+        AnswerSheetLayout entity = layoutRepository.findByTestIdAndContentVersion(testId, version).orElse(null);
+        if (entity == null) {
+            byte[] ids = SheetLayout.encode(questionOrder(snapshot));
+            // Transaction riêng: layout phải tồn tại kể cả khi transaction ghi bài nộp bị rollback
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            try {
+                entity = template.execute(status -> layoutRepository.save(
+                        new AnswerSheetLayout(testId, version, ids.length / Long.BYTES, ids)));
+                created.increment();
+            } catch (DataIntegrityViolationException e) {
+                // Node/luồng khác vừa ghi layout của cùng phiên bản
+                entity = layoutRepository.findByTestIdAndContentVersion(testId, version).orElseThrow(() -> e);
+            }
+        }
+        return cache(entity);
+    }
+
+    private SheetLayout cache(AnswerSheetLayout entity) {
+        return byId.computeIfAbsent(entity.getId(), id -> SheetLayout.of(id, entity.getTestId(),
+                entity.getContentVersion(), entity.getQuestionIds()));
+    }
+
+    /**
+     * Thứ tự câu hỏi của ảnh chụp, mỗi câu hỏi chỉ giữ lần xuất hiện đầu tiên
+     */
+    private static long[] questionOrder(TestSnapshot snapshot) {
+        List<TestSnapshot.QuestionSnapshot> questions = snapshot.getQuestions();
+        long[] ids = new long[questions.size()];
+        Set<Long> seen = new HashSet<>();
+        int size = 0;
+        for (TestSnapshot.QuestionSnapshot question : questions) {
+            if (seen.add(question.getId())) {
+                ids[size++] = question.getId();
+            }
+        }
+        return Arrays.copyOf(ids, size);
+    }
+}
@@ -0,0 +1,138 @@
+package com.hungtv.toeic.be.scoring;
+
+/**
+ * Câu trả lời của một bài nộp ở dạng nén, thay cho một dòng user_answers mỗi câu hỏi:
+ * phiếu trả lời (mã câu trả lời theo vị trí của SheetLayout) và bitset đúng/sai.
+ *
+ * Định dạng phiếu trả lời: byte đầu là định dạng, sau đó là dữ liệu
+ * - FORMAT_NIBBLE: 4 bit mỗi câu (mã 0..15, tức 'A'..'O'), câu chẵn ở 4 bit thấp
+ * - FORMAT_BYTE: 1 byte mỗi câu (mã 0..26)
+ * Mã 0 = chưa trả lời. Bitset: bit i (byte i / 8, bit i % 8) là 1 nếu câu i đúng.
+ */
+public final class PackedAnswerSheet {
+
+    static final byte FORMAT_NIBBLE = 1;
+    static final byte FORMAT_BYTE = 2;
+
+    private final long layoutId;
+    private final byte[] sheet;
+    private final byte[] correctBits;
+
+    public PackedAnswerSheet(long layoutId, byte[] sheet, byte[] correctBits) {
+        this.layoutId = layoutId;
+        this.sheet = sheet;
+        this.correctBits = correctBits;
+    }
+
+    /**
+     * Đóng gói câu trả lời theo thứ tự câu hỏi của layout
+     *
+     * @param layout Thứ tự câu hỏi
+     * @param questionIds ID câu hỏi
+     * @param answers Câu trả lời tương ứng
+     * @param correct Kết quả đúng/sai tương ứng
+     * @param count Số câu trả lời (phần tử đầu của các mảng)
+     * @return PackedAnswerSheet, null nếu có câu hỏi không thuộc layout hoặc câu trả lời
+     *         không phải một chữ cái (khi đó phải lưu dạng dòng)
+     */
+    public static PackedAnswerSheet pack(SheetLayout layout, long[] questionIds, String[] answers, boolean[] correct,
+                                         int count) {
+        byte[] codes = new byte[layout.size()];
+        byte[] bits = new byte[(layout.size() + 7) / 8];
+        for (int i = 0; i < count; i++) {
+            int position = layout.positionOf(questionIds[i]);
+            byte code = AnswerKey.answerCode(answers[i]);
+            if (position < 0 || code < 0) {
+                return null;
+            }
+            codes[position] = code;
+            if (correct[i]) {
+                bits[position >>> 3] |= (byte) (1 << (position & 7));
+            } else {
+                bits[position >>> 3] &= (byte) ~(1 << (position & 7));
+            }
+        }
+        return new PackedAnswerSheet(layout.getId(), encode(codes), bits);
+    }
+
+    /**
+     * Nén mã câu trả lời theo vị trí
+     *
+     * @param codes Mã câu trả lời (0 = chưa trả lời)
+     * @return Phiếu trả lời nén
+     */
+    public static byte[] encode(byte[] codes) {
+        boolean fitsNibble = true;
+        for (byte code : codes) {
+            if (code < 0 || code > 15) {
+                fitsNibble = false;
+                break;
+            }
+        }
+        if (!fitsNibble) {
+            byte[] packed = new byte[codes.length + 1];
+            packed[0] = FORMAT_BYTE;
+            System.arraycopy(codes, 0, packed, 1, codes.length);
+            return packed;
+        }
+        byte[] packed = new byte[1 + (codes.length + 1) / 2];
+        packed[0] = FORMAT_NIBBLE;
+        for (int i = 0; i < codes.length; i++) {
+            packed[1 + (i >>> 1)] |= (byte) (codes[i] << ((i & 1) << 2));
+        }
+        return packed;
+    }
+
+    /**
+     * Giải nén phiếu trả lời
+     *
+     * @param packed Phiếu trả lời nén
+     * @param size Số câu hỏi của layout
+     * @return Mã câu trả lời theo vị trí
+     */
+    public static byte[] decode(byte[] packed, int size) {
+        byte[] codes = new byte[size];
+        if (packed[0] == FORMAT_BYTE) {
+            System.arraycopy(packed, 1, codes, 0, Math.min(size, packed.length - 1));
+            return codes;
+        }
+        if (packed[0] != FORMAT_NIBBLE) {
+            throw new IllegalArgumentException("Định dạng phiếu trả lời không hợp lệ: " + packed[0]);
+        }
+        for (int i = 0; i < size && 1 + (i >>> 1) < packed.length; i++) {
+            codes[i] = (byte) ((packed[1 + (i >>> 1)] >>> ((i & 1) << 2)) & 0x0F);
+        }
+        return codes;
+    }
+
+    /**
+     * Câu hỏi tại vị trí position có được trả lời đúng không
+     */
+    public static boolean isCorrect(byte[] correctBits, int position) {
+        int index = position >>> 3;
+        return index < correctBits.length && (correctBits[index] & (1 << (position & 7))) != 0;
+    }
+
+    /**
+     * Số câu trả lời đúng trong bitset
+     */
+    public static int countCorrect(byte[] correctBits) {
+        int count = 0;
+        for (byte bits : correctBits) {
+            count += Integer.bitCount(bits & 0xFF);
+        }
+        return count;
+    }
+
+    public long getLayoutId() {
+        return layoutId;
+    }
+
+    public byte[] getSheet() {
+        return sheet;
+    }
+
+    public byte[] getCorrectBits() {
+        return correctBits;
+    }
+}
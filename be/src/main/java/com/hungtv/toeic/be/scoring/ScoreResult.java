@@ -0,0 +1,75 @@
+package com.hungtv.toeic.be.scoring;
+
+/**
+ * Kết quả chấm điểm một bài nộp: số câu đúng/tổng số câu theo từng phần thi,
+ * điểm phần trăm và điểm quy đổi thang 495 của Listening/Reading.
+ */
+public final class ScoreResult {
+
+    private final int totalQuestions;
+    private final int correctAnswers;
+    private final int[] sectionCorrect;
+    private final int[] sectionTotal;
+
+    ScoreResult(int totalQuestions, int correctAnswers, int[] sectionCorrect, int[] sectionTotal) {
+        this.totalQuestions = totalQuestions;
+        this.correctAnswers = correctAnswers;
+        this.sectionCorrect = sectionCorrect;
+        this.sectionTotal = sectionTotal;
+    }
+
+    /**
+     * Số câu trả lời đã nộp
+     */
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public int getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    /**
+     * Số câu đúng của phần thi (ScoringEngine.LISTENING, READING, GRAMMAR, VOCABULARY)
+     */
+    public int getCorrect(int section) {
+        return sectionCorrect[section];
+    }
+
+    /**
+     * Số câu đã trả lời thuộc phần thi
+     */
+    public int getTotal(int section) {
+        return sectionTotal[section];
+    }
+
+    /**
+     * Điểm phần trăm (0-100) của phần thi, 0 nếu không có câu nào
+     */
+    public int getScore(int section) {
+        return percent(sectionCorrect[section], sectionTotal[section]);
+    }
+
+    /**
+     * Điểm phần trăm trên toàn bộ câu trả lời đã nộp
+     */
+    public int getTotalScore() {
+        return percent(correctAnswers, totalQuestions);
+    }
+
+    public int getListeningScaledScore() {
+        return scaled(getScore(ScoringEngine.LISTENING));
+    }
+
+    public int getReadingScaledScore() {
+        return scaled(getScore(ScoringEngine.READING));
+    }
+
+    private static int percent(int correct, int total) {
+        return total > 0 ? (int) Math.round((double) correct / total * 100) : 0;
+    }
+
+    private static int scaled(int percentScore) {
+        return (int) Math.round(percentScore / 100.0 * ScoringEngine.SCALED_MAX);
+    }
+}
@@ -0,0 +1,42 @@
+package com.hungtv.toeic.be.scoring;
+
+/**
+ * Kết quả chấm điểm của một bài nộp cùng các câu trả lời hợp lệ (count phần tử đầu của các mảng),
+ * sẵn sàng để ghi xuống database.
+ */
+public final class ScoredAnswers {
+
+    private final ScoreResult score;
+    private final int count;
+    private final long[] questionIds;
+    private final String[] answers;
+    private final boolean[] correct;
+
+    public ScoredAnswers(ScoreResult score, int count, long[] questionIds, String[] answers, boolean[] correct) {
+        this.score = score;
+        this.count = count;
+        this.questionIds = questionIds;
+        this.answers = answers;
+        this.correct = correct;
+    }
+
+    public ScoreResult getScore() {
+        return score;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long[] getQuestionIds() {
+        return questionIds;
+    }
+
+    public String[] getAnswers() {
+        return answers;
+    }
+
+    public boolean[] getCorrect() {
+        return correct;
+    }
+}
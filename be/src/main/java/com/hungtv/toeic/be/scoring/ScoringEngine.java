@@ -0,0 +1,186 @@
+package com.hungtv.toeic.be.scoring;
+
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Chấm điểm một bài nộp trên các mảng nguyên thủy trong một lượt duyệt, không cấp phát
+ * theo từng câu trả lời.
+ *
+ * Mỗi câu hỏi thuộc đúng một phần thi: câu hỏi trong nhóm lấy theo loại nhóm
+ * (QuestionGroup.QuestionType), câu hỏi độc lập lấy theo category. Cờ của AnswerKey
+ * được đổi sang mặt nạ phần thi qua bảng tra dựng sẵn, mặt nạ chọn bộ đếm cần tăng.
+ */
+public final class ScoringEngine {
+
+    // Chỉ số phần thi trong mảng bộ đếm
+    public static final int LISTENING = 0;
+    public static final int READING = 1;
+    public static final int GRAMMAR = 2;
+    public static final int VOCABULARY = 3;
+    public static final int SECTION_COUNT = 4;
+
+    // Thang điểm quy đổi của mỗi phần Listening/Reading
+    static final double SCALED_MAX = 495.0;
+
+    // Cờ câu hỏi (7 bit của AnswerKey) -> mặt nạ phần thi
+    private static final int[] SECTION_MASKS = new int[1 << 7];
+
+    static {
+        for (int flags = 0; flags < SECTION_MASKS.length; flags++) {
+            SECTION_MASKS[flags] = sectionMask(flags);
+        }
+    }
+
+    private ScoringEngine() {
+    }
+
+    /**
+     * Chấm điểm
+     *
+     * @param key Đáp án của bài thi
+     * @param questionIds ID câu hỏi của từng câu trả lời
+     * @param userAnswers Câu trả lời tương ứng (có thể null)
+     * @param length Số câu trả lời
+     * @param indexesOut Nhận vị trí câu hỏi trong đáp án, -1 nếu câu hỏi không thuộc bài thi
+     * @param correctOut Nhận kết quả đúng/sai của từng câu trả lời
+     * @return ScoreResult
+     */
+    public static ScoreResult score(AnswerKey key, long[] questionIds, String[] userAnswers, int length,
+                                    int[] indexesOut, boolean[] correctOut) {
+        int[] correct = new int[SECTION_COUNT];
+        int[] total = new int[SECTION_COUNT];
+        int correctAnswers = 0;
+
+        for (int i = 0; i < length; i++) {
+            int index = key.indexOf(questionIds[i]);
+            if (index < 0) {
+                indexesOut[i] = -1;
+                correctOut[i] = false;
+                continue;
+            }
+            boolean isCorrect = key.isCorrect(index, userAnswers[i]);
+            indexesOut[i] = index;
+            correctOut[i] = isCorrect;
+
+            int hit = isCorrect ? 1 : 0;
+            correctAnswers += hit;
+            int mask = SECTION_MASKS[key.flagsAt(index)];
+            while (mask != 0) {
+                int section = Integer.numberOfTrailingZeros(mask);
+                total[section]++;
+                correct[section] += hit;
+                mask &= mask - 1;
+            }
+        }
+        return new ScoreResult(length, correctAnswers, correct, total);
+    }
+
+    /**
+     * Chấm lại một bài nộp đã lưu khi đáp án của một số câu hỏi thay đổi: chỉ các câu trả lời cho
+     * câu hỏi trong recompute (và còn trong đáp án) được so lại với đáp án hiện hành, các câu khác
+     * giữ kết quả đúng/sai đã lưu. Câu hỏi không còn trong bài thi lấy phần thi từ fallbackFlags
+     * (số âm nếu không biết, khi đó chỉ tính vào tổng số câu)
+     *
+     * @param key Đáp án hiện hành của bài thi
+     * @param questionIds ID câu hỏi của từng câu trả lời
+     * @param userAnswers Câu trả lời tương ứng (có thể null)
+     * @param storedCorrect Kết quả đúng/sai đã lưu
+     * @param length Số câu trả lời
+     * @param recompute Câu hỏi cần so lại với đáp án
+     * @param fallbackFlags Cờ của câu hỏi không còn trong đáp án
+     * @param correctOut Nhận kết quả đúng/sai mới
+     * @return ScoreResult
+     */
+    public static ScoreResult rescore(AnswerKey key, long[] questionIds, String[] userAnswers, boolean[] storedCorrect,
+                                      int length, LongPredicate recompute, LongToIntFunction fallbackFlags,
+                                      boolean[] correctOut) {
+        int[] correct = new int[SECTION_COUNT];
+        int[] total = new int[SECTION_COUNT];
+        int correctAnswers = 0;
+
+        for (int i = 0; i < length; i++) {
+            int index = key.indexOf(questionIds[i]);
+            boolean isCorrect = index >= 0 && recompute.test(questionIds[i])
+                    ? key.isCorrect(index, userAnswers[i])
+                    : storedCorrect[i];
+            correctOut[i] = isCorrect;
+
+            int hit = isCorrect ? 1 : 0;
+            correctAnswers += hit;
+            int flags = index >= 0 ? key.flagsAt(index) : fallbackFlags.applyAsInt(questionIds[i]);
+            int mask = flags >= 0 ? SECTION_MASKS[flags] : 0;
+            while (mask != 0) {
+                int section = Integer.numberOfTrailingZeros(mask);
+                total[section]++;
+                correct[section] += hit;
+                mask &= mask - 1;
+            }
+        }
+        return new ScoreResult(length, correctAnswers, correct, total);
+    }
+
+    /**
+     * Chấm điểm phiếu trả lời theo vị trí câu hỏi của đáp án (một byte mã câu trả lời cho
+     * mỗi câu hỏi, 0 = chưa trả lời); không cần tra cứu ID câu hỏi
+     *
+     * @param key Đáp án của bài thi
+     * @param sheet Phiếu trả lời, độ dài bằng key.size()
+     * @param correctOut Nhận kết quả đúng/sai theo vị trí
+     * @return ScoreResult (chỉ tính các câu đã trả lời)
+     */
+    public static ScoreResult scoreSheet(AnswerKey key, byte[] sheet, boolean[] correctOut) {
+        int[] correct = new int[SECTION_COUNT];
+        int[] total = new int[SECTION_COUNT];
+        int answered = 0;
+        int correctAnswers = 0;
+
+        for (int index = 0; index < sheet.length; index++) {
+            byte code = sheet[index];
+            if (code == 0) {
+                correctOut[index] = false;
+                continue;
+            }
+            boolean isCorrect = key.isCorrect(index, code);
+            correctOut[index] = isCorrect;
+            answered++;
+
+            int hit = isCorrect ? 1 : 0;
+            correctAnswers += hit;
+            int mask = SECTION_MASKS[key.flagsAt(index)];
+            while (mask != 0) {
+                int section = Integer.numberOfTrailingZeros(mask);
+                total[section]++;
+                correct[section] += hit;
+                mask &= mask - 1;
+            }
+        }
+        return new ScoreResult(answered, correctAnswers, correct, total);
+    }
+
+    private static int sectionMask(int flags) {
+        // Loại nhóm được ưu tiên; category chỉ dùng cho câu hỏi không thuộc nhóm nào
+        if ((flags & AnswerKey.GROUP_LISTENING) != 0) {
+            return 1 << LISTENING;
+        }
+        if ((flags & AnswerKey.GROUP_READING) != 0) {
+            return 1 << READING;
+        }
+        if ((flags & AnswerKey.GROUP_GRAMMAR) != 0) {
+            return 1 << GRAMMAR;
+        }
+        if ((flags & AnswerKey.GROUP_VOCABULARY) != 0) {
+            return 1 << VOCABULARY;
+        }
+        if ((flags & AnswerKey.CATEGORY_LISTENING) != 0) {
+            return 1 << LISTENING;
+        }
+        if ((flags & AnswerKey.CATEGORY_GRAMMAR) != 0) {
+            return 1 << GRAMMAR;
+        }
+        if ((flags & AnswerKey.CATEGORY_VOCABULARY) != 0) {
+            return 1 << VOCABULARY;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,94 @@
+package com.hungtv.toeic.be.scoring;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Thứ tự câu hỏi mà một phiếu trả lời nén bám theo (thứ tự câu hỏi của ảnh chụp bài thi,
+ * mỗi câu hỏi xuất hiện một lần), kèm chỉ mục ID -> vị trí để đóng gói câu trả lời.
+ *
+ * Bất biến, dùng chung được giữa các luồng.
+ */
+public final class SheetLayout {
+
+    private final long id;
+    private final long testId;
+    private final long version;
+    private final long[] questionIds;
+    // ID câu hỏi sắp tăng dần và vị trí tương ứng, dùng cho tìm kiếm nhị phân
+    private final long[] sortedIds;
+    private final int[] sortedPositions;
+
+    public SheetLayout(long id, long testId, long version, long[] questionIds) {
+        this.id = id;
+        this.testId = testId;
+        this.version = version;
+        this.questionIds = questionIds;
+
+        Integer[] order = new Integer[questionIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(questionIds[a], questionIds[b]));
+        this.sortedIds = new long[order.length];
+        this.sortedPositions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = questionIds[order[i]];
+            sortedPositions[i] = order[i];
+        }
+    }
+
+    /**
+     * Dựng từ danh sách ID câu hỏi đã mã hóa (8 byte mỗi câu, big-endian)
+     */
+    public static SheetLayout of(long id, long testId, long version, byte[] encodedIds) {
+        ByteBuffer buffer = ByteBuffer.wrap(encodedIds);
+        long[] ids = new long[encodedIds.length / Long.BYTES];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = buffer.getLong();
+        }
+        return new SheetLayout(id, testId, version, ids);
+    }
+
+    /**
+     * Mã hóa danh sách ID câu hỏi (8 byte mỗi câu, big-endian)
+     */
+    public static byte[] encode(long[] questionIds) {
+        ByteBuffer buffer = ByteBuffer.allocate(questionIds.length * Long.BYTES);
+        for (long questionId : questionIds) {
+            buffer.putLong(questionId);
+        }
+        return buffer.array();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getTestId() {
+        return testId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public long questionIdAt(int position) {
+        return questionIds[position];
+    }
+
+    /**
+     * Vị trí của câu hỏi trong phiếu trả lời
+     *
+     * @param questionId ID câu hỏi
+     * @return Vị trí, -1 nếu câu hỏi không thuộc phiên bản bài thi này
+     */
+    public int positionOf(long questionId) {
+        int index = Arrays.binarySearch(sortedIds, questionId);
+        return index >= 0 ? sortedPositions[index] : -1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.hungtv.toeic.be.search;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicOption;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+
+/**
+ * Tài liệu của chỉ mục: một câu hỏi đã tách từ, kèm các thuộc tính dùng để lọc và đếm facet.
+ * Token của mỗi trường được nhân trọng số để khớp ở nội dung câu hỏi xếp hạng cao hơn
+ * khớp ở giải thích hay đoạn văn của nhóm.
+ */
+public final class IndexedQuestion {
+
+    static final int QUESTION_WEIGHT = 3;
+    static final int OPTION_WEIGHT = 2;
+    static final int EXPLANATION_WEIGHT = 1;
+    static final int PASSAGE_WEIGHT = 1;
+
+    private final Long id;
+    private final Long groupId;
+    private final Integer part;
+    private final ToeicQuestion.QuestionCategory category;
+    private final ToeicQuestion.DifficultyLevel difficulty;
+    private final Map<String, Integer> termFrequencies;
+    private final int length;
+
+    private IndexedQuestion(Long id, Long groupId, Integer part, ToeicQuestion.QuestionCategory category,
+                            ToeicQuestion.DifficultyLevel difficulty, Map<String, Integer> termFrequencies) {
+        this.id = id;
+        this.groupId = groupId;
+        this.part = part;
+        this.category = category;
+        this.difficulty = difficulty;
+        this.termFrequencies = Collections.unmodifiableMap(termFrequencies);
+        int total = 0;
+        for (int frequency : termFrequencies.values()) {
+            total += frequency;
+        }
+        this.length = total;
+    }
+
+    /**
+     * Tách từ một câu hỏi (cần nạp sẵn nhóm và tùy chọn)
+     *
+     * @param question Câu hỏi
+     * @return IndexedQuestion
+     */
+    public static IndexedQuestion from(ToeicQuestion question) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, question.getQuestion(), QUESTION_WEIGHT);
+        addTerms(terms, question.getExplanation(), EXPLANATION_WEIGHT);
+        for (ToeicOption option : question.getOptions()) {
+            addTerms(terms, option.getOptionText(), OPTION_WEIGHT);
+        }
+        QuestionGroup group = question.getQuestionGroup();
+        if (group != null) {
+            addTerms(terms, group.getPassage(), PASSAGE_WEIGHT);
+        }
+        return new IndexedQuestion(
+                question.getId(),
+                group != null ? group.getId() : null,
+                group != null ? group.getPart() : null,
+                question.getCategory(),
+                question.getDifficultyLevel(),
+                terms);
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : TextFolding.tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * ID nhóm câu hỏi, null nếu là câu hỏi độc lập
+     */
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public Integer getPart() {
+        return part;
+    }
+
+    public ToeicQuestion.QuestionCategory getCategory() {
+        return category;
+    }
+
+    public ToeicQuestion.DifficultyLevel getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Tần suất (đã nhân trọng số) của từng token
+     */
+    public Map<String, Integer> getTermFrequencies() {
+        return termFrequencies;
+    }
+
+    /**
+     * Độ dài tài liệu (tổng tần suất đã nhân trọng số), dùng để chuẩn hóa điểm BM25
+     */
+    public int getLength() {
+        return length;
+    }
+}
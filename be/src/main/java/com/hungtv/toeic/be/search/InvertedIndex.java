@@ -0,0 +1,304 @@
+package com.hungtv.toeic.be.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo ngược trong bộ nhớ: token -> danh sách (ID câu hỏi, tần suất) sắp theo ID.
+ *
+ * Từ điển token là TreeMap nên truy vấn tiền tố là một subMap. Xếp hạng theo BM25 trên
+ * tần suất đã nhân trọng số trường; các token của truy vấn kết hợp theo AND.
+ * Nhiều luồng đọc song song, ghi độc quyền (ReentrantReadWriteLock).
+ */
+public class InvertedIndex {
+
+    // Tham số BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Điểm của token khớp theo tiền tố so với khớp nguyên từ
+    private static final double PREFIX_WEIGHT = 0.8;
+    // Số token tối đa mà một tiền tố được mở rộng thành
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    private final Map<Long, IndexedQuestion> documents = new HashMap<>();
+    private final Map<Long, Set<Long>> documentsByGroup = new HashMap<>();
+    private long totalLength;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Thêm hoặc thay thế tài liệu
+     */
+    public void put(IndexedQuestion document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.getId());
+            for (Map.Entry<String, Integer> term : document.getTermFrequencies().entrySet()) {
+                dictionary.computeIfAbsent(term.getKey(), k -> new Postings()).put(document.getId(), term.getValue());
+            }
+            documents.put(document.getId(), document);
+            if (document.getGroupId() != null) {
+                documentsByGroup.computeIfAbsent(document.getGroupId(), k -> new HashSet<>()).add(document.getId());
+            }
+            totalLength += document.getLength();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Xóa tài liệu (không làm gì nếu chưa có)
+     */
+    public void remove(Long questionId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(questionId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ID các câu hỏi đang được đánh chỉ mục thuộc nhóm
+     */
+    public Set<Long> documentsOfGroup(Long groupId) {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(documentsByGroup.getOrDefault(groupId, Set.of()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return dictionary.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm kiếm
+     *
+     * @param text Chuỗi truy vấn; token cuối được hiểu là tiền tố nếu truy vấn không kết thúc bằng khoảng trắng
+     * @param filter Điều kiện lọc
+     * @param offset Vị trí bắt đầu của trang kết quả
+     * @param limit Số kết quả tối đa của trang
+     * @return SearchResult
+     */
+    public SearchResult search(String text, SearchFilter filter, int offset, int limit) {
+        List<String> tokens = TextFolding.tokenize(text);
+        if (tokens.isEmpty()) {
+            return new SearchResult(new ArrayList<>(), 0, emptyFacets());
+        }
+        boolean lastIsPrefix = Character.isLetterOrDigit(text.charAt(text.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            List<List<Expansion>> expanded = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                List<Expansion> expansions = expand(tokens.get(i), lastIsPrefix && i == tokens.size() - 1);
+                if (expansions.isEmpty()) {
+                    return new SearchResult(new ArrayList<>(), 0, emptyFacets());
+                }
+                expanded.add(expansions);
+            }
+            // Giao từ token hiếm nhất để tập ứng viên nhỏ ngay từ đầu
+            expanded.sort(Comparator.comparingLong(InvertedIndex::documentFrequency));
+
+            double averageLength = documents.isEmpty() ? 1.0 : Math.max(1.0, (double) totalLength / documents.size());
+            Map<Long, Double> scores = null;
+            for (List<Expansion> expansions : expanded) {
+                Map<Long, Double> tokenScores = new HashMap<>();
+                for (Expansion expansion : expansions) {
+                    Postings postings = expansion.postings;
+                    double idf = idf(postings.size());
+                    for (int p = 0; p < postings.size(); p++) {
+                        long docId = postings.ids[p];
+                        if (scores == null) {
+                            if (!filter.matches(documents.get(docId))) {
+                                continue;
+                            }
+                        } else if (!scores.containsKey(docId)) {
+                            continue;
+                        }
+                        double score = expansion.weight * idf * termScore(postings.frequencies[p],
+                                documents.get(docId).getLength(), averageLength);
+                        tokenScores.merge(docId, score, Math::max);
+                    }
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+
+            List<SearchResult.Hit> ranked = new ArrayList<>(scores.size());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                ranked.add(new SearchResult.Hit(entry.getKey(), entry.getValue()));
+            }
+            ranked.sort(Comparator.comparingDouble(SearchResult.Hit::score).reversed()
+                    .thenComparing(SearchResult.Hit::questionId));
+            int from = Math.min(Math.max(offset, 0), ranked.size());
+            int to = Math.min(from + Math.max(limit, 0), ranked.size());
+            return new SearchResult(new ArrayList<>(ranked.subList(from, to)), ranked.size(), facets(scores.keySet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long questionId) {
+        IndexedQuestion existing = documents.remove(questionId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.getTermFrequencies().keySet()) {
+            Postings postings = dictionary.get(term);
+            if (postings != null && postings.remove(questionId) && postings.size() == 0) {
+                dictionary.remove(term);
+            }
+        }
+        if (existing.getGroupId() != null) {
+            Set<Long> groupDocuments = documentsByGroup.get(existing.getGroupId());
+            if (groupDocuments != null) {
+                groupDocuments.remove(questionId);
+                if (groupDocuments.isEmpty()) {
+                    documentsByGroup.remove(existing.getGroupId());
+                }
+            }
+        }
+        totalLength -= existing.getLength();
+    }
+
+    private List<Expansion> expand(String token, boolean prefix) {
+        List<Expansion> expansions = new ArrayList<>();
+        Postings exact = dictionary.get(token);
+        if (exact != null) {
+            expansions.add(new Expansion(exact, 1.0));
+        }
+        if (prefix) {
+            NavigableMap<String, Postings> range = dictionary.subMap(token, false, token + Character.MAX_VALUE, false);
+            for (Postings postings : range.values()) {
+                if (expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                expansions.add(new Expansion(postings, PREFIX_WEIGHT));
+            }
+        }
+        return expansions;
+    }
+
+    private static long documentFrequency(List<Expansion> expansions) {
+        long total = 0;
+        for (Expansion expansion : expansions) {
+            total += expansion.postings.size();
+        }
+        return total;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1.0 + (documents.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static double termScore(int frequency, int length, double averageLength) {
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    private Map<String, Map<String, Long>> facets(Set<Long> matched) {
+        Map<String, Map<String, Long>> facets = emptyFacets();
+        for (Long docId : matched) {
+            IndexedQuestion document = documents.get(docId);
+            if (document.getPart() != null) {
+                facets.get("part").merge(String.valueOf(document.getPart()), 1L, Long::sum);
+            }
+            if (document.getCategory() != null) {
+                facets.get("category").merge(document.getCategory().name(), 1L, Long::sum);
+            }
+            if (document.getDifficulty() != null) {
+                facets.get("difficulty").merge(document.getDifficulty().name(), 1L, Long::sum);
+            }
+        }
+        return facets;
+    }
+
+    private static Map<String, Map<String, Long>> emptyFacets() {
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        facets.put("part", new TreeMap<>());
+        facets.put("category", new TreeMap<>());
+        facets.put("difficulty", new TreeMap<>());
+        return facets;
+    }
+
+    private record Expansion(Postings postings, double weight) {
+    }
+
+    /**
+     * Danh sách (ID, tần suất) của một token, sắp tăng dần theo ID trong hai mảng nguyên thủy
+     */
+    static final class Postings {
+        private long[] ids = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void put(long id, int frequency) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                frequencies[index] = frequency;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            frequencies[insertAt] = frequency;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.hungtv.toeic.be.search;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+import com.hungtv.toeic.be.support.StatsCounters;
+import com.hungtv.toeic.be.support.TransactionCallbacks;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Chỉ mục tìm kiếm toàn văn cho ngân hàng câu hỏi (nội dung câu hỏi, giải thích,
+ * tùy chọn và đoạn văn của nhóm).
+ *
+ * Chỉ mục được dựng nền khi ứng dụng khởi động; trước khi dựng xong isReady() trả về false
+ * để nơi gọi dùng truy vấn database. Các service ghi đánh dấu câu hỏi/nhóm đã thay đổi,
+ * sau khi transaction commit chúng được nạp lại và cập nhật vào chỉ mục trên một luồng
+ * riêng, theo đúng thứ tự commit.
+ *
+ * Chỉ mục nằm riêng trên từng node. Thay đổi trên node khác được nhận theo chu kỳ
+ * (catch-up-interval-ms) qua content_version/content_updated_at của nhóm câu hỏi: nhóm có
+ * phiên bản mới được đánh chỉ mục lại. Câu hỏi không thuộc nhóm nào và nhóm bị xóa không để
+ * lại dấu vết đó, nên trên các node khác chúng chỉ được cập nhật ở lần dựng lại toàn bộ định
+ * kỳ (full-rebuild-interval-ms).
+ */
+@Component
+public class QuestionSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionSearchIndex.class);
+
+    // Khoảng lùi khi tìm nhóm đã thay đổi, bù cho commit muộn và lệch đồng hồ giữa các node
+    private static final Duration CATCH_UP_LOOKBACK = Duration.ofMinutes(2);
+
+    @Autowired
+    private ToeicQuestionRepository questionRepository;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Số câu hỏi nạp mỗi lô khi dựng chỉ mục
+    @Value("${app.search.build-batch-size:500}")
+    private int buildBatchSize;
+
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile boolean ready;
+
+    // Chỉ luồng indexer đọc/ghi: mốc tìm nhóm đã thay đổi và phiên bản đã đánh chỉ mục của các nhóm gần đây
+    private LocalDateTime catchUpFrom;
+    private final Map<Long, GroupVersion> caughtUp = new HashMap<>();
+
+    // Một luồng duy nhất ghi vào chỉ mục nên các thay đổi được áp dụng tuần tự
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "question-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder queries = counters.register("queries");
+    private final LongAdder totalQueryNanos = new LongAdder();
+    private final LongAdder reindexed = counters.register("reindexed");
+    private final LongAdder removed = counters.register("removed");
+    private final LongAdder updateFailures = counters.register("updateFailures");
+    private final LongAdder caughtUpGroups = counters.register("caughtUpGroups");
+    private final AtomicLong lastBuildMillis = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        indexer.execute(this::rebuild);
+    }
+
+    /**
+     * Nhận thay đổi nhóm câu hỏi từ các node khác
+     */
+    @Scheduled(fixedDelayString = "${app.search.catch-up-interval-ms:15000}")
+    public void scheduleCatchUp() {
+        if (ready) {
+            indexer.execute(this::catchUp);
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục, để nhận cả các thay đổi không để lại phiên bản nhóm (câu hỏi lẻ, nhóm bị xóa)
+     */
+    @Scheduled(fixedDelayString = "${app.search.full-rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.search.full-rebuild-interval-ms:3600000}")
+    public void scheduleRebuild() {
+        indexer.execute(this::rebuild);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+
+    /**
+     * Chỉ mục đã dựng xong và có thể phục vụ tìm kiếm hay chưa
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Tìm kiếm câu hỏi
+     *
+     * @param text Chuỗi truy vấn (token cuối được tìm theo tiền tố)
+     * @param filter Điều kiện lọc
+     * @param offset Vị trí bắt đầu
+     * @param limit Số kết quả tối đa
+     * @return SearchResult
+     */
+    public SearchResult search(String text, SearchFilter filter, int offset, int limit) {
+        long start = System.nanoTime();
+        SearchResult result = index.search(text != null ? text : "", filter, offset, limit);
+        queries.increment();
+        totalQueryNanos.add(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Đánh dấu câu hỏi đã được tạo/sửa/xóa trong transaction hiện tại
+     *
+     * @param questionId ID của câu hỏi
+     */
+    public void questionChanged(Long questionId) {
+        if (questionId == null) {
+            return;
+        }
+        PendingChanges pending = pendingChanges();
+        if (pending != null) {
+            pending.questionIds.add(questionId);
+        } else {
+            PendingChanges changes = new PendingChanges();
+            changes.questionIds.add(questionId);
+            submit(changes);
+        }
+    }
+
+    /**
+     * Đánh dấu nhóm câu hỏi đã thay đổi: mọi câu hỏi của nhóm được đánh chỉ mục lại
+     * (đoạn văn của nhóm là một phần nội dung của từng câu hỏi)
+     *
+     * @param groupId ID của nhóm câu hỏi
+     */
+    public void groupChanged(Long groupId) {
+        if (groupId == null) {
+            return;
+        }
+        PendingChanges pending = pendingChanges();
+        if (pending != null) {
+            pending.groupIds.add(groupId);
+        } else {
+            PendingChanges changes = new PendingChanges();
+            changes.groupIds.add(groupId);
+            submit(changes);
+        }
+    }
+
+    /**
+     * Thống kê hoạt động
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        InvertedIndex current = index;
+        long queryCount = queries.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("documents", current.size());
+        stats.put("terms", current.termCount());
+        counters.putInto(stats);
+        stats.put("avgQueryMillis", StatsCounters.averageMillis(totalQueryNanos.sum(), queryCount));
+        stats.put("lastBuildMillis", lastBuildMillis.get());
+        return stats;
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục, nạp câu hỏi theo lô; chỉ mục cũ vẫn phục vụ cho tới khi dựng xong
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            InvertedIndex fresh = new InvertedIndex();
+            TransactionTemplate readOnly = readOnlyTemplate();
+            Long afterId = 0L;
+            while (true) {
+                Long cursor = afterId;
+                List<Long> ids = readOnly.execute(status ->
+                        questionRepository.findIdsAfter(cursor, PageRequest.ofSize(buildBatchSize)));
+                if (ids == null || ids.isEmpty()) {
+                    break;
+                }
+                readOnly.executeWithoutResult(status -> {
+                    for (ToeicQuestion question : questionRepository.findWithOptionsByIdIn(ids)) {
+                        fresh.put(IndexedQuestion.from(question));
+                    }
+                });
+                afterId = ids.get(ids.size() - 1);
+            }
+            index = fresh;
+            catchUpFrom = startedAt.minus(CATCH_UP_LOOKBACK);
+            caughtUp.clear();
+            ready = true;
+            lastBuildMillis.set(System.currentTimeMillis() - start);
+            logger.info("Đã dựng chỉ mục tìm kiếm: {} câu hỏi, {} token, {} ms",
+                    fresh.size(), fresh.termCount(), lastBuildMillis.get());
+        } catch (RuntimeException e) {
+            logger.error("Lỗi khi dựng chỉ mục tìm kiếm: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Nạp lại các câu hỏi đã thay đổi và cập nhật chỉ mục (chạy trên luồng indexer)
+     */
+    private void apply(PendingChanges changes) {
+        InvertedIndex current = index;
+        readOnlyTemplate().executeWithoutResult(status -> {
+            List<ToeicQuestion> questions = new ArrayList<>();
+            if (!changes.questionIds.isEmpty()) {
+                questions.addAll(questionRepository.findWithOptionsByIdIn(changes.questionIds));
+            }
+            if (!changes.groupIds.isEmpty()) {
+                questions.addAll(questionRepository.findWithOptionsByQuestionGroupIdIn(changes.groupIds));
+            }
+
+            // Câu hỏi không còn tồn tại (hoặc không còn thuộc nhóm) được xóa khỏi chỉ mục
+            Set<Long> stale = new HashSet<>(changes.questionIds);
+            for (Long groupId : changes.groupIds) {
+                stale.addAll(current.documentsOfGroup(groupId));
+            }
+            for (ToeicQuestion question : questions) {
+                current.put(IndexedQuestion.from(question));
+                stale.remove(question.getId());
+                reindexed.increment();
+            }
+            for (Long questionId : stale) {
+                current.remove(questionId);
+                removed.increment();
+            }
+        });
+    }
+
+    /**
+     * Đánh chỉ mục lại các nhóm có phiên bản nội dung mới kể từ lần trước (chạy trên luồng indexer)
+     */
+    private void catchUp() {
+        LocalDateTime from = catchUpFrom;
+        if (from == null) {
+            return;
+        }
+        try {
+            List<Object[]> rows = readOnlyTemplate().execute(status ->
+                    questionGroupRepository.findContentChangesSince(from));
+            PendingChanges changes = new PendingChanges();
+            LocalDateTime latest = from;
+            for (Object[] row : rows) {
+                Long groupId = (Long) row[0];
+                GroupVersion version = new GroupVersion((Long) row[1], (LocalDateTime) row[2]);
+                GroupVersion previous = caughtUp.put(groupId, version);
+                if (previous == null || previous.version() != version.version()) {
+                    changes.groupIds.add(groupId);
+                }
+                if (version.updatedAt().isAfter(latest)) {
+                    latest = version.updatedAt();
+                }
+            }
+            if (!changes.groupIds.isEmpty()) {
+                apply(changes);
+                caughtUpGroups.add(changes.groupIds.size());
+            }
+            LocalDateTime next = latest.minus(CATCH_UP_LOOKBACK);
+            if (next.isAfter(from)) {
+                catchUpFrom = next;
+                caughtUp.values().removeIf(seen -> seen.updatedAt().isBefore(next));
+            }
+        } catch (RuntimeException e) {
+            updateFailures.increment();
+            logger.warn("Không thể nhận thay đổi chỉ mục tìm kiếm từ các node khác: {}", e.getMessage());
+        }
+    }
+
+    private void submit(PendingChanges changes) {
+        indexer.execute(() -> {
+            try {
+                apply(changes);
+            } catch (RuntimeException e) {
+                updateFailures.increment();
+                logger.error("Lỗi khi cập nhật chỉ mục tìm kiếm: questions={}, groups={}",
+                        changes.questionIds, changes.groupIds, e);
+            }
+        });
+    }
+
+    private TransactionTemplate readOnlyTemplate() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    /**
+     * Lấy (hoặc tạo) danh sách thay đổi gắn với transaction hiện tại, được gửi cho luồng indexer sau commit
+     */
+    private PendingChanges pendingChanges() {
+        return TransactionCallbacks.bindToTransaction(this, PendingChanges::new, null, this::submit);
+    }
+
+    private record GroupVersion(long version, LocalDateTime updatedAt) {
+    }
+
+    private static final class PendingChanges {
+        private final Set<Long> questionIds = new HashSet<>();
+        private final Set<Long> groupIds = new HashSet<>();
+    }
+}
@@ -0,0 +1,72 @@
+package com.hungtv.toeic.be.search;
+
+import com.hungtv.toeic.be.models.ToeicQuestion;
+
+/**
+ * Điều kiện lọc kết quả tìm kiếm; trường null nghĩa là không lọc theo trường đó.
+ */
+public class SearchFilter {
+    private Integer part;
+    private ToeicQuestion.QuestionCategory category;
+    private ToeicQuestion.DifficultyLevel difficulty;
+    private Boolean standalone;
+
+    public SearchFilter() {
+    }
+
+    public SearchFilter(Integer part, ToeicQuestion.QuestionCategory category,
+                        ToeicQuestion.DifficultyLevel difficulty, Boolean standalone) {
+        this.part = part;
+        this.category = category;
+        this.difficulty = difficulty;
+        this.standalone = standalone;
+    }
+
+    /**
+     * Kiểm tra tài liệu có thỏa điều kiện lọc hay không
+     */
+    public boolean matches(IndexedQuestion document) {
+        if (part != null && !part.equals(document.getPart())) {
+            return false;
+        }
+        if (category != null && category != document.getCategory()) {
+            return false;
+        }
+        if (difficulty != null && difficulty != document.getDifficulty()) {
+            return false;
+        }
+        return standalone == null || standalone == (document.getGroupId() == null);
+    }
+
+    public Integer getPart() {
+        return part;
+    }
+
+    public void setPart(Integer part) {
+        this.part = part;
+    }
+
+    public ToeicQuestion.QuestionCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(ToeicQuestion.QuestionCategory category) {
+        this.category = category;
+    }
+
+    public ToeicQuestion.DifficultyLevel getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(ToeicQuestion.DifficultyLevel difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public Boolean getStandalone() {
+        return standalone;
+    }
+
+    public void setStandalone(Boolean standalone) {
+        this.standalone = standalone;
+    }
+}
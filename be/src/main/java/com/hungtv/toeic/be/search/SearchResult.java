@@ -0,0 +1,39 @@
+package com.hungtv.toeic.be.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả tìm kiếm: một trang kết quả đã xếp hạng, tổng số kết quả và số lượng theo facet
+ * (part, category, difficulty) tính trên toàn bộ kết quả khớp.
+ */
+public final class SearchResult {
+
+    private final List<Hit> hits;
+    private final long total;
+    private final Map<String, Map<String, Long>> facets;
+
+    public SearchResult(List<Hit> hits, long total, Map<String, Map<String, Long>> facets) {
+        this.hits = hits;
+        this.total = total;
+        this.facets = facets;
+    }
+
+    public List<Hit> getHits() {
+        return hits;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    /**
+     * Một câu hỏi khớp và điểm xếp hạng của nó
+     */
+    public record Hit(Long questionId, double score) {
+    }
+}
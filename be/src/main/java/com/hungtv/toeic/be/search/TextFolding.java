@@ -0,0 +1,67 @@
+package com.hungtv.toeic.be.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chuẩn hóa và tách từ cho chỉ mục tìm kiếm: chữ thường, bỏ dấu tiếng Việt
+ * (kể cả đ/Đ) và tách theo ký tự không phải chữ/số, để "Giải thích" và "giai thich"
+ * cho cùng một token.
+ */
+public final class TextFolding {
+
+    // Token dài hơn mức này bị cắt (thường là URL hoặc chuỗi rác)
+    static final int MAX_TOKEN_LENGTH = 40;
+
+    private TextFolding() {
+    }
+
+    /**
+     * Chữ thường, bỏ dấu
+     *
+     * @param text Chuỗi gốc (có thể null)
+     * @return Chuỗi đã chuẩn hóa, rỗng nếu text null
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            // đ/Đ không tách được bằng NFD
+            if (c == 'đ' || c == 'Đ') {
+                c = 'd';
+            }
+            folded.append(Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Chuẩn hóa rồi tách từ
+     *
+     * @param text Chuỗi gốc (có thể null)
+     * @return Danh sách token theo thứ tự xuất hiện
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -3,6 +3,7 @@ package com.hungtv.toeic.be.security;
 import java.util.Arrays;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,7 +14,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -22,6 +22,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.hungtv.toeic.be.security.jwt.AuthEntryPointJwt;
 import com.hungtv.toeic.be.security.jwt.AuthTokenFilter;
+import com.hungtv.toeic.be.security.services.BoundedPasswordEncoder;
 import com.hungtv.toeic.be.security.services.UserDetailsServiceImpl;
 
 @Configuration
@@ -34,6 +35,15 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Value("${app.security.password-hashing.threads:0}")
+    private int passwordHashingThreads;
+
+    @Value("${app.security.password-hashing.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${app.security.password-hashing.timeout-ms:5000}")
+    private long passwordHashingTimeoutMs;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -54,9 +64,11 @@ public class WebSecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // Kiểm tra mật khẩu khi đăng nhập chạy trên nhóm luồng riêng có giới hạn, để đăng nhập dồn dập không chiếm hết CPU
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder() {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashingThreads,
+                passwordHashingQueueCapacity, passwordHashingTimeoutMs);
     }
 
     @Bean
@@ -92,7 +104,7 @@ public class WebSecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:5173", "http://localhost:3000", "http://127.0.0.1:5173", "http://127.0.0.1:3000", "http://localhost:5174", "http://127.0.0.1:5174", "http://localhost:5175", "http://127.0.0.1:5175", "http://localhost:5176", "http://127.0.0.1:5176")); 
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "Set-Cookie"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "Set-Cookie", "Retry-After"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -1,6 +1,7 @@
 package com.hungtv.toeic.be.security.jwt;
 
-import com.hungtv.toeic.be.security.services.UserDetailsServiceImpl;
+import com.hungtv.toeic.be.security.services.PrincipalCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,7 +22,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationList revocationList;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -32,11 +36,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             String jwt = jwtUtils.getJwtFromCookies(request);
             logger.debug("JWT từ cookie: {}", jwt != null ? "Có" : "Không");
             
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            // Kiểm tra và đọc token trong một lần parse; thông tin người dùng lấy từ cache
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            // Token đã bị thu hồi thì coi như không có. Token không có jti (cấp trước khi có thu hồi)
+            // không thu hồi được nên vẫn được chấp nhận cho đến khi hết hạn tự nhiên
+            if (claims != null && claims.getId() != null && revocationList.isRevoked(claims.getId())) {
+                logger.debug("JWT đã bị thu hồi");
+                claims = null;
+            }
+            if (claims != null) {
+                String username = claims.getSubject();
                 logger.debug("Username từ JWT: {}", username);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = principalCache.get(username);
                 logger.debug("Đã tải thông tin người dùng: {}", userDetails.getUsername());
                 
                 UsernamePasswordAuthenticationToken authentication = 
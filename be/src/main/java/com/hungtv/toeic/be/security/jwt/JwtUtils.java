@@ -1,6 +1,5 @@
 package com.hungtv.toeic.be.security.jwt;
 
-import com.hungtv.toeic.be.security.services.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -11,6 +10,7 @@ import org.springframework.http.ResponseCookie;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.WebUtils;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import java.security.Key;
@@ -26,12 +26,25 @@ public class JwtUtils {
     @Value("${app.jwt.expirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwt.refreshExpirationMs:604800000}")
+    private long jwtRefreshExpirationMs;
+
     @Value("${app.jwt.cookieName}")
     private String jwtCookie;
 
     @Value("${app.jwt.refreshCookieName}")
     private String jwtRefreshCookie;
 
+    // Khóa HMAC và parser dựng một lần; JwtParser không thay đổi nên dùng chung được giữa các luồng
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     public String getJwtFromCookies(HttpServletRequest request) {
         Cookie cookie = WebUtils.getCookie(request, jwtCookie);
         if (cookie != null) {
@@ -50,11 +63,10 @@ public class JwtUtils {
         }
     }
 
-    public ResponseCookie generateJwtCookie(UserDetailsImpl userPrincipal) {
-        String jwt = generateTokenFromUsername(userPrincipal.getUsername());
+    public ResponseCookie generateJwtCookie(String jwt) {
         ResponseCookie cookie = ResponseCookie.from(jwtCookie, jwt)
                 .path("/")
-                .maxAge(24 * 60 * 60)
+                .maxAge(jwtExpirationMs / 1000)
                 .httpOnly(true)
                 .secure(false) // Đặt thành true trong môi trường sản xuất với HTTPS
                 .sameSite("Lax") // Thay đổi từ Strict sang Lax để phù hợp với các yêu cầu cross-site
@@ -65,7 +77,7 @@ public class JwtUtils {
     public ResponseCookie generateRefreshJwtCookie(String refreshToken) {
         ResponseCookie cookie = ResponseCookie.from(jwtRefreshCookie, refreshToken)
                 .path("/")
-                .maxAge(7 * 24 * 60 * 60)
+                .maxAge(jwtRefreshExpirationMs / 1000)
                 .httpOnly(true)
                 .secure(false)
                 .sameSite("Lax")
@@ -90,22 +102,22 @@ public class JwtUtils {
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Kiểm tra chữ ký, hạn dùng và đọc claims của token trong một lần parse
+     *
+     * @param authToken JWT
+     * @return Claims, null nếu token không hợp lệ
+     */
+    public Claims parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (MalformedJwtException e) {
             logger.error("Token JWT không hợp lệ: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -118,15 +130,32 @@ public class JwtUtils {
             logger.error("Lỗi không xác định khi xác thực JWT: {}", e.getMessage());
         }
 
-        return false;
+        return null;
     }
 
-    public String generateTokenFromUsername(String username) {
+    /**
+     * Tạo access token có jti, để có thể thu hồi từng token qua TokenRevocationList
+     *
+     * @param username Tên đăng nhập (subject)
+     * @param tokenId jti
+     * @param expiresAt Thời điểm hết hạn
+     * @return JWT đã ký
+     */
+    public String generateAccessToken(String username, String tokenId, Date expiresAt) {
         return Jwts.builder()
                 .setSubject(username)
+                .setId(tokenId)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .setExpiration(expiresAt)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
+
+    public int getJwtExpirationMs() {
+        return jwtExpirationMs;
+    }
+
+    public long getJwtRefreshExpirationMs() {
+        return jwtRefreshExpirationMs;
+    }
 } 
\ No newline at end of file
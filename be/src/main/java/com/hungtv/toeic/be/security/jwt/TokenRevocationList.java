@@ -0,0 +1,207 @@
+package com.hungtv.toeic.be.security.jwt;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.cache.BloomFilter;
+import com.hungtv.toeic.be.models.RevokedToken;
+import com.hungtv.toeic.be.repositories.RevokedTokenRepository;
+import com.hungtv.toeic.be.support.StatsCounters;
+import com.hungtv.toeic.be.support.TransactionCallbacks;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Danh sách jti của access token đã bị thu hồi, giữ trong bộ nhớ để AuthTokenFilter kiểm tra mà
+ * không đọc database: bloom filter loại nhanh các token chưa bị thu hồi (gần như mọi request),
+ * chỉ các token lọt qua filter mới tra trong tập chính xác.
+ *
+ * Bảng revoked_tokens là nguồn chính: nạp lại lúc khởi động và đọc định kỳ các dòng mới (do node
+ * khác ghi). Phần tử hết hạn cùng lúc với access token nên bị bỏ khỏi tập và khỏi bảng; bloom filter
+ * không xóa được nên được dựng lại từ tập chính xác sau mỗi lần dọn.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private static final int PAGE_SIZE = 5000;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${app.jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Đọc lùi một khoảng ID khi đồng bộ, để không bỏ sót dòng có ID nhỏ hơn nhưng commit muộn hơn
+    @Value("${app.jwt.revocation.sync-lookback:1000}")
+    private long syncLookback;
+
+    // jti -> thời điểm hết hạn (epoch millis)
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    // Số phần tử filter hiện tại được dựng cho; vượt quá thì tỉ lệ dương tính giả tăng nên dựng lại
+    private volatile long filterCapacity;
+
+    private volatile long lastSyncedId;
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder checks = counters.register("checks");
+    private final LongAdder filterNegatives = counters.register("filterNegatives");
+    private final LongAdder falsePositives = counters.register("falsePositives");
+    private final LongAdder rejected = counters.register("rejected");
+    private final LongAdder added = counters.register("added");
+    private final LongAdder expired = counters.register("expired");
+    private final LongAdder syncs = counters.register("syncs");
+
+    @PostConstruct
+    public void init() {
+        rebuildFilter();
+        try {
+            sync();
+        } catch (Exception e) {
+            logger.error("Không thể nạp danh sách token đã thu hồi: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Kiểm tra access token đã bị thu hồi chưa
+     *
+     * @param tokenId jti của access token
+     * @return true nếu token đã bị thu hồi
+     */
+    public boolean isRevoked(String tokenId) {
+        checks.increment();
+        if (!filter.mightContain(tokenId)) {
+            filterNegatives.increment();
+            return false;
+        }
+        if (revoked.containsKey(tokenId)) {
+            rejected.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Ghi jti vào revoked_tokens trong transaction hiện tại và thêm vào bộ nhớ sau khi commit
+     * (ngay lập tức nếu không có transaction)
+     *
+     * @param tokenId jti của access token
+     * @param expiresAt Thời điểm access token hết hạn
+     */
+    public void revokeAfterCommit(String tokenId, LocalDateTime expiresAt) {
+        if (!expiresAt.isAfter(LocalDateTime.now()) || revoked.containsKey(tokenId)
+                || revokedTokenRepository.existsByTokenId(tokenId)) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+        TransactionCallbacks.afterCommit(() -> add(tokenId, toMillis(expiresAt)));
+    }
+
+    /**
+     * Đọc các dòng mới từ revoked_tokens (kể cả do node khác ghi), bỏ các phần tử đã hết hạn khỏi
+     * bộ nhớ và bảng, rồi dựng lại bloom filter nếu có phần tử bị bỏ
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval-ms:10000}",
+            initialDelayString = "${app.jwt.revocation.sync-interval-ms:10000}")
+    public void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        long afterId = Math.max(0, lastSyncedId - syncLookback);
+        while (true) {
+            List<RevokedToken> page = revokedTokenRepository.findLiveAfter(afterId, now, PageRequest.of(0, PAGE_SIZE));
+            for (RevokedToken token : page) {
+                add(token.getTokenId(), toMillis(token.getExpiresAt()));
+                afterId = token.getId();
+            }
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        lastSyncedId = Math.max(lastSyncedId, afterId);
+
+        long nowMillis = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+        int removed = before - revoked.size();
+        if (removed > 0) {
+            expired.add(removed);
+        }
+        if (removed > 0 || revoked.size() > filterCapacity) {
+            rebuildFilter();
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> revokedTokenRepository.deleteExpired(now));
+        syncs.increment();
+    }
+
+    /**
+     * Thống kê hoạt động của danh sách thu hồi
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        BloomFilter current = filter;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", revoked.size());
+        stats.put("lastSyncedId", lastSyncedId);
+        stats.put("filterBits", current.getBitCount());
+        stats.put("filterHashes", current.getHashCount());
+        stats.put("filterFillRatio", current.getFillRatio());
+        counters.putInto(stats);
+        return stats;
+    }
+
+    /**
+     * Thêm vào tập chính xác trước rồi mới bật bit, và khóa cùng với rebuildFilter để phần tử thêm
+     * trong lúc dựng lại không bị mất khỏi filter mới
+     */
+    private synchronized void add(String tokenId, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        if (revoked.put(tokenId, expiresAtMillis) == null) {
+            added.increment();
+        }
+        filter.put(tokenId);
+    }
+
+    private synchronized void rebuildFilter() {
+        long capacity = Math.max(expectedEntries, revoked.size() * 2L);
+        BloomFilter rebuilt = BloomFilter.create(capacity, falsePositiveRate);
+        for (String tokenId : revoked.keySet()) {
+            rebuilt.put(tokenId);
+        }
+        filter = rebuilt;
+        filterCapacity = capacity;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
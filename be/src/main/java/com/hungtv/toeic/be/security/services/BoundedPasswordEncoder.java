@@ -0,0 +1,147 @@
+package com.hungtv.toeic.be.security.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.hungtv.toeic.be.exception.AuthThrottledException;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+/**
+ * PasswordEncoder chạy việc băm (BCrypt, khoảng 100 ms CPU mỗi lần) trên một nhóm luồng riêng có
+ * số luồng và độ dài hàng đợi cố định. Một đợt đăng nhập dồn dập chỉ chiếm tối đa số luồng đó,
+ * phần CPU còn lại vẫn phục vụ bài thi; khi hàng đợi đầy hoặc chờ quá lâu thì từ chối ngay bằng
+ * AuthThrottledException thay vì xếp hàng vô hạn.
+ *
+ * Chỉ việc kiểm tra mật khẩu (matches, dùng khi đăng nhập) đi qua nhóm luồng này. Việc băm mật
+ * khẩu mới (encode: đăng ký, đổi/đặt lại mật khẩu, quản trị tạo người dùng) chạy trên luồng gọi:
+ * các luồng đó không bắt AuthThrottledException và sẽ trả lỗi sai mã thay vì 429, đồng thời không
+ * nên bị từ chối chỉ vì một đợt đăng nhập dồn dập.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder completed = counters.register("completed");
+    private final LongAdder rejected = counters.register("rejected");
+    private final LongAdder timeouts = counters.register("timeouts");
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    /**
+     * @param delegate PasswordEncoder thực hiện việc băm
+     * @param threads Số luồng băm, 0 để dùng một nửa số CPU
+     * @param queueCapacity Số lần băm tối đa được chờ
+     * @param timeoutMillis Thời gian chờ tối đa của một lần băm (kể cả thời gian xếp hàng)
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMillis) {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * PasswordEncoder gốc, cho các tác vụ băm hàng loạt chạy trên nhóm luồng riêng (như nhập người
+     * dùng) để không chiếm hàng đợi của đăng nhập
+     */
+    public PasswordEncoder getDelegate() {
+        return delegate;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Thống kê nhóm luồng băm mật khẩu
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        long done = completed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        counters.putInto(stats);
+        stats.put("avgQueueWaitMs", StatsCounters.averageMillis(queueWaitNanos.sum(), done));
+        stats.put("avgHashMs", StatsCounters.averageMillis(hashNanos.sum(), done));
+        return stats;
+    }
+
+    private <T> T call(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitNanos.add(startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new AuthThrottledException("Hệ thống đang xử lý nhiều lượt đăng nhập", 1000);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            throw new AuthThrottledException("Hệ thống đang xử lý nhiều lượt đăng nhập", 1000);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi đang băm mật khẩu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Không thể băm mật khẩu", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.hungtv.toeic.be.security.services;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.exception.AuthThrottledException;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Giới hạn số lần đăng nhập theo IP và theo tên đăng nhập, kiểm tra trước khi băm mật khẩu để các
+ * lần thử vượt giới hạn không tốn CPU cho BCrypt.
+ *
+ * Giới hạn theo tên đăng nhập là chốt chặn chính (dò mật khẩu một tài khoản). Giới hạn theo IP rộng
+ * hơn nhiều, vì cả lớp học sau một NAT (hoặc mọi người dùng nếu proxy không chuyển tiếp IP) dùng
+ * chung một địa chỉ.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    @Value("${app.security.login-rate-limit.stripes:4096}")
+    private int stripes;
+
+    @Value("${app.security.login-rate-limit.ip.capacity:600}")
+    private int ipCapacity;
+
+    @Value("${app.security.login-rate-limit.ip.per-minute:600}")
+    private int ipPerMinute;
+
+    @Value("${app.security.login-rate-limit.username.capacity:5}")
+    private int usernameCapacity;
+
+    @Value("${app.security.login-rate-limit.username.per-minute:5}")
+    private int usernamePerMinute;
+
+    private StripedTokenBucket ipBuckets;
+    private StripedTokenBucket usernameBuckets;
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder allowed = counters.register("allowed");
+    private final LongAdder rejectedByIp = counters.register("rejectedByIp");
+    private final LongAdder rejectedByUsername = counters.register("rejectedByUsername");
+
+    @PostConstruct
+    public void init() {
+        ipBuckets = new StripedTokenBucket(stripes, ipCapacity, ipPerMinute);
+        usernameBuckets = new StripedTokenBucket(stripes, usernameCapacity, usernamePerMinute);
+    }
+
+    /**
+     * Lấy một lượt đăng nhập cho IP và tên đăng nhập
+     *
+     * @param clientIp Địa chỉ IP của client
+     * @param username Tên đăng nhập
+     * @throws AuthThrottledException nếu IP hoặc tên đăng nhập đã vượt giới hạn
+     */
+    public void acquire(String clientIp, String username) {
+        long now = System.currentTimeMillis();
+        long waitMillis = ipBuckets.tryAcquire(clientIp != null ? clientIp : "", now);
+        if (waitMillis > 0) {
+            rejectedByIp.increment();
+            logger.warn("Từ chối đăng nhập từ IP {}: vượt giới hạn số lần thử", clientIp);
+            throw new AuthThrottledException("Quá nhiều lần đăng nhập từ địa chỉ này", waitMillis);
+        }
+        String key = username != null ? username.trim().toLowerCase(Locale.ROOT) : "";
+        waitMillis = usernameBuckets.tryAcquire(key, now);
+        if (waitMillis > 0) {
+            rejectedByUsername.increment();
+            logger.warn("Từ chối đăng nhập tài khoản {}: vượt giới hạn số lần thử", key);
+            throw new AuthThrottledException("Quá nhiều lần đăng nhập vào tài khoản này", waitMillis);
+        }
+        allowed.increment();
+    }
+
+    /**
+     * Thống kê giới hạn đăng nhập
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", ipBuckets.getStripes());
+        stats.put("ipCapacity", ipCapacity);
+        stats.put("ipPerMinute", ipPerMinute);
+        stats.put("usernameCapacity", usernameCapacity);
+        stats.put("usernamePerMinute", usernamePerMinute);
+        counters.putInto(stats);
+        return stats;
+    }
+}
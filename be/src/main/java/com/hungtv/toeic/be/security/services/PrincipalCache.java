@@ -0,0 +1,150 @@
+package com.hungtv.toeic.be.security.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.support.StatsCounters;
+import com.hungtv.toeic.be.support.TransactionCallbacks;
+
+/**
+ * Cache thông tin người dùng đã xác thực (UserDetailsImpl) theo subject của JWT, để mỗi request
+ * không phải đọc người dùng và vai trò từ database.
+ *
+ * Mọi thay đổi người dùng (thông tin, vai trò, mật khẩu, xóa) gọi invalidateAfterCommit: phần tử
+ * bị bỏ ngay và bỏ lại sau khi commit, và lần nạp nào bắt đầu trước một lần bỏ thì không được
+ * ghi vào cache. Cache có giới hạn số phần tử và thời gian sống, là giới hạn trễ khi người dùng
+ * được sửa trên node khác.
+ */
+@Component
+public class PrincipalCache {
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Value("${app.security.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.security.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Tăng ở mỗi lần bỏ phần tử; lần nạp chỉ được ghi nếu không có lần bỏ nào xen vào
+    private final AtomicLong generation = new AtomicLong();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder hits = counters.register("hits");
+    private final LongAdder misses = counters.register("misses");
+    private final LongAdder invalidations = counters.register("invalidations");
+    private final LongAdder evictions = counters.register("evictions");
+
+    /**
+     * Thông tin người dùng theo tên đăng nhập, nạp từ database nếu chưa có hoặc đã hết hạn
+     *
+     * @param username Tên đăng nhập (subject của JWT)
+     * @return UserDetailsImpl
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException nếu người dùng không tồn tại
+     */
+    public UserDetailsImpl get(String username) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(username);
+        if (entry != null && !entry.isExpired(now, ttlNanos())) {
+            hits.increment();
+            return entry.principal;
+        }
+        misses.increment();
+        long loadedAt = generation.get();
+        UserDetailsImpl principal = (UserDetailsImpl) userDetailsService.loadUserByUsername(username);
+        if (generation.get() == loadedAt) {
+            entries.put(username, new Entry(principal, now));
+            if (entries.size() > maxEntries) {
+                trim(now);
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Bỏ thông tin của người dùng ngay và sau khi transaction hiện tại commit (chỉ một lần nếu
+     * không có transaction), để request đọc được dữ liệu cũ trong lúc chờ commit cũng không giữ lại
+     *
+     * @param userId ID người dùng
+     */
+    public void invalidateAfterCommit(long userId) {
+        invalidate(userId);
+        TransactionCallbacks.registerAfterCommit(() -> invalidate(userId));
+    }
+
+    /**
+     * Bỏ thông tin của người dùng (theo ID, nên cả khi tên đăng nhập vừa đổi)
+     *
+     * @param userId ID người dùng
+     */
+    public void invalidate(long userId) {
+        generation.incrementAndGet();
+        invalidations.increment();
+        entries.values().removeIf(entry -> entry.principal.getId() == userId);
+    }
+
+    /**
+     * Thống kê hoạt động của cache
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlSeconds);
+        counters.putInto(stats);
+        return stats;
+    }
+
+    /**
+     * Bỏ các phần tử đã hết hạn, rồi các phần tử bất kỳ nếu vẫn vượt quá giới hạn
+     */
+    private void trim(long now) {
+        long ttl = ttlNanos();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now, ttl)) {
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+        iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private long ttlNanos() {
+        return TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private static final class Entry {
+        private final UserDetailsImpl principal;
+        private final long createdNanos;
+
+        private Entry(UserDetailsImpl principal, long createdNanos) {
+            this.principal = principal;
+            this.createdNanos = createdNanos;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - createdNanos >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.hungtv.toeic.be.security.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token bucket theo khóa (IP, tên đăng nhập), chia thành một số cố định ngăn (stripe): khóa được
+ * băm vào một ngăn, các khóa trùng ngăn dùng chung bucket. Bộ nhớ không tăng theo số khóa, nên một
+ * đợt thử với hàng triệu tên đăng nhập khác nhau không làm đầy heap.
+ *
+ * Trạng thái mỗi ngăn nằm trong một long (thời điểm nạp cuối, số token tính bằng phần nghìn) và
+ * được cập nhật bằng compare-and-set, không khóa.
+ */
+public final class StripedTokenBucket {
+
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long ONE_TOKEN = 1000;
+
+    private final AtomicLongArray states;
+    private final int stripeMask;
+    private final long capacity;
+    private final long refillPerMinute;
+    private final long epochMillis;
+
+    /**
+     * @param stripes Số ngăn (làm tròn lên lũy thừa của 2)
+     * @param capacity Số lần thử tối đa liên tiếp (tối đa 1000)
+     * @param refillPerMinute Số lần thử được nạp lại mỗi phút
+     */
+    public StripedTokenBucket(int stripes, int capacity, int refillPerMinute) {
+        if (capacity < 1 || capacity * ONE_TOKEN > TOKEN_MASK || refillPerMinute < 1) {
+            throw new IllegalArgumentException("Cấu hình token bucket không hợp lệ");
+        }
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.states = new AtomicLongArray(size);
+        this.stripeMask = size - 1;
+        this.capacity = capacity * ONE_TOKEN;
+        this.refillPerMinute = refillPerMinute * ONE_TOKEN;
+        this.epochMillis = System.currentTimeMillis() - 1;
+    }
+
+    /**
+     * Lấy một token của khóa
+     *
+     * @param key Khóa
+     * @param nowMillis Thời điểm hiện tại (epoch millis)
+     * @return 0 nếu lấy được, ngược lại số mili giây cần chờ đến khi có token
+     */
+    public long tryAcquire(String key, long nowMillis) {
+        int stripe = stripe(key);
+        long now = Math.max(1, nowMillis - epochMillis);
+        while (true) {
+            long state = states.get(stripe);
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            if (state == 0) {
+                last = now;
+                tokens = capacity;
+            } else if (now > last) {
+                long refill = (now - last) * refillPerMinute / 60_000;
+                if (tokens + refill >= capacity) {
+                    tokens = capacity;
+                    last = now;
+                } else if (refill > 0) {
+                    // Chỉ tiến mốc theo phần thời gian đã đổi thành token để không mất phần lẻ
+                    tokens += refill;
+                    last += refill * 60_000 / refillPerMinute;
+                }
+            }
+            if (tokens < ONE_TOKEN) {
+                return Math.max(1, (ONE_TOKEN - tokens) * 60_000 / refillPerMinute - (now - last));
+            }
+            long next = (last << TOKEN_BITS) | (tokens - ONE_TOKEN);
+            if (states.compareAndSet(stripe, state, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int getStripes() {
+        return states.length();
+    }
+
+    private int stripe(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x45D9F3B;
+        h ^= (h >>> 16);
+        return h & stripeMask;
+    }
+}
@@ -0,0 +1,240 @@
+package com.hungtv.toeic.be.security.services;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.cache.BloomFilter;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.support.StatsCounters;
+import com.hungtv.toeic.be.support.TransactionCallbacks;
+
+/**
+ * Bloom filter trên tên đăng nhập và email đã dùng, để kiểm tra trùng khi đăng ký/tạo người dùng
+ * không phải truy vấn database: filter trả lời "chưa có" là chắc chắn (trong phạm vi node này),
+ * chỉ khi filter trả lời "có thể có" mới truy vấn chính xác.
+ *
+ * Khóa được chuẩn hóa (bỏ khoảng trắng hai đầu, bỏ dấu, chữ thường) thô hơn collation của database,
+ * nên chỉ có thể sinh thêm dương tính giả chứ không bỏ sót. Filter được dựng bằng cách đọc bảng
+ * users theo trang khi ứng dụng sẵn sàng (trước đó mọi lần kiểm tra đều hỏi database), đọc định kỳ
+ * người dùng mới (do node khác tạo) và dựng lại hằng đêm để bỏ tên/email đã xóa hoặc đổi. Người dùng
+ * do node khác đổi tên/email có thể lọt qua đến lần dựng lại; khi đó ràng buộc unique của bảng users
+ * vẫn chặn bản ghi trùng.
+ */
+@Component
+public class UsernameEmailBloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameEmailBloomFilter.class);
+
+    private static final int PAGE_SIZE = 10000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.username-email-filter.expected-users:100000}")
+    private long expectedUsers;
+
+    @Value("${app.username-email-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    // Filter đang dựng lại: các tên/email thêm trong lúc dựng được ghi vào cả hai
+    private final AtomicReference<BloomFilter> building = new AtomicReference<>();
+
+    private volatile boolean ready;
+
+    private volatile long lastUserId;
+
+    private volatile LocalDateTime builtAt;
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder checks = counters.register("checks");
+    private final LongAdder filterNegatives = counters.register("filterNegatives");
+    private final LongAdder databaseChecks = counters.register("databaseChecks");
+    private final LongAdder falsePositives = counters.register("falsePositives");
+    private final LongAdder rebuilds = counters.register("rebuilds");
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Không thể dựng bloom filter tên đăng nhập/email: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tên đăng nhập đã được dùng chưa
+     *
+     * @param username Tên đăng nhập
+     * @return true nếu đã có người dùng với tên này
+     */
+    public boolean isUsernameTaken(String username) {
+        return check(usernameKey(username), () -> Boolean.TRUE.equals(userRepository.existsByUsername(username)));
+    }
+
+    /**
+     * Email đã được dùng chưa
+     *
+     * @param email Email
+     * @return true nếu đã có người dùng với email này
+     */
+    public boolean isEmailTaken(String email) {
+        return check(emailKey(email), () -> Boolean.TRUE.equals(userRepository.existsByEmail(email)));
+    }
+
+    /**
+     * Ghi nhận tên đăng nhập và email vừa được dùng: thêm ngay (trước khi ghi database, để lần kiểm
+     * tra đồng thời không bỏ qua database) và thêm lại sau khi commit, phòng lần dựng lại đang chạy
+     * chưa đọc thấy dòng mới
+     *
+     * @param username Tên đăng nhập
+     * @param email Email
+     */
+    public void addAfterCommit(String username, String email) {
+        add(username, email);
+        TransactionCallbacks.registerAfterCommit(() -> add(username, email));
+    }
+
+    /**
+     * Đọc người dùng có ID lớn hơn lần đọc trước (do node khác hoặc JDBC ghi thẳng)
+     */
+    @Scheduled(fixedDelayString = "${app.username-email-filter.sync-interval-ms:30000}",
+            initialDelayString = "${app.username-email-filter.sync-interval-ms:30000}")
+    public synchronized void sync() {
+        BloomFilter current = filter;
+        if (current != null) {
+            lastUserId = load(current, lastUserId);
+        }
+    }
+
+    /**
+     * Dựng lại filter từ bảng users (bỏ các tên/email đã xóa hoặc đổi, tăng kích thước theo số
+     * người dùng)
+     */
+    @Scheduled(cron = "${app.username-email-filter.rebuild-cron:0 15 4 * * *}")
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        long users = userRepository.count();
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedUsers, users * 3 / 2) * 2, falsePositiveRate);
+        building.set(rebuilt);
+        try {
+            long maxId = load(rebuilt, 0);
+            filter = rebuilt;
+            lastUserId = Math.max(lastUserId, maxId);
+            ready = true;
+        } finally {
+            building.set(null);
+        }
+        builtAt = LocalDateTime.now();
+        rebuilds.increment();
+        logger.info("Đã dựng bloom filter cho {} người dùng trong {} ms", users, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Thống kê hoạt động của filter
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        BloomFilter current = filter;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("builtAt", builtAt);
+        stats.put("lastUserId", lastUserId);
+        stats.put("filterBits", current != null ? current.getBitCount() : 0);
+        stats.put("filterHashes", current != null ? current.getHashCount() : 0);
+        stats.put("filterFillRatio", current != null ? current.getFillRatio() : 0.0);
+        counters.putInto(stats);
+        return stats;
+    }
+
+    private boolean check(String key, BooleanSupplier exact) {
+        checks.increment();
+        BloomFilter current = filter;
+        if (ready && current != null && !current.mightContain(key)) {
+            filterNegatives.increment();
+            return false;
+        }
+        databaseChecks.increment();
+        boolean taken = exact.getAsBoolean();
+        if (!taken && ready) {
+            falsePositives.increment();
+        }
+        return taken;
+    }
+
+    private void add(String username, String email) {
+        String userKey = usernameKey(username);
+        String mailKey = emailKey(email);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(userKey);
+            current.put(mailKey);
+        }
+        BloomFilter next = building.get();
+        if (next != null) {
+            next.put(userKey);
+            next.put(mailKey);
+        }
+    }
+
+    /**
+     * Đọc người dùng có ID lớn hơn afterId theo trang vào filter
+     *
+     * @return ID lớn nhất đã đọc
+     */
+    private long load(BloomFilter target, long afterId) {
+        long[] lastId = { afterId };
+        while (true) {
+            long from = lastId[0];
+            int[] count = { 0 };
+            jdbcTemplate.query("SELECT id, username, email FROM users WHERE id > ? ORDER BY id LIMIT " + PAGE_SIZE,
+                    rs -> {
+                        target.put(usernameKey(rs.getString(2)));
+                        target.put(emailKey(rs.getString(3)));
+                        lastId[0] = rs.getLong(1);
+                        count[0]++;
+                    }, from);
+            if (count[0] < PAGE_SIZE) {
+                return lastId[0];
+            }
+        }
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + normalize(username);
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + normalize(email);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(value.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+}
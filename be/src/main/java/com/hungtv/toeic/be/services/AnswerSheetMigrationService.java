@@ -0,0 +1,210 @@
+package com.hungtv.toeic.be.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.repositories.TestResultBatchWriter;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.UserAnswerBatchWriter;
+import com.hungtv.toeic.be.scoring.AnswerSheetLayouts;
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Chuyển câu trả lời dạng dòng (user_answers) của các bài nộp cũ sang phiếu trả lời nén.
+ *
+ * Duyệt test_results chưa có phiếu nén theo keyset, mỗi lô đọc các dòng câu trả lời theo luồng,
+ * đóng gói theo layout hiện hành của bài thi, rồi ghi phiếu nén và xóa các dòng trong cùng một
+ * transaction. Kết quả đúng/sai đã lưu được giữ nguyên (không chấm lại). Bài nộp có câu hỏi
+ * không còn trong bài thi hoặc câu trả lời không nén được được giữ ở dạng dòng.
+ */
+@Service
+public class AnswerSheetMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(AnswerSheetMigrationService.class);
+    
+    @Autowired
+    private TestResultRepository testResultRepository;
+    
+    @Autowired
+    private TestResultBatchWriter resultWriter;
+    
+    @Autowired
+    private UserAnswerBatchWriter answerWriter;
+    
+    @Autowired
+    private AnswerSheetLayouts layouts;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Số bài nộp mỗi lô
+    @Value("${app.answer-sheet.migration-batch-size:500}")
+    private int batchSize;
+    
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "answer-sheet-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    // Số liệu của lần chạy gần nhất
+    private final LongAdder converted = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder deletedRows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicReference<LocalDateTime> startedAt = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> finishedAt = new AtomicReference<>();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+    
+    /**
+     * Bắt đầu chuyển đổi trên luồng nền
+     * 
+     * @return false nếu đang có lần chuyển đổi khác chạy
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        converted.reset();
+        skipped.reset();
+        deletedRows.reset();
+        batches.reset();
+        lastId.set(0);
+        lastError.set(null);
+        finishedAt.set(null);
+        startedAt.set(LocalDateTime.now());
+        worker.execute(this::run);
+        return true;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+    
+    /**
+     * Trạng thái của lần chuyển đổi gần nhất
+     * 
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("startedAt", startedAt.get());
+        status.put("finishedAt", finishedAt.get());
+        status.put("converted", converted.sum());
+        status.put("keptAsRows", skipped.sum());
+        status.put("deletedRows", deletedRows.sum());
+        status.put("batches", batches.sum());
+        status.put("lastTestResultId", lastId.get());
+        status.put("lastError", lastError.get());
+        return status;
+    }
+    
+    private void run() {
+        try {
+            Long afterId = lastId.get();
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Object[]> page = testResultRepository.findUnpackedAfter(afterId, PageRequest.ofSize(batchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                migrateBatch(page);
+                afterId = (Long) page.get(page.size() - 1)[0];
+                lastId.set(afterId);
+                batches.increment();
+            }
+            logger.info("Đã chuyển {} bài nộp sang phiếu trả lời nén ({} giữ dạng dòng, {} dòng đã xóa)",
+                    converted.sum(), skipped.sum(), deletedRows.sum());
+        } catch (RuntimeException e) {
+            lastError.set(e.getMessage());
+            logger.error("Lỗi khi chuyển câu trả lời sang phiếu trả lời nén: {}", e.getMessage(), e);
+        } finally {
+            finishedAt.set(LocalDateTime.now());
+            running.set(false);
+        }
+    }
+    
+    private void migrateBatch(List<Object[]> page) {
+        Map<Long, RowBuffer> buffers = new LinkedHashMap<>();
+        for (Object[] row : page) {
+            buffers.put((Long) row[0], new RowBuffer((Long) row[1]));
+        }
+        answerWriter.forEachRow(buffers.keySet(), rs -> {
+            Boolean correct = (Boolean) rs.getObject(4, Boolean.class);
+            buffers.get(rs.getLong(1)).add(rs.getLong(2), rs.getString(3), Boolean.TRUE.equals(correct));
+        });
+        
+        List<Long> ids = new ArrayList<>(buffers.size());
+        List<PackedAnswerSheet> sheets = new ArrayList<>(buffers.size());
+        for (Map.Entry<Long, RowBuffer> entry : buffers.entrySet()) {
+            RowBuffer buffer = entry.getValue();
+            PackedAnswerSheet sheet = layouts.pack(buffer.testId, buffer.questionIds, buffer.answers, buffer.correct,
+                    buffer.count);
+            if (sheet == null) {
+                skipped.increment();
+                continue;
+            }
+            ids.add(entry.getKey());
+            sheets.add(sheet);
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        int deleted = new TransactionTemplate(transactionManager).execute(status -> {
+            resultWriter.updateAnswerSheets(ids, sheets);
+            return answerWriter.deleteByTestResultIds(ids);
+        });
+        converted.add(ids.size());
+        deletedRows.add(deleted);
+    }
+    
+    /**
+     * Các dòng câu trả lời của một bài nộp
+     */
+    private static final class RowBuffer {
+        private final Long testId;
+        private long[] questionIds = new long[16];
+        private String[] answers = new String[16];
+        private boolean[] correct = new boolean[16];
+        private int count;
+        
+        private RowBuffer(Long testId) {
+            this.testId = testId;
+        }
+        
+        private void add(long questionId, String answer, boolean isCorrect) {
+            if (count == questionIds.length) {
+                questionIds = Arrays.copyOf(questionIds, count * 2);
+                answers = Arrays.copyOf(answers, count * 2);
+                correct = Arrays.copyOf(correct, count * 2);
+            }
+            questionIds[count] = questionId;
+            answers[count] = answer;
+            correct[count] = isCorrect;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.hungtv.toeic.be.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.hungtv.toeic.be.models.TestResult;
+import com.hungtv.toeic.be.repositories.UserAnswerRepository;
+import com.hungtv.toeic.be.scoring.AnswerKey;
+import com.hungtv.toeic.be.scoring.AnswerKeyCache;
+import com.hungtv.toeic.be.scoring.AnswerSheetLayouts;
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+import com.hungtv.toeic.be.scoring.SheetLayout;
+
+/**
+ * Đọc câu trả lời của một bài nộp bất kể cách lưu: phiếu trả lời nén trong test_results
+ * (PackedAnswerSheet), hoặc các dòng user_answers với bài nộp cũ/không nén được.
+ *
+ * Các thống kê theo category và loại câu hỏi của phiếu nén dùng cờ trong AnswerKey (cache)
+ * thay cho phép join user_answers với toeic_questions và question_groups.
+ */
+@Service
+public class AnswerSheetService {
+    
+    @Autowired
+    private AnswerSheetLayouts layouts;
+    
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+    
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+    
+    /**
+     * Lấy các câu trả lời của bài nộp
+     * 
+     * @param result Kết quả bài thi
+     * @return Danh sách (questionId, userAnswer, isCorrect)
+     */
+    public List<Object[]> findAnswerRows(TestResult result) {
+        if (result.getAnswerSheet() == null) {
+            return userAnswerRepository.findAnswerRowsByTestResultId(result.getId());
+        }
+        SheetLayout layout = layouts.get(result.getSheetLayoutId());
+        byte[] codes = PackedAnswerSheet.decode(result.getAnswerSheet(), layout.size());
+        List<Object[]> rows = new ArrayList<>();
+        for (int position = 0; position < codes.length; position++) {
+            if (codes[position] != 0) {
+                rows.add(new Object[] {
+                        layout.questionIdAt(position),
+                        AnswerKey.answerOf(codes[position]),
+                        PackedAnswerSheet.isCorrect(result.getCorrectBits(), position)
+                });
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Đếm số câu trả lời đúng của bài nộp
+     * 
+     * @param result Kết quả bài thi
+     * @return Số câu đúng
+     */
+    public long countCorrectAnswers(TestResult result) {
+        if (result.getAnswerSheet() == null) {
+            Long count = userAnswerRepository.countCorrectAnswersByTestResult(result);
+            return count != null ? count : 0;
+        }
+        return PackedAnswerSheet.countCorrect(result.getCorrectBits());
+    }
+    
+    /**
+     * Số câu đúng và số câu trả lời theo category
+     * 
+     * @param result Kết quả bài thi
+     * @return {grammarCorrect, grammarTotal, vocabularyCorrect, vocabularyTotal}
+     */
+    public long[] getAnswerStatsByCategory(TestResult result) {
+        if (result.getAnswerSheet() == null) {
+            return toLongs(userAnswerRepository.getAnswerStatsByCategory(result));
+        }
+        return countByFlags(result, AnswerKey.CATEGORY_GRAMMAR, AnswerKey.CATEGORY_VOCABULARY);
+    }
+    
+    /**
+     * Số câu đúng và số câu trả lời theo loại nhóm câu hỏi
+     * 
+     * @param result Kết quả bài thi
+     * @return {listeningCorrect, listeningTotal, readingCorrect, readingTotal}
+     */
+    public long[] getAnswerStatsByType(TestResult result) {
+        if (result.getAnswerSheet() == null) {
+            return toLongs(userAnswerRepository.getAnswerStatsByType(result));
+        }
+        return countByFlags(result, AnswerKey.GROUP_LISTENING, AnswerKey.GROUP_READING);
+    }
+    
+    /**
+     * Đếm câu đúng/câu trả lời có cờ first và second (câu hỏi đã bị xóa khỏi bài thi được bỏ qua)
+     */
+    private long[] countByFlags(TestResult result, int first, int second) {
+        SheetLayout layout = layouts.get(result.getSheetLayoutId());
+        AnswerKey key = answerKeyCache.get(result.getTest().getId());
+        byte[] codes = PackedAnswerSheet.decode(result.getAnswerSheet(), layout.size());
+        long[] stats = new long[4];
+        for (int position = 0; position < codes.length; position++) {
+            if (codes[position] == 0) {
+                continue;
+            }
+            int index = key.indexOf(layout.questionIdAt(position));
+            if (index < 0) {
+                continue;
+            }
+            int flags = key.flagsAt(index);
+            long hit = PackedAnswerSheet.isCorrect(result.getCorrectBits(), position) ? 1 : 0;
+            if ((flags & first) != 0) {
+                stats[0] += hit;
+                stats[1]++;
+            }
+            if ((flags & second) != 0) {
+                stats[2] += hit;
+                stats[3]++;
+            }
+        }
+        return stats;
+    }
+    
+    private static long[] toLongs(List<Object[]> rows) {
+        long[] stats = new long[4];
+        if (rows.isEmpty()) {
+            return stats;
+        }
+        Object[] row = rows.get(0);
+        for (int i = 0; i < stats.length && i < row.length; i++) {
+            stats[i] = row[i] != null ? ((Number) row[i]).longValue() : 0;
+        }
+        return stats;
+    }
+}
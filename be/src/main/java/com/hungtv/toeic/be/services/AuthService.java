@@ -10,6 +10,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseCookie;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,9 +19,11 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import com.hungtv.toeic.be.models.ERole;
 import com.hungtv.toeic.be.models.PasswordResetToken;
+import com.hungtv.toeic.be.models.RefreshToken;
 import com.hungtv.toeic.be.models.Role;
 import com.hungtv.toeic.be.models.User;
 import com.hungtv.toeic.be.payload.request.LoginRequest;
@@ -31,7 +34,12 @@ import com.hungtv.toeic.be.repositories.PasswordResetTokenRepository;
 import com.hungtv.toeic.be.repositories.RoleRepository;
 import com.hungtv.toeic.be.repositories.UserRepository;
 import com.hungtv.toeic.be.security.jwt.JwtUtils;
+import com.hungtv.toeic.be.security.services.LoginRateLimiter;
+import com.hungtv.toeic.be.security.services.PrincipalCache;
 import com.hungtv.toeic.be.security.services.UserDetailsImpl;
+import com.hungtv.toeic.be.security.services.UsernameEmailBloomFilter;
+
+import io.jsonwebtoken.Claims;
 
 @Service
 public class AuthService {
@@ -56,13 +64,37 @@ public class AuthService {
     @Autowired
     private EmailService emailService;
     
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    
+    @Autowired
+    private UsernameEmailBloomFilter usernameEmailFilter;
+    
     @Value("${app.password-reset.expiration-minutes}")
     private int passwordResetExpirationMinutes;
     
-    // Thêm biến lưu trữ cookie JWT gần nhất
-    private ResponseCookie latestJwtCookie;
+    /**
+     * Kết quả đăng nhập hoặc làm mới token: nội dung trả về và các cookie cần đặt
+     */
+    public record AuthResult(JwtResponse body, List<ResponseCookie> cookies) {
+    }
     
-    public JwtResponse authenticateUser(LoginRequest loginRequest) {
+    /**
+     * Đăng nhập; giới hạn số lần thử theo IP và tên đăng nhập được kiểm tra trước khi băm mật khẩu
+     *
+     * @param loginRequest Thông tin đăng nhập
+     * @param clientIp Địa chỉ IP của client
+     * @return Thông tin người dùng, access token và các cookie
+     * @throws com.hungtv.toeic.be.exception.AuthThrottledException nếu vượt giới hạn hoặc hệ thống đang quá tải
+     */
+    public AuthResult authenticateUser(LoginRequest loginRequest, String clientIp) {
+        loginRateLimiter.acquire(clientIp, loginRequest.getUsername());
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
         );
@@ -71,38 +103,51 @@ public class AuthService {
         
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         
-        // Tạo và lưu cookie
-        this.latestJwtCookie = jwtUtils.generateJwtCookie(userDetails);
-        
+        // Mở họ refresh token mới cùng access token đầu tiên
+        RefreshTokenService.IssuedTokens tokens = refreshTokenService.issue(userDetails.getId(), userDetails.getUsername());
+        return buildAuthResult(userDetails, tokens);
+    }
+    
+    /**
+     * Đổi refresh token lấy cặp token mới
+     *
+     * @param refreshToken Refresh token từ cookie
+     * @return Thông tin người dùng, access token mới và các cookie mới
+     * @throws com.hungtv.toeic.be.exception.TokenRefreshException nếu refresh token không dùng được
+     */
+    public AuthResult refreshToken(String refreshToken) {
+        RefreshTokenService.IssuedTokens tokens = refreshTokenService.rotate(refreshToken);
+        return buildAuthResult(principalCache.get(tokens.username()), tokens);
+    }
+    
+    private AuthResult buildAuthResult(UserDetailsImpl userDetails, RefreshTokenService.IssuedTokens tokens) {
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(item -> item.getAuthority())
                 .collect(Collectors.toList());
         
-        return new JwtResponse( 
+        JwtResponse body = new JwtResponse( 
                 userDetails.getId(),
                 userDetails.getUsername(),
                 userDetails.getEmail(),
                 userDetails.getFullName(),
                 roles,
-                this.latestJwtCookie.getValue(),
+                tokens.accessToken(),
                 "Bearer"
         );
-    }
-    
-    // Phương thức lấy cookie JWT gần nhất
-    public ResponseCookie getJwtCookie() {
-        return this.latestJwtCookie;
+        return new AuthResult(body, List.of(
+                jwtUtils.generateJwtCookie(tokens.accessToken()),
+                jwtUtils.generateRefreshJwtCookie(tokens.refreshToken())));
     }
     
     @Transactional
     public MessageResponse registerUser(RegisterRequest registerRequest) {
-        // Kiểm tra username đã tồn tại
-        if (userRepository.existsByUsername(registerRequest.getUsername())) {
+        // Kiểm tra username đã tồn tại (bloom filter trước, chỉ hỏi database khi có thể trùng)
+        if (usernameEmailFilter.isUsernameTaken(registerRequest.getUsername())) {
             return new MessageResponse("Lỗi: Tên đăng nhập đã được sử dụng!", false);
         }
         
         // Kiểm tra email đã tồn tại
-        if (userRepository.existsByEmail(registerRequest.getEmail())) {
+        if (usernameEmailFilter.isEmailTaken(registerRequest.getEmail())) {
             return new MessageResponse("Lỗi: Email đã được sử dụng!", false);
         }
         
@@ -121,13 +166,39 @@ public class AuthService {
         roles.add(userRole);
         
         user.setRoles(roles);
-        userRepository.save(user);
+        usernameEmailFilter.addAfterCommit(user.getUsername(), user.getEmail());
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Trùng với người dùng filter của node này chưa biết (tạo hoặc đổi trên node khác)
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new MessageResponse("Lỗi: Tên đăng nhập hoặc email đã được sử dụng!", false);
+        }
         
         return new MessageResponse("Đăng ký tài khoản thành công!");
     }
     
-    public ResponseCookie logoutUser() {
-        return jwtUtils.getCleanJwtCookie();
+    /**
+     * Đăng xuất: thu hồi access token đang dùng và họ refresh token, rồi xóa cả hai cookie
+     *
+     * @param accessToken Access token từ cookie, có thể null
+     * @param refreshToken Refresh token từ cookie, có thể null
+     * @return Các cookie xóa token
+     */
+    public List<ResponseCookie> logoutUser(String accessToken, String refreshToken) {
+        Claims claims = accessToken != null ? jwtUtils.parseClaims(accessToken) : null;
+        refreshTokenService.logout(refreshToken,
+                claims != null ? claims.getId() : null,
+                claims != null ? claims.getExpiration() : null);
+        SecurityContextHolder.clearContext();
+        return getCleanCookies();
+    }
+    
+    /**
+     * Các cookie xóa access token và refresh token
+     */
+    public List<ResponseCookie> getCleanCookies() {
+        return List.of(jwtUtils.getCleanJwtCookie(), jwtUtils.getCleanJwtRefreshCookie());
     }
     
     public MessageResponse requestPasswordReset(String email) {
@@ -190,6 +261,8 @@ public class AuthService {
         // Cập nhật mật khẩu
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.invalidateAfterCommit(user.getId());
+        refreshTokenService.revokeAllForUser(user.getId(), RefreshToken.RevokeReason.PASSWORD_CHANGED);
         
         // Xóa token đã sử dụng
         passwordResetTokenRepository.delete(resetToken);
@@ -0,0 +1,327 @@
+package com.hungtv.toeic.be.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.cache.TestSnapshotCache;
+import com.hungtv.toeic.be.models.ExamSession;
+import com.hungtv.toeic.be.payload.request.SaveTestResultRequest;
+import com.hungtv.toeic.be.payload.response.ExamSessionResponse;
+import com.hungtv.toeic.be.payload.response.TestResultResponse;
+import com.hungtv.toeic.be.repositories.ExamSessionRepository;
+import com.hungtv.toeic.be.repositories.ExamSessionSheetWriter;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.scoring.AnswerKey;
+import com.hungtv.toeic.be.scoring.AnswerKeyCache;
+import com.hungtv.toeic.be.scoring.ScoreResult;
+import com.hungtv.toeic.be.scoring.ScoredAnswers;
+import com.hungtv.toeic.be.scoring.ScoringEngine;
+import com.hungtv.toeic.be.security.services.UserDetailsImpl;
+import com.hungtv.toeic.be.session.ExamDeadlineScheduler;
+import com.hungtv.toeic.be.session.ExamSessionStore;
+import com.hungtv.toeic.be.session.LiveExamSession;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Lượt làm bài thi trên server: bắt đầu, lưu từng câu trả lời, kết thúc và chấm điểm.
+ * Câu trả lời được giữ trong ExamSessionStore và lưu định kỳ theo lô; khi kết thúc, phiếu
+ * trả lời trong bộ nhớ được chấm điểm trực tiếp rồi nộp như một bài nộp bình thường.
+ */
+@Service
+public class ExamSessionService {
+    
+    // Tiền tố khóa idempotency của bài nộp sinh từ lượt làm bài (kết thúc lại không tạo thêm kết quả)
+    private static final String IDEMPOTENCY_PREFIX = "exam-session-";
+    
+    @Autowired
+    private ExamSessionRepository sessionRepository;
+    
+    @Autowired
+    private ExamSessionSheetWriter sheetWriter;
+    
+    @Autowired
+    private ExamSessionStore sessionStore;
+    
+    @Autowired
+    private TestRepository testRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TestSnapshotCache snapshotCache;
+    
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+    
+    @Autowired
+    private TestResultService testResultService;
+    
+    @Autowired
+    private ExamDeadlineScheduler deadlineScheduler;
+    
+    @PostConstruct
+    public void registerExpiryHandler() {
+        deadlineScheduler.setExpiryHandler(this::expireSession);
+    }
+    
+    /**
+     * Bắt đầu làm bài thi, hoặc tiếp tục lượt làm bài đang diễn ra của người dùng cho bài thi đó.
+     * Lượt làm bài cũ đã hết giờ được kết thúc (chấm điểm) trước khi bắt đầu lượt mới.
+     * 
+     * @param testId ID của bài thi
+     * @return ExamSessionResponse (kèm các câu trả lời đã lưu khi tiếp tục)
+     */
+    public ExamSessionResponse startSession(Long testId) {
+        long userId = getCurrentUserId();
+        Optional<ExamSession> existing = sessionRepository
+                .findFirstByUserIdAndTestIdAndStatusOrderByIdDesc(userId, testId, ExamSession.Status.IN_PROGRESS);
+        if (existing.isPresent()) {
+            LiveExamSession live = sessionStore.acquire(existing.get().getId());
+            if (live != null) {
+                if (!live.isExpired(LocalDateTime.now())) {
+                    return toResponse(live, true);
+                }
+                finalizeSession(live, ExamSession.Status.EXPIRED);
+            }
+        }
+        
+        // Ảnh chụp và đáp án lấy từ cache; user và test chỉ là tham chiếu khóa ngoại
+        TestSnapshot snapshot = snapshotCache.get(testId);
+        AnswerKey key = answerKeyCache.get(snapshot);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = snapshot.getDuration() != null ? now.plusMinutes(snapshot.getDuration()) : null;
+        
+        ExamSession session = new ExamSession(userRepository.getReferenceById(userId),
+                testRepository.getReferenceById(snapshot.getTestId()), key.getVersion(),
+                ExamSessionStore.encodeLayout(key), new byte[key.size()], now, expiresAt);
+        session = sessionRepository.save(session);
+        
+        LiveExamSession live = new LiveExamSession(session.getId(), userId, snapshot.getTestId(), key,
+                new byte[key.size()], now, expiresAt);
+        sessionStore.register(live);
+        return toResponse(live, false);
+    }
+    
+    /**
+     * Lấy lượt làm bài cùng các câu trả lời đã lưu
+     * 
+     * @param sessionId ID lượt làm bài
+     * @return ExamSessionResponse
+     */
+    public ExamSessionResponse getSession(Long sessionId) {
+        LiveExamSession live = sessionStore.acquire(sessionId);
+        if (live != null) {
+            checkAccess(live.getUserId());
+            return toResponse(live, true);
+        }
+        
+        // Lượt làm bài đã kết thúc: đọc phiếu trả lời đã lưu
+        ExamSession session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy lượt làm bài với ID: " + sessionId));
+        checkAccess(session.getUser().getId());
+        ExamSessionResponse response = new ExamSessionResponse(session.getId(), session.getTest().getId(),
+                session.getStatus().name(), session.getAnsweredCount(), session.getAnswerSheet().length,
+                session.getStartedAt(), session.getExpiresAt());
+        long[] layout = ExamSessionStore.decodeLayout(session.getQuestionLayout());
+        response.setAnswers(decodeAnswers(layout, session.getAnswerSheet()));
+        return response;
+    }
+    
+    /**
+     * Lưu các câu trả lời thay đổi của lượt làm bài (chỉ ghi vào bộ nhớ, được lưu xuống
+     * database ở lần lưu định kỳ tiếp theo)
+     * 
+     * @param sessionId ID lượt làm bài
+     * @param answers Các câu trả lời thay đổi (userAnswer null để xóa)
+     * @return ExamSessionResponse (không kèm câu trả lời)
+     * @throws IllegalArgumentException nếu câu hỏi không thuộc bài thi hoặc câu trả lời không hợp lệ
+     * @throws IllegalStateException nếu lượt làm bài đã kết thúc hoặc đã hết giờ
+     */
+    public ExamSessionResponse updateAnswers(Long sessionId, List<SaveTestResultRequest.UserAnswerRequest> answers) {
+        LiveExamSession live = requireOwnLiveSession(sessionId);
+        if (live.isExpired(LocalDateTime.now())) {
+            throw new IllegalStateException("Đã hết thời gian làm bài");
+        }
+        
+        // Kiểm tra toàn bộ trước khi ghi để request không được áp dụng một nửa
+        AnswerKey key = live.getKey();
+        int[] indexes = new int[answers.size()];
+        byte[] codes = new byte[answers.size()];
+        for (int i = 0; i < answers.size(); i++) {
+            SaveTestResultRequest.UserAnswerRequest answer = answers.get(i);
+            indexes[i] = answer.getQuestionId() != null ? key.indexOf(answer.getQuestionId()) : -1;
+            if (indexes[i] < 0) {
+                throw new IllegalArgumentException("Câu hỏi không thuộc bài thi: " + answer.getQuestionId());
+            }
+            codes[i] = AnswerKey.answerCode(answer.getUserAnswer());
+            if (codes[i] < 0) {
+                throw new IllegalArgumentException("Câu trả lời không hợp lệ: " + answer.getUserAnswer());
+            }
+        }
+        
+        int changes = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (live.setAnswer(indexes[i], codes[i])) {
+                changes++;
+            }
+        }
+        sessionStore.markDirty(live, changes);
+        return toResponse(live, false);
+    }
+    
+    /**
+     * Kết thúc lượt làm bài: chấm điểm phiếu trả lời trong bộ nhớ và nộp bài.
+     * Thời gian làm bài được tính trên server từ thời điểm bắt đầu.
+     * 
+     * @param sessionId ID lượt làm bài
+     * @return TestResultResponse (pending=true nếu bài nộp được ghi bất đồng bộ)
+     * @throws IllegalStateException nếu lượt làm bài đã kết thúc
+     * @throws SubmissionQueueFullException nếu hàng đợi ghi đã đầy (lượt làm bài được mở lại)
+     */
+    public TestResultResponse finalizeSession(Long sessionId) {
+        return finalizeSession(requireOwnLiveSession(sessionId), ExamSession.Status.FINALIZED);
+    }
+    
+    /**
+     * Tự động nộp bài khi lượt làm bài hết giờ (gọi từ ExamDeadlineScheduler, không có người
+     * dùng đăng nhập). Bỏ qua nếu lượt làm bài đã kết thúc.
+     * 
+     * @param sessionId ID lượt làm bài
+     */
+    public void expireSession(long sessionId) {
+        LiveExamSession live = sessionStore.acquire(sessionId);
+        if (live == null || live.isClosed()) {
+            return;
+        }
+        if (!live.isExpired(LocalDateTime.now())) {
+            deadlineScheduler.schedule(live.getId(), live.getExpiresAt());
+            return;
+        }
+        finalizeSession(live, ExamSession.Status.EXPIRED);
+    }
+    
+    private TestResultResponse finalizeSession(LiveExamSession live, ExamSession.Status status) {
+        byte[] sheet = sessionStore.close(live);
+        if (sheet == null) {
+            throw new IllegalStateException("Lượt làm bài đang được kết thúc");
+        }
+        
+        TestResultResponse result;
+        try {
+            result = testResultService.submitScoredAnswers(live.getUserId(), live.getTestId(),
+                    score(live.getKey(), sheet), elapsedMinutes(live), IDEMPOTENCY_PREFIX + live.getId());
+        } catch (RuntimeException e) {
+            sessionStore.reopen(live);
+            throw e;
+        }
+        
+        sheetWriter.complete(live.getId(), sheet, live.getAnsweredCount(), status.name(), LocalDateTime.now());
+        sessionStore.remove(live.getId());
+        return result;
+    }
+    
+    /**
+     * Chấm điểm phiếu trả lời theo vị trí và dồn các câu đã trả lời lên đầu mảng
+     */
+    private static ScoredAnswers score(AnswerKey key, byte[] sheet) {
+        boolean[] correct = new boolean[sheet.length];
+        ScoreResult score = ScoringEngine.scoreSheet(key, sheet, correct);
+        
+        long[] questionIds = new long[score.getTotalQuestions()];
+        String[] answers = new String[score.getTotalQuestions()];
+        int count = 0;
+        for (int index = 0; index < sheet.length; index++) {
+            if (sheet[index] != 0) {
+                questionIds[count] = key.questionIdAt(index);
+                answers[count] = AnswerKey.answerOf(sheet[index]);
+                correct[count] = correct[index];
+                count++;
+            }
+        }
+        return new ScoredAnswers(score, count, questionIds, answers, correct);
+    }
+    
+    /**
+     * Thời gian làm bài tính trên server, không vượt quá thời gian cho phép của bài thi
+     */
+    private static Integer elapsedMinutes(LiveExamSession live) {
+        LocalDateTime end = LocalDateTime.now();
+        if (live.getExpiresAt() != null && end.isAfter(live.getExpiresAt())) {
+            end = live.getExpiresAt();
+        }
+        long seconds = Duration.between(live.getStartedAt(), end).getSeconds();
+        return (int) Math.max(1, (seconds + 59) / 60);
+    }
+    
+    private LiveExamSession requireOwnLiveSession(Long sessionId) {
+        LiveExamSession live = sessionStore.acquire(sessionId);
+        if (live == null) {
+            if (sessionRepository.existsById(sessionId)) {
+                throw new IllegalStateException("Lượt làm bài đã kết thúc");
+            }
+            throw new RuntimeException("Không tìm thấy lượt làm bài với ID: " + sessionId);
+        }
+        // Bài nộp được ghi cho người dùng hiện tại nên chỉ chủ lượt làm bài được thay đổi
+        if (live.getUserId() != getCurrentUserId()) {
+            throw new RuntimeException("Không có quyền truy cập lượt làm bài này");
+        }
+        return live;
+    }
+    
+    private ExamSessionResponse toResponse(LiveExamSession live, boolean withAnswers) {
+        ExamSessionResponse response = new ExamSessionResponse(live.getId(), live.getTestId(),
+                live.isClosed() ? ExamSession.Status.FINALIZED.name() : ExamSession.Status.IN_PROGRESS.name(),
+                live.getAnsweredCount(), live.getKey().size(), live.getStartedAt(), live.getExpiresAt());
+        if (withAnswers) {
+            AnswerKey key = live.getKey();
+            long[] layout = new long[key.size()];
+            for (int i = 0; i < layout.length; i++) {
+                layout[i] = key.questionIdAt(i);
+            }
+            response.setAnswers(decodeAnswers(layout, live.copySheet()));
+        }
+        return response;
+    }
+    
+    private static Map<Long, String> decodeAnswers(long[] layout, byte[] sheet) {
+        Map<Long, String> answers = new LinkedHashMap<>();
+        for (int i = 0; i < layout.length && i < sheet.length; i++) {
+            if (sheet[i] != 0) {
+                answers.put(layout[i], AnswerKey.answerOf(sheet[i]));
+            }
+        }
+        return answers;
+    }
+    
+    private void checkAccess(long ownerId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        if (ownerId != getCurrentUserId() && !admin) {
+            throw new RuntimeException("Không có quyền truy cập lượt làm bài này");
+        }
+    }
+    
+    private long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return userDetails.getId();
+        }
+        return userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy thông tin người dùng hiện tại"))
+                .getId();
+    }
+}
@@ -0,0 +1,313 @@
+package com.hungtv.toeic.be.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.models.QuestionStats;
+import com.hungtv.toeic.be.payload.response.QuestionStatsResponse;
+import com.hungtv.toeic.be.repositories.QuestionStatsRepository;
+import com.hungtv.toeic.be.repositories.QuestionStatsWriter;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.TestResultScoreReader;
+import com.hungtv.toeic.be.scoring.AnswerSheetLayouts;
+import com.hungtv.toeic.be.statistics.ItemResponseChunk;
+import com.hungtv.toeic.be.statistics.ItemStatsAccumulator;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tính thống kê câu hỏi (độ khó, độ phân biệt) từ câu trả lời của các bài nộp đã chấm.
+ *
+ * Các bài nộp được đọc theo luồng bằng con trỏ chỉ đọc tiến (phiếu trả lời nén trong
+ * test_results, rồi các dòng user_answers của bài nộp chưa nén), chia thành từng lô và cộng dồn
+ * song song trên ForkJoinPool vào các bộ đếm kiểu nguyên thủy theo ID câu hỏi. Luồng đọc chỉ
+ * chờ khi số lô đang xử lý vượt quá giới hạn.
+ *
+ * Lần tính đầy đủ thay toàn bộ question_stats; lần tính tăng dần chỉ cộng các bài nộp có ID lớn
+ * hơn mốc của lần tính trước. Mốc chỉ tiến đến bài nộp cũ hơn settle-seconds để không bỏ sót
+ * bài nộp ghi muộn (ghi nền) mà có ID nhỏ hơn. Bài nộp bị xóa sau khi đã được cộng chỉ mất khỏi
+ * thống kê sau lần tính đầy đủ tiếp theo.
+ */
+@Service
+public class ItemAnalyticsService {
+    private static final Logger logger = LoggerFactory.getLogger(ItemAnalyticsService.class);
+
+    public static final String MODE_FULL = "FULL";
+    public static final String MODE_INCREMENTAL = "INCREMENTAL";
+
+    // Số phần tử mỗi lô: phiếu nén (mỗi phiếu ~200 câu trả lời) và dòng câu trả lời
+    private static final int SHEETS_PER_CHUNK = 512;
+    private static final int ROWS_PER_CHUNK = 65536;
+
+    @Autowired
+    private TestResultScoreReader reader;
+
+    @Autowired
+    private QuestionStatsWriter writer;
+
+    @Autowired
+    private QuestionStatsRepository statsRepository;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private AnswerSheetLayouts layouts;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Số luồng cộng dồn song song
+    @Value("${app.item-analytics.parallelism:4}")
+    private int parallelism;
+
+    // Chỉ tính các bài nộp cũ hơn khoảng này (giây)
+    @Value("${app.item-analytics.settle-seconds:600}")
+    private long settleSeconds;
+
+    private ForkJoinPool pool;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "item-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Số liệu của lần tính gần nhất
+    private final AtomicReference<String> mode = new AtomicReference<>();
+    private final AtomicLong fromResultId = new AtomicLong();
+    private final AtomicLong toResultId = new AtomicLong();
+    private final AtomicLong answerSheets = new AtomicLong();
+    private final AtomicLong answerRows = new AtomicLong();
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong questions = new AtomicLong();
+    private final AtomicReference<LocalDateTime> startedAt = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> finishedAt = new AtomicReference<>();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Bắt đầu tính thống kê câu hỏi trên luồng nền
+     *
+     * @param incremental true để chỉ cộng các bài nộp mới từ lần tính trước
+     * @return false nếu đang có lần tính khác chạy
+     */
+    public boolean start(boolean incremental) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        mode.set(incremental ? MODE_INCREMENTAL : MODE_FULL);
+        fromResultId.set(0);
+        toResultId.set(0);
+        answerSheets.set(0);
+        answerRows.set(0);
+        responses.set(0);
+        questions.set(0);
+        lastError.set(null);
+        finishedAt.set(null);
+        startedAt.set(LocalDateTime.now());
+        worker.execute(() -> run(incremental));
+        return true;
+    }
+
+    /**
+     * Tính tăng dần định kỳ (mặc định mỗi đêm)
+     */
+    @Scheduled(cron = "${app.item-analytics.cron:0 30 3 * * *}")
+    public void runIncremental() {
+        start(true);
+    }
+
+    /**
+     * Trạng thái của lần tính gần nhất
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("mode", mode.get());
+        status.put("parallelism", pool.getParallelism());
+        status.put("startedAt", startedAt.get());
+        status.put("finishedAt", finishedAt.get());
+        status.put("fromResultId", fromResultId.get());
+        status.put("toResultId", toResultId.get());
+        status.put("answerSheets", answerSheets.get());
+        status.put("answerRows", answerRows.get());
+        status.put("responses", responses.get());
+        status.put("questions", questions.get());
+        status.put("watermark", writer.findWatermark());
+        status.put("lastError", lastError.get());
+        return status;
+    }
+
+    /**
+     * Thống kê của các câu hỏi
+     *
+     * @param questionIds Danh sách ID câu hỏi
+     * @return Map ID câu hỏi -> thống kê (câu hỏi chưa có thống kê không có trong map)
+     */
+    public Map<Long, QuestionStatsResponse> findStats(Collection<Long> questionIds) {
+        Map<Long, QuestionStatsResponse> stats = new HashMap<>();
+        if (questionIds.isEmpty()) {
+            return stats;
+        }
+        for (QuestionStats row : statsRepository.findAllById(questionIds)) {
+            stats.put(row.getQuestionId(), new QuestionStatsResponse(row));
+        }
+        return stats;
+    }
+
+    /**
+     * Các câu hỏi có độ phân biệt thấp nhất, thường là câu hỏi lỗi hoặc sai đáp án
+     *
+     * @param minResponses Số câu trả lời tối thiểu
+     * @param threshold Chỉ lấy câu hỏi có độ phân biệt nhỏ hơn giá trị này
+     * @param limit Số câu hỏi tối đa
+     * @return Danh sách theo độ phân biệt tăng dần
+     */
+    public List<QuestionStatsResponse> findLowDiscrimination(long minResponses, double threshold, int limit) {
+        return statsRepository.findLowDiscrimination(minResponses, threshold, PageRequest.ofSize(limit)).stream()
+                .map(QuestionStatsResponse::new)
+                .toList();
+    }
+
+    private void run(boolean incremental) {
+        try {
+            long watermark = writer.findWatermark();
+            long from = incremental ? watermark : 0;
+            Long settled = testResultRepository.findMaxIdCreatedBefore(LocalDateTime.now().minusSeconds(settleSeconds));
+            // Mốc không bao giờ lùi (settle-seconds có thể đã được tăng giữa hai lần tính)
+            long to = Math.max(settled != null ? settled : 0, watermark);
+            fromResultId.set(from);
+            toResultId.set(to);
+            if (incremental && to <= from) {
+                logger.info("Thống kê câu hỏi đã cập nhật đến kết quả {}, không có bài nộp mới", from);
+                return;
+            }
+
+            ItemStatsAccumulator totals = aggregate(from, to);
+            questions.set(totals.size());
+            requiresNew().executeWithoutResult(status -> {
+                // Một node khác đã ghi trong lúc đang tính: bỏ kết quả để không cộng trùng
+                if (writer.lockWatermark() != watermark) {
+                    throw new RuntimeException("Thống kê câu hỏi đã được cập nhật bởi một lần tính khác");
+                }
+                if (incremental) {
+                    writer.addAll(totals);
+                } else {
+                    writer.replaceAll(totals);
+                }
+                writer.insertRun(mode.get(), from, to, answerSheets.get(), answerRows.get(),
+                        responses.get(), startedAt.get());
+            });
+            logger.info("Đã tính thống kê {} câu hỏi ({}) từ {} phiếu nén và {} dòng câu trả lời, kết quả ({}, {}]",
+                    totals.size(), mode.get(), answerSheets.get(), answerRows.get(), from, to);
+        } catch (RuntimeException e) {
+            lastError.set(e.getMessage());
+            logger.error("Lỗi khi tính thống kê câu hỏi: {}", e.getMessage(), e);
+        } finally {
+            finishedAt.set(LocalDateTime.now());
+            running.set(false);
+        }
+    }
+
+    /**
+     * Đọc các câu trả lời của bài nộp có ID trong (from, to] và cộng dồn song song
+     */
+    private ItemStatsAccumulator aggregate(long from, long to) {
+        ItemStatsAccumulator totals = new ItemStatsAccumulator(1024);
+        ArrayDeque<ForkJoinTask<ItemStatsAccumulator>> inFlight = new ArrayDeque<>();
+        int maxInFlight = pool.getParallelism() * 2;
+
+        ItemResponseChunk[] chunk = { ItemResponseChunk.ofSheets(SHEETS_PER_CHUNK) };
+        reader.forEachAnswerSheet(from, to, rs -> {
+            chunk[0].addSheet(rs.getInt(1), layouts.get(rs.getLong(2)), rs.getBytes(3), rs.getBytes(4));
+            answerSheets.incrementAndGet();
+            if (chunk[0].isFull()) {
+                submit(chunk[0], inFlight, maxInFlight, totals);
+                chunk[0] = ItemResponseChunk.ofSheets(SHEETS_PER_CHUNK);
+            }
+        });
+        submit(chunk[0], inFlight, maxInFlight, totals);
+
+        chunk[0] = ItemResponseChunk.ofRows(ROWS_PER_CHUNK);
+        reader.forEachAnswerRow(from, to, rs -> {
+            chunk[0].addRow(rs.getInt(1), rs.getLong(2), rs.getBoolean(3));
+            answerRows.incrementAndGet();
+            if (chunk[0].isFull()) {
+                submit(chunk[0], inFlight, maxInFlight, totals);
+                chunk[0] = ItemResponseChunk.ofRows(ROWS_PER_CHUNK);
+            }
+        });
+        submit(chunk[0], inFlight, maxInFlight, totals);
+
+        while (!inFlight.isEmpty()) {
+            merge(totals, inFlight.poll().join());
+        }
+        return totals;
+    }
+
+    /**
+     * Giao lô cho ForkJoinPool; gộp các lô xong trước khi số lô đang xử lý vượt quá giới hạn
+     */
+    private void submit(ItemResponseChunk chunk, ArrayDeque<ForkJoinTask<ItemStatsAccumulator>> inFlight,
+                        int maxInFlight, ItemStatsAccumulator totals) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException("Lần tính thống kê câu hỏi bị dừng");
+        }
+        if (chunk.isEmpty()) {
+            return;
+        }
+        inFlight.add(pool.submit(chunk.task()));
+        while (inFlight.size() > maxInFlight) {
+            merge(totals, inFlight.poll().join());
+        }
+    }
+
+    private void merge(ItemStatsAccumulator totals, ItemStatsAccumulator partial) {
+        totals.merge(partial);
+        responses.addAndGet(partial.totalResponses());
+    }
+
+    private TransactionTemplate requiresNew() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -0,0 +1,255 @@
+package com.hungtv.toeic.be.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.hungtv.toeic.be.exception.TokenRefreshException;
+import com.hungtv.toeic.be.models.RefreshToken;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.repositories.RefreshTokenRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.security.jwt.JwtUtils;
+import com.hungtv.toeic.be.security.jwt.TokenRevocationList;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+/**
+ * Cấp và xoay vòng refresh token.
+ *
+ * Mỗi lần đăng nhập mở một họ token mới; mỗi lần làm mới, token được trình ra bị đánh dấu ROTATED
+ * và một cặp access token/refresh token mới được cấp trong cùng họ. Trình lại một token đã ROTATED
+ * là dấu hiệu token bị lộ: cả họ bị thu hồi, kể cả các access token còn hạn của họ đó. Ngoại lệ là
+ * trong vài giây sau khi xoay vòng (app.jwt.refresh-reuse-grace-ms): hai tab hoặc hai request làm
+ * mới song song gửi cùng một cookie, request đến sau chỉ bị từ chối mà không thu hồi họ.
+ *
+ * Database chỉ lưu SHA-256 của refresh token. Access token bị thu hồi được đưa vào
+ * TokenRevocationList nên việc kiểm tra ở mỗi request không đọc database.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    // Thời gian sau khi xoay vòng mà token cũ được trình lại không bị coi là dùng lại
+    @Value("${app.jwt.refresh-reuse-grace-ms:10000}")
+    private long reuseGraceMs;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder issued = counters.register("issued");
+    private final LongAdder rotated = counters.register("rotated");
+    private final LongAdder rejected = counters.register("rejected");
+    private final LongAdder concurrentRefreshes = counters.register("concurrentRefreshes");
+    private final LongAdder reuseDetected = counters.register("reuseDetected");
+    private final LongAdder familiesRevoked = counters.register("familiesRevoked");
+
+    /**
+     * Cặp token vừa cấp
+     */
+    public record IssuedTokens(String username, String accessToken, String refreshToken) {
+    }
+
+    /**
+     * Cấp cặp token đầu tiên của một họ mới (khi đăng nhập)
+     *
+     * @param userId ID người dùng
+     * @param username Tên đăng nhập
+     * @return Cặp token
+     */
+    @Transactional
+    public IssuedTokens issue(Long userId, String username) {
+        return issue(userRepository.getReferenceById(userId), username, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Đổi refresh token lấy cặp token mới. Token được trình ra bị đánh dấu ROTATED; trình lại token
+     * đã ROTATED sau thời gian ân hạn thì cả họ bị thu hồi (việc thu hồi vẫn được commit dù phương
+     * thức ném lỗi)
+     *
+     * @param rawToken Refresh token từ cookie
+     * @return Cặp token mới
+     * @throws TokenRefreshException nếu token không dùng được (isConcurrent nếu token vừa được xoay
+     *         vòng bởi một request khác trong thời gian ân hạn)
+     */
+    @Transactional(noRollbackFor = TokenRefreshException.class)
+    public IssuedTokens rotate(String rawToken) {
+        if (rawToken == null || rawToken.isEmpty()) {
+            rejected.increment();
+            throw new TokenRefreshException("Không tìm thấy refresh token");
+        }
+        RefreshToken current = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken)).orElse(null);
+        if (current == null) {
+            rejected.increment();
+            throw new TokenRefreshException("Refresh token không hợp lệ");
+        }
+        if (current.getRevokeReason() == RefreshToken.RevokeReason.ROTATED
+                && current.getRevokedAt().plus(reuseGraceMs, ChronoUnit.MILLIS).isAfter(LocalDateTime.now())) {
+            concurrentRefreshes.increment();
+            throw new TokenRefreshException("Refresh token vừa được làm mới bởi một request khác", true);
+        }
+        if (current.getRevokeReason() == RefreshToken.RevokeReason.ROTATED) {
+            reuseDetected.increment();
+            logger.warn("Refresh token đã xoay vòng bị dùng lại, thu hồi họ {} của người dùng {}",
+                    current.getFamilyId(), current.getUser().getId());
+            revokeFamily(current.getFamilyId(), RefreshToken.RevokeReason.REUSED);
+            throw new TokenRefreshException("Refresh token đã được sử dụng, vui lòng đăng nhập lại");
+        }
+        if (current.isRevoked() || current.isExpired()) {
+            rejected.increment();
+            throw new TokenRefreshException("Refresh token đã hết hạn hoặc bị thu hồi, vui lòng đăng nhập lại");
+        }
+
+        current.revoke(RefreshToken.RevokeReason.ROTATED);
+        rotated.increment();
+        User user = current.getUser();
+        return issue(user, user.getUsername(), current.getFamilyId());
+    }
+
+    /**
+     * Đăng xuất: thu hồi họ của refresh token (nếu có) và access token đang dùng
+     *
+     * @param rawRefreshToken Refresh token từ cookie, có thể null
+     * @param accessTokenId jti của access token đang dùng, có thể null
+     * @param accessExpiresAt Thời điểm access token hết hạn
+     */
+    @Transactional
+    public void logout(String rawRefreshToken, String accessTokenId, Date accessExpiresAt) {
+        if (rawRefreshToken != null && !rawRefreshToken.isEmpty()) {
+            refreshTokenRepository.findByTokenHash(hash(rawRefreshToken))
+                    .ifPresent(token -> revokeFamily(token.getFamilyId(), RefreshToken.RevokeReason.LOGOUT));
+        }
+        if (accessTokenId != null && accessExpiresAt != null) {
+            revocationList.revokeAfterCommit(accessTokenId,
+                    LocalDateTime.ofInstant(accessExpiresAt.toInstant(), ZoneId.systemDefault()));
+        }
+    }
+
+    /**
+     * Thu hồi mọi refresh token và access token còn hạn của người dùng (đổi/đặt lại mật khẩu).
+     * Phải chạy trong transaction của thay đổi đó
+     *
+     * @param userId ID người dùng
+     * @param reason Lý do thu hồi
+     */
+    public void revokeAllForUser(Long userId, RefreshToken.RevokeReason reason) {
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.revokeAllByUserId(userId, reason, now);
+        revokeAccessTokens(refreshTokenRepository.findLiveAccessTokensByUserId(userId, now));
+    }
+
+    /**
+     * Thu hồi các access token còn hạn và xóa mọi refresh token của người dùng (trước khi xóa
+     * người dùng). Phải chạy trong transaction của thay đổi đó
+     *
+     * @param userId ID người dùng
+     */
+    public void deleteAllForUser(Long userId) {
+        revokeAccessTokens(refreshTokenRepository.findLiveAccessTokensByUserId(userId, LocalDateTime.now()));
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Xóa các refresh token đã hết hạn; họ của chúng không còn token nào dùng được nên không cần
+     * giữ lại để phát hiện dùng lại
+     */
+    @Scheduled(cron = "${app.jwt.refresh-cleanup-cron:0 45 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Đã xóa {} refresh token hết hạn", deleted);
+        }
+    }
+
+    /**
+     * Thống kê cấp và xoay vòng token
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        counters.putInto(stats);
+        stats.put("revocationList", revocationList.getStats());
+        return stats;
+    }
+
+    private IssuedTokens issue(User user, String username, String familyId) {
+        LocalDateTime now = LocalDateTime.now();
+        String accessTokenId = UUID.randomUUID().toString();
+        LocalDateTime accessExpiresAt = now.plus(jwtUtils.getJwtExpirationMs(), ChronoUnit.MILLIS);
+        String accessToken = jwtUtils.generateAccessToken(username, accessTokenId,
+                Date.from(accessExpiresAt.atZone(ZoneId.systemDefault()).toInstant()));
+
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken row = new RefreshToken();
+        row.setUser(user);
+        row.setTokenHash(hash(refreshToken));
+        row.setFamilyId(familyId);
+        row.setAccessTokenId(accessTokenId);
+        row.setAccessExpiresAt(accessExpiresAt);
+        row.setExpiresAt(now.plus(jwtUtils.getJwtRefreshExpirationMs(), ChronoUnit.MILLIS));
+        row.setCreatedAt(now);
+        refreshTokenRepository.save(row);
+        issued.increment();
+        return new IssuedTokens(username, accessToken, refreshToken);
+    }
+
+    private void revokeFamily(String familyId, RefreshToken.RevokeReason reason) {
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.revokeFamily(familyId, reason, now);
+        revokeAccessTokens(refreshTokenRepository.findLiveAccessTokensByFamilyId(familyId, now));
+        familiesRevoked.increment();
+    }
+
+    private void revokeAccessTokens(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            revocationList.revokeAfterCommit((String) row[0], (LocalDateTime) row[1]);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,609 @@
+package com.hungtv.toeic.be.services;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.repositories.TestResultBatchWriter;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+import com.hungtv.toeic.be.repositories.UserAnswerBatchWriter;
+import com.hungtv.toeic.be.repositories.UserAnswerRepository;
+import com.hungtv.toeic.be.scoring.AnswerKey;
+import com.hungtv.toeic.be.scoring.AnswerKeyCache;
+import com.hungtv.toeic.be.scoring.AnswerSheetLayouts;
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+import com.hungtv.toeic.be.scoring.ScoreResult;
+import com.hungtv.toeic.be.scoring.ScoringEngine;
+import com.hungtv.toeic.be.scoring.SheetLayout;
+import com.hungtv.toeic.be.statistics.LeaderboardStore;
+import com.hungtv.toeic.be.statistics.ScoreDistributionStore;
+import com.hungtv.toeic.be.support.TransactionCallbacks;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Chấm lại các bài nộp cũ khi đáp án của câu hỏi thay đổi.
+ *
+ * Các yêu cầu (ID câu hỏi) được gộp lại và xử lý tuần tự trên một luồng nền. Mỗi lần chạy tìm
+ * các bài nộp bị ảnh hưởng chỉ bằng index (test_results theo sheet_layout_id với phiếu nén,
+ * user_answers theo (question_id, test_result_id) với câu trả lời dạng dòng), chia thành các lô
+ * chấm lại song song bằng ScoringEngine: chỉ câu trả lời cho các câu hỏi được yêu cầu được so lại
+ * với đáp án hiện hành, các câu khác (kể cả câu hỏi đã rời bài thi) giữ kết quả đúng/sai đã lưu.
+ * Các bài có kết quả đúng/sai thay đổi được ghi bằng JDBC batch, mỗi lô một transaction ngắn.
+ *
+ * Tốc độ được giới hạn (số bài nộp mỗi giây, chỉnh được khi đang chạy) và tạm dừng khi pool kết
+ * nối có luồng đang chờ, để không chiếm kết nối của các bài nộp trực tuyến. Sau khi chấm lại,
+ * thống kê người dùng, phân bố điểm và bảng xếp hạng của các bài bị đổi được tính lại; thống
+ * kê câu hỏi (question_stats) cần một lần tính đầy đủ.
+ */
+@Service
+public class RescoringService {
+    private static final Logger logger = LoggerFactory.getLogger(RescoringService.class);
+
+    // Số ID đọc mỗi trang khi tìm bài nộp bị ảnh hưởng
+    private static final int ID_PAGE_SIZE = 5000;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+
+    @Autowired
+    private ToeicQuestionRepository toeicQuestionRepository;
+
+    @Autowired
+    private TestResultBatchWriter resultWriter;
+
+    @Autowired
+    private UserAnswerBatchWriter answerWriter;
+
+    @Autowired
+    private AnswerSheetLayouts layouts;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private ScoreDistributionStore scoreDistributions;
+
+    @Autowired
+    private LeaderboardStore leaderboards;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Số luồng chấm lại song song và số bài nộp mỗi lô
+    @Value("${app.rescoring.threads:2}")
+    private int threads;
+
+    @Value("${app.rescoring.chunk-size:200}")
+    private int chunkSize;
+
+    // Số bài nộp tối đa mỗi giây (0 = không giới hạn) và thời gian chờ khi pool kết nối bận (ms)
+    @Value("${app.rescoring.max-results-per-second:500}")
+    private double configuredMaxResultsPerSecond;
+
+    @Value("${app.rescoring.backoff-ms:200}")
+    private long backoffMs;
+
+    private volatile double maxResultsPerSecond;
+    private HikariDataSource hikariDataSource;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rescoring");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Long> pendingQuestions = new TreeSet<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Thời điểm (System.nanoTime) lô tiếp theo được phép bắt đầu
+    private final AtomicLong nextSlotNanos = new AtomicLong(System.nanoTime());
+
+    // Số liệu của lần chạy gần nhất
+    private final AtomicReference<List<Long>> questionIds = new AtomicReference<>(List.of());
+    private final AtomicLong affected = new AtomicLong();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder changedResults = new LongAdder();
+    private final LongAdder changedAnswers = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failedChunks = new LongAdder();
+    private final LongAdder backoffs = new LongAdder();
+    private final AtomicReference<LocalDateTime> startedAt = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> finishedAt = new AtomicReference<>();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+    private final LongAdder runs = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        maxResultsPerSecond = Math.max(0, configuredMaxResultsPerSecond);
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            logger.warn("Không đọc được trạng thái pool kết nối, chấm lại chỉ giới hạn theo tốc độ: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Yêu cầu chấm lại các bài nộp của câu hỏi sau khi transaction hiện tại commit (ngay lập tức
+     * nếu không có transaction), để đáp án mới đã có trong database và cache
+     *
+     * @param questionIds ID câu hỏi đã đổi đáp án
+     */
+    public void requestAfterCommit(Collection<Long> questionIds) {
+        TransactionCallbacks.afterCommit(() -> request(questionIds));
+    }
+
+    /**
+     * Yêu cầu chấm lại các bài nộp của câu hỏi; các yêu cầu đến trong lúc đang chạy được gộp vào lần chạy sau
+     *
+     * @param questionIds ID câu hỏi
+     */
+    public void request(Collection<Long> questionIds) {
+        synchronized (pendingQuestions) {
+            pendingQuestions.addAll(questionIds);
+        }
+        if (running.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+    }
+
+    /**
+     * Đổi giới hạn tốc độ, có hiệu lực với lô tiếp theo
+     *
+     * @param resultsPerSecond Số bài nộp tối đa mỗi giây, 0 = không giới hạn
+     */
+    public void setMaxResultsPerSecond(double resultsPerSecond) {
+        maxResultsPerSecond = Math.max(0, resultsPerSecond);
+    }
+
+    /**
+     * Trạng thái của lần chấm lại gần nhất
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStatus() {
+        long total = affected.get();
+        long done = processed.sum();
+        LocalDateTime start = startedAt.get();
+        LocalDateTime end = finishedAt.get();
+        double seconds = start == null ? 0
+                : Duration.between(start, end != null ? end : LocalDateTime.now()).toMillis() / 1000.0;
+        Map<String, Object> status = new LinkedHashMap<>();
+        synchronized (pendingQuestions) {
+            status.put("running", running.get());
+            status.put("pendingQuestions", new ArrayList<>(pendingQuestions));
+        }
+        status.put("questionIds", questionIds.get());
+        status.put("threads", threads);
+        status.put("maxResultsPerSecond", maxResultsPerSecond);
+        status.put("startedAt", start);
+        status.put("finishedAt", end);
+        status.put("affectedResults", total);
+        status.put("processedResults", done);
+        status.put("percent", total > 0 ? Math.min(100.0, done * 100.0 / total) : (end != null ? 100.0 : 0.0));
+        status.put("resultsPerSecond", seconds > 0 ? done / seconds : 0.0);
+        status.put("changedResults", changedResults.sum());
+        status.put("changedAnswers", changedAnswers.sum());
+        status.put("skippedResults", skipped.sum());
+        status.put("failedChunks", failedChunks.sum());
+        status.put("backoffs", backoffs.sum());
+        status.put("runs", runs.sum());
+        status.put("lastError", lastError.get());
+        return status;
+    }
+
+    private void drain() {
+        while (true) {
+            List<Long> batch;
+            synchronized (pendingQuestions) {
+                if (pendingQuestions.isEmpty()) {
+                    running.set(false);
+                    return;
+                }
+                batch = new ArrayList<>(pendingQuestions);
+                pendingQuestions.clear();
+                reset(batch);
+            }
+            run(batch);
+        }
+    }
+
+    private void reset(List<Long> batch) {
+        questionIds.set(List.copyOf(batch));
+        affected.set(0);
+        processed.reset();
+        changedResults.reset();
+        changedAnswers.reset();
+        skipped.reset();
+        failedChunks.reset();
+        backoffs.reset();
+        lastError.set(null);
+        finishedAt.set(null);
+        startedAt.set(LocalDateTime.now());
+        runs.increment();
+    }
+
+    private void run(List<Long> batch) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "rescoring-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long[] ids = findAffectedResultIds(batch);
+            affected.set(ids.length);
+
+            // Các luồng lần lượt nhận lô tiếp theo; mỗi lô chờ đến lượt theo giới hạn tốc độ
+            Set<Long> requested = Set.copyOf(batch);
+            Set<Long> changedUsers = ConcurrentHashMap.newKeySet();
+            Set<Long> changedTests = ConcurrentHashMap.newKeySet();
+            AtomicInteger next = new AtomicInteger();
+            int size = Math.max(1, chunkSize);
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, threads); i++) {
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    int from;
+                    while ((from = next.getAndAdd(size)) < ids.length && !Thread.currentThread().isInterrupted()) {
+                        int to = Math.min(ids.length, from + size);
+                        if (!acquire(to - from)) {
+                            return;
+                        }
+                        rescoreQuietly(Arrays.copyOfRange(ids, from, to), requested, changedUsers, changedTests);
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+
+            refreshDerived(changedUsers, changedTests);
+            logger.info("Đã chấm lại {} bài nộp của câu hỏi {} ({} bài đổi điểm, {} lô lỗi); "
+                    + "cần tính lại đầy đủ thống kê câu hỏi", processed.sum(), batch, changedResults.sum(),
+                    failedChunks.sum());
+        } catch (RuntimeException e) {
+            lastError.set(e.getMessage());
+            logger.error("Lỗi khi chấm lại bài nộp của câu hỏi {}: {}", batch, e.getMessage(), e);
+        } finally {
+            pool.shutdownNow();
+            finishedAt.set(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * ID (tăng dần, không trùng) của các bài nộp có câu trả lời cho một trong các câu hỏi
+     */
+    private long[] findAffectedResultIds(List<Long> batch) {
+        Set<Long> ids = new HashSet<>();
+        for (Long layoutId : layouts.findLayoutIdsContaining(batch)) {
+            collect(afterId -> testResultRepository.findIdsBySheetLayoutAfter(layoutId, afterId,
+                    PageRequest.ofSize(ID_PAGE_SIZE)), ids);
+        }
+        for (Long questionId : batch) {
+            collect(afterId -> userAnswerRepository.findTestResultIdsByQuestionAfter(questionId, afterId,
+                    PageRequest.ofSize(ID_PAGE_SIZE)), ids);
+        }
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static void collect(LongFunction<List<Long>> page, Set<Long> ids) {
+        long afterId = 0;
+        while (true) {
+            List<Long> found = page.apply(afterId);
+            if (found.isEmpty()) {
+                return;
+            }
+            ids.addAll(found);
+            afterId = found.get(found.size() - 1);
+        }
+    }
+
+    /**
+     * Chờ đến lượt của một lô theo giới hạn tốc độ, và chờ trong lúc pool kết nối có luồng đang đợi
+     *
+     * @return false nếu luồng bị ngắt
+     */
+    private boolean acquire(int results) {
+        try {
+            while (connectionsContended()) {
+                backoffs.increment();
+                Thread.sleep(backoffMs);
+            }
+            double rate = maxResultsPerSecond;
+            if (rate <= 0) {
+                return true;
+            }
+            long cost = (long) (results * 1_000_000_000L / rate);
+            long now = System.nanoTime();
+            long previous = nextSlotNanos.getAndAccumulate(cost, (slot, delta) -> Math.max(slot, now) + delta);
+            long wait = Math.max(previous, now) - now;
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean connectionsContended() {
+        // Pool chỉ có sau khi kết nối đầu tiên được mở
+        HikariPoolMXBean pool = hikariDataSource != null ? hikariDataSource.getHikariPoolMXBean() : null;
+        return pool != null && pool.getThreadsAwaitingConnection() > 0;
+    }
+
+    private void rescoreQuietly(long[] ids, Set<Long> requested, Set<Long> changedUsers, Set<Long> changedTests) {
+        try {
+            rescore(ids, requested, changedUsers, changedTests);
+        } catch (RuntimeException e) {
+            failedChunks.increment();
+            lastError.set(e.getMessage());
+            logger.warn("Không thể chấm lại lô bài nộp {}..{}: {}", ids[0], ids[ids.length - 1], e.getMessage());
+        } finally {
+            processed.add(ids.length);
+        }
+    }
+
+    private void rescore(long[] ids, Set<Long> requested, Set<Long> changedUsers, Set<Long> changedTests) {
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        Map<Long, Attempt> attempts = new LinkedHashMap<>();
+        List<Long> rowIds = new ArrayList<>();
+        resultWriter.forEachAnswerSheet(idList, rs -> {
+            Attempt attempt = new Attempt(rs.getLong(2), rs.getLong(3));
+            long layoutId = rs.getLong(4);
+            boolean packed = !rs.wasNull();
+            byte[] sheet = rs.getBytes(5);
+            if (packed && sheet != null) {
+                attempt.layoutId = layoutId;
+                attempt.sheet = sheet;
+                attempt.correctBits = rs.getBytes(6);
+            } else {
+                rowIds.add(rs.getLong(1));
+            }
+            attempts.put(rs.getLong(1), attempt);
+        });
+        answerWriter.forEachRow(rowIds, rs -> {
+            Boolean correct = (Boolean) rs.getObject(4, Boolean.class);
+            attempts.get(rs.getLong(1)).add(rs.getLong(2), rs.getString(3), Boolean.TRUE.equals(correct));
+        });
+
+        // Câu hỏi đã rời bài thi vẫn được tính vào phần thi cũ của nó (theo nhóm/category hiện tại)
+        Map<Long, AnswerKey> keys = new HashMap<>();
+        Set<Long> removedQuestions = new HashSet<>();
+        for (Iterator<Attempt> it = attempts.values().iterator(); it.hasNext();) {
+            Attempt attempt = it.next();
+            AnswerKey key;
+            try {
+                key = keys.computeIfAbsent(attempt.testId, answerKeyCache::get);
+            } catch (RuntimeException e) {
+                // Bài thi đã bị xóa: không còn đáp án để chấm lại
+                skipped.increment();
+                it.remove();
+                continue;
+            }
+            if (attempt.sheet != null) {
+                attempt.unpack(layouts.get(attempt.layoutId));
+            }
+            for (int i = 0; i < attempt.count; i++) {
+                if (key.indexOf(attempt.questionIds[i]) < 0) {
+                    removedQuestions.add(attempt.questionIds[i]);
+                }
+            }
+        }
+        Map<Long, Integer> removedFlags = new HashMap<>();
+        if (!removedQuestions.isEmpty()) {
+            for (Object[] row : toeicQuestionRepository.findSectionsByIds(removedQuestions)) {
+                removedFlags.put((Long) row[0], AnswerKey.flagsOf((QuestionGroup.QuestionType) row[1],
+                        (ToeicQuestion.QuestionCategory) row[2]));
+            }
+        }
+
+        List<TestResultBatchWriter.Rescore> rescores = new ArrayList<>();
+        int rowCount = 0;
+        for (Attempt attempt : attempts.values()) {
+            rowCount += attempt.sheet == null ? attempt.count : 0;
+        }
+        long[] rowResultIds = new long[rowCount];
+        long[] rowQuestionIds = new long[rowCount];
+        boolean[] rowCorrect = new boolean[rowCount];
+        int changedRows = 0;
+
+        for (Map.Entry<Long, Attempt> entry : attempts.entrySet()) {
+            Attempt attempt = entry.getValue();
+            AnswerKey key = keys.get(attempt.testId);
+            // Chỉ so lại câu hỏi được yêu cầu; phiếu nén chưa có bitset đúng/sai thì phải chấm lại toàn bộ
+            boolean known = attempt.sheet == null || attempt.correctBits != null;
+            boolean[] correct = new boolean[attempt.count];
+            ScoreResult score = ScoringEngine.rescore(key, attempt.questionIds, attempt.answers, attempt.correct,
+                    attempt.count, questionId -> !known || requested.contains(questionId),
+                    questionId -> removedFlags.getOrDefault(questionId, -1), correct);
+
+            // Chỉ ghi bài có câu trả lời đổi đúng/sai; điểm của các bài khác giữ nguyên
+            byte[] bits = null;
+            boolean flipped = false;
+            if (attempt.sheet != null) {
+                bits = new byte[attempt.correctBits != null ? attempt.correctBits.length : (attempt.layoutSize + 7) / 8];
+                for (int i = 0; i < attempt.count; i++) {
+                    if (correct[i]) {
+                        bits[attempt.positions[i] >>> 3] |= (byte) (1 << (attempt.positions[i] & 7));
+                    }
+                }
+                flipped = attempt.correctBits == null || !Arrays.equals(bits, attempt.correctBits);
+            } else {
+                for (int i = 0; i < attempt.count; i++) {
+                    if (correct[i] != attempt.correct[i]) {
+                        rowResultIds[changedRows] = entry.getKey();
+                        rowQuestionIds[changedRows] = attempt.questionIds[i];
+                        rowCorrect[changedRows] = correct[i];
+                        changedRows++;
+                        flipped = true;
+                    }
+                }
+            }
+            if (!flipped) {
+                continue;
+            }
+            int[] scores = {
+                    score.getScore(ScoringEngine.LISTENING),
+                    score.getScore(ScoringEngine.READING),
+                    score.getScore(ScoringEngine.GRAMMAR),
+                    score.getScore(ScoringEngine.VOCABULARY),
+                    score.getTotalScore(),
+                    score.getListeningScaledScore(),
+                    score.getReadingScaledScore(),
+                    score.getCorrectAnswers(),
+                    score.getTotalQuestions()
+            };
+            rescores.add(new TestResultBatchWriter.Rescore(entry.getKey(), scores, bits));
+            changedUsers.add(attempt.userId);
+            changedTests.add(attempt.testId);
+        }
+
+        if (rescores.isEmpty()) {
+            return;
+        }
+        int rows = changedRows;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            resultWriter.updateScores(rescores);
+            answerWriter.updateCorrect(rowResultIds, rowQuestionIds, rowCorrect, rows);
+        });
+        changedResults.add(rescores.size());
+        changedAnswers.add(rows);
+    }
+
+    /**
+     * Tính lại các số liệu dẫn xuất từ điểm đã lưu của người dùng và bài thi có bài nộp đổi điểm
+     */
+    private void refreshDerived(Set<Long> changedUsers, Set<Long> changedTests) {
+        for (Long userId : changedUsers) {
+            if (!acquire(0)) {
+                return;
+            }
+            try {
+                userStatisticsService.rebuild(userId);
+            } catch (RuntimeException e) {
+                lastError.set(e.getMessage());
+                logger.warn("Không thể tính lại thống kê của người dùng {}: {}", userId, e.getMessage());
+            }
+        }
+        for (Long testId : changedTests) {
+            try {
+                scoreDistributions.rebuild(testId);
+            } catch (RuntimeException e) {
+                lastError.set(e.getMessage());
+                logger.warn("Không thể tính lại phân bố điểm của bài thi {}: {}", testId, e.getMessage());
+            }
+            leaderboards.invalidate(testId);
+        }
+    }
+
+    /**
+     * Câu trả lời đã lưu của một bài nộp: phiếu nén (được giải nén theo layout) hoặc các dòng user_answers
+     */
+    private static final class Attempt {
+        private final long testId;
+        private final long userId;
+        private long layoutId;
+        private byte[] sheet;
+        private byte[] correctBits;
+        private int layoutSize;
+        private int[] positions;
+        private long[] questionIds = new long[16];
+        private String[] answers = new String[16];
+        private boolean[] correct = new boolean[16];
+        private int count;
+
+        private Attempt(long testId, long userId) {
+            this.testId = testId;
+            this.userId = userId;
+        }
+
+        private void add(long questionId, String answer, boolean isCorrect) {
+            if (count == questionIds.length) {
+                questionIds = Arrays.copyOf(questionIds, count * 2);
+                answers = Arrays.copyOf(answers, count * 2);
+                correct = Arrays.copyOf(correct, count * 2);
+            }
+            questionIds[count] = questionId;
+            answers[count] = answer;
+            correct[count] = isCorrect;
+            count++;
+        }
+
+        /**
+         * Chuyển phiếu nén thành các câu đã trả lời (ID câu hỏi, câu trả lời, vị trí trong phiếu)
+         */
+        private void unpack(SheetLayout layout) {
+            byte[] codes = PackedAnswerSheet.decode(sheet, layout.size());
+            layoutSize = layout.size();
+            questionIds = new long[codes.length];
+            answers = new String[codes.length];
+            correct = new boolean[codes.length];
+            positions = new int[codes.length];
+            count = 0;
+            for (int position = 0; position < codes.length; position++) {
+                if (codes[position] != 0) {
+                    questionIds[count] = layout.questionIdAt(position);
+                    answers[count] = AnswerKey.answerOf(codes[position]);
+                    correct[count] = correctBits != null && position >>> 3 < correctBits.length
+                            && (correctBits[position >>> 3] & (1 << (position & 7))) != 0;
+                    positions[count] = position;
+                    count++;
+                }
+            }
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package com.hungtv.toeic.be.services;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,31 +26,72 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.cache.TestSnapshotCache;
 import com.hungtv.toeic.be.models.Test;
 import com.hungtv.toeic.be.models.TestResult;
 import com.hungtv.toeic.be.models.ToeicQuestion;
 import com.hungtv.toeic.be.models.User;
-import com.hungtv.toeic.be.models.UserAnswer;
+import com.hungtv.toeic.be.models.UserMonthlyStatistics;
+import com.hungtv.toeic.be.models.UserStatistics;
 import com.hungtv.toeic.be.payload.request.SaveTestResultRequest;
+import com.hungtv.toeic.be.payload.response.LeaderboardResponse;
+import com.hungtv.toeic.be.payload.response.QuestionReviewResponse;
+import com.hungtv.toeic.be.payload.response.ScoreDistributionResponse;
+import com.hungtv.toeic.be.payload.response.ScorePercentileResponse;
+import com.hungtv.toeic.be.payload.response.TestResultReviewResponse;
 import com.hungtv.toeic.be.payload.response.TestResultResponse;
 import com.hungtv.toeic.be.payload.response.UserStatisticsResponse;
 import com.hungtv.toeic.be.repositories.TestRepository;
 import com.hungtv.toeic.be.repositories.TestResultRepository;
 import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
-import com.hungtv.toeic.be.repositories.UserAnswerRepository;
+import com.hungtv.toeic.be.repositories.UserAnswerBatchWriter;
 import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.repositories.UserStatisticsWriter;
+import com.hungtv.toeic.be.scoring.AnswerKey;
+import com.hungtv.toeic.be.scoring.AnswerKeyCache;
+import com.hungtv.toeic.be.scoring.AnswerSheetLayouts;
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+import com.hungtv.toeic.be.scoring.ScoreResult;
+import com.hungtv.toeic.be.scoring.ScoredAnswers;
+import com.hungtv.toeic.be.scoring.ScoringEngine;
+import com.hungtv.toeic.be.scoring.SheetLayout;
+import com.hungtv.toeic.be.security.services.UserDetailsImpl;
+import com.hungtv.toeic.be.statistics.Leaderboard;
+import com.hungtv.toeic.be.statistics.LeaderboardStore;
+import com.hungtv.toeic.be.statistics.ScoreDistributionStore;
+import com.hungtv.toeic.be.statistics.ScoreHistogram;
+import com.hungtv.toeic.be.submission.IdempotencyCache;
+import com.hungtv.toeic.be.submission.PendingSubmission;
+import com.hungtv.toeic.be.submission.SubmissionWriteBehind;
 
 @Service
 public class TestResultService {
     
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+    
     @Autowired
     private TestResultRepository testResultRepository;
     
     @Autowired
-    private UserAnswerRepository userAnswerRepository;
+    private AnswerSheetService answerSheetService;
+    
+    @Autowired
+    private AnswerSheetLayouts answerSheetLayouts;
+    
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+    
+    @Autowired
+    private ScoreDistributionStore scoreDistributions;
+    
+    @Autowired
+    private LeaderboardStore leaderboards;
     
     @Autowired
     private UserRepository userRepository;
@@ -52,162 +102,278 @@ public class TestResultService {
     @Autowired
     private ToeicQuestionRepository questionRepository;
     
+    @Autowired
+    private TestSnapshotCache snapshotCache;
+    
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+    
+    @Autowired
+    private UserAnswerBatchWriter answerBatchWriter;
+    
+    @Autowired
+    private SubmissionWriteBehind submissionWriter;
+    
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    /**
+     * Nộp bài thi không kèm khóa idempotency
+     * 
+     * @param request Thông tin kết quả bài thi
+     * @return TestResultResponse
+     */
+    public TestResultResponse submitTestResult(SaveTestResultRequest request) {
+        return submitTestResult(request, null);
+    }
+    
+    /**
+     * Nộp bài thi: chấm điểm ngay trong bộ nhớ; nếu chế độ write-behind đang bật thì bài nộp
+     * được ghi xuống database bất đồng bộ (response có pending=true và id null), ngược lại
+     * lưu đồng bộ trong một transaction.
+     * 
+     * Khi có khóa idempotency, lần gửi lại với cùng khóa trả về response của lần nộp đầu tiên
+     * mà không chấm điểm hay ghi lại; các request trùng khóa đến cùng lúc chờ chung một lần xử lý.
+     * 
+     * @param request Thông tin kết quả bài thi
+     * @param idempotencyKey Khóa idempotency do client sinh cho lần làm bài (có thể null)
+     * @return TestResultResponse
+     * @throws SubmissionQueueFullException nếu hàng đợi ghi đã đầy
+     */
+    public TestResultResponse submitTestResult(SaveTestResultRequest request, String idempotencyKey) {
+        long userId = getCurrentUserId();
+        return withIdempotency(userId, idempotencyKey, () -> store(userId, request.getTestId(), scoreRequest(request),
+                request.getCompletionTimeInMinutes(), idempotencyKey));
+    }
+    
+    /**
+     * Nộp câu trả lời đã được chấm điểm sẵn (phiên làm bài trên server), theo cùng cách lưu
+     * và cùng cơ chế idempotency với submitTestResult. Không dựa vào người dùng đang đăng nhập
+     * nên dùng được cho việc tự động nộp bài khi hết giờ.
+     * 
+     * @param userId ID người dùng làm bài
+     * @param testId ID của bài thi
+     * @param scored Kết quả chấm điểm và các câu trả lời
+     * @param completionTimeInMinutes Thời gian làm bài (phút)
+     * @param idempotencyKey Khóa idempotency
+     * @return TestResultResponse
+     */
+    public TestResultResponse submitScoredAnswers(long userId, Long testId, ScoredAnswers scored,
+            Integer completionTimeInMinutes, String idempotencyKey) {
+        return withIdempotency(userId, idempotencyKey,
+                () -> store(userId, testId, scored, completionTimeInMinutes, idempotencyKey));
+    }
+    
+    private TestResultResponse withIdempotency(long userId, String idempotencyKey,
+            Supplier<TestResultResponse> submission) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return submission.get();
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key không được dài quá " + MAX_IDEMPOTENCY_KEY_LENGTH + " ký tự");
+        }
+        return idempotencyCache.execute(userId, idempotencyKey, () -> {
+            // Bài nộp cùng khóa còn chờ ghi (kể cả bài khôi phục từ spool) chưa có trong database;
+            // kiểm tra trong bộ nhớ trước nên request gửi lại không cần kết nối database
+            PendingSubmission pending = submissionWriter.findPending(userId, idempotencyKey);
+            if (pending != null) {
+                return convertToTestResultResponse(pending);
+            }
+            return testResultRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .map(this::convertToTestResultResponse)
+                    .orElseGet(submission);
+        });
+    }
+    
+    /**
+     * Lưu bài nộp đã chấm điểm: đưa vào hàng đợi write-behind nếu đang bật, ngược lại ghi đồng bộ
+     */
+    private TestResultResponse store(long userId, Long testId, ScoredAnswers scored, Integer completionTimeInMinutes,
+            String idempotencyKey) {
+        if (!submissionWriter.isEnabled()) {
+            // Dòng thống kê còn thiếu được tính trong transaction riêng, trước khi mở transaction ghi
+            // bài nộp để không giữ hai kết nối cùng lúc
+            userStatisticsService.ensureTracked(List.of(userId));
+            try {
+                return new TransactionTemplate(transactionManager).execute(
+                        status -> persistTestResult(userId, testId, scored, completionTimeInMinutes, idempotencyKey));
+            } catch (DataIntegrityViolationException e) {
+                // Request trùng khóa đã được ghi bởi node khác trong lúc xử lý
+                if (idempotencyKey != null) {
+                    Optional<TestResult> existing = testResultRepository
+                            .findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+                    if (existing.isPresent()) {
+                        return convertToTestResultResponse(existing.get());
+                    }
+                }
+                throw e;
+            }
+        }
+        
+        // Ảnh chụp và đáp án lấy từ cache (chỉ truy vấn database khi bài thi chưa có trong cache);
+        // khóa idempotency mới vẫn cần một truy vấn ở withIdempotency
+        TestSnapshot snapshot = snapshotCache.get(testId);
+        ScoredAnswers answers = scored != null ? scored : scoreAnswers(snapshot.getTestId(), List.of());
+        ScoreResult score = answers.getScore();
+        int[] scores = {
+                score.getScore(ScoringEngine.LISTENING),
+                score.getScore(ScoringEngine.READING),
+                score.getScore(ScoringEngine.GRAMMAR),
+                score.getScore(ScoringEngine.VOCABULARY),
+                score.getTotalScore(),
+                score.getListeningScaledScore(),
+                score.getReadingScaledScore(),
+                score.getCorrectAnswers(),
+                score.getTotalQuestions()
+        };
+        
+        PendingSubmission submission = new PendingSubmission(UUID.randomUUID().toString(), idempotencyKey, userId,
+                snapshot.getTestId(), snapshot.getTitle(), completionTimeInMinutes, LocalDateTime.now(),
+                scores, answers.getCount(), answers.getQuestionIds(), answers.getAnswers(), answers.getCorrect());
+        submissionWriter.submit(submission);
+        return convertToTestResultResponse(submission);
+    }
+    
     /**
      * Lưu kết quả bài thi của người dùng
      * 
      * @param request Thông tin kết quả bài thi
      * @return TestResultResponse
      */
-    @Transactional
     public TestResultResponse saveTestResult(SaveTestResultRequest request) {
-        User currentUser = getCurrentUser();
-        Test test = testRepository.findById(request.getTestId())
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy bài thi với ID: " + request.getTestId()));
+        long userId = getCurrentUserId();
+        ScoredAnswers scored = scoreRequest(request);
+        userStatisticsService.ensureTracked(List.of(userId));
+        return new TransactionTemplate(transactionManager).execute(status -> persistTestResult(userId,
+                request.getTestId(), scored, request.getCompletionTimeInMinutes(), null));
+    }
+    
+    /**
+     * Lưu kết quả bài thi đã chấm điểm (phải chạy trong transaction, sau
+     * userStatisticsService.ensureTracked của người dùng)
+     */
+    private TestResultResponse persistTestResult(long userId, Long testId, ScoredAnswers scored,
+            Integer completionTimeInMinutes, String idempotencyKey) {
+        // Chỉ cần khóa ngoại của người dùng, không nạp entity
+        User user = userRepository.getReferenceById(userId);
+        Test test = testRepository.findById(testId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy bài thi với ID: " + testId));
         
         // Tạo đối tượng TestResult
-        TestResult testResult = new TestResult(currentUser, test);
-        testResult.setCompletionTimeInMinutes(request.getCompletionTimeInMinutes());
+        TestResult testResult = new TestResult(user, test);
+        testResult.setCompletionTimeInMinutes(completionTimeInMinutes);
+        testResult.setSubmissionId(UUID.randomUUID().toString());
+        testResult.setIdempotencyKey(idempotencyKey);
         
-        // Lưu TestResult để có ID
+        if (scored != null) {
+            ScoreResult score = scored.getScore();
+            testResult.setListeningScore(score.getScore(ScoringEngine.LISTENING));
+            testResult.setReadingScore(score.getScore(ScoringEngine.READING));
+            testResult.setGrammarScore(score.getScore(ScoringEngine.GRAMMAR));
+            testResult.setVocabularyScore(score.getScore(ScoringEngine.VOCABULARY));
+            testResult.setTotalScore(score.getTotalScore());
+            testResult.setListeningScaledScore(score.getListeningScaledScore());
+            testResult.setReadingScaledScore(score.getReadingScaledScore());
+            testResult.setCorrectAnswers(score.getCorrectAnswers());
+            testResult.setTotalQuestions(score.getTotalQuestions());
+        }
+        
+        // Câu trả lời được lưu nén ngay trong TestResult; chỉ khi không nén được mới chèn
+        // các dòng user_answers theo lô sau khi lưu TestResult
+        PackedAnswerSheet sheet = null;
+        if (scored != null) {
+            sheet = answerSheetLayouts.pack(testId, scored.getQuestionIds(), scored.getAnswers(), scored.getCorrect(),
+                    scored.getCount());
+        }
+        if (sheet != null) {
+            testResult.setAnswerSheet(sheet.getSheet());
+            testResult.setCorrectBits(sheet.getCorrectBits());
+            testResult.setSheetLayoutId(sheet.getLayoutId());
+        }
         testResult = testResultRepository.save(testResult);
+        if (sheet == null && scored != null && scored.getCount() > 0) {
+            answerBatchWriter.insertAll(testResult.getId(), scored.getQuestionIds(), scored.getAnswers(),
+                    scored.getCorrect(), scored.getCount());
+        }
+        userStatisticsService.record(List.of(new UserStatisticsWriter.Entry(userId, testResult.getTotalScore(),
+                testResult.getCreatedAt())));
+        if (testResult.getTotalScore() != null) {
+            scoreDistributions.recordAfterCommit(testId, testResult.getId(), testResult.getTotalScore(),
+                    testResult.getListeningScaledScore(), testResult.getReadingScaledScore());
+            leaderboards.recordAfterCommit(testId, userId, testResult.getId(), testResult.getTotalScore(),
+                    testResult.getCreatedAt());
+        }
         
-        // Xử lý câu trả lời của người dùng
-        if (request.getUserAnswers() != null && !request.getUserAnswers().isEmpty()) {
-            // Lấy tất cả câu hỏi trong bài thi
-            List<Long> questionIds = request.getUserAnswers().stream()
-                    .map(SaveTestResultRequest.UserAnswerRequest::getQuestionId)
-                    .collect(Collectors.toList());
-            
-            Map<Long, ToeicQuestion> questionMap = questionRepository.findAllById(questionIds).stream()
-                    .collect(Collectors.toMap(ToeicQuestion::getId, q -> q));
-            
-            int totalQuestions = request.getUserAnswers().size();
-            int correctAnswers = 0;
-            
-            // Thống kê theo loại câu hỏi
-            int listeningCorrect = 0;
-            int listeningTotal = 0;
-            int readingCorrect = 0;
-            int readingTotal = 0;
-            int grammarCorrect = 0;
-            int grammarTotal = 0;
-            int vocabularyCorrect = 0;
-            int vocabularyTotal = 0;
-            
-            // Xử lý từng câu trả lời
-            List<UserAnswer> userAnswers = new ArrayList<>();
-            for (SaveTestResultRequest.UserAnswerRequest answerRequest : request.getUserAnswers()) {
-                ToeicQuestion question = questionMap.get(answerRequest.getQuestionId());
-                if (question == null) {
-                    continue; // Bỏ qua nếu không tìm thấy câu hỏi
-                }
-                
-                UserAnswer userAnswer = new UserAnswer(testResult, question, answerRequest.getUserAnswer());
-                userAnswers.add(userAnswer);
-                
-                // Cập nhật thống kê
-                if (userAnswer.getIsCorrect()) {
-                    correctAnswers++;
-                    
-                    // Phân loại câu hỏi đúng theo loại QuestionGroup.QuestionType
-                    if (question.getQuestionGroup() != null) {
-                        QuestionGroup.QuestionType type = question.getQuestionGroup().getQuestionType();
-                        if (QuestionGroup.QuestionType.LISTENING.equals(type)) {
-                            listeningCorrect++;
-                        } else if (QuestionGroup.QuestionType.READING.equals(type)) {
-                            readingCorrect++;
-                        } else if (QuestionGroup.QuestionType.GRAMMAR.equals(type)) {
-                            grammarCorrect++;
-                        } else if (QuestionGroup.QuestionType.VOCABULARY.equals(type)) {
-                            vocabularyCorrect++;
-                        }
-                    }
-                    
-                    // Phân loại câu hỏi đúng theo category
-                    if (question.getCategory() != null) {
-                        if (ToeicQuestion.QuestionCategory.GRAMMAR.equals(question.getCategory())) {
-                            grammarCorrect++;
-                        } else if (ToeicQuestion.QuestionCategory.VOCABULARY.equals(question.getCategory())) {
-                            vocabularyCorrect++;
-                        } else if (ToeicQuestion.QuestionCategory.LISTENING.equals(question.getCategory())) {
-                            listeningCorrect++;
-                        }
-                    }
-                }
-                
-                // Đếm tổng số câu hỏi theo loại QuestionGroup.QuestionType
-                if (question.getQuestionGroup() != null) {
-                    QuestionGroup.QuestionType type = question.getQuestionGroup().getQuestionType();
-                    if (QuestionGroup.QuestionType.LISTENING.equals(type)) {
-                        listeningTotal++;
-                    } else if (QuestionGroup.QuestionType.READING.equals(type)) {
-                        readingTotal++;
-                    } else if (QuestionGroup.QuestionType.GRAMMAR.equals(type)) {
-                        grammarTotal++;
-                    } else if (QuestionGroup.QuestionType.VOCABULARY.equals(type)) {
-                        vocabularyTotal++;
-                    }
-                }
-                
-                // Đếm tổng số câu hỏi theo category
-                if (question.getCategory() != null) {
-                    if (ToeicQuestion.QuestionCategory.GRAMMAR.equals(question.getCategory())) {
-                        grammarTotal++;
-                    } else if (ToeicQuestion.QuestionCategory.VOCABULARY.equals(question.getCategory())) {
-                        vocabularyTotal++;
-                    } else if (ToeicQuestion.QuestionCategory.LISTENING.equals(question.getCategory())) {
-                        listeningTotal++;
-                    }
-                }
-            }
-            
-            // Lưu các câu trả lời
-            userAnswerRepository.saveAll(userAnswers);
-            
-            // Tính điểm và cập nhật TestResult
-            int listeningScore = 0;
-            if (listeningTotal > 0) {
-                listeningScore = (int) Math.round((double) listeningCorrect / listeningTotal * 100);
-            }
-            
-            int readingScore = 0;
-            if (readingTotal > 0) {
-                readingScore = (int) Math.round((double) readingCorrect / readingTotal * 100);
-            }
-            
-            int grammarScore = 0;
-            if (grammarTotal > 0) {
-                grammarScore = (int) Math.round((double) grammarCorrect / grammarTotal * 100);
-            }
-            
-            int vocabularyScore = 0;
-            if (vocabularyTotal > 0) {
-                vocabularyScore = (int) Math.round((double) vocabularyCorrect / vocabularyTotal * 100);
+        return convertToTestResultResponse(testResult);
+    }
+    
+    /**
+     * Chấm điểm câu trả lời trong request, null nếu request không có câu trả lời nào
+     */
+    private ScoredAnswers scoreRequest(SaveTestResultRequest request) {
+        if (request.getUserAnswers() == null || request.getUserAnswers().isEmpty()) {
+            return null;
+        }
+        return scoreAnswers(request.getTestId(), request.getUserAnswers());
+    }
+    
+    /**
+     * Lấy trạng thái một bài nộp theo mã bài nộp: bài nộp còn chờ ghi trả về pending=true,
+     * bài nộp đã được ghi trả về kết quả đầy đủ
+     * 
+     * @param submissionId Mã bài nộp
+     * @return TestResultResponse
+     */
+    public TestResultResponse getSubmission(String submissionId) {
+        PendingSubmission pending = submissionWriter.findPending(submissionId);
+        if (pending != null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (pending.getUserId() != getCurrentUserId() && !isAdmin(authentication)) {
+                throw new RuntimeException("Không có quyền truy cập kết quả này");
             }
-            
-            // Tính điểm tổng
-            int totalScore = (int) Math.round((double) correctAnswers / totalQuestions * 100);
-            
-            // Quy đổi sang thang 495
-            int listeningScaledScore = (int) Math.round(listeningScore / 100.0 * 495.0);
-            int readingScaledScore = (int) Math.round(readingScore / 100.0 * 495.0);
-            
-            // Cập nhật TestResult
-            testResult.setListeningScore(listeningScore);
-            testResult.setReadingScore(readingScore);
-            testResult.setGrammarScore(grammarScore);
-            testResult.setVocabularyScore(vocabularyScore);
-            testResult.setTotalScore(totalScore);
-            testResult.setListeningScaledScore(listeningScaledScore);
-            testResult.setReadingScaledScore(readingScaledScore);
-            testResult.setCorrectAnswers(correctAnswers);
-            testResult.setTotalQuestions(totalQuestions);
-            
-            // Lưu lại TestResult với điểm số
-            testResult = testResultRepository.save(testResult);
+            return convertToTestResultResponse(pending);
         }
         
-        return convertToTestResultResponse(testResult);
+        TestResult result = testResultRepository.findBySubmissionId(submissionId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy bài nộp với mã: " + submissionId));
+        checkAccess(result);
+        return convertToTestResultResponse(result);
+    }
+    
+    /**
+     * Chấm điểm câu trả lời theo đáp án (cache) của phiên bản bài thi hiện hành, không nạp entity câu hỏi.
+     * Các câu trả lời hợp lệ được dồn lên đầu mảng (bỏ qua câu hỏi không thuộc bài thi).
+     */
+    private ScoredAnswers scoreAnswers(Long testId, List<SaveTestResultRequest.UserAnswerRequest> answerRequests) {
+        AnswerKey answerKey = answerKeyCache.get(testId);
+        
+        int count = answerRequests != null ? answerRequests.size() : 0;
+        long[] questionIds = new long[count];
+        String[] answers = new String[count];
+        for (int i = 0; i < count; i++) {
+            SaveTestResultRequest.UserAnswerRequest answerRequest = answerRequests.get(i);
+            // ID null không khớp câu hỏi nào của bài thi
+            questionIds[i] = answerRequest.getQuestionId() != null ? answerRequest.getQuestionId() : -1L;
+            answers[i] = answerRequest.getUserAnswer();
+        }
+        
+        int[] indexes = new int[count];
+        boolean[] correct = new boolean[count];
+        ScoreResult score = ScoringEngine.score(answerKey, questionIds, answers, count, indexes, correct);
+        
+        int answerCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (indexes[i] >= 0) {
+                questionIds[answerCount] = questionIds[i];
+                answers[answerCount] = answers[i];
+                correct[answerCount] = correct[i];
+                answerCount++;
+            }
+        }
+        return new ScoredAnswers(score, answerCount, questionIds, answers, correct);
     }
     
     /**
@@ -243,17 +409,203 @@ public class TestResultService {
      * @return TestResultResponse
      */
     public TestResultResponse getTestResultDetail(Long resultId) {
+        TestResult result = findAccessibleTestResult(resultId);
+        return convertToTestResultResponse(result);
+    }
+    
+    /**
+     * Lấy đáp án đúng và giải thích của một bài làm đã nộp (xem lại bài).
+     * Danh sách câu hỏi theo đúng thứ tự câu hỏi của phiếu trả lời đã chấm (hoặc theo các câu đã trả lời
+     * với bài cũ không có phiếu nén); đáp án và giải thích lấy từ ảnh chụp bài thi hiện hành, câu hỏi đã bị
+     * gỡ khỏi bài thi sau lượt làm bài được nạp từ database và đánh dấu {@code inCurrentTest = false}.
+     * Nếu nội dung bài thi đã đổi sau lượt làm bài, phản hồi có {@code contentChanged = true}.
+     * 
+     * @param resultId ID của kết quả bài thi
+     * @return TestResultReviewResponse
+     */
+    @Transactional(readOnly = true)
+    public TestResultReviewResponse getTestResultReview(Long resultId) {
+        TestResult result = findAccessibleTestResult(resultId);
+        TestSnapshot snapshot = snapshotCache.get(result.getTest().getId());
+        
+        Map<Long, Object[]> answersByQuestion = new HashMap<>();
+        for (Object[] row : answerSheetService.findAnswerRows(result)) {
+            answersByQuestion.put((Long) row[0], row);
+        }
+        Map<Long, TestSnapshot.QuestionSnapshot> currentQuestions = new LinkedHashMap<>();
+        for (TestSnapshot.QuestionSnapshot question : snapshot.getQuestions()) {
+            currentQuestions.put(question.getId(), question);
+        }
+        
+        // Câu hỏi của lượt làm bài: theo layout của phiếu nén, hoặc câu hiện hành cộng các câu đã trả lời
+        SheetLayout layout = result.getAnswerSheet() != null
+                ? answerSheetLayouts.get(result.getSheetLayoutId()) : null;
+        Set<Long> attemptQuestionIds = new LinkedHashSet<>();
+        if (layout != null) {
+            for (int position = 0; position < layout.size(); position++) {
+                attemptQuestionIds.add(layout.questionIdAt(position));
+            }
+        } else {
+            attemptQuestionIds.addAll(currentQuestions.keySet());
+            attemptQuestionIds.addAll(answersByQuestion.keySet());
+        }
+        
+        List<Long> removedIds = new ArrayList<>();
+        for (Long questionId : attemptQuestionIds) {
+            if (!currentQuestions.containsKey(questionId)) {
+                removedIds.add(questionId);
+            }
+        }
+        Map<Long, ToeicQuestion> removedQuestions = new HashMap<>();
+        if (!removedIds.isEmpty()) {
+            for (ToeicQuestion question : questionRepository.findWithOptionsByIdIn(removedIds)) {
+                removedQuestions.put(question.getId(), question);
+            }
+        }
+        
+        List<QuestionReviewResponse> questions = new ArrayList<>(attemptQuestionIds.size());
+        for (Long questionId : attemptQuestionIds) {
+            Object[] answer = answersByQuestion.get(questionId);
+            String userAnswer = answer != null ? (String) answer[1] : null;
+            Boolean isCorrect = answer != null ? (Boolean) answer[2] : Boolean.FALSE;
+            TestSnapshot.QuestionSnapshot current = currentQuestions.get(questionId);
+            if (current != null) {
+                questions.add(new QuestionReviewResponse(questionId, current.getGroup().getId(),
+                        current.getQuestionOrder(), userAnswer, current.getCorrectAnswer(), isCorrect,
+                        current.getExplanation(), Boolean.TRUE));
+                continue;
+            }
+            // Câu hỏi đã bị xóa hẳn chỉ còn câu trả lời và kết quả chấm lúc nộp bài
+            ToeicQuestion removed = removedQuestions.get(questionId);
+            questions.add(new QuestionReviewResponse(questionId,
+                    removed != null && removed.getQuestionGroup() != null ? removed.getQuestionGroup().getId() : null,
+                    removed != null ? removed.getQuestionOrder() : null, userAnswer,
+                    removed != null ? removed.getCorrectAnswer() : null, isCorrect,
+                    removed != null ? removed.getExplanation() : null, Boolean.FALSE));
+        }
+        
+        // Phiếu nén ghi phiên bản nội dung lúc chấm; bài cũ chỉ so được thời điểm nộp với lần sửa cuối
+        Long attemptVersion = layout != null ? layout.getVersion() : null;
+        boolean contentChanged;
+        if (attemptVersion != null) {
+            contentChanged = attemptVersion != snapshot.getVersion();
+        } else {
+            LocalDateTime updatedAt = snapshot.getContentVersion().getUpdatedAt();
+            contentChanged = !removedIds.isEmpty() || (updatedAt != null && result.getCreatedAt() != null
+                    && updatedAt.isAfter(result.getCreatedAt()));
+        }
+        
+        return new TestResultReviewResponse(result.getId(), snapshot.getTestId(), snapshot.getTitle(), questions,
+                attemptVersion, snapshot.getVersion(), contentChanged);
+    }
+    
+    /**
+     * Lấy phân bố điểm của một bài thi (điểm tổng, điểm quy đổi Listening/Reading)
+     * 
+     * @param testId ID của bài thi
+     * @return ScoreDistributionResponse
+     */
+    public ScoreDistributionResponse getScoreDistribution(Long testId) {
+        if (!testRepository.existsById(testId)) {
+            throw new RuntimeException("Không tìm thấy bài thi với ID: " + testId);
+        }
+        List<ScoreDistributionResponse.Histogram> histograms = new ArrayList<>();
+        for (ScoreHistogram.Metric metric : ScoreHistogram.Metric.values()) {
+            ScoreHistogram histogram = scoreDistributions.get(testId, metric);
+            histograms.add(new ScoreDistributionResponse.Histogram(metric.name(), metric.getBucketWidth(),
+                    metric.getMaxScore(), histogram.getTotal(), histogram.getCounts()));
+        }
+        return new ScoreDistributionResponse(testId, histograms);
+    }
+    
+    /**
+     * Lấy thứ hạng phần trăm của một kết quả bài thi so với các bài nộp khác của cùng bài thi
+     * 
+     * @param resultId ID của kết quả bài thi
+     * @return ScorePercentileResponse
+     */
+    public ScorePercentileResponse getResultPercentile(Long resultId) {
+        TestResult result = findAccessibleTestResult(resultId);
+        long testId = result.getTest().getId();
+        ScoreHistogram total = scoreDistributions.get(testId, ScoreHistogram.Metric.TOTAL);
+        ScoreHistogram listening = scoreDistributions.get(testId, ScoreHistogram.Metric.LISTENING_SCALED);
+        ScoreHistogram reading = scoreDistributions.get(testId, ScoreHistogram.Metric.READING_SCALED);
+        return new ScorePercentileResponse(result.getId(), testId, total.getTotal(),
+                result.getTotalScore(), percentileOf(total, result.getTotalScore()),
+                result.getListeningScaledScore(), percentileOf(listening, result.getListeningScaledScore()),
+                result.getReadingScaledScore(), percentileOf(reading, result.getReadingScaledScore()));
+    }
+    
+    private static Double percentileOf(ScoreHistogram histogram, Integer score) {
+        return score != null ? histogram.percentileRank(score) : null;
+    }
+    
+    /**
+     * Lấy bảng xếp hạng của một bài thi: các vị trí đầu bảng (mỗi người dùng một lần tốt nhất)
+     * và thứ hạng của người dùng hiện tại
+     * 
+     * @param testId ID của bài thi
+     * @param limit Số vị trí đầu bảng (tối đa 100)
+     * @return LeaderboardResponse
+     */
+    public LeaderboardResponse getLeaderboard(Long testId, int limit) {
+        if (!testRepository.existsById(testId)) {
+            throw new RuntimeException("Không tìm thấy bài thi với ID: " + testId);
+        }
+        Leaderboard leaderboard = leaderboards.get(testId);
+        List<Leaderboard.Entry> top = leaderboard.top(Math.max(1, Math.min(limit, MAX_LEADERBOARD_SIZE)));
+        Leaderboard.Entry mine = leaderboard.bestOf(getCurrentUserId());
+        
+        List<Long> userIds = new ArrayList<>(top.size() + 1);
+        top.forEach(entry -> userIds.add(entry.userId()));
+        if (mine != null) {
+            userIds.add(mine.userId());
+        }
+        Map<Long, Object[]> names = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] row : userRepository.findNamesByIds(userIds)) {
+                names.put((Long) row[0], row);
+            }
+        }
+        
+        List<LeaderboardResponse.Entry> entries = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            entries.add(toLeaderboardEntry(i + 1, top.get(i), names));
+        }
+        LeaderboardResponse.Entry me = mine != null
+                ? toLeaderboardEntry(leaderboard.rankOf(mine), mine, names)
+                : null;
+        return new LeaderboardResponse(testId, leaderboard.size(), entries, me);
+    }
+    
+    private static LeaderboardResponse.Entry toLeaderboardEntry(int rank, Leaderboard.Entry entry,
+                                                                Map<Long, Object[]> names) {
+        Object[] name = names.get(entry.userId());
+        return new LeaderboardResponse.Entry(rank, entry.userId(),
+                name != null ? (String) name[1] : null, name != null ? (String) name[2] : null,
+                entry.score(), entry.resultId(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.achievedAtMillis()), ZoneId.systemDefault()));
+    }
+    
+    /**
+     * Lấy kết quả bài thi và kiểm tra quyền truy cập - chỉ chủ sở hữu hoặc admin có thể xem
+     */
+    private TestResult findAccessibleTestResult(Long resultId) {
         TestResult result = testResultRepository.findById(resultId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy kết quả bài thi với ID: " + resultId));
-        
-        // Kiểm tra quyền truy cập - chỉ chủ sở hữu hoặc admin có thể xem
+        checkAccess(result);
+        return result;
+    }
+    
+    private void checkAccess(TestResult result) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (!result.getUser().getUsername().equals(authentication.getName()) && 
-            !authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+        if (!result.getUser().getUsername().equals(authentication.getName()) && !isAdmin(authentication)) {
             throw new RuntimeException("Không có quyền truy cập kết quả này");
         }
-        
-        return convertToTestResultResponse(result);
+    }
+    
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
     }
     
     /**
@@ -276,14 +628,15 @@ public class TestResultService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng với ID: " + userId));
         
-        // Lấy các số liệu thống kê cơ bản
-        Long testsTaken = testResultRepository.countByUser(user);
-        Double averageScore = testResultRepository.findAverageScoreByUser(user);
-        Integer bestScore = testResultRepository.findHighestScoreByUser(user);
+        // Số liệu tích lũy đọc từ một dòng thống kê thay vì quét toàn bộ lịch sử
+        UserStatistics statistics = userStatisticsService.getStatistics(userId);
+        Long testsTaken = statistics.getTestsTaken();
+        Double averageScore = statistics.getScoredCount() > 0
+                ? (double) statistics.getScoreSum() / statistics.getScoredCount() : null;
+        Integer bestScore = statistics.getBestScore();
         
         // Lấy danh sách kết quả gần đây nhất
-        List<TestResult> recentResults = testResultRepository.findByUserOrderByCreatedAtDesc(user)
-                .stream().limit(5).collect(Collectors.toList());
+        List<TestResult> recentResults = testResultRepository.findRecentByUserId(userId, PageRequest.of(0, 5));
         List<TestResultResponse> recentTests = recentResults.stream()
                 .map(this::convertToTestResultResponse)
                 .collect(Collectors.toList());
@@ -352,30 +705,14 @@ public class TestResultService {
             scoresByMonth.put(month, 0.0);
         }
         
-        // Lấy kết quả trong khoảng thời gian
-        List<TestResult> resultsInRange = testResultRepository.findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(
-                user, startDate, endDate);
-        
-        // Thống kê theo tháng
-        Map<String, List<TestResult>> resultsByMonth = resultsInRange.stream()
-                .collect(Collectors.groupingBy(
-                        result -> result.getCreatedAt().format(formatter)
-                ));
-        
-        // Tính số bài thi và điểm trung bình cho mỗi tháng
-        for (Map.Entry<String, List<TestResult>> entry : resultsByMonth.entrySet()) {
-            String month = entry.getKey();
-            List<TestResult> monthResults = entry.getValue();
-            
-            testsByMonth.put(month, (long) monthResults.size());
-            
-            Double monthAvgScore = monthResults.stream()
-                    .filter(r -> r.getTotalScore() != null)
-                    .mapToDouble(TestResult::getTotalScore)
-                    .average()
-                    .orElse(0.0);
-            
-            scoresByMonth.put(month, monthAvgScore);
+        // Số bài và điểm trung bình mỗi tháng lấy từ thống kê theo tháng
+        for (UserMonthlyStatistics month : userStatisticsService.getMonthlyStatistics(userId, months.get(0))) {
+            if (!testsByMonth.containsKey(month.getMonth())) {
+                continue;
+            }
+            testsByMonth.put(month.getMonth(), month.getTestsTaken());
+            scoresByMonth.put(month.getMonth(), month.getScoredCount() > 0
+                    ? (double) month.getScoreSum() / month.getScoredCount() : 0.0);
         }
         
         // Tạo và trả về đối tượng thống kê
@@ -423,7 +760,7 @@ public class TestResultService {
      * @return TestResultResponse
      */
     private TestResultResponse convertToTestResultResponse(TestResult testResult) {
-        return new TestResultResponse(
+        TestResultResponse response = new TestResultResponse(
                 testResult.getId(),
                 testResult.getTest().getId(),
                 testResult.getTest().getTitle(),
@@ -439,6 +776,44 @@ public class TestResultService {
                 testResult.getTotalQuestions(),
                 testResult.getCreatedAt()
         );
+        response.setSubmissionId(testResult.getSubmissionId());
+        return response;
+    }
+    
+    /**
+     * Chuyển đổi bài nộp đang chờ ghi thành TestResultResponse (id còn null)
+     */
+    private TestResultResponse convertToTestResultResponse(PendingSubmission submission) {
+        TestResultResponse response = new TestResultResponse(
+                null,
+                submission.getTestId(),
+                submission.getTestTitle(),
+                submission.getListeningScore(),
+                submission.getReadingScore(),
+                submission.getGrammarScore(),
+                submission.getVocabularyScore(),
+                submission.getTotalScore(),
+                submission.getListeningScaledScore(),
+                submission.getReadingScaledScore(),
+                submission.getCompletionTimeInMinutes(),
+                submission.getCorrectAnswers(),
+                submission.getTotalQuestions(),
+                submission.getCreatedAt()
+        );
+        response.setSubmissionId(submission.getSubmissionId());
+        response.setPending(true);
+        return response;
+    }
+    
+    /**
+     * ID người dùng hiện tại, lấy từ principal đã xác thực (không truy vấn database nếu có thể)
+     */
+    private long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return userDetails.getId();
+        }
+        return getCurrentUser().getId();
     }
     
     /**
@@ -451,4 +826,4 @@ public class TestResultService {
         return userRepository.findByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy thông tin người dùng hiện tại"));
     }
-} 
\ No newline at end of file
+}
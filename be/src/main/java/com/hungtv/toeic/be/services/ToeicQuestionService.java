@@ -1,30 +1,47 @@
 package com.hungtv.toeic.be.services;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hungtv.toeic.be.cache.ContentVersion;
+import com.hungtv.toeic.be.cache.ContentVersionTracker;
+import com.hungtv.toeic.be.exception.QuestionGroupListTooLargeException;
 import com.hungtv.toeic.be.models.QuestionGroup;
 import com.hungtv.toeic.be.models.Test;
 import com.hungtv.toeic.be.models.ToeicOption;
 import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.payload.response.KeysetPageResponse;
 import com.hungtv.toeic.be.payload.response.QuestionGroupResponse;
+import com.hungtv.toeic.be.payload.response.QuestionGroupSummaryResponse;
 import com.hungtv.toeic.be.payload.response.QuestionResponse;
+import com.hungtv.toeic.be.payload.response.QuestionSearchResponse;
+import com.hungtv.toeic.be.payload.response.QuestionStatsResponse;
 import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
 import com.hungtv.toeic.be.repositories.TestRepository;
 import com.hungtv.toeic.be.repositories.ToeicOptionRepository;
 import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+import com.hungtv.toeic.be.search.QuestionSearchIndex;
+import com.hungtv.toeic.be.search.SearchFilter;
+import com.hungtv.toeic.be.search.SearchResult;
 
 import jakarta.transaction.Transactional;
 
@@ -48,18 +65,32 @@ public class ToeicQuestionService {
 
     @Autowired
     private TestRepository testRepository;
+    
+    @Autowired
+    private ContentVersionTracker contentVersions;
+
+    @Autowired
+    private QuestionSearchIndex searchIndex;
+
+    @Autowired
+    private ItemAnalyticsService itemAnalytics;
+
+    @Autowired
+    private RescoringService rescoring;
 
     // Lấy tất cả câu hỏi với phân trang
     public Page<QuestionResponse> getAllQuestions(Pageable pageable) {
-        return questionRepository.findAll(pageable)
-                .map(QuestionResponse::new);
+        return withStats(questionRepository.findAll(pageable)
+                .map(QuestionResponse::new));
     }
 
     // Lấy câu hỏi theo ID
     public QuestionResponse getQuestionById(Long id) {
         ToeicQuestion question = questionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy câu hỏi với ID: " + id));
-        return new QuestionResponse(question);
+        QuestionResponse response = new QuestionResponse(question);
+        withStats(List.of(response));
+        return response;
     }
 
     // Tạo câu hỏi mới
@@ -97,9 +128,13 @@ public class ToeicQuestionService {
             
             // Liên kết với nhóm câu hỏi
             question.setQuestionGroup(questionGroup);
+            if (questionGroup != null) {
+                contentVersions.groupChanged(questionGroup.getId());
+            }
             
             // Lưu câu hỏi
             ToeicQuestion savedQuestion = questionRepository.save(question);
+            searchIndex.questionChanged(savedQuestion.getId());
             
             // Lưu các tùy chọn
             if (questionRequest.getOptions() != null && !questionRequest.getOptions().isEmpty()) {
@@ -138,6 +173,18 @@ public class ToeicQuestionService {
             System.out.println("  - questionGroup: " + (existingQuestion.getQuestionGroup() != null ? existingQuestion.getQuestionGroup().getId() : "null"));
             System.out.println("  - category: " + (existingQuestion.getCategory() != null ? existingQuestion.getCategory().name() : "null"));
             
+            // Làm mới cache của các bài thi chứa nhóm cũ và nhóm mới
+            if (existingQuestion.getQuestionGroup() != null) {
+                contentVersions.groupChanged(existingQuestion.getQuestionGroup().getId());
+            }
+            contentVersions.groupChanged(questionGroupId);
+            searchIndex.questionChanged(id);
+            
+            // Đổi đáp án: chấm lại các bài nộp cũ của câu hỏi sau khi commit
+            if (!Objects.equals(existingQuestion.getCorrectAnswer(), questionRequest.getCorrectAnswer())) {
+                rescoring.requestAfterCommit(List.of(id));
+            }
+            
             // Cập nhật thông tin
             existingQuestion.setQuestion(questionRequest.getQuestion());
             existingQuestion.setQuestionOrder(questionRequest.getQuestionOrder());
@@ -222,11 +269,15 @@ public class ToeicQuestionService {
     // Xóa câu hỏi
     @Transactional
     public void deleteQuestion(Long id) {
-        if (!questionRepository.existsById(id)) {
-            throw new RuntimeException("Không tìm thấy câu hỏi với ID: " + id);
+        ToeicQuestion question = questionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy câu hỏi với ID: " + id));
+        
+        if (question.getQuestionGroup() != null) {
+            contentVersions.groupChanged(question.getQuestionGroup().getId());
         }
+        searchIndex.questionChanged(id);
         
-        questionRepository.deleteById(id);
+        questionRepository.delete(question);
     }
     
     // Tạo nhóm câu hỏi
@@ -296,6 +347,10 @@ public class ToeicQuestionService {
             
             // Lưu nhóm câu hỏi
             QuestionGroup savedGroup = questionGroupRepository.save(group);
+            if (test != null) {
+                contentVersions.testChanged(test.getId());
+            }
+            searchIndex.groupChanged(savedGroup.getId());
             
             // Tạo các câu hỏi
             List<ToeicQuestion> savedQuestions = new ArrayList<>();
@@ -376,28 +431,38 @@ public class ToeicQuestionService {
         }
     }
     
+    // Lấy phiên bản nội dung của nhóm câu hỏi (null nếu không tồn tại), dùng cho ETag
+    public ContentVersion getQuestionGroupVersion(Long groupId) {
+        return contentVersions.getGroupVersion(groupId);
+    }
+    
     // Lấy câu hỏi theo nhóm
     public QuestionGroupResponse getQuestionsByGroupId(Long groupId) {
         QuestionGroup group = questionGroupRepository.findById(groupId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy nhóm câu hỏi với ID: " + groupId));
         
-        List<ToeicQuestion> questions = questionRepository.findByQuestionGroupIdOrderByQuestionOrder(groupId);
+        return getQuestionsByGroups(List.of(group)).get(0);
+    }
+    
+    // Lấy câu hỏi của nhiều nhóm với số truy vấn cố định: một truy vấn duy nhất nạp câu hỏi,
+    // nhóm, bài thi và tùy chọn cho tất cả các nhóm (giữ nguyên thứ tự nhóm đầu vào)
+    public List<QuestionGroupResponse> getQuestionsByGroups(Collection<QuestionGroup> groups) {
+        if (groups.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        // Tạo response
-        QuestionGroupResponse response = new QuestionGroupResponse();
-        response.setId(group.getId());
-        response.setTitle(group.getTitle());
-        response.setQuestionType(group.getQuestionType().name());
-        response.setPart(group.getPart());
-        response.setAudioUrl(group.getAudioUrl());
-        response.setImageUrl(group.getImageUrl());
-        response.setPassage(group.getPassage());
-        response.setTestId(group.getTest() != null ? group.getTest().getId() : null);
-        response.setQuestions(questions.stream()
-                .map(QuestionResponse::new)
-                .collect(Collectors.toList()));
+        List<Long> groupIds = groups.stream().map(QuestionGroup::getId).collect(Collectors.toList());
+        Map<Long, List<ToeicQuestion>> questionsByGroup = new HashMap<>();
+        for (ToeicQuestion question : questionRepository.findWithOptionsByQuestionGroupIdIn(groupIds)) {
+            questionsByGroup
+                    .computeIfAbsent(question.getQuestionGroup().getId(), k -> new ArrayList<>())
+                    .add(question);
+        }
         
-        return response;
+        return groups.stream()
+                .map(group -> toQuestionGroupResponse(group,
+                        questionsByGroup.getOrDefault(group.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
     }
     
     // Lấy câu hỏi theo nhóm listening
@@ -430,6 +495,8 @@ public class ToeicQuestionService {
             // Lấy thông tin nhóm câu hỏi hiện tại
             QuestionGroup group = questionGroupRepository.findById(groupId)
                     .orElseThrow(() -> new RuntimeException("Không tìm thấy nhóm câu hỏi với ID: " + groupId));
+            contentVersions.groupChanged(groupId);
+            searchIndex.groupChanged(groupId);
             
             // Xác định QuestionType dựa vào part và type được gửi lên
             QuestionGroup.QuestionType questionType = group.getQuestionType();
@@ -525,6 +592,8 @@ public class ToeicQuestionService {
             // Danh sách câu hỏi đã xử lý
             List<ToeicQuestion> savedQuestions = new ArrayList<>();
             Set<Long> processedQuestionIds = new HashSet<>();
+            // Câu hỏi đổi đáp án, được chấm lại sau khi commit
+            List<Long> changedAnswerIds = new ArrayList<>();
             
             for (int i = 0; i < questionsRequest.size(); i++) {
                 ToeicQuestion questionRequest = questionsRequest.get(i);
@@ -541,6 +610,10 @@ public class ToeicQuestionService {
                     ToeicQuestion existingQuestion = existingQuestionMap.get(questionId);
                     System.out.println("Cập nhật câu hỏi hiện có ID=" + existingQuestion.getId());
                     
+                    if (!Objects.equals(existingQuestion.getCorrectAnswer(), questionRequest.getCorrectAnswer())) {
+                        changedAnswerIds.add(questionId);
+                    }
+                    
                     // Cập nhật thông tin cơ bản
                     existingQuestion.setQuestion(questionRequest.getQuestion());
                     existingQuestion.setCorrectAnswer(questionRequest.getCorrectAnswer());
@@ -639,6 +712,11 @@ public class ToeicQuestionService {
                 savedQuestions.add(savedQuestion);
             }
             
+            // Đổi đáp án: chấm lại các bài nộp cũ của các câu hỏi sau khi commit
+            if (!changedAnswerIds.isEmpty()) {
+                rescoring.requestAfterCommit(changedAnswerIds);
+            }
+            
             // Xóa các câu hỏi không còn trong request
             for (ToeicQuestion existingQuestion : existingQuestions) {
                 if (!processedQuestionIds.contains(existingQuestion.getId())) {
@@ -681,6 +759,10 @@ public class ToeicQuestionService {
         QuestionGroup group = questionGroupRepository.findById(groupId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy nhóm câu hỏi với ID: " + groupId));
         
+        // Làm mới cache trước khi quan hệ với các bài thi bị xóa
+        contentVersions.groupChanged(groupId);
+        searchIndex.groupChanged(groupId);
+        
         // Lấy danh sách câu hỏi trong nhóm
         List<ToeicQuestion> questions = questionRepository.findByQuestionGroupIdOrderByQuestionOrder(groupId);
         
@@ -701,58 +783,178 @@ public class ToeicQuestionService {
         questionGroupRepository.deleteById(groupId);
     }
     
-    // Lấy tất cả nhóm câu hỏi
-    public List<QuestionGroupResponse> getAllQuestionGroups() {
-        List<QuestionGroup> groups = questionGroupRepository.findAll();
-        
-        return groups.stream()
-                .map(group -> {
-                    List<ToeicQuestion> questions = questionRepository.findByQuestionGroupIdOrderByQuestionOrder(group.getId());
-                    
-                    QuestionGroupResponse response = new QuestionGroupResponse();
-                    response.setId(group.getId());
-                    response.setTitle(group.getTitle());
-                    response.setQuestionType(group.getQuestionType().name());
-                    response.setPart(group.getPart());
-                    response.setAudioUrl(group.getAudioUrl());
-                    response.setImageUrl(group.getImageUrl());
-                    response.setPassage(group.getPassage());
-                    response.setTestId(group.getTest() != null ? group.getTest().getId() : null);
-                    response.setQuestions(questions.stream()
-                            .map(QuestionResponse::new)
-                            .collect(Collectors.toList()));
-                    
-                    return response;
-                })
-                .collect(Collectors.toList());
+    // Lấy tất cả nhóm câu hỏi (hợp đồng cũ, không phân trang). Có nhiều hơn maxGroups nhóm thì báo lỗi
+    // thay vì trả về danh sách bị cắt bớt
+    public List<QuestionGroupResponse> getAllQuestionGroups(int maxGroups) {
+        List<QuestionGroup> groups = questionGroupRepository.findByQuestionTypeAndPartAfterId(
+                null, null, 0L, PageRequest.ofSize(maxGroups + 1));
+        if (groups.size() > maxGroups) {
+            throw new QuestionGroupListTooLargeException(maxGroups);
+        }
+        return getQuestionsByGroups(groups);
+    }
+    
+    // Phân trang nhóm câu hỏi (kèm câu hỏi và tùy chọn) theo type/part, null = không lọc
+    public Page<QuestionGroupResponse> getQuestionGroups(QuestionGroup.QuestionType type, Integer part, Pageable pageable) {
+        return toResponsePage(questionGroupRepository.findByQuestionTypeAndPart(type, part, pageable),
+                this::getQuestionsByGroups);
+    }
+    
+    // Phân trang nhóm câu hỏi chỉ gồm thông tin nhóm và số câu hỏi
+    public Page<QuestionGroupSummaryResponse> getQuestionGroupSummaries(QuestionGroup.QuestionType type, Integer part, Pageable pageable) {
+        Page<Object[]> headers = questionGroupRepository.findHeadersByQuestionTypeAndPart(type, part, pageable);
+        return new PageImpl<>(summarizeGroups(headers.getContent()), headers.getPageable(), headers.getTotalElements());
+    }
+    
+    // Phân trang theo khóa: các nhóm có id > afterId (kèm câu hỏi và tùy chọn)
+    public KeysetPageResponse<QuestionGroupResponse> getQuestionGroupsAfter(QuestionGroup.QuestionType type, Integer part,
+                                                                           Long afterId, int size) {
+        // Lấy thừa một phần tử để biết còn trang sau hay không mà không cần COUNT
+        List<QuestionGroup> groups = questionGroupRepository.findByQuestionTypeAndPartAfterId(
+                type, part, afterId != null ? afterId : 0L, PageRequest.ofSize(size + 1));
+        return toKeysetPage(groups, afterId, size, QuestionGroup::getId, this::getQuestionsByGroups);
+    }
+    
+    // Phân trang theo khóa, chỉ gồm thông tin nhóm và số câu hỏi
+    public KeysetPageResponse<QuestionGroupSummaryResponse> getQuestionGroupSummariesAfter(QuestionGroup.QuestionType type,
+                                                                                          Integer part, Long afterId, int size) {
+        List<Object[]> headers = questionGroupRepository.findHeadersByQuestionTypeAndPartAfterId(
+                type, part, afterId != null ? afterId : 0L, PageRequest.ofSize(size + 1));
+        return toKeysetPage(headers, afterId, size, header -> (Long) header[0], this::summarizeGroups);
     }
     
     // Lấy câu hỏi độc lập (standalone) theo phân trang
     public Page<QuestionResponse> getStandaloneQuestions(Pageable pageable) {
-        return questionRepository.findStandaloneQuestions(pageable)
-                .map(QuestionResponse::new);
+        return withStats(questionRepository.findStandaloneQuestions(pageable)
+                .map(QuestionResponse::new));
     }
     
     // Lấy câu hỏi độc lập theo category với phân trang
     public Page<QuestionResponse> getStandaloneQuestionsByCategory(ToeicQuestion.QuestionCategory category, Pageable pageable) {
-        return questionRepository.findStandaloneQuestionsByCategory(category, pageable)
-                .map(QuestionResponse::new);
+        return withStats(questionRepository.findStandaloneQuestionsByCategory(category, pageable)
+                .map(QuestionResponse::new));
     }
     
     // Lấy tất cả câu hỏi theo category với phân trang
     public Page<QuestionResponse> getQuestionsByCategory(ToeicQuestion.QuestionCategory category, Pageable pageable) {
-        return questionRepository.findByCategory(category, pageable)
-                .map(QuestionResponse::new);
+        return withStats(questionRepository.findByCategory(category, pageable)
+                .map(QuestionResponse::new));
     }
     
-    // Tìm kiếm câu hỏi độc lập theo từ khóa
+    // Tìm kiếm câu hỏi độc lập theo từ khóa (xếp hạng theo độ liên quan);
+    // dùng truy vấn LIKE khi chỉ mục tìm kiếm chưa dựng xong
     public Page<QuestionResponse> searchStandaloneQuestions(String keyword, Pageable pageable) {
-        return questionRepository.searchStandaloneQuestions(keyword, pageable)
-                .map(QuestionResponse::new);
+        if (!searchIndex.isReady()) {
+            return questionRepository.searchStandaloneQuestions(keyword, pageable)
+                    .map(QuestionResponse::new);
+        }
+        SearchResult result = searchIndex.search(keyword, new SearchFilter(null, null, null, true),
+                (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadSearchHits(result), pageable, result.getTotal());
+    }
+    
+    // Tìm kiếm toàn văn trong câu hỏi, giải thích, tùy chọn và đoạn văn của nhóm, kèm facet
+    public QuestionSearchResponse searchQuestions(String query, SearchFilter filter, int page, int size) {
+        if (!searchIndex.isReady()) {
+            throw new RuntimeException("Chỉ mục tìm kiếm đang được xây dựng, vui lòng thử lại sau");
+        }
+        SearchResult result = searchIndex.search(query, filter, page * size, size);
+        return new QuestionSearchResponse(loadSearchHits(result), result.getTotal(), page, size, result.getFacets());
     }
     
     // Helper methods
     
+    // Gắn thống kê câu hỏi (độ khó, độ phân biệt) khi người dùng hiện tại là admin
+    private Page<QuestionResponse> withStats(Page<QuestionResponse> page) {
+        withStats(page.getContent());
+        return page;
+    }
+    
+    private void withStats(List<QuestionResponse> questions) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (questions.isEmpty() || authentication == null || authentication.getAuthorities().stream()
+                .noneMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"))) {
+            return;
+        }
+        Map<Long, QuestionStatsResponse> stats = itemAnalytics.findStats(
+                questions.stream().map(QuestionResponse::getId).collect(Collectors.toList()));
+        for (QuestionResponse question : questions) {
+            question.setStats(stats.get(question.getId()));
+        }
+    }
+    
+    // Nạp câu hỏi của một trang kết quả tìm kiếm, giữ nguyên thứ tự xếp hạng
+    private List<QuestionResponse> loadSearchHits(SearchResult result) {
+        List<Long> ids = result.getHits().stream().map(SearchResult.Hit::questionId).collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ToeicQuestion> questions = questionRepository.findWithOptionsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ToeicQuestion::getId, Function.identity()));
+        // Bỏ qua câu hỏi vừa bị xóa nhưng chỉ mục chưa kịp cập nhật
+        return ids.stream()
+                .map(questions::get)
+                .filter(question -> question != null)
+                .map(QuestionResponse::new)
+                .collect(Collectors.toList());
+    }
+    
+    private <T> Page<T> toResponsePage(Page<QuestionGroup> groups, Function<List<QuestionGroup>, List<T>> converter) {
+        return new PageImpl<>(converter.apply(groups.getContent()), groups.getPageable(), groups.getTotalElements());
+    }
+    
+    // rows được lấy thừa một phần tử (size + 1) để biết còn trang sau hay không
+    private <R, T> KeysetPageResponse<T> toKeysetPage(List<R> rows, Long afterId, int size, Function<R, Long> idOf,
+                                                     Function<List<R>, List<T>> converter) {
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        Long nextAfterId = rows.isEmpty() ? afterId : idOf.apply(rows.get(rows.size() - 1));
+        return new KeysetPageResponse<>(converter.apply(rows), size, nextAfterId, hasMore);
+    }
+    
+    // Thông tin đầu nhóm (không gồm đoạn văn) kèm số câu hỏi, đếm bằng một truy vấn tổng hợp cho cả trang
+    private List<QuestionGroupSummaryResponse> summarizeGroups(List<Object[]> headers) {
+        if (headers.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<Long, Long> counts = new HashMap<>();
+        List<Long> groupIds = headers.stream().map(header -> (Long) header[0]).collect(Collectors.toList());
+        for (Object[] row : questionRepository.countByQuestionGroupIdIn(groupIds)) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        
+        return headers.stream()
+                .map(header -> new QuestionGroupSummaryResponse(
+                        (Long) header[0],
+                        (String) header[1],
+                        ((QuestionGroup.QuestionType) header[2]).name(),
+                        (Integer) header[3],
+                        (String) header[4],
+                        (String) header[5],
+                        (Long) header[6],
+                        counts.getOrDefault((Long) header[0], 0L)))
+                .collect(Collectors.toList());
+    }
+    
+    private QuestionGroupResponse toQuestionGroupResponse(QuestionGroup group, List<ToeicQuestion> questions) {
+        QuestionGroupResponse response = new QuestionGroupResponse();
+        response.setId(group.getId());
+        response.setTitle(group.getTitle());
+        response.setQuestionType(group.getQuestionType().name());
+        response.setPart(group.getPart());
+        response.setAudioUrl(group.getAudioUrl());
+        response.setImageUrl(group.getImageUrl());
+        response.setPassage(group.getPassage());
+        response.setTestId(group.getTest() != null ? group.getTest().getId() : null);
+        response.setQuestions(questions.stream()
+                .map(QuestionResponse::new)
+                .collect(Collectors.toList()));
+        return response;
+    }
+    
     private void validateByPart(List<ToeicQuestion> questions, int part, QuestionGroup.QuestionType questionType, 
                                MultipartFile audioFile, MultipartFile imageFile, String passage, String existingAudioUrl) {
         if (questions.isEmpty()) {
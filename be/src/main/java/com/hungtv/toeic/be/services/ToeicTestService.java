@@ -13,6 +13,12 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.hungtv.toeic.be.cache.ContentVersion;
+import com.hungtv.toeic.be.cache.ContentVersionTracker;
+import com.hungtv.toeic.be.cache.SerializedPayload;
+import com.hungtv.toeic.be.cache.TestPayloadCache;
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.cache.TestSnapshotCache;
 import com.hungtv.toeic.be.models.QuestionGroup;
 import com.hungtv.toeic.be.models.Test;
 import com.hungtv.toeic.be.payload.request.CreateTestRequest;
@@ -37,6 +43,15 @@ public class ToeicTestService {
     @Autowired
     private ToeicQuestionService questionService;
     
+    @Autowired
+    private TestSnapshotCache snapshotCache;
+
+    @Autowired
+    private TestPayloadCache payloadCache;
+    
+    @Autowired
+    private ContentVersionTracker contentVersions;
+    
     /**
      * Lấy danh sách tất cả các bài thi
      * 
@@ -68,9 +83,7 @@ public class ToeicTestService {
      * @throws RuntimeException nếu không tìm thấy bài thi
      */
     public TestResponse getTestById(Long id) {
-        Test test = testRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy bài thi với ID: " + id));
-        return convertToTestResponseWithGroups(test);
+        return convertToTestResponse(snapshotCache.get(id), true);
     }
     
     /**
@@ -118,6 +131,7 @@ public class ToeicTestService {
         test.setInstructions(request.getInstructions());
         
         Test updatedTest = testRepository.save(test);
+        contentVersions.testChanged(id);
         return convertToTestResponse(updatedTest);
     }
     
@@ -133,6 +147,7 @@ public class ToeicTestService {
             throw new RuntimeException("Không tìm thấy bài thi với ID: " + id);
         }
         testRepository.deleteById(id);
+        contentVersions.testChanged(id);
     }
     
     /**
@@ -150,6 +165,7 @@ public class ToeicTestService {
         
         test.setIsActive(isActive);
         Test updatedTest = testRepository.save(test);
+        contentVersions.testChanged(id);
         return convertToTestResponse(updatedTest);
     }
 
@@ -161,14 +177,47 @@ public class ToeicTestService {
      * @throws RuntimeException nếu không tìm thấy bài thi
      */
     public List<QuestionGroupResponse> getTestQuestions(Long testId) {
-        Test test = testRepository.findById(testId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy bài thi với ID: " + testId));
-        
-        return test.getQuestionGroups().stream()
-                .map(group -> questionService.getQuestionsByGroupId(group.getId()))
+        return snapshotCache.get(testId).getGroups().stream()
+                .map(QuestionGroupResponse::new)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lấy phiên bản nội dung hiện tại của bài thi (cache hit hoặc một truy vấn theo khóa chính)
+     *
+     * @param id ID của bài thi
+     * @return ContentVersion, null nếu không tồn tại bài thi
+     */
+    public ContentVersion getTestVersion(Long id) {
+        return contentVersions.getTestVersion(id);
+    }
+
+    /**
+     * Lấy bản giao đề của bài thi (không kèm đáp án và giải thích)
+     * dưới dạng JSON đã serialize và nén sẵn
+     *
+     * @param id ID của bài thi
+     * @return SerializedPayload của TestResponse
+     */
+    public SerializedPayload getTestPayload(Long id) {
+        TestSnapshot snapshot = snapshotCache.get(id);
+        return payloadCache.get(snapshot, TestPayloadCache.View.TEST, () -> convertToTestResponse(snapshot, false));
+    }
+
+    /**
+     * Lấy bản giao đề của danh sách nhóm câu hỏi (không kèm đáp án và giải thích)
+     * dưới dạng JSON đã serialize và nén sẵn
+     *
+     * @param testId ID của bài thi
+     * @return SerializedPayload của danh sách QuestionGroupResponse
+     */
+    public SerializedPayload getTestQuestionsPayload(Long testId) {
+        TestSnapshot snapshot = snapshotCache.get(testId);
+        return payloadCache.get(snapshot, TestPayloadCache.View.QUESTIONS, () -> snapshot.getGroups().stream()
+                .map(group -> new QuestionGroupResponse(group, false))
+                .collect(Collectors.toList()));
+    }
+
     /**
      * Thêm nhóm câu hỏi vào bài thi
      * 
@@ -188,6 +237,7 @@ public class ToeicTestService {
         // Thêm nhóm câu hỏi vào bài thi nếu chưa tồn tại
         test.addQuestionGroup(group);
         Test updatedTest = testRepository.save(test);
+        contentVersions.testChanged(testId);
         
         return convertToTestResponseWithGroups(updatedTest);
     }
@@ -210,6 +260,7 @@ public class ToeicTestService {
         // Xóa nhóm câu hỏi khỏi bài thi
         test.removeQuestionGroup(group);
         testRepository.save(test);
+        contentVersions.testChanged(testId);
     }
     
     /**
@@ -232,6 +283,7 @@ public class ToeicTestService {
         }
         
         testRepository.save(test);
+        contentVersions.testChanged(testId);
     }
     
     /**
@@ -254,6 +306,32 @@ public class ToeicTestService {
         );
     }
     
+    /**
+     * Chuyển đổi từ TestSnapshot sang TestResponse kèm theo danh sách QuestionGroup
+     * 
+     * @param snapshot Ảnh chụp bài thi
+     * @param includeAnswers Có kèm đáp án đúng và giải thích hay không
+     * @return TestResponse
+     */
+    private TestResponse convertToTestResponse(TestSnapshot snapshot, boolean includeAnswers) {
+        List<QuestionGroupResponse> groupResponses = snapshot.getGroups().stream()
+                .map(group -> new QuestionGroupResponse(group, includeAnswers))
+                .collect(Collectors.toList());
+        
+        return new TestResponse(
+                snapshot.getTestId(),
+                snapshot.getTitle(),
+                snapshot.getDescription(),
+                snapshot.getType(),
+                snapshot.getDuration(),
+                snapshot.getInstructions(),
+                snapshot.getCreatedAt(),
+                snapshot.getCreatedBy(),
+                snapshot.getIsActive(),
+                groupResponses
+        );
+    }
+    
     /**
      * Chuyển đổi từ Test entity sang TestResponse kèm theo danh sách QuestionGroup
      * 
@@ -261,9 +339,7 @@ public class ToeicTestService {
      * @return TestResponse
      */
     private TestResponse convertToTestResponseWithGroups(Test test) {
-        List<QuestionGroupResponse> groupResponses = test.getQuestionGroups().stream()
-                .map(group -> questionService.getQuestionsByGroupId(group.getId()))
-                .collect(Collectors.toList());
+        List<QuestionGroupResponse> groupResponses = questionService.getQuestionsByGroups(test.getQuestionGroups());
         
         return new TestResponse(
                 test.getId(),
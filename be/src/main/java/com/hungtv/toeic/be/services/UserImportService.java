@@ -0,0 +1,419 @@
+package com.hungtv.toeic.be.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hungtv.toeic.be.models.ERole;
+import com.hungtv.toeic.be.payload.request.CreateUserRequest;
+import com.hungtv.toeic.be.payload.response.UserImportResponse;
+import com.hungtv.toeic.be.payload.response.UserImportRowResponse;
+import com.hungtv.toeic.be.repositories.RoleRepository;
+import com.hungtv.toeic.be.repositories.UserBatchWriter;
+import com.hungtv.toeic.be.security.services.BoundedPasswordEncoder;
+import com.hungtv.toeic.be.security.services.UsernameEmailBloomFilter;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Nhập người dùng hàng loạt từ CSV hoặc JSON.
+ *
+ * Tệp được đọc theo luồng và xử lý theo lô (app.user-import.chunk-size dòng): kiểm tra dữ liệu và
+ * trùng lặp trong tệp, kiểm tra trùng với database bằng một truy vấn IN cho cả lô, băm mật khẩu song
+ * song trên nhóm luồng riêng (không dùng chung hàng đợi với đăng nhập), rồi chèn users và user_roles
+ * bằng JDBC batch trong một transaction mỗi lô. Mỗi dòng có một kết quả trong báo cáo; dòng lỗi
+ * không làm hỏng các dòng khác.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    @Autowired
+    private UserBatchWriter userBatchWriter;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UsernameEmailBloomFilter usernameEmailFilter;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.user-import.chunk-size:500}")
+    private int chunkSize;
+
+    // Số luồng băm mật khẩu khi nhập, 0 để dùng một nửa số CPU
+    @Value("${app.user-import.hash-threads:0}")
+    private int hashThreads;
+
+    private ExecutorService hashPool;
+
+    // Vai trò là dữ liệu khởi tạo, không đổi khi chạy: chỉ tra một lần
+    private final Map<ERole, Integer> roleIds = new ConcurrentHashMap<>();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder imports = counters.register("imports");
+    private final LongAdder rowsCreated = counters.register("rowsCreated");
+    private final LongAdder rowsFailed = counters.register("rowsFailed");
+    private final LongAdder batchFallbacks = counters.register("batchFallbacks");
+
+    @PostConstruct
+    public void init() {
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        hashPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+
+    /**
+     * Nhập từ CSV UTF-8 có dòng tiêu đề: username, password, email, fullName (hoặc full_name),
+     * role (tùy chọn, USER hoặc ADMIN)
+     *
+     * @param input Nội dung CSV
+     * @return Báo cáo theo dòng
+     * @throws IOException nếu không đọc được dữ liệu
+     * @throws IllegalArgumentException nếu dòng tiêu đề thiếu cột bắt buộc
+     */
+    public UserImportResponse importCsv(InputStream input) throws IOException {
+        Batch batch = new Batch();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("Tệp CSV trống");
+        }
+        if (header.startsWith("﻿")) {
+            header = header.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        for (String required : List.of("username", "password", "email", "fullname")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Tệp CSV thiếu cột " + required);
+            }
+        }
+
+        int lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> values = parseCsvLine(line);
+            if (values == null || values.size() < names.size()) {
+                batch.add(lineNumber, null, "Dòng không đúng định dạng CSV hoặc thiếu cột");
+                continue;
+            }
+            CreateUserRequest request = new CreateUserRequest(
+                    values.get(columns.get("username")).trim(),
+                    values.get(columns.get("password")),
+                    values.get(columns.get("email")).trim(),
+                    values.get(columns.get("fullname")).trim(),
+                    columns.containsKey("role") ? blankToNull(values.get(columns.get("role"))) : null);
+            batch.add(lineNumber, request, null);
+        }
+        return batch.finish();
+    }
+
+    /**
+     * Nhập từ mảng JSON các đối tượng có dạng CreateUserRequest, đọc từng phần tử một
+     *
+     * @param input Nội dung JSON
+     * @return Báo cáo theo dòng (dòng là thứ tự phần tử, từ 1)
+     * @throws IOException nếu không đọc được dữ liệu
+     */
+    public UserImportResponse importJson(InputStream input) throws IOException {
+        Batch batch = new Batch();
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Dữ liệu JSON phải là một mảng người dùng");
+            }
+            int index = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                index++;
+                batch.add(index, objectMapper.readValue(parser, CreateUserRequest.class), null);
+            }
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            // Các lô trước đã được ghi; báo lỗi ở dòng tiếp theo và dừng
+            batch.add(batch.lastRow + 1, null, "JSON không hợp lệ: " + e.getOriginalMessage());
+        }
+        return batch.finish();
+    }
+
+    /**
+     * Thống kê các lần nhập
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        counters.putInto(stats);
+        stats.put("chunkSize", chunkSize);
+        return stats;
+    }
+
+    /**
+     * Trạng thái một lần nhập: các dòng chờ ghi của lô hiện tại, tên/email đã gặp trong tệp và báo cáo
+     */
+    private final class Batch {
+        private final long startedAt = System.currentTimeMillis();
+        private final UserImportResponse report = new UserImportResponse();
+        private final Set<String> seenUsernames = new HashSet<>();
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<PendingRow> pending = new ArrayList<>();
+        private int lastRow;
+
+        void add(int row, CreateUserRequest request, String error) {
+            lastRow = row;
+            UserImportRowResponse result = new UserImportRowResponse(row,
+                    request != null ? request.getUsername() : null, request != null ? request.getEmail() : null);
+            report.getRows().add(result);
+            report.setTotal(report.getTotal() + 1);
+            if (error == null) {
+                error = validate(request);
+            }
+            if (error != null) {
+                fail(result, error);
+                return;
+            }
+            pending.add(new PendingRow(result, request, roleId(request.getRole())));
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        UserImportResponse finish() {
+            flush();
+            report.setElapsedMs(System.currentTimeMillis() - startedAt);
+            imports.increment();
+            logger.info("Nhập người dùng: {} dòng, {} tạo mới, {} lỗi trong {} ms", report.getTotal(),
+                    report.getCreated(), report.getFailed(), report.getElapsedMs());
+            return report;
+        }
+
+        private String validate(CreateUserRequest request) {
+            Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                return violations.stream().map(ConstraintViolation::getMessage).sorted()
+                        .collect(Collectors.joining("; "));
+            }
+            String role = request.getRole() != null ? request.getRole().toUpperCase(Locale.ROOT) : "USER";
+            if (!role.equals("USER") && !role.equals("ADMIN")) {
+                return "Vai trò không hợp lệ: " + request.getRole();
+            }
+            if (!seenUsernames.add(request.getUsername().toLowerCase(Locale.ROOT))) {
+                return "Tên đăng nhập bị trùng trong tệp";
+            }
+            if (!seenEmails.add(request.getEmail().toLowerCase(Locale.ROOT))) {
+                return "Email bị trùng trong tệp";
+            }
+            return null;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingRow> rows = new ArrayList<>(pending);
+            pending.clear();
+
+            // Trùng với database: một truy vấn IN cho tên đăng nhập và một cho email của cả lô
+            Set<String> takenUsernames = userBatchWriter.findExistingUsernames(
+                    rows.stream().map(row -> row.request.getUsername()).toList());
+            Set<String> takenEmails = userBatchWriter.findExistingEmails(
+                    rows.stream().map(row -> row.request.getEmail()).toList());
+            List<PendingRow> accepted = new ArrayList<>(rows.size());
+            for (PendingRow row : rows) {
+                if (takenUsernames.contains(row.request.getUsername().toLowerCase(Locale.ROOT))) {
+                    fail(row.result, "Tên đăng nhập đã tồn tại");
+                } else if (takenEmails.contains(row.request.getEmail().toLowerCase(Locale.ROOT))) {
+                    fail(row.result, "Email đã tồn tại");
+                } else {
+                    accepted.add(row);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            List<UserBatchWriter.NewUser> users = hashAll(accepted);
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                long[] ids = new TransactionTemplate(transactionManager).execute(status -> {
+                    long[] inserted = userBatchWriter.insertAll(users, now);
+                    for (UserBatchWriter.NewUser user : users) {
+                        usernameEmailFilter.addAfterCommit(user.username(), user.email());
+                    }
+                    return inserted;
+                });
+                for (int i = 0; i < accepted.size(); i++) {
+                    created(accepted.get(i).result, ids[i]);
+                }
+            } catch (DataIntegrityViolationException e) {
+                // Người dùng được tạo đồng thời sau lần kiểm tra: ghi lại từng dòng để chỉ dòng trùng bị lỗi
+                batchFallbacks.increment();
+                for (int i = 0; i < accepted.size(); i++) {
+                    UserBatchWriter.NewUser user = users.get(i);
+                    try {
+                        long[] ids = new TransactionTemplate(transactionManager).execute(status -> {
+                            usernameEmailFilter.addAfterCommit(user.username(), user.email());
+                            return userBatchWriter.insertAll(List.of(user), now);
+                        });
+                        created(accepted.get(i).result, ids[0]);
+                    } catch (DataIntegrityViolationException duplicate) {
+                        fail(accepted.get(i).result, "Tên đăng nhập hoặc email đã tồn tại");
+                    }
+                }
+            }
+        }
+
+        private void created(UserImportRowResponse result, long userId) {
+            result.setStatus(UserImportRowResponse.Status.CREATED);
+            result.setUserId(userId);
+            report.setCreated(report.getCreated() + 1);
+            rowsCreated.increment();
+        }
+
+        private void fail(UserImportRowResponse result, String message) {
+            result.setStatus(UserImportRowResponse.Status.FAILED);
+            result.setMessage(message);
+            report.setFailed(report.getFailed() + 1);
+            rowsFailed.increment();
+        }
+    }
+
+    /**
+     * Băm mật khẩu của cả lô song song trên nhóm luồng nhập
+     */
+    private List<UserBatchWriter.NewUser> hashAll(List<PendingRow> rows) {
+        List<Future<String>> hashes = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            String password = row.request.getPassword();
+            hashes.add(hashPool.submit(() -> passwordEncoder.getDelegate().encode(password)));
+        }
+        List<UserBatchWriter.NewUser> users = new ArrayList<>(rows.size());
+        try {
+            for (int i = 0; i < rows.size(); i++) {
+                CreateUserRequest request = rows.get(i).request;
+                users.add(new UserBatchWriter.NewUser(request.getUsername(), hashes.get(i).get(), request.getEmail(),
+                        request.getFullName(), rows.get(i).roleId));
+            }
+        } catch (InterruptedException e) {
+            hashes.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi đang băm mật khẩu", e);
+        } catch (ExecutionException e) {
+            hashes.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Không thể băm mật khẩu", e.getCause());
+        }
+        return users;
+    }
+
+    private int roleId(String role) {
+        ERole name = "ADMIN".equalsIgnoreCase(role) ? ERole.ROLE_ADMIN : ERole.ROLE_USER;
+        return roleIds.computeIfAbsent(name, key -> roleRepository.findByName(key)
+                .orElseThrow(() -> new RuntimeException("Vai trò " + key + " không tồn tại"))
+                .getId());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Tách một dòng CSV (dấu phẩy, trường có thể nằm trong dấu nháy kép, "" là một dấu nháy)
+     *
+     * @return Các trường, null nếu dấu nháy không đóng
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private record PendingRow(UserImportRowResponse result, CreateUserRequest request, int roleId) {
+    }
+}
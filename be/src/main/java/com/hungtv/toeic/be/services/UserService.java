@@ -7,11 +7,13 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.hungtv.toeic.be.models.ERole;
+import com.hungtv.toeic.be.models.RefreshToken;
 import com.hungtv.toeic.be.models.Role;
 import com.hungtv.toeic.be.models.User;
 import com.hungtv.toeic.be.payload.request.CreateUserRequest;
@@ -20,6 +22,8 @@ import com.hungtv.toeic.be.payload.request.UpdateUserRequest;
 import com.hungtv.toeic.be.payload.response.UserResponse;
 import com.hungtv.toeic.be.repositories.RoleRepository;
 import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.security.services.PrincipalCache;
+import com.hungtv.toeic.be.security.services.UsernameEmailBloomFilter;
 
 @Service
 public class UserService {
@@ -33,6 +37,18 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UsernameEmailBloomFilter usernameEmailFilter;
+
     /**
      * Lấy danh sách tất cả người dùng
      * @return Danh sách người dùng dưới dạng UserResponse
@@ -61,13 +77,13 @@ public class UserService {
      */
     @Transactional
     public UserResponse createUser(CreateUserRequest request) {
-        // Kiểm tra username đã tồn tại chưa
-        if (userRepository.existsByUsername(request.getUsername())) {
+        // Kiểm tra username đã tồn tại chưa (bloom filter trước, chỉ hỏi database khi có thể trùng)
+        if (usernameEmailFilter.isUsernameTaken(request.getUsername())) {
             throw new RuntimeException("Tên đăng nhập đã tồn tại");
         }
 
         // Kiểm tra email đã tồn tại chưa
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (usernameEmailFilter.isEmailTaken(request.getEmail())) {
             throw new RuntimeException("Email đã tồn tại");
         }
 
@@ -94,7 +110,13 @@ public class UserService {
         user.setRoles(roles);
 
         // Lưu người dùng vào database
-        User savedUser = userRepository.save(user);
+        usernameEmailFilter.addAfterCommit(user.getUsername(), user.getEmail());
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Tên đăng nhập hoặc email đã tồn tại");
+        }
 
         return convertToUserResponse(savedUser);
     }
@@ -112,17 +134,18 @@ public class UserService {
 
         // Kiểm tra xem username mới đã tồn tại chưa (nếu khác username hiện tại)
         if (!user.getUsername().equals(request.getUsername()) && 
-                userRepository.existsByUsername(request.getUsername())) {
+                usernameEmailFilter.isUsernameTaken(request.getUsername())) {
             throw new RuntimeException("Tên đăng nhập đã tồn tại");
         }
 
         // Kiểm tra xem email mới đã tồn tại chưa (nếu khác email hiện tại)
         if (!user.getEmail().equals(request.getEmail()) && 
-                userRepository.existsByEmail(request.getEmail())) {
+                usernameEmailFilter.isEmailTaken(request.getEmail())) {
             throw new RuntimeException("Email đã tồn tại");
         }
 
         // Cập nhật thông tin người dùng
+        usernameEmailFilter.addAfterCommit(request.getUsername(), request.getEmail());
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
         user.setFullName(request.getFullName());
@@ -147,6 +170,7 @@ public class UserService {
 
         // Lưu thông tin cập nhật
         User updatedUser = userRepository.save(user);
+        principalCache.invalidateAfterCommit(id);
 
         return convertToUserResponse(updatedUser);
     }
@@ -160,7 +184,10 @@ public class UserService {
         if (!userRepository.existsById(id)) {
             throw new RuntimeException("Không tìm thấy người dùng với ID: " + id);
         }
+        refreshTokenService.deleteAllForUser(id);
         userRepository.deleteById(id);
+        userStatisticsService.deleteStatistics(id);
+        principalCache.invalidateAfterCommit(id);
     }
 
     /**
@@ -201,9 +228,10 @@ public class UserService {
     public UserResponse updateCurrentUserProfile(User currentUser, UpdateUserRequest request) {
         // Kiểm tra xem email mới đã tồn tại chưa (nếu khác email hiện tại)
         if (!currentUser.getEmail().equals(request.getEmail()) && 
-                userRepository.existsByEmail(request.getEmail())) {
+                usernameEmailFilter.isEmailTaken(request.getEmail())) {
             throw new RuntimeException("Email đã tồn tại");
         }
+        usernameEmailFilter.addAfterCommit(currentUser.getUsername(), request.getEmail());
 
         // Chỉ cho phép cập nhật email và fullName, giữ nguyên username và role
         currentUser.setEmail(request.getEmail());
@@ -211,6 +239,7 @@ public class UserService {
 
         // Lưu thông tin cập nhật
         User updatedUser = userRepository.save(currentUser);
+        principalCache.invalidateAfterCommit(currentUser.getId());
 
         return convertToUserResponse(updatedUser);
     }
@@ -236,6 +265,8 @@ public class UserService {
         // Mã hóa và lưu mật khẩu mới
         currentUser.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(currentUser);
+        principalCache.invalidateAfterCommit(currentUser.getId());
+        refreshTokenService.revokeAllForUser(currentUser.getId(), RefreshToken.RevokeReason.PASSWORD_CHANGED);
     }
 
     /**
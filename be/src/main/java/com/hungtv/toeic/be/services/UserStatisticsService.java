@@ -0,0 +1,291 @@
+package com.hungtv.toeic.be.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.models.UserMonthlyStatistics;
+import com.hungtv.toeic.be.models.UserStatistics;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.UserMonthlyStatisticsRepository;
+import com.hungtv.toeic.be.repositories.UserStatisticsRepository;
+import com.hungtv.toeic.be.repositories.UserStatisticsWriter;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Thống kê tích lũy của người dùng (số bài, tổng điểm, điểm cao nhất, theo tháng).
+ *
+ * Mỗi bài nộp được cộng vào thống kê trong cùng transaction ghi bài nộp (record), nên trang
+ * thống kê chỉ cần đọc một dòng thay vì quét toàn bộ lịch sử. Người dùng chưa có dòng thống
+ * kê (dữ liệu cũ) được tính từ lịch sử ở lần đầu cần đến; toàn bộ có thể dựng lại song song
+ * bằng startRebuild.
+ */
+@Service
+public class UserStatisticsService {
+    private static final Logger logger = LoggerFactory.getLogger(UserStatisticsService.class);
+
+    @Autowired
+    private UserStatisticsWriter writer;
+
+    @Autowired
+    private UserStatisticsRepository statisticsRepository;
+
+    @Autowired
+    private UserMonthlyStatisticsRepository monthlyRepository;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Số luồng tính lại song song và số người dùng mỗi trang khi dựng lại toàn bộ
+    @Value("${app.user-statistics.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    @Value("${app.user-statistics.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    private final ExecutorService rebuildWorker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-statistics-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder recorded = counters.register("recordedSubmissions");
+    private final LongAdder createdFromHistory = counters.register("createdFromHistory");
+
+    // Số liệu của lần dựng lại gần nhất
+    private final LongAdder rebuiltUsers = new LongAdder();
+    private final LongAdder failedUsers = new LongAdder();
+    private final AtomicLong lastUserId = new AtomicLong();
+    private final AtomicReference<LocalDateTime> startedAt = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> finishedAt = new AtomicReference<>();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+
+    /**
+     * Đảm bảo các người dùng đã có dòng thống kê; dòng còn thiếu được tính từ lịch sử trong
+     * transaction riêng. Gọi trước khi mở transaction ghi bài nộp của các người dùng này, không gọi
+     * bên trong transaction đó (sẽ giữ hai kết nối cùng lúc).
+     *
+     * @param userIds Danh sách ID người dùng
+     */
+    public void ensureTracked(Collection<Long> userIds) {
+        for (Long userId : writer.findMissing(userIds)) {
+            createFromHistory(userId);
+        }
+    }
+
+    /**
+     * Cộng các bài nộp vào thống kê (phải chạy trong transaction ghi bài nộp, sau ensureTracked)
+     *
+     * @param entries Danh sách bài nộp
+     */
+    public void record(List<UserStatisticsWriter.Entry> entries) {
+        writer.apply(entries);
+        recorded.add(entries.size());
+    }
+
+    /**
+     * Lấy thống kê của người dùng, tính từ lịch sử nếu chưa có
+     *
+     * @param userId ID người dùng
+     * @return UserStatistics
+     */
+    public UserStatistics getStatistics(long userId) {
+        Optional<UserStatistics> statistics = statisticsRepository.findById(userId);
+        if (statistics.isPresent()) {
+            return statistics.get();
+        }
+        createFromHistory(userId);
+        return statisticsRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy thống kê của người dùng với ID: " + userId));
+    }
+
+    /**
+     * Thống kê theo tháng của người dùng
+     *
+     * @param userId ID người dùng
+     * @param fromMonth Tháng bắt đầu (yyyy-MM)
+     * @return Danh sách theo thứ tự tháng
+     */
+    public List<UserMonthlyStatistics> getMonthlyStatistics(long userId, String fromMonth) {
+        return monthlyRepository.findByUserIdAndMonthGreaterThanEqualOrderByMonth(userId, fromMonth);
+    }
+
+    /**
+     * Xóa thống kê của người dùng
+     *
+     * @param userId ID người dùng
+     */
+    public void deleteStatistics(long userId) {
+        writer.deleteByUserId(userId);
+    }
+
+    /**
+     * Tính lại thống kê của một người dùng từ lịch sử
+     *
+     * @param userId ID người dùng
+     */
+    public void rebuild(long userId) {
+        Boolean existed = requiresNew().execute(status -> {
+            if (!writer.lock(userId)) {
+                return false;
+            }
+            writer.recompute(userId);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(existed)) {
+            createFromHistory(userId);
+        }
+    }
+
+    /**
+     * Bắt đầu tính lại thống kê của mọi người dùng đã có kết quả bài thi (chạy nền, song song)
+     *
+     * @return false nếu đang có lần dựng lại khác chạy
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuiltUsers.reset();
+        failedUsers.reset();
+        lastUserId.set(0);
+        lastError.set(null);
+        finishedAt.set(null);
+        startedAt.set(LocalDateTime.now());
+        rebuildWorker.execute(this::runRebuild);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildWorker.shutdownNow();
+    }
+
+    /**
+     * Trạng thái của lần dựng lại gần nhất
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getRebuildStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", rebuilding.get());
+        status.put("threads", rebuildThreads);
+        status.put("startedAt", startedAt.get());
+        status.put("finishedAt", finishedAt.get());
+        status.put("rebuiltUsers", rebuiltUsers.sum());
+        status.put("failedUsers", failedUsers.sum());
+        status.put("lastUserId", lastUserId.get());
+        status.put("lastError", lastError.get());
+        return status;
+    }
+
+    /**
+     * Thống kê hoạt động
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        counters.putInto(stats);
+        stats.put("rebuilding", rebuilding.get());
+        return stats;
+    }
+
+    private void runRebuild() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, rebuildThreads), runnable -> {
+            Thread thread = new Thread(runnable, "user-statistics-rebuild-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Long afterId = 0L;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> userIds = testResultRepository.findUserIdsAfter(afterId, PageRequest.ofSize(rebuildBatchSize));
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                // Mỗi người dùng một transaction ngắn; chờ hết trang rồi mới đọc trang tiếp theo
+                List<CompletableFuture<Void>> tasks = new ArrayList<>(userIds.size());
+                for (Long userId : userIds) {
+                    tasks.add(CompletableFuture.runAsync(() -> rebuildQuietly(userId), pool));
+                }
+                CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+                afterId = userIds.get(userIds.size() - 1);
+                lastUserId.set(afterId);
+            }
+            logger.info("Đã tính lại thống kê của {} người dùng ({} lỗi)", rebuiltUsers.sum(), failedUsers.sum());
+        } catch (RuntimeException e) {
+            lastError.set(e.getMessage());
+            logger.error("Lỗi khi tính lại thống kê người dùng: {}", e.getMessage(), e);
+        } finally {
+            pool.shutdownNow();
+            finishedAt.set(LocalDateTime.now());
+            rebuilding.set(false);
+        }
+    }
+
+    private void rebuildQuietly(long userId) {
+        try {
+            rebuild(userId);
+            rebuiltUsers.increment();
+        } catch (RuntimeException e) {
+            failedUsers.increment();
+            lastError.set(e.getMessage());
+            logger.warn("Không thể tính lại thống kê của người dùng {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Tạo dòng thống kê và tính từ lịch sử trong transaction riêng; bỏ qua nếu luồng/node khác
+     * đã tạo trước (dòng đó đã đúng vì bài nộp chỉ được cộng sau khi dòng tồn tại)
+     */
+    private void createFromHistory(long userId) {
+        try {
+            requiresNew().executeWithoutResult(status -> {
+                writer.insertEmpty(userId);
+                writer.recompute(userId);
+            });
+            createdFromHistory.increment();
+        } catch (DataIntegrityViolationException e) {
+            // Dòng đã được tạo bởi luồng khác
+        }
+    }
+
+    private TransactionTemplate requiresNew() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -0,0 +1,266 @@
+package com.hungtv.toeic.be.session;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.repositories.ExamSessionRepository;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Theo dõi hạn nộp của các lượt làm bài đang diễn ra bằng một hashed timing wheel.
+ *
+ * Đặt/hủy hạn là O(1) và không cần luồng hay truy vấn database riêng cho từng lượt làm bài:
+ * một luồng duy nhất quay bánh xe mỗi tick và chuyển các lượt làm bài hết hạn cho bộ xử lý
+ * hết hạn (tự động nộp bài) chạy trên một pool nhỏ. Bánh xe chỉ nằm trong bộ nhớ; khi khởi
+ * động nó được dựng lại từ hạn nộp đã lưu của các lượt làm bài còn đang diễn ra.
+ */
+@Component
+public class ExamDeadlineScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ExamDeadlineScheduler.class);
+
+    // Số giây của cửa sổ tính số lượt hết hạn mỗi giây
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    @Autowired
+    private ExamSessionRepository sessionRepository;
+
+    @Value("${app.exam-session.deadline-tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${app.exam-session.deadline-wheel-size:512}")
+    private int wheelSize;
+
+    // Thời gian chờ thêm sau hạn nộp cho các câu trả lời gửi sát giờ
+    @Value("${app.exam-session.deadline-grace-seconds:5}")
+    private long graceSeconds;
+
+    // Thời gian chờ trước khi thử tự động nộp bài lại khi lần trước thất bại
+    @Value("${app.exam-session.auto-finalize-retry-seconds:10}")
+    private long retrySeconds;
+
+    @Value("${app.exam-session.auto-finalize-threads:2}")
+    private int finalizeThreads;
+
+    @Value("${app.exam-session.deadline-rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    private TimingWheel wheel;
+    private ExecutorService finalizer;
+    private Thread ticker;
+    private volatile boolean running;
+    private volatile LongConsumer expiryHandler;
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder scheduled = counters.register("scheduled");
+    private final LongAdder cancelled = counters.register("cancelled");
+    private final LongAdder expired = counters.register("expired");
+    private final LongAdder handlerFailures = counters.register("handlerFailures");
+    private final AtomicLong rebuilt = new AtomicLong();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+    private final AtomicLong lastTickLagMillis = new AtomicLong();
+    // Tổng số lượt hết hạn tại mỗi giây gần đây (vòng tròn), chỉ luồng quay bánh xe ghi
+    private final long[] expiredAtSecond = new long[RATE_WINDOW_SECONDS];
+    private final AtomicLong expiriesPerWindow = new AtomicLong();
+    private long lastSampledSecond;
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+        AtomicInteger threadNumber = new AtomicInteger();
+        finalizer = Executors.newFixedThreadPool(Math.max(1, finalizeThreads), runnable -> {
+            Thread thread = new Thread(runnable, "exam-auto-finalize-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        running = true;
+        ticker = new Thread(this::run, "exam-deadline-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+        finalizer.shutdown();
+        try {
+            finalizer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Đặt bộ xử lý lượt làm bài hết hạn (nhận ID lượt làm bài, chạy trên pool tự động nộp bài)
+     *
+     * @param handler Bộ xử lý
+     */
+    public void setExpiryHandler(LongConsumer handler) {
+        this.expiryHandler = handler;
+    }
+
+    /**
+     * Đặt (hoặc đặt lại) hạn nộp cho lượt làm bài
+     *
+     * @param sessionId ID lượt làm bài
+     * @param expiresAt Hạn nộp, null nếu không giới hạn thời gian
+     */
+    public void schedule(long sessionId, LocalDateTime expiresAt) {
+        if (expiresAt == null) {
+            return;
+        }
+        wheel.schedule(sessionId, toEpochMillis(expiresAt) + TimeUnit.SECONDS.toMillis(graceSeconds));
+        scheduled.increment();
+    }
+
+    /**
+     * Hủy hạn nộp (lượt làm bài đã kết thúc)
+     *
+     * @param sessionId ID lượt làm bài
+     */
+    public void cancel(long sessionId) {
+        if (wheel.cancel(sessionId)) {
+            cancelled.increment();
+        }
+    }
+
+    /**
+     * Thống kê hoạt động
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeSessions", wheel.size());
+        stats.put("tickMillis", wheel.getTickMillis());
+        stats.put("wheelSize", wheel.getWheelSize());
+        counters.putInto(stats);
+        stats.put("expiriesPerSecond", expiriesPerWindow.get() / (double) RATE_WINDOW_SECONDS);
+        stats.put("lastTickLagMillis", lastTickLagMillis.get());
+        stats.put("rebuiltSessions", rebuilt.get());
+        stats.put("lastRebuildMillis", lastRebuildMillis.get());
+        return stats;
+    }
+
+    /**
+     * Dựng lại bánh xe từ hạn nộp đã lưu, đọc theo lô (keyset). Lượt làm bài đã quá hạn
+     * trong lúc ứng dụng dừng sẽ hết hạn ở tick đầu tiên.
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try {
+            Long afterId = 0L;
+            while (true) {
+                List<ExamSessionRepository.Deadline> deadlines = sessionRepository
+                        .findActiveDeadlinesAfter(afterId, PageRequest.ofSize(rebuildBatchSize));
+                if (deadlines.isEmpty()) {
+                    break;
+                }
+                for (ExamSessionRepository.Deadline deadline : deadlines) {
+                    schedule(deadline.getId(), deadline.getExpiresAt());
+                }
+                count += deadlines.size();
+                afterId = deadlines.get(deadlines.size() - 1).getId();
+            }
+            rebuilt.set(count);
+            lastRebuildMillis.set(System.currentTimeMillis() - start);
+            logger.info("Đã dựng lại hạn nộp của {} lượt làm bài trong {} ms", count, lastRebuildMillis.get());
+        } catch (RuntimeException e) {
+            logger.error("Lỗi khi dựng lại hạn nộp của các lượt làm bài: {}", e.getMessage(), e);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long now = System.currentTimeMillis();
+            long nextTick = (now / tickMillis + 1) * tickMillis;
+            try {
+                Thread.sleep(nextTick - now);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            }
+            long tickTime = System.currentTimeMillis();
+            lastTickLagMillis.set(Math.max(0, tickTime - nextTick));
+            for (long sessionId : wheel.advance(tickTime)) {
+                expired.increment();
+                dispatch(sessionId);
+            }
+            sampleRate(tickTime);
+        }
+    }
+
+    private void dispatch(long sessionId) {
+        LongConsumer handler = expiryHandler;
+        if (handler == null) {
+            return;
+        }
+        try {
+            finalizer.execute(() -> {
+                try {
+                    handler.accept(sessionId);
+                } catch (RuntimeException e) {
+                    // Ví dụ hàng đợi ghi bài nộp đầy: thử lại sau
+                    handlerFailures.increment();
+                    logger.warn("Không thể tự động nộp lượt làm bài {}, sẽ thử lại: {}", sessionId, e.getMessage());
+                    wheel.schedule(sessionId, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(retrySeconds));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Đang tắt ứng dụng: hạn nộp được dựng lại ở lần khởi động sau
+        }
+    }
+
+    private void sampleRate(long nowMillis) {
+        long second = nowMillis / 1000;
+        if (second == lastSampledSecond) {
+            return;
+        }
+        long total = expired.sum();
+        // Bỏ qua các giây không có tick (tick dài hơn 1 giây): dùng tổng hiện tại cho các giây đó
+        long from = Math.max(lastSampledSecond + 1, second - RATE_WINDOW_SECONDS + 1);
+        for (long s = from; s <= second; s++) {
+            expiredAtSecond[(int) (s % RATE_WINDOW_SECONDS)] = total;
+        }
+        lastSampledSecond = second;
+        long oldest = expiredAtSecond[(int) ((second + 1) % RATE_WINDOW_SECONDS)];
+        expiriesPerWindow.set(total - oldest);
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,392 @@
+package com.hungtv.toeic.be.session;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.models.ExamSession;
+import com.hungtv.toeic.be.repositories.ExamSessionRepository;
+import com.hungtv.toeic.be.repositories.ExamSessionSheetWriter;
+import com.hungtv.toeic.be.scoring.AnswerKey;
+import com.hungtv.toeic.be.scoring.AnswerKeyCache;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Giữ các lượt làm bài đang diễn ra trong bộ nhớ và lưu phiếu trả lời xuống database theo lô.
+ *
+ * Mỗi lần người dùng chọn đáp án chỉ sửa một byte trong bộ nhớ và đánh dấu lượt làm bài là
+ * dirty; cứ mỗi flush-interval-ms, tất cả phiếu trả lời có thay đổi được ghi trong một JDBC
+ * batch, nên nhiều lần chọn đáp án liên tiếp chỉ tốn một câu UPDATE. Khi bị mất (khởi động
+ * lại, hoặc đã bị bỏ khỏi bộ nhớ vì không hoạt động) lượt làm bài được nạp lại từ database;
+ * tối đa flush-interval-ms thay đổi cuối có thể bị mất nếu tiến trình chết đột ngột.
+ *
+ * Lượt làm bài bị bỏ khỏi bộ nhớ vẫn giữ hạn nộp trong ExamDeadlineScheduler.
+ *
+ * Trạng thái chỉ nằm trên node hiện tại: khi chạy nhiều node cần sticky session theo lượt làm bài.
+ */
+@Component
+public class ExamSessionStore {
+    private static final Logger logger = LoggerFactory.getLogger(ExamSessionStore.class);
+
+    @Autowired
+    private ExamSessionRepository sessionRepository;
+
+    @Autowired
+    private ExamSessionSheetWriter sheetWriter;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ExamDeadlineScheduler deadlineScheduler;
+
+    @Value("${app.exam-session.flush-interval-ms:3000}")
+    private long flushIntervalMs;
+
+    // Lượt làm bài không có thay đổi trong khoảng này được bỏ khỏi bộ nhớ (vẫn nạp lại được)
+    @Value("${app.exam-session.idle-evict-minutes:30}")
+    private long idleEvictMinutes;
+
+    private final ConcurrentMap<Long, LiveExamSession> sessions = new ConcurrentHashMap<>();
+    private final Set<Long> dirtySessions = ConcurrentHashMap.newKeySet();
+    // Lượt làm bài đang được nạp từ database, theo ID
+    private final ConcurrentMap<Long, Loading> inFlight = new ConcurrentHashMap<>();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder answerUpdates = counters.register("answerUpdates");
+    private final LongAdder flushes = counters.register("flushes");
+    private final LongAdder flushedSheets = counters.register("flushedSheets");
+    private final LongAdder flushFailures = counters.register("flushFailures");
+    private final LongAdder loads = counters.register("loads");
+    private final LongAdder remaps = counters.register("remaps");
+    private final LongAdder evictions = counters.register("evictions");
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+
+    /**
+     * Đưa lượt làm bài mới bắt đầu vào bộ nhớ
+     *
+     * @param session Lượt làm bài
+     */
+    public void register(LiveExamSession session) {
+        sessions.put(session.getId(), session);
+        deadlineScheduler.schedule(session.getId(), session.getExpiresAt());
+    }
+
+    /**
+     * Lấy lượt làm bài đang diễn ra, nạp từ database nếu chưa có trong bộ nhớ.
+     * Việc lấy và việc bỏ khỏi bộ nhớ khi không hoạt động được tuần tự hóa trên cùng một khóa
+     * của map, nên lượt làm bài vừa lấy không bị bỏ ngay sau đó. Việc nạp (truy vấn, ánh xạ lại
+     * phiếu trả lời) chạy ngoài map: mỗi lượt làm bài chỉ một request nạp, các request khác chờ
+     * kết quả của nó, và không request nào giữ khóa của map trong lúc truy cập database.
+     *
+     * @param sessionId ID lượt làm bài
+     * @return LiveExamSession, null nếu không tồn tại hoặc đã kết thúc
+     */
+    public LiveExamSession acquire(long sessionId) {
+        LiveExamSession current = sessions.computeIfPresent(sessionId, (id, session) -> {
+            session.touch();
+            return session;
+        });
+        if (current != null) {
+            return current;
+        }
+
+        Loading loading = new Loading();
+        Loading existing = inFlight.putIfAbsent(sessionId, loading);
+        if (existing != null) {
+            // Một request khác đang nạp cùng lượt làm bài, chờ kết quả của nó
+            return await(existing.future);
+        }
+        try {
+            LiveExamSession loaded = load(sessionId);
+            LiveExamSession session = loaded != null ? publish(loaded, loading) : null;
+            loading.future.complete(session);
+            return session;
+        } catch (RuntimeException e) {
+            loading.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(sessionId, loading);
+        }
+    }
+
+    /**
+     * Ghi nhận lượt làm bài vừa có thay đổi, sẽ được lưu ở lần flush tiếp theo
+     *
+     * @param session Lượt làm bài
+     * @param changes Số câu trả lời đã thay đổi
+     */
+    public void markDirty(LiveExamSession session, int changes) {
+        answerUpdates.add(changes);
+        if (changes > 0) {
+            dirtySessions.add(session.getId());
+        }
+    }
+
+    /**
+     * Khóa lượt làm bài để kết thúc: từ chối mọi thay đổi sau đó
+     *
+     * @param session Lượt làm bài
+     * @return Phiếu trả lời cuối cùng, null nếu lượt làm bài đang được kết thúc ở nơi khác
+     */
+    public byte[] close(LiveExamSession session) {
+        byte[] sheet = session.close();
+        dirtySessions.remove(session.getId());
+        return sheet;
+    }
+
+    /**
+     * Mở lại lượt làm bài khi việc kết thúc thất bại (ví dụ hàng đợi ghi bài nộp đầy)
+     *
+     * @param session Lượt làm bài
+     */
+    public void reopen(LiveExamSession session) {
+        session.reopen();
+        dirtySessions.add(session.getId());
+    }
+
+    /**
+     * Bỏ lượt làm bài đã kết thúc khỏi bộ nhớ
+     *
+     * @param sessionId ID lượt làm bài
+     */
+    public void remove(long sessionId) {
+        // Đánh dấu trước khi bỏ khỏi map: lần nạp đang chạy sẽ thấy cờ sau khi đưa vào map
+        Loading loading = inFlight.get(sessionId);
+        if (loading != null) {
+            loading.removed = true;
+        }
+        sessions.remove(sessionId);
+        dirtySessions.remove(sessionId);
+        deadlineScheduler.cancel(sessionId);
+    }
+
+    /**
+     * Lưu tất cả phiếu trả lời có thay đổi trong một JDBC batch, sau đó bỏ các lượt làm bài
+     * không hoạt động khỏi bộ nhớ
+     */
+    @Scheduled(fixedDelayString = "${app.exam-session.flush-interval-ms:3000}")
+    public void flush() {
+        if (!dirtySessions.isEmpty()) {
+            flushDirty();
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDirty();
+    }
+
+    private void flushDirty() {
+        int capacity = dirtySessions.size();
+        if (capacity == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        long[] ids = new long[capacity];
+        byte[][] sheets = new byte[capacity][];
+        int[] answeredCounts = new int[capacity];
+        LiveExamSession[] drained = new LiveExamSession[capacity];
+        int count = 0;
+
+        Iterator<Long> iterator = dirtySessions.iterator();
+        while (iterator.hasNext() && count < capacity) {
+            Long id = iterator.next();
+            iterator.remove();
+            LiveExamSession session = sessions.get(id);
+            byte[] sheet = session != null ? session.drainDirty() : null;
+            if (sheet == null) {
+                continue;
+            }
+            ids[count] = id;
+            sheets[count] = sheet;
+            answeredCounts[count] = countAnswered(sheet);
+            drained[count] = session;
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        try {
+            sheetWriter.updateAll(ids, sheets, answeredCounts, count, LocalDateTime.now());
+            flushes.increment();
+            flushedSheets.add(count);
+            lastFlushMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (DataAccessException e) {
+            // Giữ lại thay đổi để thử lại ở lần flush sau
+            flushFailures.increment();
+            for (int i = 0; i < count; i++) {
+                drained[i].markDirty();
+                dirtySessions.add(ids[i]);
+            }
+            logger.warn("Không thể lưu {} phiếu trả lời, sẽ thử lại: {}", count, e.getMessage());
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.MINUTES.toNanos(idleEvictMinutes);
+        for (Long id : sessions.keySet()) {
+            sessions.computeIfPresent(id, (key, session) -> {
+                if (session.isIdle(cutoff) && !dirtySessions.contains(key)) {
+                    evictions.increment();
+                    return null;
+                }
+                return session;
+            });
+        }
+    }
+
+    /**
+     * Đưa lượt làm bài vừa nạp vào bộ nhớ (giữ bản đã có nếu request khác đưa vào trước).
+     * Nếu lượt làm bài bị kết thúc và bỏ khỏi bộ nhớ trong lúc nạp, bản vừa nạp đã cũ và bị bỏ.
+     */
+    private LiveExamSession publish(LiveExamSession loaded, Loading loading) {
+        LiveExamSession existing = sessions.putIfAbsent(loaded.getId(), loaded);
+        if (existing != null) {
+            existing.touch();
+            return existing;
+        }
+        if (loading.removed) {
+            sessions.remove(loaded.getId(), loaded);
+            deadlineScheduler.cancel(loaded.getId());
+            return null;
+        }
+        return loaded;
+    }
+
+    private static LiveExamSession await(CompletableFuture<LiveExamSession> future) {
+        try {
+            LiveExamSession session = future.join();
+            if (session != null) {
+                session.touch();
+            }
+            return session;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Nạp lượt làm bài đang diễn ra từ database. Nếu nội dung bài thi đã thay đổi kể từ khi bắt
+     * đầu, phiếu trả lời được ánh xạ lại theo ID câu hỏi sang vị trí của đáp án hiện hành
+     * (câu trả lời cho câu hỏi đã bị xóa khỏi bài thi bị bỏ).
+     */
+    private LiveExamSession load(long sessionId) {
+        ExamSession entity = sessionRepository.findById(sessionId).orElse(null);
+        if (entity == null || entity.getStatus() != ExamSession.Status.IN_PROGRESS) {
+            return null;
+        }
+        loads.increment();
+        long testId = entity.getTest().getId();
+        AnswerKey key = answerKeyCache.get(testId);
+        byte[] sheet = entity.getAnswerSheet();
+        if (entity.getKeyVersion() != key.getVersion() || sheet.length != key.size()) {
+            long[] layout = decodeLayout(entity.getQuestionLayout());
+            byte[] remapped = new byte[key.size()];
+            for (int i = 0; i < layout.length && i < sheet.length; i++) {
+                int index = key.indexOf(layout[i]);
+                if (sheet[i] != 0 && index >= 0) {
+                    remapped[index] = sheet[i];
+                }
+            }
+            sheet = remapped;
+            entity.setKeyVersion(key.getVersion());
+            entity.setQuestionLayout(encodeLayout(key));
+            entity.setAnswerSheet(remapped);
+            entity.setAnsweredCount(countAnswered(remapped));
+            sessionRepository.save(entity);
+            remaps.increment();
+        }
+        deadlineScheduler.schedule(entity.getId(), entity.getExpiresAt());
+        return new LiveExamSession(entity.getId(), entity.getUser().getId(), testId, key, sheet,
+                entity.getStartedAt(), entity.getExpiresAt());
+    }
+
+    /**
+     * Thống kê hoạt động
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("liveSessions", sessions.size());
+        stats.put("dirtySessions", dirtySessions.size());
+        stats.put("flushIntervalMs", flushIntervalMs);
+        counters.putInto(stats);
+        stats.put("lastFlushMillis", lastFlushMillis.get());
+        return stats;
+    }
+
+    /**
+     * Danh sách ID câu hỏi theo vị trí của đáp án (8 byte mỗi câu, big-endian)
+     *
+     * @param key Đáp án
+     * @return Mảng byte
+     */
+    public static byte[] encodeLayout(AnswerKey key) {
+        ByteBuffer buffer = ByteBuffer.allocate(key.size() * Long.BYTES);
+        for (int i = 0; i < key.size(); i++) {
+            buffer.putLong(key.questionIdAt(i));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Giải mã danh sách ID câu hỏi (ngược với encodeLayout)
+     *
+     * @param layout Mảng byte
+     * @return ID câu hỏi theo vị trí
+     */
+    public static long[] decodeLayout(byte[] layout) {
+        ByteBuffer buffer = ByteBuffer.wrap(layout);
+        long[] ids = new long[layout.length / Long.BYTES];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = buffer.getLong();
+        }
+        return ids;
+    }
+
+    /**
+     * Một lần nạp đang chạy: kết quả cho các request chờ và cờ báo lượt làm bài đã bị bỏ
+     */
+    private static final class Loading {
+        private final CompletableFuture<LiveExamSession> future = new CompletableFuture<>();
+        private volatile boolean removed;
+    }
+
+    static int countAnswered(byte[] sheet) {
+        int count = 0;
+        for (byte code : sheet) {
+            if (code != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,172 @@
+package com.hungtv.toeic.be.session;
+
+import java.time.LocalDateTime;
+
+import com.hungtv.toeic.be.scoring.AnswerKey;
+
+/**
+ * Trạng thái trong bộ nhớ của một lượt làm bài đang diễn ra.
+ *
+ * Phiếu trả lời là một byte cho mỗi câu hỏi theo vị trí trong AnswerKey (0 = chưa trả lời,
+ * 1..26 = 'A'..'Z'), nên ghi một câu trả lời chỉ là một phép gán mảng. Các thao tác đồng bộ
+ * trên chính đối tượng; sau khi close() mọi thay đổi đều bị từ chối.
+ */
+public final class LiveExamSession {
+
+    private final long id;
+    private final long userId;
+    private final long testId;
+    private final AnswerKey key;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime expiresAt;
+
+    private final byte[] sheet;
+    private int answeredCount;
+    // Có thay đổi chưa được lưu xuống database
+    private boolean dirty;
+    private boolean closed;
+    private volatile long lastAccessNanos;
+
+    public LiveExamSession(long id, long userId, long testId, AnswerKey key, byte[] sheet,
+                           LocalDateTime startedAt, LocalDateTime expiresAt) {
+        this.id = id;
+        this.userId = userId;
+        this.testId = testId;
+        this.key = key;
+        this.sheet = sheet;
+        this.startedAt = startedAt;
+        this.expiresAt = expiresAt;
+        this.answeredCount = ExamSessionStore.countAnswered(sheet);
+        this.lastAccessNanos = System.nanoTime();
+    }
+
+    /**
+     * Ghi câu trả lời tại vị trí index
+     *
+     * @param index Vị trí câu hỏi trong AnswerKey
+     * @param answerCode Mã câu trả lời, 0 để xóa câu trả lời
+     * @return true nếu phiếu trả lời thay đổi
+     * @throws IllegalStateException nếu lượt làm bài đã kết thúc
+     */
+    public synchronized boolean setAnswer(int index, byte answerCode) {
+        if (closed) {
+            throw new IllegalStateException("Lượt làm bài đã kết thúc");
+        }
+        lastAccessNanos = System.nanoTime();
+        byte previous = sheet[index];
+        if (previous == answerCode) {
+            return false;
+        }
+        if (previous == 0) {
+            answeredCount++;
+        } else if (answerCode == 0) {
+            answeredCount--;
+        }
+        sheet[index] = answerCode;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Bản sao phiếu trả lời hiện tại
+     */
+    public synchronized byte[] copySheet() {
+        lastAccessNanos = System.nanoTime();
+        return sheet.clone();
+    }
+
+    /**
+     * Lấy bản sao phiếu trả lời để lưu nếu có thay đổi, đồng thời xóa cờ dirty
+     *
+     * @return Bản sao phiếu trả lời, null nếu không có gì cần lưu
+     */
+    synchronized byte[] drainDirty() {
+        if (!dirty || closed) {
+            return null;
+        }
+        dirty = false;
+        return sheet.clone();
+    }
+
+    /**
+     * Đánh dấu lại cần lưu (khi lần lưu trước bị lỗi)
+     */
+    synchronized void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Kết thúc lượt làm bài: từ chối mọi thay đổi sau đó
+     *
+     * @return Phiếu trả lời cuối cùng, null nếu lượt làm bài đã được kết thúc trước đó
+     */
+    synchronized byte[] close() {
+        if (closed) {
+            return null;
+        }
+        closed = true;
+        dirty = false;
+        return sheet.clone();
+    }
+
+    /**
+     * Mở lại lượt làm bài đã close() (việc kết thúc thất bại); phiếu trả lời cần được lưu lại
+     */
+    synchronized void reopen() {
+        closed = false;
+        dirty = true;
+    }
+
+    void touch() {
+        lastAccessNanos = System.nanoTime();
+    }
+
+    /**
+     * Không có truy cập nào kể từ cutoff (theo System.nanoTime) và không còn thay đổi chưa lưu
+     */
+    synchronized boolean isIdle(long cutoffNanos) {
+        return !dirty && lastAccessNanos - cutoffNanos < 0;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public synchronized int getAnsweredCount() {
+        return answeredCount;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getTestId() {
+        return testId;
+    }
+
+    public AnswerKey getKey() {
+        return key;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Lượt làm bài đã quá hạn nộp
+     *
+     * @param now Thời điểm hiện tại
+     * @return true nếu đã quá hạn
+     */
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,158 @@
+package com.hungtv.toeic.be.session;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel cho hạn nộp bài: mỗi ô (bucket) là một danh sách liên kết đôi các mục
+ * có hạn rơi vào cùng tick modulo số ô. Đặt và hủy hạn là O(1); mỗi tick chỉ duyệt một ô,
+ * và mục có hạn ở các vòng sau được giữ lại cho tới vòng của nó.
+ *
+ * Mỗi ID chỉ có một hạn: đặt lại hạn thay thế hạn cũ. Các phương thức đồng bộ trên chính
+ * đối tượng (việc đặt hạn đến từ luồng request, việc quay bánh xe từ một luồng riêng).
+ */
+public final class TimingWheel {
+
+    private final long tickMillis;
+    private final long originMillis;
+    private final Entry[] buckets;
+    private final int mask;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // Tick tiếp theo cần xử lý (các tick nhỏ hơn đã được xử lý)
+    private long currentTick;
+
+    /**
+     * @param tickMillis Độ dài một tick (ms)
+     * @param wheelSize Số ô, được làm tròn lên lũy thừa của 2
+     * @param originMillis Thời điểm ứng với tick 0
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long originMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis và wheelSize phải lớn hơn 0");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.originMillis = originMillis;
+        this.buckets = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Đặt (hoặc đặt lại) hạn cho ID; hạn đã qua sẽ hết hạn ở tick tiếp theo
+     *
+     * @param id ID
+     * @param deadlineMillis Hạn (epoch millis)
+     */
+    public synchronized void schedule(long id, long deadlineMillis) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            unlink(previous);
+        }
+        // Làm tròn lên: không bao giờ hết hạn sớm hơn deadline
+        long deadlineTick = Math.max(Math.floorDiv(deadlineMillis - originMillis + tickMillis - 1, tickMillis),
+                currentTick);
+        Entry entry = new Entry(id, deadlineTick);
+        link(entry);
+        entries.put(id, entry);
+    }
+
+    /**
+     * Hủy hạn của ID
+     *
+     * @param id ID
+     * @return true nếu ID đang có hạn
+     */
+    public synchronized boolean cancel(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Quay bánh xe tới thời điểm nowMillis, lấy ra các ID đã hết hạn
+     *
+     * @param nowMillis Thời điểm hiện tại (epoch millis)
+     * @return ID đã hết hạn (đã bị bỏ khỏi bánh xe)
+     */
+    public synchronized long[] advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - originMillis, tickMillis);
+        if (targetTick < currentTick) {
+            return new long[0];
+        }
+        long[] expired = new long[8];
+        int count = 0;
+        // Bị trễ từ một vòng trở lên (ví dụ GC dài): mỗi ô chỉ cần duyệt một lần
+        long ticks = Math.min(targetTick - currentTick + 1, buckets.length);
+        for (long tick = targetTick - ticks + 1; tick <= targetTick; tick++) {
+            Entry entry = buckets[(int) (tick & mask)];
+            while (entry != null) {
+                Entry next = entry.next;
+                if (entry.deadlineTick <= targetTick) {
+                    unlink(entry);
+                    entries.remove(entry.id);
+                    if (count == expired.length) {
+                        expired = Arrays.copyOf(expired, count * 2);
+                    }
+                    expired[count++] = entry.id;
+                }
+                entry = next;
+            }
+        }
+        currentTick = targetTick + 1;
+        return Arrays.copyOf(expired, count);
+    }
+
+    /**
+     * Số ID đang có hạn
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public int getWheelSize() {
+        return buckets.length;
+    }
+
+    private void link(Entry entry) {
+        int index = (int) (entry.deadlineTick & mask);
+        Entry head = buckets[index];
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        buckets[index] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            buckets[(int) (entry.deadlineTick & mask)] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final long deadlineTick;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(long id, long deadlineTick) {
+            this.id = id;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.hungtv.toeic.be.statistics;
+
+import java.util.concurrent.RecursiveTask;
+
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+import com.hungtv.toeic.be.scoring.SheetLayout;
+
+/**
+ * Một lô câu trả lời đọc từ database, chờ được cộng dồn song song: hoặc các phiếu trả lời nén
+ * (mỗi phần tử là một bài nộp), hoặc các dòng user_answers (mỗi phần tử là một câu trả lời).
+ *
+ * Luồng đọc điền lô rồi giao cho ForkJoinPool qua task(); sau đó lô không được sửa nữa.
+ */
+public final class ItemResponseChunk {
+
+    // Số phần tử tối đa mỗi tác vụ con xử lý trực tiếp (phiếu nén nặng hơn dòng nhiều lần)
+    private static final int SHEET_THRESHOLD = 64;
+    private static final int ROW_THRESHOLD = 4096;
+
+    private final boolean sheets;
+    private final int[] scores;
+    private final SheetLayout[] layouts;
+    private final byte[][] answerSheets;
+    private final byte[][] correctBits;
+    private final long[] questionIds;
+    private final boolean[] correct;
+    private int size;
+
+    private ItemResponseChunk(boolean sheets, int capacity) {
+        this.sheets = sheets;
+        this.scores = new int[capacity];
+        this.layouts = sheets ? new SheetLayout[capacity] : null;
+        this.answerSheets = sheets ? new byte[capacity][] : null;
+        this.correctBits = sheets ? new byte[capacity][] : null;
+        this.questionIds = sheets ? null : new long[capacity];
+        this.correct = sheets ? null : new boolean[capacity];
+    }
+
+    /**
+     * Lô các phiếu trả lời nén
+     */
+    public static ItemResponseChunk ofSheets(int capacity) {
+        return new ItemResponseChunk(true, capacity);
+    }
+
+    /**
+     * Lô các dòng câu trả lời
+     */
+    public static ItemResponseChunk ofRows(int capacity) {
+        return new ItemResponseChunk(false, capacity);
+    }
+
+    public void addSheet(int totalScore, SheetLayout layout, byte[] answerSheet, byte[] bits) {
+        scores[size] = totalScore;
+        layouts[size] = layout;
+        answerSheets[size] = answerSheet;
+        correctBits[size] = bits;
+        size++;
+    }
+
+    public void addRow(int totalScore, long questionId, boolean isCorrect) {
+        scores[size] = totalScore;
+        questionIds[size] = questionId;
+        correct[size] = isCorrect;
+        size++;
+    }
+
+    public boolean isFull() {
+        return size == scores.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tác vụ fork/join cộng dồn toàn bộ lô
+     */
+    public RecursiveTask<ItemStatsAccumulator> task() {
+        return new Aggregation(0, size);
+    }
+
+    private void aggregate(int from, int to, ItemStatsAccumulator accumulator) {
+        for (int i = from; i < to; i++) {
+            if (!sheets) {
+                accumulator.add(questionIds[i], correct[i], scores[i]);
+                continue;
+            }
+            SheetLayout layout = layouts[i];
+            byte[] codes = PackedAnswerSheet.decode(answerSheets[i], layout.size());
+            for (int position = 0; position < codes.length; position++) {
+                if (codes[position] != 0) {
+                    accumulator.add(layout.questionIdAt(position),
+                            PackedAnswerSheet.isCorrect(correctBits[i], position), scores[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Chia đôi khoảng [from, to) đến khi đủ nhỏ, cộng dồn vào bộ riêng của mỗi tác vụ rồi gộp
+     */
+    private final class Aggregation extends RecursiveTask<ItemStatsAccumulator> {
+        private final int from;
+        private final int to;
+
+        private Aggregation(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ItemStatsAccumulator compute() {
+            if (to - from <= (sheets ? SHEET_THRESHOLD : ROW_THRESHOLD)) {
+                int expected = sheets && to > from ? layouts[from].size() : 64;
+                ItemStatsAccumulator accumulator = new ItemStatsAccumulator(expected);
+                aggregate(from, to, accumulator);
+                return accumulator;
+            }
+            int middle = (from + to) >>> 1;
+            Aggregation right = new Aggregation(middle, to);
+            right.fork();
+            ItemStatsAccumulator left = new Aggregation(from, middle).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+}
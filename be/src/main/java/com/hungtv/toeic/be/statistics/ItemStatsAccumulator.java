@@ -0,0 +1,212 @@
+package com.hungtv.toeic.be.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Bộ cộng dồn thống kê câu hỏi theo ID câu hỏi, dùng mảng kiểu nguyên thủy (bảng băm địa chỉ
+ * mở long -> vị trí) thay cho Map<Long, ...> để không tạo đối tượng cho mỗi câu trả lời.
+ *
+ * Mọi tổng đều là số nguyên nên cộng/gộp theo thứ tự nào cũng cho cùng kết quả; không an toàn
+ * khi dùng từ nhiều luồng (mỗi tác vụ dùng bộ của riêng nó rồi gộp lại).
+ */
+public final class ItemStatsAccumulator {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // Bảng băm: khóa -> vị trí + 1 trong các mảng số liệu (0 = ô trống)
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+
+    private long[] questionIds;
+    private long[] responses;
+    private long[] correct;
+    private long[] scoreSum;
+    private long[] scoreSquareSum;
+    private long[] correctScoreSum;
+    private int size;
+
+    public ItemStatsAccumulator() {
+        this(64);
+    }
+
+    public ItemStatsAccumulator(int expectedQuestions) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedQuestions) * 2 - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        slots = new int[capacity];
+        mask = capacity - 1;
+        int entries = Math.max(16, expectedQuestions);
+        questionIds = new long[entries];
+        responses = new long[entries];
+        correct = new long[entries];
+        scoreSum = new long[entries];
+        scoreSquareSum = new long[entries];
+        correctScoreSum = new long[entries];
+    }
+
+    /**
+     * Cộng một câu trả lời
+     *
+     * @param questionId ID câu hỏi
+     * @param isCorrect Câu trả lời đúng không
+     * @param totalScore Điểm tổng của bài nộp
+     */
+    public void add(long questionId, boolean isCorrect, int totalScore) {
+        int index = indexOf(questionId);
+        long score = totalScore;
+        responses[index]++;
+        scoreSum[index] += score;
+        scoreSquareSum[index] += score * score;
+        if (isCorrect) {
+            correct[index]++;
+            correctScoreSum[index] += score;
+        }
+    }
+
+    /**
+     * Gộp các tổng của bộ khác vào bộ này
+     */
+    public void merge(ItemStatsAccumulator other) {
+        for (int i = 0; i < other.size; i++) {
+            int index = indexOf(other.questionIds[i]);
+            responses[index] += other.responses[i];
+            correct[index] += other.correct[i];
+            scoreSum[index] += other.scoreSum[i];
+            scoreSquareSum[index] += other.scoreSquareSum[i];
+            correctScoreSum[index] += other.correctScoreSum[i];
+        }
+    }
+
+    /**
+     * Số câu hỏi đã có câu trả lời
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tổng số câu trả lời đã cộng
+     */
+    public long totalResponses() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += responses[i];
+        }
+        return total;
+    }
+
+    public long questionIdAt(int index) {
+        return questionIds[index];
+    }
+
+    public long responsesAt(int index) {
+        return responses[index];
+    }
+
+    public long correctAt(int index) {
+        return correct[index];
+    }
+
+    public long scoreSumAt(int index) {
+        return scoreSum[index];
+    }
+
+    public long scoreSquareSumAt(int index) {
+        return scoreSquareSum[index];
+    }
+
+    public long correctScoreSumAt(int index) {
+        return correctScoreSum[index];
+    }
+
+    /**
+     * Độ khó: tỉ lệ câu trả lời đúng
+     *
+     * @return Giá trị trong [0, 1], null nếu chưa có câu trả lời
+     */
+    public static Double pValue(long responses, long correct) {
+        return responses > 0 ? (double) correct / responses : null;
+    }
+
+    /**
+     * Độ phân biệt: hệ số tương quan điểm-nhị phân giữa đúng/sai và điểm tổng,
+     * (M1 - M0) / s * sqrt(p * (1 - p)) với M1, M0 là điểm tổng trung bình của nhóm trả lời
+     * đúng/sai và s là độ lệch chuẩn điểm tổng. Giá trị âm thường là dấu hiệu đáp án sai.
+     *
+     * @return Giá trị trong [-1, 1], null nếu cả hai nhóm không cùng có mặt hoặc điểm tổng không đổi
+     */
+    public static Double discrimination(long responses, long correct, long scoreSum, long scoreSquareSum,
+                                        long correctScoreSum) {
+        long incorrect = responses - correct;
+        if (correct == 0 || incorrect == 0) {
+            return null;
+        }
+        double n = responses;
+        double variance = (scoreSquareSum - (double) scoreSum * scoreSum / n) / n;
+        if (variance <= 0) {
+            return null;
+        }
+        double meanCorrect = (double) correctScoreSum / correct;
+        double meanIncorrect = (double) (scoreSum - correctScoreSum) / incorrect;
+        double p = correct / n;
+        double r = (meanCorrect - meanIncorrect) / Math.sqrt(variance) * Math.sqrt(p * (1 - p));
+        return Math.max(-1.0, Math.min(1.0, r));
+    }
+
+    private int indexOf(long questionId) {
+        int slot = hash(questionId) & mask;
+        while (true) {
+            long key = keys[slot];
+            if (key == questionId) {
+                return slots[slot] - 1;
+            }
+            if (key == EMPTY) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == questionIds.length) {
+            growEntries();
+        }
+        int index = size++;
+        questionIds[index] = questionId;
+        keys[slot] = questionId;
+        slots[slot] = index + 1;
+        if (size * 2 > keys.length) {
+            rehash();
+        }
+        return index;
+    }
+
+    private void growEntries() {
+        int capacity = questionIds.length * 2;
+        questionIds = Arrays.copyOf(questionIds, capacity);
+        responses = Arrays.copyOf(responses, capacity);
+        correct = Arrays.copyOf(correct, capacity);
+        scoreSum = Arrays.copyOf(scoreSum, capacity);
+        scoreSquareSum = Arrays.copyOf(scoreSquareSum, capacity);
+        correctScoreSum = Arrays.copyOf(correctScoreSum, capacity);
+    }
+
+    private void rehash() {
+        int capacity = keys.length * 2;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(questionIds[i]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = questionIds[i];
+            slots[slot] = i + 1;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,209 @@
+package com.hungtv.toeic.be.statistics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bảng xếp hạng của một bài thi: mỗi người dùng chỉ giữ lần làm bài tốt nhất, xếp theo điểm
+ * giảm dần rồi thời điểm đạt điểm đó tăng dần (cùng thời điểm thì theo ID kết quả).
+ *
+ * Thứ tự được giữ trong một cây treap bất biến có đếm kích thước cây con: mỗi lần cập nhật sao
+ * chép O(log n) nút trên đường đi rồi công bố gốc mới qua biến volatile. Người đọc (top N, thứ
+ * hạng O(log n)) làm việc trên ảnh chụp gốc hiện tại nên không bao giờ chờ khóa; chỉ các lần
+ * cập nhật của cùng bài thi phải nối tiếp nhau.
+ */
+public final class Leaderboard {
+
+    /**
+     * Lần làm bài tốt nhất của một người dùng
+     *
+     * @param userId ID người dùng
+     * @param resultId ID kết quả bài thi
+     * @param score Điểm tổng
+     * @param achievedAtMillis Thời điểm nộp bài (epoch millis)
+     */
+    public record Entry(long userId, long resultId, int score, long achievedAtMillis) {
+    }
+
+    /**
+     * Thứ tự xếp hạng: đứng trước = hạng cao hơn
+     */
+    public static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::score).reversed()
+            .thenComparingLong(Entry::achievedAtMillis)
+            .thenComparingLong(Entry::resultId);
+
+    private volatile Node root;
+    private final ConcurrentHashMap<Long, Entry> bestByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Ghi nhận một lần làm bài; chỉ thay lần tốt nhất của người dùng nếu lần này xếp trên
+     *
+     * @param entry Lần làm bài
+     * @return true nếu bảng xếp hạng thay đổi
+     */
+    public synchronized boolean offer(Entry entry) {
+        Entry current = bestByUser.get(entry.userId());
+        if (current != null && ORDER.compare(current, entry) <= 0) {
+            return false;
+        }
+        Node next = root;
+        if (current != null) {
+            next = remove(next, current);
+        }
+        next = insert(next, entry, ThreadLocalRandom.current().nextInt());
+        root = next;
+        bestByUser.put(entry.userId(), entry);
+        return true;
+    }
+
+    /**
+     * Các vị trí đầu bảng
+     *
+     * @param limit Số vị trí tối đa
+     * @return Danh sách theo thứ hạng (hạng 1 trước)
+     */
+    public List<Entry> top(int limit) {
+        Node snapshot = root;
+        List<Entry> entries = new ArrayList<>(Math.min(limit, size(snapshot)));
+        collect(snapshot, limit, entries);
+        return entries;
+    }
+
+    /**
+     * Lần làm bài tốt nhất của người dùng
+     *
+     * @param userId ID người dùng
+     * @return Entry, null nếu người dùng chưa có trong bảng
+     */
+    public Entry bestOf(long userId) {
+        return bestByUser.get(userId);
+    }
+
+    /**
+     * Thứ hạng (bắt đầu từ 1) của một lần làm bài: số lần làm bài xếp trước nó cộng 1
+     *
+     * @param entry Lần làm bài
+     * @return Thứ hạng
+     */
+    public int rankOf(Entry entry) {
+        Node node = root;
+        int before = 0;
+        while (node != null) {
+            if (ORDER.compare(entry, node.entry) <= 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return before + 1;
+    }
+
+    /**
+     * Số người dùng trong bảng xếp hạng
+     */
+    public int size() {
+        return size(root);
+    }
+
+    private static void collect(Node node, int limit, List<Entry> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        collect(node.left, limit, out);
+        if (out.size() < limit) {
+            out.add(node.entry);
+            collect(node.right, limit, out);
+        }
+    }
+
+    private static Node insert(Node node, Entry entry, int priority) {
+        if (node == null) {
+            return new Node(entry, priority, null, null);
+        }
+        if (priority > node.priority) {
+            Node[] parts = split(node, entry);
+            return new Node(entry, priority, parts[0], parts[1]);
+        }
+        if (ORDER.compare(entry, node.entry) < 0) {
+            return node.withLeft(insert(node.left, entry, priority));
+        }
+        return node.withRight(insert(node.right, entry, priority));
+    }
+
+    private static Node remove(Node node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = ORDER.compare(entry, node.entry);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        return cmp < 0 ? node.withLeft(remove(node.left, entry)) : node.withRight(remove(node.right, entry));
+    }
+
+    /**
+     * Tách cây thành [các phần tử xếp trước entry, các phần tử còn lại]
+     */
+    private static Node[] split(Node node, Entry entry) {
+        if (node == null) {
+            return new Node[] { null, null };
+        }
+        if (ORDER.compare(node.entry, entry) < 0) {
+            Node[] parts = split(node.right, entry);
+            return new Node[] { node.withRight(parts[0]), parts[1] };
+        }
+        Node[] parts = split(node.left, entry);
+        return new Node[] { parts[0], node.withLeft(parts[1]) };
+    }
+
+    /**
+     * Ghép hai cây, mọi phần tử của left xếp trước mọi phần tử của right
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.withRight(merge(left.right, right));
+        }
+        return right.withLeft(merge(left, right.left));
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    /**
+     * Nút bất biến của treap
+     */
+    private static final class Node {
+        private final Entry entry;
+        private final int priority;
+        private final Node left;
+        private final Node right;
+        private final int size;
+
+        private Node(Entry entry, int priority, Node left, Node right) {
+            this.entry = entry;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        private Node withLeft(Node newLeft) {
+            return new Node(entry, priority, newLeft, right);
+        }
+
+        private Node withRight(Node newRight) {
+            return new Node(entry, priority, left, newRight);
+        }
+    }
+}
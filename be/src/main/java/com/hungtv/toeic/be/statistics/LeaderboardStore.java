@@ -0,0 +1,142 @@
+package com.hungtv.toeic.be.statistics;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.repositories.TestResultScoreReader;
+import com.hungtv.toeic.be.support.StatsCounters;
+import com.hungtv.toeic.be.support.TransactionCallbacks;
+
+/**
+ * Bảng xếp hạng theo bài thi, giữ trong bộ nhớ.
+ *
+ * Bảng của một bài thi được dựng từ database ở lần đọc đầu tiên bằng một truy vấn đọc theo
+ * luồng; sau đó mỗi bài nộp đã ghi được đưa vào bảng sau khi commit. Bài nộp đến trong lúc
+ * đang dựng cũng được đưa vào: offer giữ lần tốt nhất nên thứ tự và việc trùng lặp không ảnh
+ * hưởng kết quả. Bảng chưa được đọc lần nào thì không cần cập nhật.
+ */
+@Component
+public class LeaderboardStore {
+
+    @Autowired
+    private TestResultScoreReader scoreReader;
+
+    private final ConcurrentHashMap<Long, Board> boards = new ConcurrentHashMap<>();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder offered = counters.register("offered");
+    private final LongAdder changed = counters.register("changed");
+    private final LongAdder loads = counters.register("loads");
+    private final LongAdder loadedRows = counters.register("loadedRows");
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder invalidations = counters.register("invalidations");
+
+    /**
+     * Bảng xếp hạng của bài thi, dựng từ database nếu chưa có
+     *
+     * @param testId ID bài thi
+     * @return Leaderboard
+     */
+    public Leaderboard get(long testId) {
+        Board board = boards.computeIfAbsent(testId, id -> new Board());
+        if (!board.loaded) {
+            load(testId, board);
+        }
+        return board.leaderboard;
+    }
+
+    /**
+     * Đưa bài nộp vào bảng xếp hạng sau khi transaction hiện tại commit (ngay lập tức nếu
+     * không có transaction)
+     *
+     * @param testId ID bài thi
+     * @param userId ID người dùng
+     * @param resultId ID kết quả bài thi
+     * @param totalScore Điểm tổng
+     * @param createdAt Thời điểm nộp bài
+     */
+    public void recordAfterCommit(long testId, long userId, long resultId, int totalScore, LocalDateTime createdAt) {
+        TransactionCallbacks.afterCommit(() -> record(testId, userId, resultId, totalScore, createdAt));
+    }
+
+    /**
+     * Đưa bài nộp đã ghi vào bảng xếp hạng của bài thi (bỏ qua nếu bảng chưa được dựng)
+     */
+    public void record(long testId, long userId, long resultId, int totalScore, LocalDateTime createdAt) {
+        Board board = boards.get(testId);
+        if (board == null) {
+            return;
+        }
+        offered.increment();
+        if (board.leaderboard.offer(new Leaderboard.Entry(userId, resultId, totalScore, toMillis(createdAt)))) {
+            changed.increment();
+        }
+    }
+
+    /**
+     * Bỏ bảng xếp hạng của bài thi (ví dụ sau khi điểm đã lưu bị chấm lại); lần đọc sau dựng lại từ database
+     *
+     * @param testId ID bài thi
+     */
+    public void invalidate(long testId) {
+        if (boards.remove(testId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Thống kê hoạt động
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        long entries = 0;
+        for (Board board : boards.values()) {
+            entries += board.leaderboard.size();
+        }
+        long loadCount = loads.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("boards", boards.size());
+        stats.put("entries", entries);
+        counters.putInto(stats);
+        stats.put("averageLoadMs", StatsCounters.averageMillis(loadNanos.sum(), loadCount));
+        return stats;
+    }
+
+    private void load(long testId, Board board) {
+        // Chỉ người đọc đầu tiên dựng bảng; bài nộp vẫn được đưa vào bảng trong lúc dựng
+        synchronized (board) {
+            if (board.loaded) {
+                return;
+            }
+            long start = System.nanoTime();
+            long[] rows = new long[1];
+            scoreReader.forEachScore(testId, rs -> {
+                board.leaderboard.offer(new Leaderboard.Entry(rs.getLong(1), rs.getLong(2), rs.getInt(3),
+                        toMillis(rs.getTimestamp(4).toLocalDateTime())));
+                rows[0]++;
+            });
+            board.loaded = true;
+            loads.increment();
+            loadedRows.add(rows[0]);
+            loadNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Board {
+        private final Leaderboard leaderboard = new Leaderboard();
+        private volatile boolean loaded;
+    }
+}
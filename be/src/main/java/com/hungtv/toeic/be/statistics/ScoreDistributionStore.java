@@ -0,0 +1,499 @@
+package com.hungtv.toeic.be.statistics;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.repositories.ScoreHistogramWriter;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.support.StatsCounters;
+import com.hungtv.toeic.be.support.TransactionCallbacks;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Phân bố điểm theo bài thi (điểm tổng, điểm quy đổi Listening/Reading), giữ trong bộ nhớ và
+ * lưu bền vững theo từng node.
+ *
+ * Mỗi bài nộp đã ghi được cộng vào số đếm chờ ghi của node. Định kỳ node cộng số đếm chờ vào
+ * dòng score_histogram_shards của chính nó, rồi đọc lại tổng mọi dòng (của mọi node) làm phân
+ * bố đã lưu. Phân bố trả về = phân bố đã lưu + số đếm chờ ghi của node hiện tại, nên bài nộp
+ * trên node khác xuất hiện sau tối đa một chu kỳ ghi và một chu kỳ đọc lại.
+ *
+ * Số đếm chờ ghi bị mất nếu node dừng đột ngột; việc tính lại từ test_results (startRebuild)
+ * thay mọi dòng của bài thi bằng một dòng đếm lại và sửa các sai lệch đó. Dòng đếm lại ghi ID
+ * kết quả lớn nhất đã đếm; số đếm chờ ghi được giữ kèm ID kết quả, và khi ghi (hoặc đọc lại)
+ * node bỏ các bài nộp có ID không vượt mốc đó vì chúng đã nằm trong số đếm lại. Nhờ vậy số đếm
+ * chờ của node khác, hay bài nộp commit xen giữa flush và lần đếm lại, không bị cộng trùng.
+ */
+@Component
+public class ScoreDistributionStore {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreDistributionStore.class);
+
+    private static final ScoreHistogram.Metric[] METRICS = ScoreHistogram.Metric.values();
+
+    @Autowired
+    private ScoreHistogramWriter writer;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Tên node trong score_histogram_shards; mặc định là hostname
+    @Value("${app.node-id:}")
+    private String configuredNodeId;
+
+    // Chu kỳ đọc lại phân bố của mọi node (ms)
+    @Value("${app.score-histogram.refresh-interval-ms:15000}")
+    private long refreshIntervalMs;
+
+    private String nodeId;
+
+    private final ConcurrentHashMap<Long, TestHistograms> histograms = new ConcurrentHashMap<>();
+    private volatile long lastRefreshMillis;
+
+    private final ExecutorService rebuildWorker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "score-histogram-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder recorded = counters.register("recordedSubmissions");
+    private final LongAdder flushes = counters.register("flushes");
+    private final LongAdder failedFlushes = counters.register("failedFlushes");
+    private final LongAdder refreshes = counters.register("refreshes");
+    private final LongAdder discarded = counters.register("discardedAfterRebuild");
+
+    // Số liệu của lần tính lại gần nhất
+    private final LongAdder rebuiltTests = new LongAdder();
+    private final LongAdder rebuiltSubmissions = new LongAdder();
+    private final AtomicLong lastTestId = new AtomicLong();
+    private final AtomicReference<LocalDateTime> startedAt = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> finishedAt = new AtomicReference<>();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId != null && !configuredNodeId.isBlank() ? configuredNodeId : hostName();
+        if (nodeId.length() > 64) {
+            nodeId = nodeId.substring(0, 64);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onReady() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Không thể nạp phân bố điểm: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cộng một bài nộp đã ghi vào phân bố điểm của bài thi
+     *
+     * @param testId ID bài thi
+     * @param resultId ID kết quả (dùng để bỏ bài nộp đã được tính lại)
+     * @param totalScore Điểm tổng
+     * @param listeningScaledScore Điểm quy đổi Listening
+     * @param readingScaledScore Điểm quy đổi Reading
+     */
+    public void record(long testId, long resultId, int totalScore, int listeningScaledScore, int readingScaledScore) {
+        int[] buckets = new int[METRICS.length];
+        buckets[ScoreHistogram.Metric.TOTAL.ordinal()] = ScoreHistogram.Metric.TOTAL.bucketOf(totalScore);
+        buckets[ScoreHistogram.Metric.LISTENING_SCALED.ordinal()] =
+                ScoreHistogram.Metric.LISTENING_SCALED.bucketOf(listeningScaledScore);
+        buckets[ScoreHistogram.Metric.READING_SCALED.ordinal()] =
+                ScoreHistogram.Metric.READING_SCALED.bucketOf(readingScaledScore);
+        histograms.computeIfAbsent(testId, id -> new TestHistograms()).add(new Pending(resultId, buckets));
+        recorded.increment();
+    }
+
+    /**
+     * Cộng bài nộp vào phân bố điểm sau khi transaction hiện tại commit (ngay lập tức nếu
+     * không có transaction)
+     *
+     * @param testId ID bài thi
+     * @param resultId ID kết quả
+     * @param totalScore Điểm tổng
+     * @param listeningScaledScore Điểm quy đổi Listening
+     * @param readingScaledScore Điểm quy đổi Reading
+     */
+    public void recordAfterCommit(long testId, long resultId, int totalScore, int listeningScaledScore,
+                                  int readingScaledScore) {
+        TransactionCallbacks.afterCommit(
+                () -> record(testId, resultId, totalScore, listeningScaledScore, readingScaledScore));
+    }
+
+    /**
+     * Phân bố điểm hiện tại của bài thi
+     *
+     * @param testId ID bài thi
+     * @param metric Loại điểm
+     * @return ScoreHistogram (rỗng nếu bài thi chưa có bài nộp)
+     */
+    public ScoreHistogram get(long testId, ScoreHistogram.Metric metric) {
+        TestHistograms test = histograms.get(testId);
+        long[] counts = new long[metric.bucketCount()];
+        if (test != null) {
+            long[] persisted = test.persisted[metric.ordinal()];
+            AtomicLongArray pending = test.pending[metric.ordinal()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = persisted[i] + pending.get(i);
+            }
+        }
+        return new ScoreHistogram(metric, counts);
+    }
+
+    /**
+     * Ghi số đếm chờ vào dòng của node, rồi đọc lại phân bố của mọi node khi đến chu kỳ
+     */
+    @Scheduled(fixedDelayString = "${app.score-histogram.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, List<Pending>> drained = new HashMap<>();
+        for (Map.Entry<Long, TestHistograms> entry : histograms.entrySet()) {
+            List<Pending> entries = entry.getValue().drain();
+            if (!entries.isEmpty()) {
+                // Chuyển ngay sang phần đã lưu để phân bố trả về không bị hụt trong lúc ghi
+                entry.getValue().addPersisted(entries, 1);
+                drained.put(entry.getKey(), entries);
+            }
+        }
+
+        if (!drained.isEmpty()) {
+            try {
+                Map<Long, List<Pending>> stale = new TransactionTemplate(transactionManager)
+                        .execute(status -> write(drained));
+                // Bài nộp đã nằm trong dòng đếm lại: bỏ khỏi phần đã lưu, lần đọc lại sẽ có số đúng
+                for (Map.Entry<Long, List<Pending>> entry : stale.entrySet()) {
+                    histograms.get(entry.getKey()).addPersisted(entry.getValue(), -1);
+                    discarded.add(entry.getValue().size());
+                }
+                flushes.increment();
+            } catch (RuntimeException e) {
+                failedFlushes.increment();
+                logger.warn("Không thể ghi phân bố điểm, sẽ thử lại ở chu kỳ sau: {}", e.getMessage());
+                for (Map.Entry<Long, List<Pending>> entry : drained.entrySet()) {
+                    TestHistograms test = histograms.get(entry.getKey());
+                    test.addPersisted(entry.getValue(), -1);
+                    entry.getValue().forEach(test::add);
+                }
+                return;
+            }
+        }
+
+        if (System.currentTimeMillis() - lastRefreshMillis >= refreshIntervalMs) {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.warn("Không thể đọc lại phân bố điểm: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildWorker.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Bắt đầu tính lại phân bố điểm của mọi bài thi từ test_results (chạy nền)
+     *
+     * @return false nếu đang có lần tính lại khác chạy
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuiltTests.reset();
+        rebuiltSubmissions.reset();
+        lastTestId.set(0);
+        lastError.set(null);
+        finishedAt.set(null);
+        startedAt.set(LocalDateTime.now());
+        rebuildWorker.execute(this::runRebuild);
+        return true;
+    }
+
+    /**
+     * Tính lại phân bố điểm của một bài thi từ test_results (ví dụ sau khi chấm lại), chạy trên luồng gọi
+     *
+     * @param testId ID bài thi
+     * @return Số bài nộp đã đếm
+     */
+    public long rebuild(long testId) {
+        // Ghi số đếm chờ trước; bài nộp commit sau đó mà đã được đếm lại sẽ bị bỏ theo mốc ID
+        flush();
+        Long counted = new TransactionTemplate(transactionManager).execute(status -> writer.rebuild(testId));
+        synchronized (this) {
+            refresh();
+        }
+        return counted != null ? counted : 0;
+    }
+
+    /**
+     * Trạng thái của lần tính lại gần nhất
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getRebuildStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", rebuilding.get());
+        status.put("startedAt", startedAt.get());
+        status.put("finishedAt", finishedAt.get());
+        status.put("rebuiltTests", rebuiltTests.sum());
+        status.put("countedSubmissions", rebuiltSubmissions.sum());
+        status.put("lastTestId", lastTestId.get());
+        status.put("lastError", lastError.get());
+        return status;
+    }
+
+    /**
+     * Thống kê hoạt động
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        long pending = 0;
+        for (TestHistograms test : histograms.values()) {
+            pending += test.entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("tests", histograms.size());
+        counters.putInto(stats);
+        stats.put("pendingSubmissions", pending);
+        stats.put("rebuilding", rebuilding.get());
+        return stats;
+    }
+
+    /**
+     * Ghi các bài nộp chưa được tính lại vào dòng của node (chạy trong transaction)
+     *
+     * @return Các bài nộp bị bỏ vì đã nằm trong dòng đếm lại, theo bài thi
+     */
+    private Map<Long, List<Pending>> write(Map<Long, List<Pending>> drained) {
+        // Khóa dòng của các bài thi nên lần đếm lại không thể chạy xen giữa đọc mốc và ghi
+        Map<Long, Long> watermarks = writer.lockWatermarks(drained.keySet());
+        List<ScoreHistogramWriter.Delta> deltas = new ArrayList<>();
+        Map<Long, List<Pending>> stale = new HashMap<>();
+        for (Map.Entry<Long, List<Pending>> entry : drained.entrySet()) {
+            long watermark = watermarks.getOrDefault(entry.getKey(), 0L);
+            long[][] counts = emptyCounts();
+            boolean any = false;
+            for (Pending pending : entry.getValue()) {
+                if (pending.resultId() <= watermark) {
+                    stale.computeIfAbsent(entry.getKey(), id -> new ArrayList<>()).add(pending);
+                    continue;
+                }
+                for (ScoreHistogram.Metric metric : METRICS) {
+                    counts[metric.ordinal()][pending.buckets()[metric.ordinal()]]++;
+                }
+                any = true;
+            }
+            if (any) {
+                for (ScoreHistogram.Metric metric : METRICS) {
+                    deltas.add(new ScoreHistogramWriter.Delta(entry.getKey(), metric, counts[metric.ordinal()]));
+                }
+            }
+        }
+        if (!deltas.isEmpty()) {
+            writer.addAll(nodeId, deltas);
+        }
+        return stale;
+    }
+
+    /**
+     * Đọc tổng các dòng của mọi node làm phân bố đã lưu và bỏ số đếm chờ đã được tính lại
+     * (giữ khóa của store)
+     */
+    private void refresh() {
+        Map<Long, long[][]> totals = new HashMap<>();
+        Map<Long, Long> watermarks = new HashMap<>();
+        writer.forEachShard(rs -> {
+            ScoreHistogram.Metric metric;
+            try {
+                metric = ScoreHistogram.Metric.valueOf(rs.getString(2));
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            long[][] test = totals.computeIfAbsent(rs.getLong(1), id -> emptyCounts());
+            ScoreHistogram.addEncoded(test[metric.ordinal()], rs.getBytes(3));
+            watermarks.merge(rs.getLong(1), rs.getLong(4), Math::max);
+        });
+        for (Map.Entry<Long, long[][]> entry : totals.entrySet()) {
+            TestHistograms test = histograms.computeIfAbsent(entry.getKey(), id -> new TestHistograms());
+            test.persisted = entry.getValue();
+            discarded.add(test.discardThrough(watermarks.get(entry.getKey())));
+        }
+        // Bài thi không còn dòng nào (đã xóa): chỉ giữ số đếm chờ ghi
+        for (Map.Entry<Long, TestHistograms> entry : histograms.entrySet()) {
+            if (!totals.containsKey(entry.getKey())) {
+                entry.getValue().persisted = emptyCounts();
+            }
+        }
+        lastRefreshMillis = System.currentTimeMillis();
+        refreshes.increment();
+    }
+
+    private void runRebuild() {
+        try {
+            // Ghi số đếm chờ trước; phần còn lại được lọc theo mốc ID của từng dòng đếm lại
+            flush();
+            Long afterId = 0L;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> testIds = testResultRepository.findTestIdsAfter(afterId, PageRequest.ofSize(100));
+                if (testIds.isEmpty()) {
+                    break;
+                }
+                for (Long testId : testIds) {
+                    Long counted = new TransactionTemplate(transactionManager).execute(status -> writer.rebuild(testId));
+                    rebuiltSubmissions.add(counted != null ? counted : 0);
+                    rebuiltTests.increment();
+                    lastTestId.set(testId);
+                }
+                afterId = testIds.get(testIds.size() - 1);
+            }
+            synchronized (this) {
+                refresh();
+            }
+            logger.info("Đã tính lại phân bố điểm của {} bài thi ({} bài nộp)", rebuiltTests.sum(), rebuiltSubmissions.sum());
+        } catch (RuntimeException e) {
+            lastError.set(e.getMessage());
+            logger.error("Lỗi khi tính lại phân bố điểm: {}", e.getMessage(), e);
+        } finally {
+            finishedAt.set(LocalDateTime.now());
+            rebuilding.set(false);
+        }
+    }
+
+    private static long[][] emptyCounts() {
+        long[][] counts = new long[METRICS.length][];
+        for (ScoreHistogram.Metric metric : METRICS) {
+            counts[metric.ordinal()] = new long[metric.bucketCount()];
+        }
+        return counts;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    /**
+     * Bài nộp chờ ghi: ID kết quả và ô của từng loại điểm
+     */
+    private record Pending(long resultId, int[] buckets) {
+    }
+
+    /**
+     * Phân bố điểm của một bài thi: phần đã lưu (tổng mọi node) và số đếm chờ ghi của node này
+     */
+    private static final class TestHistograms {
+        private volatile long[][] persisted = emptyCounts();
+        // Tổng của entries, để đọc phân bố mà không duyệt hàng đợi
+        private final AtomicLongArray[] pending = new AtomicLongArray[METRICS.length];
+        private final ConcurrentLinkedQueue<Pending> entries = new ConcurrentLinkedQueue<>();
+
+        private TestHistograms() {
+            for (ScoreHistogram.Metric metric : METRICS) {
+                pending[metric.ordinal()] = new AtomicLongArray(metric.bucketCount());
+            }
+        }
+
+        private void add(Pending entry) {
+            // Cộng vào tổng trước khi xếp hàng để tổng không bao giờ nhỏ hơn hàng đợi
+            count(entry, 1);
+            entries.add(entry);
+        }
+
+        /**
+         * Lấy và xóa các bài nộp chờ ghi
+         */
+        private List<Pending> drain() {
+            List<Pending> drained = new ArrayList<>();
+            Pending entry;
+            while ((entry = entries.poll()) != null) {
+                count(entry, -1);
+                drained.add(entry);
+            }
+            return drained;
+        }
+
+        /**
+         * Bỏ các bài nộp chờ ghi có ID không vượt mốc đã được tính lại
+         *
+         * @return Số bài nộp đã bỏ
+         */
+        private int discardThrough(Long watermark) {
+            if (watermark == null || watermark <= 0) {
+                return 0;
+            }
+            int[] removed = { 0 };
+            entries.removeIf(entry -> {
+                if (entry.resultId() > watermark) {
+                    return false;
+                }
+                count(entry, -1);
+                removed[0]++;
+                return true;
+            });
+            return removed[0];
+        }
+
+        private void count(Pending entry, int sign) {
+            for (ScoreHistogram.Metric metric : METRICS) {
+                pending[metric.ordinal()].addAndGet(entry.buckets()[metric.ordinal()], sign);
+            }
+        }
+
+        private void addPersisted(List<Pending> entries, int sign) {
+            long[][] next = persisted.clone();
+            for (ScoreHistogram.Metric metric : METRICS) {
+                long[] merged = next[metric.ordinal()].clone();
+                for (Pending entry : entries) {
+                    merged[entry.buckets()[metric.ordinal()]] += sign;
+                }
+                next[metric.ordinal()] = merged;
+            }
+            persisted = next;
+        }
+    }
+}
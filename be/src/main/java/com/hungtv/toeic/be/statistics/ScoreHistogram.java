@@ -0,0 +1,113 @@
+package com.hungtv.toeic.be.statistics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Phân bố điểm của một bài thi theo các ô cố định (bất biến).
+ *
+ * Bài nộp có điểm s nằm ở ô s / bucketWidth. Thứ hạng phần trăm của một điểm là tỷ lệ bài nộp
+ * có điểm thấp hơn, cộng một nửa số bài cùng ô (tính trong O(số ô)).
+ */
+public final class ScoreHistogram {
+
+    /**
+     * Loại điểm được thống kê phân bố
+     */
+    public enum Metric {
+        TOTAL(100, 1),
+        LISTENING_SCALED(495, 5),
+        READING_SCALED(495, 5);
+
+        private final int maxScore;
+        private final int bucketWidth;
+
+        Metric(int maxScore, int bucketWidth) {
+            this.maxScore = maxScore;
+            this.bucketWidth = bucketWidth;
+        }
+
+        public int getMaxScore() {
+            return maxScore;
+        }
+
+        public int getBucketWidth() {
+            return bucketWidth;
+        }
+
+        public int bucketCount() {
+            return maxScore / bucketWidth + 1;
+        }
+
+        /**
+         * Ô chứa điểm (điểm ngoài khoảng được đưa về ô đầu/cuối)
+         */
+        public int bucketOf(int score) {
+            return Math.min(Math.max(score, 0), maxScore) / bucketWidth;
+        }
+    }
+
+    private final Metric metric;
+    private final long[] counts;
+    private final long total;
+
+    public ScoreHistogram(Metric metric, long[] counts) {
+        this.metric = metric;
+        this.counts = counts;
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        this.total = sum;
+    }
+
+    /**
+     * Thứ hạng phần trăm của điểm so với các bài nộp khác
+     *
+     * @param score Điểm
+     * @return Phần trăm (0..100), null nếu chưa có bài nộp nào
+     */
+    public Double percentileRank(int score) {
+        if (total == 0) {
+            return null;
+        }
+        int bucket = metric.bucketOf(score);
+        long below = 0;
+        for (int i = 0; i < bucket; i++) {
+            below += counts[i];
+        }
+        return (below + counts[bucket] / 2.0) * 100.0 / total;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public long[] getCounts() {
+        return counts.clone();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Mã hóa số đếm của các ô (4 byte mỗi ô, big-endian)
+     */
+    public static byte[] encode(long[] counts) {
+        ByteBuffer buffer = ByteBuffer.allocate(counts.length * 4);
+        for (long count : counts) {
+            buffer.putInt((int) count);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Cộng số đếm đã mã hóa vào mảng (bỏ qua các ô vượt quá số ô của loại điểm)
+     */
+    public static void addEncoded(long[] counts, byte[] encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        for (int i = 0; i < counts.length && buffer.remaining() >= 4; i++) {
+            counts[i] += buffer.getInt();
+        }
+    }
+}
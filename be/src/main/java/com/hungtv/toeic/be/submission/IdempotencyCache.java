@@ -0,0 +1,163 @@
+package com.hungtv.toeic.be.submission;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.payload.response.TestResultResponse;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+/**
+ * Cache kết quả nộp bài theo khóa idempotency (Idempotency-Key) của từng người dùng.
+ *
+ * Lần gửi lại với cùng khóa nhận lại đúng response ban đầu mà không chấm điểm hay ghi lại;
+ * các request trùng khóa đến cùng lúc chờ chung một lần xử lý. Chỉ kết quả thành công được
+ * giữ lại. Cache có giới hạn số phần tử và thời gian sống; sau khi hết hạn (hoặc trên node
+ * khác) ràng buộc unique (user_id, idempotency_key) của test_results là lớp bảo vệ cuối.
+ */
+@Component
+public class IdempotencyCache {
+
+    @Value("${app.submission.idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${app.submission.idempotency.max-entries:20000}")
+    private int maxEntries;
+
+    // Thứ tự chèn = thứ tự hết hạn (TTL như nhau); truy cập qua khóa của chính map
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder hits = counters.register("hits");
+    private final LongAdder coalesced = counters.register("coalesced");
+    private final LongAdder misses = counters.register("misses");
+    private final LongAdder failures = counters.register("failures");
+    private final LongAdder evictions = counters.register("evictions");
+
+    /**
+     * Trả về kết quả đã có cho khóa, hoặc chạy computation đúng một lần
+     *
+     * @param userId ID người dùng
+     * @param idempotencyKey Khóa idempotency do client gửi
+     * @param computation Xử lý nộp bài (chỉ chạy khi chưa có kết quả)
+     * @return TestResultResponse
+     */
+    public TestResultResponse execute(long userId, String idempotencyKey, Supplier<TestResultResponse> computation) {
+        Key key = new Key(userId, idempotencyKey);
+        long now = System.nanoTime();
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && !entry.isExpired(now, ttlNanos())) {
+                if (entry.future.isDone()) {
+                    hits.increment();
+                } else {
+                    coalesced.increment();
+                }
+            } else {
+                if (entry != null) {
+                    entries.remove(key);
+                    evictions.increment();
+                }
+                entry = new Entry(new CompletableFuture<>(), now);
+                entries.put(key, entry);
+                owner = true;
+                misses.increment();
+                trim(now);
+            }
+        }
+
+        if (!owner) {
+            return await(entry.future);
+        }
+        try {
+            TestResultResponse response = computation.get();
+            entry.future.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            // Không giữ lỗi: lần gửi lại sau đó được xử lý lại từ đầu
+            failures.increment();
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Thống kê hoạt động của cache
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMinutes", ttlMinutes);
+        counters.putInto(stats);
+        return stats;
+    }
+
+    /**
+     * Bỏ các phần tử đã hết hạn và các phần tử cũ nhất khi vượt quá giới hạn (giữ khóa entries)
+     */
+    private void trim(long now) {
+        long ttl = ttlNanos();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            if (entries.size() <= maxEntries && !eldest.isExpired(now, ttl)) {
+                break;
+            }
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private long ttlNanos() {
+        return TimeUnit.MINUTES.toNanos(ttlMinutes);
+    }
+
+    private static TestResultResponse await(CompletableFuture<TestResultResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(long userId, String idempotencyKey) {
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<TestResultResponse> future;
+        private final long createdNanos;
+
+        private Entry(CompletableFuture<TestResultResponse> future, long createdNanos) {
+            this.future = future;
+            this.createdNanos = createdNanos;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - createdNanos >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.hungtv.toeic.be.submission;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Một bài nộp đã được chấm điểm trong bộ nhớ, đang chờ được ghi xuống database.
+ *
+ * Các mảng câu trả lời chỉ chứa những câu hỏi thuộc bài thi (count phần tử đầu).
+ * Định dạng nhị phân (writeTo/readFrom) dùng cho spool trên đĩa nên chỉ được thêm
+ * trường mới kèm tăng FORMAT_VERSION.
+ */
+public final class PendingSubmission {
+
+    private static final byte FORMAT_VERSION = 2;
+
+    private final String submissionId;
+    private final String idempotencyKey;
+    private final long userId;
+    private final long testId;
+    private final String testTitle;
+    private final Integer completionTimeInMinutes;
+    private final LocalDateTime createdAt;
+
+    // Điểm số (giống các cột của test_results)
+    private final int listeningScore;
+    private final int readingScore;
+    private final int grammarScore;
+    private final int vocabularyScore;
+    private final int totalScore;
+    private final int listeningScaledScore;
+    private final int readingScaledScore;
+    private final int correctAnswers;
+    private final int totalQuestions;
+
+    private final int count;
+    private final long[] questionIds;
+    private final String[] userAnswers;
+    private final boolean[] correct;
+
+    // Trạng thái trong tiến trình (không ghi vào spool)
+    private SubmissionSpool.Segment segment;
+    private long enqueuedNanos;
+    private int attempts;
+
+    public PendingSubmission(String submissionId, String idempotencyKey, long userId, long testId, String testTitle,
+            Integer completionTimeInMinutes, LocalDateTime createdAt, int[] scores,
+            int count, long[] questionIds, String[] userAnswers, boolean[] correct) {
+        this.submissionId = submissionId;
+        this.idempotencyKey = idempotencyKey;
+        this.userId = userId;
+        this.testId = testId;
+        this.testTitle = testTitle;
+        this.completionTimeInMinutes = completionTimeInMinutes;
+        this.createdAt = createdAt;
+        this.listeningScore = scores[0];
+        this.readingScore = scores[1];
+        this.grammarScore = scores[2];
+        this.vocabularyScore = scores[3];
+        this.totalScore = scores[4];
+        this.listeningScaledScore = scores[5];
+        this.readingScaledScore = scores[6];
+        this.correctAnswers = scores[7];
+        this.totalQuestions = scores[8];
+        this.count = count;
+        this.questionIds = questionIds;
+        this.userAnswers = userAnswers;
+        this.correct = correct;
+    }
+
+    /**
+     * Ghi bài nộp theo định dạng của spool
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeUTF(submissionId);
+        out.writeUTF(idempotencyKey != null ? idempotencyKey : "");
+        out.writeLong(userId);
+        out.writeLong(testId);
+        out.writeUTF(testTitle != null ? testTitle : "");
+        out.writeInt(completionTimeInMinutes != null ? completionTimeInMinutes : -1);
+        out.writeUTF(createdAt.toString());
+        out.writeInt(listeningScore);
+        out.writeInt(readingScore);
+        out.writeInt(grammarScore);
+        out.writeInt(vocabularyScore);
+        out.writeInt(totalScore);
+        out.writeInt(listeningScaledScore);
+        out.writeInt(readingScaledScore);
+        out.writeInt(correctAnswers);
+        out.writeInt(totalQuestions);
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeLong(questionIds[i]);
+            out.writeBoolean(correct[i]);
+            out.writeBoolean(userAnswers[i] != null);
+            if (userAnswers[i] != null) {
+                out.writeUTF(userAnswers[i]);
+            }
+        }
+    }
+
+    /**
+     * Đọc bài nộp từ spool
+     *
+     * @throws IOException nếu bản ghi không đúng định dạng
+     */
+    public static PendingSubmission readFrom(DataInputStream in) throws IOException {
+        byte version = in.readByte();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Phiên bản định dạng bài nộp không hỗ trợ: " + version);
+        }
+        String submissionId = in.readUTF();
+        // Phiên bản 1 chưa có khóa idempotency
+        String idempotencyKey = version >= 2 ? in.readUTF() : "";
+        long userId = in.readLong();
+        long testId = in.readLong();
+        String testTitle = in.readUTF();
+        int completionTime = in.readInt();
+        LocalDateTime createdAt = LocalDateTime.parse(in.readUTF());
+        int[] scores = new int[9];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = in.readInt();
+        }
+        int count = in.readInt();
+        long[] questionIds = new long[count];
+        String[] userAnswers = new String[count];
+        boolean[] correct = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            questionIds[i] = in.readLong();
+            correct[i] = in.readBoolean();
+            userAnswers[i] = in.readBoolean() ? in.readUTF() : null;
+        }
+        return new PendingSubmission(submissionId, idempotencyKey.isEmpty() ? null : idempotencyKey, userId, testId, testTitle,
+                completionTime >= 0 ? completionTime : null, createdAt, scores,
+                count, questionIds, userAnswers, correct);
+    }
+
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getTestId() {
+        return testId;
+    }
+
+    public String getTestTitle() {
+        return testTitle;
+    }
+
+    public Integer getCompletionTimeInMinutes() {
+        return completionTimeInMinutes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getListeningScore() {
+        return listeningScore;
+    }
+
+    public int getReadingScore() {
+        return readingScore;
+    }
+
+    public int getGrammarScore() {
+        return grammarScore;
+    }
+
+    public int getVocabularyScore() {
+        return vocabularyScore;
+    }
+
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    public int getListeningScaledScore() {
+        return listeningScaledScore;
+    }
+
+    public int getReadingScaledScore() {
+        return readingScaledScore;
+    }
+
+    public int getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long[] getQuestionIds() {
+        return questionIds;
+    }
+
+    public String[] getUserAnswers() {
+        return userAnswers;
+    }
+
+    public boolean[] getCorrect() {
+        return correct;
+    }
+
+    SubmissionSpool.Segment getSegment() {
+        return segment;
+    }
+
+    void setSegment(SubmissionSpool.Segment segment) {
+        this.segment = segment;
+    }
+
+    long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+
+    void setEnqueuedNanos(long enqueuedNanos) {
+        this.enqueuedNanos = enqueuedNanos;
+    }
+
+    int incrementAttempts() {
+        return ++attempts;
+    }
+}
@@ -0,0 +1,380 @@
+package com.hungtv.toeic.be.submission;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Nhật ký ghi nối (append-only) trên đĩa cục bộ cho các bài nộp chưa được ghi xuống database.
+ *
+ * Một bài nộp chỉ được xác nhận với client sau khi bản ghi của nó đã được fsync; nhiều luồng
+ * nộp cùng lúc dùng chung một lần fsync (group fsync). Nhật ký chia thành các segment, segment
+ * được xóa khi mọi bài nộp trong đó đã được ghi xuống database. Khi khởi động lại, các segment
+ * còn sót được đọc lại để ghi tiếp (bản ghi cuối bị ghi dở sẽ bị bỏ qua nhờ CRC).
+ *
+ * Mỗi bản ghi: [độ dài 4 byte][CRC32 4 byte][nội dung PendingSubmission]
+ */
+@Component
+public class SubmissionSpool {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionSpool.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+    private static final int HEADER_BYTES = 8;
+
+    @Value("${app.submission.spool-dir:./spool/submissions}")
+    private String spoolDir;
+
+    // Kích thước tối đa của một segment trước khi chuyển sang segment mới
+    @Value("${app.submission.spool-segment-bytes:8388608}")
+    private long segmentMaxBytes;
+
+    // Tắt fsync chỉ dùng cho môi trường phát triển/kiểm thử
+    @Value("${app.submission.spool-fsync:true}")
+    private boolean fsync;
+
+    private Path directory;
+    private final Object appendLock = new Object();
+    private Segment current;
+    private long nextSequence;
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder appended = counters.register("appended");
+    private final LongAdder appendedBytes = counters.register("appendedBytes");
+    private final LongAdder fsyncs = counters.register("fsyncs");
+    private final LongAdder deletedSegments = counters.register("deletedSegments");
+    private final LongAdder corruptRecords = counters.register("corruptRecords");
+    private final AtomicInteger liveSegments = new AtomicInteger();
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Paths.get(spoolDir).toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+        nextSequence = System.currentTimeMillis() * 1000;
+    }
+
+    /**
+     * Ghi bền vững một bài nộp (trả về sau khi dữ liệu đã được fsync)
+     *
+     * @param submission Bài nộp
+     * @throws UncheckedIOException nếu không ghi được xuống đĩa
+     */
+    public void append(PendingSubmission submission) {
+        byte[] record = encode(submission);
+        Segment segment;
+        long end;
+        try {
+            synchronized (appendLock) {
+                if (current == null || current.written >= segmentMaxBytes) {
+                    rotate();
+                }
+                segment = current;
+                end = segment.write(record);
+                segment.appended.incrementAndGet();
+            }
+            segment.sync(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        submission.setSegment(segment);
+        appended.increment();
+        appendedBytes.add(record.length);
+    }
+
+    /**
+     * Đánh dấu bài nộp đã được ghi xuống database (hoặc đã chuyển sang dead-letter)
+     *
+     * @param submission Bài nộp
+     */
+    public void markPersisted(PendingSubmission submission) {
+        Segment segment = submission.getSegment();
+        if (segment == null) {
+            return;
+        }
+        submission.setSegment(null);
+        segment.persisted.incrementAndGet();
+        if (segment.sealed && segment.isDrained()) {
+            delete(segment);
+        }
+    }
+
+    /**
+     * Đóng segment hiện tại nếu mọi bài nộp trong đó đã được ghi (gọi khi hàng đợi rảnh)
+     * để file không tồn tại lâu hơn cần thiết
+     */
+    public void releaseIdleSegment() {
+        synchronized (appendLock) {
+            if (current != null && current.isDrained()) {
+                try {
+                    seal(current);
+                } catch (IOException e) {
+                    logger.warn("Không thể đóng segment {}: {}", current.path, e.getMessage());
+                    return;
+                }
+                delete(current);
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Đọc lại các bài nộp còn trong spool từ lần chạy trước.
+     * Phải gọi trước lần append đầu tiên.
+     *
+     * @return Danh sách bài nộp theo thứ tự ghi
+     */
+    public List<PendingSubmission> recover() {
+        List<PendingSubmission> recovered = new ArrayList<>();
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (Path file : files) {
+            Segment segment = new Segment(file, null);
+            segment.sealed = true;
+            liveSegments.incrementAndGet();
+            try {
+                for (PendingSubmission submission : readSegment(file)) {
+                    submission.setSegment(segment);
+                    segment.appended.incrementAndGet();
+                    recovered.add(submission);
+                }
+            } catch (IOException e) {
+                logger.error("Không thể đọc segment {}: {}", file, e.getMessage());
+                continue;
+            }
+            if (segment.isDrained()) {
+                delete(segment);
+            }
+        }
+        if (!recovered.isEmpty()) {
+            logger.info("Khôi phục {} bài nộp chưa ghi từ spool {}", recovered.size(), directory);
+        }
+        return recovered;
+    }
+
+    /**
+     * Ghi bài nộp không thể lưu vào file dead-letter để xử lý thủ công
+     *
+     * @param submission Bài nộp
+     */
+    public void deadLetter(PendingSubmission submission) {
+        byte[] record = encode(submission);
+        synchronized (appendLock) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                writeFully(channel, record);
+                if (fsync) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                logger.error("Không thể ghi dead-letter cho bài nộp {}: {}", submission.getSubmissionId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Thống kê hoạt động của spool
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("directory", directory != null ? directory.toString() : null);
+        stats.put("fsync", fsync);
+        stats.put("segments", liveSegments.get());
+        counters.putInto(stats);
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (appendLock) {
+            if (current != null) {
+                try {
+                    seal(current);
+                } catch (IOException e) {
+                    logger.warn("Không thể đóng segment {}: {}", current.path, e.getMessage());
+                }
+                if (current.isDrained()) {
+                    delete(current);
+                }
+                current = null;
+            }
+        }
+    }
+
+    private void rotate() throws IOException {
+        Segment previous = current;
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        current = new Segment(path, channel);
+        liveSegments.incrementAndGet();
+        if (previous != null) {
+            seal(previous);
+            if (previous.isDrained()) {
+                delete(previous);
+            }
+        }
+    }
+
+    private void seal(Segment segment) throws IOException {
+        synchronized (segment) {
+            if (segment.channel != null && segment.channel.isOpen()) {
+                if (fsync) {
+                    segment.channel.force(false);
+                }
+                segment.channel.close();
+            }
+            segment.synced = segment.written;
+            segment.sealed = true;
+        }
+    }
+
+    private void delete(Segment segment) {
+        if (!segment.deleted.compareAndSet(0, 1)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(segment.path);
+            deletedSegments.increment();
+            liveSegments.decrementAndGet();
+        } catch (IOException e) {
+            logger.warn("Không thể xóa segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    private List<PendingSubmission> readSegment(Path file) throws IOException {
+        List<PendingSubmission> submissions = new ArrayList<>();
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                // Bản ghi cuối bị ghi dở khi tiến trình dừng đột ngột
+                corruptRecords.increment();
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                corruptRecords.increment();
+                break;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, buffer.position(), length))) {
+                submissions.add(PendingSubmission.readFrom(in));
+            }
+            buffer.position(buffer.position() + length);
+        }
+        return submissions;
+    }
+
+    private static byte[] encode(PendingSubmission submission) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + submission.getCount() * 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeInt(0);
+            submission.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] record = bytes.toByteArray();
+        int length = record.length - HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_BYTES, length);
+        ByteBuffer.wrap(record).putInt(length).putInt((int) crc.getValue());
+        return record;
+    }
+
+    private static void writeFully(FileChannel channel, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Một file segment của spool
+     */
+    final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicInteger appended = new AtomicInteger();
+        private final AtomicInteger persisted = new AtomicInteger();
+        private final AtomicInteger deleted = new AtomicInteger();
+        // written chỉ thay đổi khi giữ appendLock; synced chỉ thay đổi khi giữ khóa của segment
+        private volatile long written;
+        private volatile long synced;
+        private volatile boolean sealed;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        private long write(byte[] record) throws IOException {
+            writeFully(channel, record);
+            written += record.length;
+            return written;
+        }
+
+        /**
+         * Đảm bảo dữ liệu tới vị trí end đã xuống đĩa; một lần fsync phục vụ mọi luồng
+         * đã ghi trước đó
+         */
+        private void sync(long end) throws IOException {
+            if (!fsync || synced >= end) {
+                return;
+            }
+            synchronized (this) {
+                if (synced >= end) {
+                    return;
+                }
+                long target = written;
+                channel.force(false);
+                fsyncs.increment();
+                synced = target;
+            }
+        }
+
+        private boolean isDrained() {
+            return persisted.get() >= appended.get();
+        }
+    }
+}
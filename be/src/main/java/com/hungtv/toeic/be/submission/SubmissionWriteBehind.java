@@ -0,0 +1,503 @@
+package com.hungtv.toeic.be.submission;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.exception.SubmissionQueueFullException;
+import com.hungtv.toeic.be.repositories.TestResultBatchWriter;
+import com.hungtv.toeic.be.repositories.UserAnswerBatchWriter;
+import com.hungtv.toeic.be.repositories.UserStatisticsWriter;
+import com.hungtv.toeic.be.scoring.AnswerSheetLayouts;
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+import com.hungtv.toeic.be.services.UserStatisticsService;
+import com.hungtv.toeic.be.statistics.LeaderboardStore;
+import com.hungtv.toeic.be.statistics.ScoreDistributionStore;
+import com.hungtv.toeic.be.support.StatsCounters;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ghi bài nộp xuống database theo kiểu write-behind.
+ *
+ * Request nộp bài chỉ chấm điểm trong bộ nhớ, ghi bài nộp vào spool (fsync) rồi đưa vào hàng
+ * đợi có giới hạn; một luồng ghi duy nhất lấy nhiều bài nộp mỗi lần và ghi chúng trong cùng
+ * một transaction (group commit). Khi hàng đợi đầy request bị từ chối ngay với 429 thay vì
+ * giữ luồng Tomcat và kết nối database.
+ */
+@Component
+public class SubmissionWriteBehind {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionWriteBehind.class);
+
+    // Số lần thử ghi riêng lẻ trước khi chuyển bài nộp sang dead-letter
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    @Autowired
+    private SubmissionSpool spool;
+
+    @Autowired
+    private TestResultBatchWriter resultWriter;
+
+    @Autowired
+    private UserAnswerBatchWriter answerWriter;
+
+    @Autowired
+    private AnswerSheetLayouts answerSheetLayouts;
+
+    @Autowired
+    private UserStatisticsService userStatistics;
+
+    @Autowired
+    private ScoreDistributionStore scoreDistributions;
+
+    @Autowired
+    private LeaderboardStore leaderboards;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.submission.write-behind.enabled:false}")
+    private boolean enabled;
+
+    // Số bài nộp tối đa đang chờ ghi
+    @Value("${app.submission.queue-capacity:5000}")
+    private int capacity;
+
+    // Số bài nộp tối đa trong một transaction
+    @Value("${app.submission.group-commit-max:100}")
+    private int maxBatch;
+
+    // Thời gian chờ gom thêm bài nộp sau khi lấy được bài đầu tiên
+    @Value("${app.submission.group-commit-linger-ms:10}")
+    private long lingerMs;
+
+    @Value("${app.submission.min-retry-after-seconds:1}")
+    private long minRetryAfterSeconds;
+
+    private final LinkedBlockingQueue<PendingSubmission> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentMap<String, PendingSubmission> inFlight = new ConcurrentHashMap<>();
+    // Bài nộp đang chờ ghi theo (người dùng, khóa idempotency)
+    private final ConcurrentMap<PendingKey, PendingSubmission> inFlightByKey = new ConcurrentHashMap<>();
+    private Semaphore slots;
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writerThread;
+    private List<PendingSubmission> recovered = List.of();
+
+    // Số liệu thống kê
+    private final StatsCounters counters = new StatsCounters();
+    private final LongAdder accepted = counters.register("accepted");
+    private final LongAdder rejected = counters.register("rejected");
+    private final LongAdder persisted = counters.register("persisted");
+    private final LongAdder batches = counters.register("batches");
+    private final LongAdder failedBatches = counters.register("failedBatches");
+    private final LongAdder deadLettered = counters.register("deadLettered");
+    private final LongAdder recoveredCount = counters.register("recovered");
+    private final LongAdder totalCommitNanos = new LongAdder();
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private volatile long lastLagNanos;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        recovered = spool.recover();
+        recoveredCount.add(recovered.size());
+        // Bài nộp còn sót vẫn là bài đang chờ ghi: chiếm chỗ trong hàng đợi và tra cứu được như bài mới
+        slots = new Semaphore(capacity - recovered.size());
+        for (PendingSubmission submission : recovered) {
+            submission.setEnqueuedNanos(System.nanoTime());
+            track(submission);
+        }
+        running = true;
+        accepting = true;
+        writerThread = new Thread(this::runWriter, "submission-writer");
+        writerThread.setDaemon(false);
+        writerThread.start();
+        logger.info("Bộ ghi bài nộp write-behind đã chạy (capacity={}, groupCommitMax={})", capacity, maxBatch);
+    }
+
+    /**
+     * Chế độ write-behind có đang bật hay không
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Nhận một bài nộp đã chấm điểm. Trả về sau khi bài nộp đã được ghi bền vững vào spool.
+     *
+     * @param submission Bài nộp
+     * @throws SubmissionQueueFullException nếu hàng đợi đầy
+     * @throws RuntimeException nếu bộ ghi chưa sẵn sàng hoặc không ghi được spool
+     */
+    public void submit(PendingSubmission submission) {
+        if (!accepting) {
+            throw new RuntimeException("Bộ ghi bài nộp chưa sẵn sàng, vui lòng thử lại sau");
+        }
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            throw new SubmissionQueueFullException(estimateRetryAfterSeconds());
+        }
+        try {
+            spool.append(submission);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw new RuntimeException("Không thể lưu tạm bài nộp: " + e.getMessage(), e);
+        }
+        submission.setEnqueuedNanos(System.nanoTime());
+        track(submission);
+        queue.add(submission);
+        accepted.increment();
+    }
+
+    /**
+     * Tìm bài nộp đang chờ ghi
+     *
+     * @param submissionId ID bài nộp
+     * @return PendingSubmission, null nếu không còn trong hàng đợi
+     */
+    public PendingSubmission findPending(String submissionId) {
+        return inFlight.get(submissionId);
+    }
+
+    /**
+     * Tìm bài nộp đang chờ ghi (kể cả bài khôi phục từ spool chưa được ghi lại) theo khóa idempotency
+     *
+     * @param userId ID người dùng
+     * @param idempotencyKey Khóa idempotency
+     * @return PendingSubmission, null nếu không có bài nộp nào cùng khóa đang chờ ghi
+     */
+    public PendingSubmission findPending(long userId, String idempotencyKey) {
+        return inFlightByKey.get(new PendingKey(userId, idempotencyKey));
+    }
+
+    /**
+     * Thống kê hoạt động của hàng đợi ghi
+     *
+     * @return Map chứa các số liệu
+     */
+    public Map<String, Object> getStats() {
+        long persistedCount = persisted.sum();
+        long batchCount = batches.sum();
+        PendingSubmission oldest = queue.peek();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("capacity", capacity);
+        stats.put("depth", inFlight.size());
+        stats.put("queued", queue.size());
+        stats.put("oldestQueuedMillis", oldest != null ? (System.nanoTime() - oldest.getEnqueuedNanos()) / 1_000_000.0 : 0.0);
+        counters.putInto(stats);
+        stats.put("avgBatchSize", batchCount == 0 ? 0.0 : (double) persistedCount / batchCount);
+        stats.put("avgCommitMillis", StatsCounters.averageMillis(totalCommitNanos.sum(), batchCount));
+        stats.put("lastLagMillis", lastLagNanos / 1_000_000.0);
+        stats.put("avgLagMillis", StatsCounters.averageMillis(totalLagNanos.sum(), persistedCount));
+        stats.put("maxLagMillis", maxLagNanos.get() / 1_000_000.0);
+        stats.put("spool", spool.getStats());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writerThread == null) {
+            return;
+        }
+        // Ngừng nhận bài mới, để luồng ghi xả nốt hàng đợi; phần còn lại vẫn nằm trong spool
+        accepting = false;
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            logger.warn("Luồng ghi bài nộp chưa kết thúc, {} bài nộp sẽ được ghi lại từ spool khi khởi động", queue.size());
+            writerThread.interrupt();
+        }
+    }
+
+    private void runWriter() {
+        // Bài nộp còn sót từ lần chạy trước: bỏ qua những bài đã được ghi trước khi dừng
+        replayRecovered();
+
+        List<PendingSubmission> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSubmission first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    spool.releaseIdleSegment();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                if (batch.size() < maxBatch && lingerMs > 0) {
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                    while (batch.size() < maxBatch) {
+                        PendingSubmission next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatch - batch.size());
+                    }
+                }
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Lỗi không mong đợi trong luồng ghi bài nộp", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void replayRecovered() {
+        int from = 0;
+        for (; from < recovered.size() && running; from += maxBatch) {
+            List<PendingSubmission> chunk = new ArrayList<>(recovered.subList(from, Math.min(recovered.size(), from + maxBatch)));
+            Map<String, Long> existing = withRetry(() -> resultWriter.findIdsBySubmissionIds(
+                    chunk.stream().map(PendingSubmission::getSubmissionId).toList()));
+            if (existing == null) {
+                break;
+            }
+            List<PendingSubmission> missing = new ArrayList<>(chunk.size());
+            for (PendingSubmission submission : chunk) {
+                if (existing.containsKey(submission.getSubmissionId())) {
+                    release(submission);
+                } else {
+                    missing.add(submission);
+                }
+            }
+            if (!missing.isEmpty()) {
+                persist(missing);
+            }
+        }
+        // Phần chưa phát lại (đang dừng) chuyển sang hàng đợi thường để luồng ghi vẫn thử ghi trước khi
+        // dừng; bài đã được ghi trước đó được nhận ra qua ràng buộc unique khi ghi riêng từng bài
+        for (int i = from; i < recovered.size(); i++) {
+            queue.add(recovered.get(i));
+        }
+        recovered = List.of();
+    }
+
+    /**
+     * Ghi một nhóm bài nộp trong một transaction; nếu thất bại thì ghi lại từng bài
+     * để cô lập bài nộp lỗi
+     */
+    private void persist(List<PendingSubmission> batch) {
+        long start = System.nanoTime();
+        try {
+            writeBatch(batch);
+            batches.increment();
+            totalCommitNanos.add(System.nanoTime() - start);
+            for (PendingSubmission submission : batch) {
+                complete(submission);
+            }
+            return;
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            logger.warn("Ghi nhóm {} bài nộp thất bại, thử ghi riêng từng bài: {}", batch.size(), e.getMessage());
+        }
+
+        for (PendingSubmission submission : batch) {
+            persistOne(submission);
+        }
+    }
+
+    private void persistOne(PendingSubmission submission) {
+        long backoffMs = 100;
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                writeBatch(List.of(submission));
+                batches.increment();
+                totalCommitNanos.add(System.nanoTime() - start);
+                complete(submission);
+                return;
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    if (!running) {
+                        // Đang dừng: bài nộp vẫn nằm trong spool và sẽ được ghi khi khởi động lại
+                        return;
+                    }
+                    // Database tạm thời không sẵn sàng: chờ rồi thử lại, không tính là lỗi của bài nộp
+                    logger.warn("Database chưa sẵn sàng, thử ghi lại bài nộp {} sau {} ms", submission.getSubmissionId(), backoffMs);
+                } else if (e instanceof DataIntegrityViolationException && isAlreadyPersisted(submission)) {
+                    // Bài nộp đã được ghi trước đó (submission_id và (user_id, idempotency_key) là unique)
+                    complete(submission);
+                    return;
+                } else if (submission.incrementAttempts() >= MAX_ATTEMPTS) {
+                    logger.error("Không thể ghi bài nộp {} sau {} lần, chuyển sang dead-letter",
+                            submission.getSubmissionId(), MAX_ATTEMPTS, e);
+                    spool.deadLetter(submission);
+                    deadLettered.increment();
+                    release(submission);
+                    return;
+                }
+            }
+            if (!sleep(backoffMs)) {
+                return;
+            }
+            backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+        }
+    }
+
+    private void writeBatch(List<PendingSubmission> batch) {
+        // Đóng gói câu trả lời trước transaction; bài nộp không nén được thì lưu dạng dòng
+        List<PackedAnswerSheet> sheets = new ArrayList<>(batch.size());
+        for (PendingSubmission submission : batch) {
+            sheets.add(answerSheetLayouts.pack(submission.getTestId(), submission.getQuestionIds(),
+                    submission.getUserAnswers(), submission.getCorrect(), submission.getCount()));
+        }
+        List<UserStatisticsWriter.Entry> statistics = new ArrayList<>(batch.size());
+        for (PendingSubmission submission : batch) {
+            statistics.add(new UserStatisticsWriter.Entry(submission.getUserId(), submission.getTotalScore(),
+                    submission.getCreatedAt()));
+        }
+        userStatistics.ensureTracked(statistics.stream().map(UserStatisticsWriter.Entry::userId).distinct().toList());
+        Map<String, Long> ids = new TransactionTemplate(transactionManager).execute(status -> {
+            Map<String, Long> inserted = resultWriter.insertAll(batch, sheets);
+            for (int i = 0; i < batch.size(); i++) {
+                PendingSubmission submission = batch.get(i);
+                if (sheets.get(i) == null && submission.getCount() > 0) {
+                    answerWriter.insertAll(inserted.get(submission.getSubmissionId()), submission.getQuestionIds(),
+                            submission.getUserAnswers(), submission.getCorrect(), submission.getCount());
+                }
+            }
+            userStatistics.record(statistics);
+            return inserted;
+        });
+        for (PendingSubmission submission : batch) {
+            Long resultId = ids.get(submission.getSubmissionId());
+            if (resultId != null) {
+                scoreDistributions.record(submission.getTestId(), resultId, submission.getTotalScore(),
+                        submission.getListeningScaledScore(), submission.getReadingScaledScore());
+                leaderboards.record(submission.getTestId(), submission.getUserId(), resultId,
+                        submission.getTotalScore(), submission.getCreatedAt());
+            }
+        }
+    }
+
+    /**
+     * Bài nộp đã được ghi trước đó, hoặc là bản gửi lại (cùng khóa idempotency) của một bài đã ghi
+     */
+    private boolean isAlreadyPersisted(PendingSubmission submission) {
+        try {
+            if (resultWriter.findIdsBySubmissionIds(List.of(submission.getSubmissionId()))
+                    .containsKey(submission.getSubmissionId())) {
+                return true;
+            }
+            if (submission.getIdempotencyKey() != null
+                    && resultWriter.existsByIdempotencyKey(submission.getUserId(), submission.getIdempotencyKey())) {
+                logger.info("Bỏ qua bài nộp {} trùng khóa idempotency với bài đã ghi", submission.getSubmissionId());
+                return true;
+            }
+            return false;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void complete(PendingSubmission submission) {
+        long lag = System.nanoTime() - submission.getEnqueuedNanos();
+        lastLagNanos = lag;
+        totalLagNanos.add(lag);
+        maxLagNanos.accumulateAndGet(lag, Math::max);
+        persisted.increment();
+        release(submission);
+    }
+
+    private void track(PendingSubmission submission) {
+        inFlight.put(submission.getSubmissionId(), submission);
+        if (submission.getIdempotencyKey() != null) {
+            inFlightByKey.put(new PendingKey(submission.getUserId(), submission.getIdempotencyKey()), submission);
+        }
+    }
+
+    private void release(PendingSubmission submission) {
+        spool.markPersisted(submission);
+        if (submission.getIdempotencyKey() != null) {
+            inFlightByKey.remove(new PendingKey(submission.getUserId(), submission.getIdempotencyKey()), submission);
+        }
+        if (inFlight.remove(submission.getSubmissionId()) != null) {
+            slots.release();
+        }
+    }
+
+    /**
+     * Ước lượng thời gian client nên chờ: thời gian để xả hết hàng đợi hiện tại
+     */
+    private long estimateRetryAfterSeconds() {
+        long persistedCount = persisted.sum();
+        if (persistedCount == 0) {
+            return minRetryAfterSeconds;
+        }
+        double nanosPerSubmission = (double) totalCommitNanos.sum() / persistedCount;
+        long seconds = (long) Math.ceil(inFlight.size() * nanosPerSubmission / 1_000_000_000.0);
+        return Math.max(minRetryAfterSeconds, seconds);
+    }
+
+    private <T> T withRetry(Supplier<T> action) {
+        long backoffMs = 100;
+        while (running) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                logger.warn("Không thể truy vấn database, thử lại sau {} ms: {}", backoffMs, e.getMessage());
+            }
+            if (!sleep(backoffMs)) {
+                break;
+            }
+            backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+        }
+        return null;
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record PendingKey(long userId, String idempotencyKey) {
+    }
+
+    private static boolean isTransient(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+}
@@ -0,0 +1,54 @@
+package com.hungtv.toeic.be.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ đếm thống kê của một component có getStats(): mỗi bộ đếm được đăng ký một lần cùng tên hiển
+ * thị (trong khởi tạo field) và được chép vào map thống kê theo thứ tự đăng ký.
+ *
+ * Chỉ đăng ký trong lúc khởi tạo component sở hữu (field final), sau đó chỉ đọc nên không cần khóa.
+ */
+public final class StatsCounters {
+
+    private final Map<String, LongAdder> counters = new LinkedHashMap<>();
+
+    /**
+     * Tạo bộ đếm mới với tên hiển thị trong thống kê
+     *
+     * @param name Tên trong map thống kê
+     * @return Bộ đếm
+     */
+    public LongAdder register(String name) {
+        LongAdder counter = new LongAdder();
+        if (counters.putIfAbsent(name, counter) != null) {
+            throw new IllegalArgumentException("Bộ đếm đã được đăng ký: " + name);
+        }
+        return counter;
+    }
+
+    /**
+     * Chép giá trị hiện tại của mọi bộ đếm vào map thống kê
+     *
+     * @param stats Map thống kê
+     * @return Chính map thống kê
+     */
+    public Map<String, Object> putInto(Map<String, Object> stats) {
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            stats.put(counter.getKey(), counter.getValue().sum());
+        }
+        return stats;
+    }
+
+    /**
+     * Thời gian trung bình (ms) từ tổng số nano giây và số lần, 0 nếu chưa có lần nào
+     *
+     * @param totalNanos Tổng thời gian (ns)
+     * @param count Số lần
+     * @return Thời gian trung bình (ms)
+     */
+    public static double averageMillis(long totalNanos, long count) {
+        return count == 0 ? 0.0 : totalNanos / 1_000_000.0 / count;
+    }
+}
@@ -0,0 +1,91 @@
+package com.hungtv.toeic.be.support;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Đăng ký công việc chạy theo vòng đời của transaction hiện tại (sau commit, trước commit),
+ * dùng chung cho các cache và bộ đếm trong bộ nhớ chỉ được cập nhật khi dữ liệu đã commit.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Chạy action sau khi transaction hiện tại commit (bỏ qua nếu rollback), ngay lập tức nếu
+     * không có transaction
+     *
+     * @param action Công việc cần chạy
+     */
+    public static void afterCommit(Runnable action) {
+        if (!registerAfterCommit(action)) {
+            action.run();
+        }
+    }
+
+    /**
+     * Đăng ký action chạy sau khi transaction hiện tại commit
+     *
+     * @param action Công việc cần chạy
+     * @return false nếu không có transaction (action không được chạy)
+     */
+    public static boolean registerAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Lấy (hoặc tạo) đối tượng gom thay đổi gắn với transaction hiện tại theo khóa; đối tượng được
+     * tạo một lần mỗi transaction và được gỡ khi transaction kết thúc
+     *
+     * @param key Khóa gắn vào transaction (thường là component sở hữu)
+     * @param factory Tạo đối tượng ở lần gọi đầu tiên trong transaction
+     * @param beforeCommit Chạy ngay trước commit (null = không có)
+     * @param afterCommit Chạy sau khi commit
+     * @return Đối tượng của transaction hiện tại, null nếu không có transaction
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T bindToTransaction(Object key, Supplier<T> factory, Consumer<T> beforeCommit,
+                                         Consumer<T> afterCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        T bound = (T) TransactionSynchronizationManager.getResource(key);
+        if (bound != null) {
+            return bound;
+        }
+        T created = factory.get();
+        TransactionSynchronizationManager.bindResource(key, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (beforeCommit != null) {
+                    beforeCommit.accept(created);
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                afterCommit.accept(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            }
+        });
+        return created;
+    }
+}
@@ -0,0 +1,3 @@
+-- Khóa idempotency của bài nộp: lần gửi lại cùng khóa không tạo thêm kết quả bài thi
+ALTER TABLE test_results ADD COLUMN idempotency_key VARCHAR(64) NULL;
+CREATE UNIQUE INDEX uk_test_results_user_idempotency ON test_results (user_id, idempotency_key);
@@ -0,0 +1,19 @@
+-- Lượt làm bài thi trên server: phiếu trả lời một byte mỗi câu hỏi, được lưu định kỳ theo lô
+CREATE TABLE exam_sessions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    test_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    key_version BIGINT NOT NULL,
+    question_layout BLOB NOT NULL,
+    answer_sheet VARBINARY(4000) NOT NULL,
+    answered_count INT NOT NULL DEFAULT 0,
+    started_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NULL,
+    last_saved_at DATETIME(6) NULL,
+    finalized_at DATETIME(6) NULL,
+    CONSTRAINT fk_exam_sessions_user FOREIGN KEY (user_id) REFERENCES users(id),
+    CONSTRAINT fk_exam_sessions_test FOREIGN KEY (test_id) REFERENCES tests(id)
+);
+
+CREATE INDEX idx_exam_sessions_user_test_status ON exam_sessions (user_id, test_id, status);
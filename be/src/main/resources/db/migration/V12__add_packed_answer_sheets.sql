@@ -0,0 +1,18 @@
+-- Thứ tự câu hỏi của từng phiên bản bài thi, dùng chung cho các phiếu trả lời nén
+CREATE TABLE answer_sheet_layouts (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    test_id BIGINT NOT NULL,
+    content_version BIGINT NOT NULL,
+    question_count INT NOT NULL,
+    question_ids BLOB NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    CONSTRAINT uk_answer_sheet_layouts_test_version UNIQUE (test_id, content_version)
+);
+
+-- Câu trả lời nén ngay trong kết quả bài thi thay cho một dòng user_answers mỗi câu hỏi.
+-- Dữ liệu cũ được chuyển bằng POST /api/admin/maintenance/answer-sheets/migrate
+ALTER TABLE test_results ADD COLUMN answer_sheet VARBINARY(4001) NULL;
+ALTER TABLE test_results ADD COLUMN correct_bits VARBINARY(512) NULL;
+ALTER TABLE test_results ADD COLUMN sheet_layout_id BIGINT NULL;
+ALTER TABLE test_results ADD CONSTRAINT fk_test_results_sheet_layout
+    FOREIGN KEY (sheet_layout_id) REFERENCES answer_sheet_layouts(id);
@@ -0,0 +1,22 @@
+-- Thống kê tích lũy của từng người dùng, cập nhật trong cùng transaction với mỗi bài nộp.
+-- Người dùng chưa có dòng được tính từ lịch sử ở lần đầu cần đến; dựng lại toàn bộ bằng
+-- POST /api/admin/maintenance/user-statistics/rebuild
+CREATE TABLE user_statistics (
+    user_id BIGINT PRIMARY KEY,
+    tests_taken BIGINT NOT NULL,
+    scored_count BIGINT NOT NULL,
+    score_sum BIGINT NOT NULL,
+    best_score INT NULL,
+    updated_at DATETIME(6) NOT NULL
+);
+
+-- Số bài và tổng điểm theo tháng (yyyy-MM)
+CREATE TABLE user_monthly_statistics (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    stat_month CHAR(7) NOT NULL,
+    tests_taken BIGINT NOT NULL,
+    scored_count BIGINT NOT NULL,
+    score_sum BIGINT NOT NULL,
+    CONSTRAINT uk_user_monthly_statistics_user_month UNIQUE (user_id, stat_month)
+);
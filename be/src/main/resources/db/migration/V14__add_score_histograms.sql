@@ -0,0 +1,12 @@
+-- Phân bố điểm theo bài thi: mỗi node cộng số đếm vào dòng của chính nó (node_id), phân bố
+-- đầy đủ là tổng các dòng. Tính lại từ test_results bằng
+-- POST /api/admin/maintenance/score-distributions/rebuild
+CREATE TABLE score_histogram_shards (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    test_id BIGINT NOT NULL,
+    metric VARCHAR(20) NOT NULL,
+    node_id VARCHAR(64) NOT NULL,
+    counts VARBINARY(512) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    CONSTRAINT uk_score_histogram_shards_test_metric_node UNIQUE (test_id, metric, node_id)
+);
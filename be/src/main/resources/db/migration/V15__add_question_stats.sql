@@ -0,0 +1,27 @@
+-- Thống kê câu hỏi: các tổng thô (để cộng dồn tăng dần) cùng độ khó (p_value) và độ phân biệt
+-- (tương quan điểm-nhị phân với điểm tổng). Tính bằng POST /api/admin/maintenance/item-analytics/run
+CREATE TABLE question_stats (
+    question_id BIGINT PRIMARY KEY,
+    responses BIGINT NOT NULL,
+    correct_count BIGINT NOT NULL,
+    score_sum BIGINT NOT NULL,
+    score_square_sum BIGINT NOT NULL,
+    correct_score_sum BIGINT NOT NULL,
+    p_value DOUBLE NULL,
+    discrimination DOUBLE NULL,
+    updated_at DATETIME(6) NOT NULL
+);
+CREATE INDEX idx_question_stats_discrimination ON question_stats (discrimination);
+
+-- Các lần tính đã ghi; to_result_id lớn nhất là mốc của lần tính tăng dần tiếp theo
+CREATE TABLE question_stats_runs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    run_mode VARCHAR(20) NOT NULL,
+    from_result_id BIGINT NOT NULL,
+    to_result_id BIGINT NOT NULL,
+    answer_sheets BIGINT NOT NULL,
+    answer_rows BIGINT NOT NULL,
+    responses BIGINT NOT NULL,
+    started_at DATETIME(6) NOT NULL,
+    finished_at DATETIME(6) NOT NULL
+);
@@ -0,0 +1,3 @@
+-- Tìm bài nộp cần chấm lại khi đổi đáp án chỉ bằng index: các dòng user_answers của một câu hỏi
+-- (question_id, test_result_id). Với phiếu trả lời nén, index của khóa ngoại sheet_layout_id đã đủ
+CREATE INDEX idx_user_answers_question_result ON user_answers (question_id, test_result_id);
@@ -0,0 +1,26 @@
+-- Refresh token đã cấp (chỉ lưu SHA-256). Mỗi lần làm mới, token cũ bị đánh dấu ROTATED và token
+-- mới cùng family_id; trình lại token ROTATED thì cả họ bị thu hồi (REUSED)
+CREATE TABLE refresh_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    token_hash VARCHAR(64) NOT NULL,
+    family_id VARCHAR(36) NOT NULL,
+    access_token_id VARCHAR(36) NOT NULL,
+    access_expires_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    revoked_at DATETIME(6) NULL,
+    revoke_reason VARCHAR(20) NULL,
+    CONSTRAINT uk_refresh_tokens_token_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens (family_id);
+CREATE INDEX idx_refresh_tokens_user_access_expires ON refresh_tokens (user_id, access_expires_at);
+
+-- jti của access token bị thu hồi trước hạn; dòng được xóa khi access token hết hạn
+CREATE TABLE revoked_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    token_id VARCHAR(36) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    CONSTRAINT uk_revoked_tokens_token_id UNIQUE (token_id)
+);
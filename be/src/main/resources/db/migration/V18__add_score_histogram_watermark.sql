@@ -0,0 +1,3 @@
+-- Mốc ID kết quả đã được tính lại của phần "rebuild": số đếm chờ ghi của các bài nộp có ID
+-- không lớn hơn mốc đã nằm trong số đếm lại, các node bỏ chúng thay vì cộng trùng
+ALTER TABLE score_histogram_shards ADD COLUMN counted_through_id BIGINT NULL;
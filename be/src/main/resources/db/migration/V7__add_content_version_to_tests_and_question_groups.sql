@@ -0,0 +1,8 @@
+-- Phiên bản nội dung dùng cho ETag/Last-Modified của bài thi và nhóm câu hỏi
+ALTER TABLE tests ADD COLUMN content_version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tests ADD COLUMN content_updated_at DATETIME(6) NULL;
+UPDATE tests SET content_updated_at = COALESCE(created_at, NOW());
+
+ALTER TABLE question_groups ADD COLUMN content_version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE question_groups ADD COLUMN content_updated_at DATETIME(6) NULL;
+UPDATE question_groups SET content_updated_at = NOW();
@@ -0,0 +1,2 @@
+-- Chỉ mục cho danh sách nhóm câu hỏi lọc theo loại/part và phân trang theo id
+CREATE INDEX idx_question_groups_type_part ON question_groups (question_type, part, id);
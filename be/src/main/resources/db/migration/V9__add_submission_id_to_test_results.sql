@@ -0,0 +1,3 @@
+-- Mã bài nộp (UUID) cho ghi write-behind: tra cứu trạng thái và chống ghi trùng khi phát lại spool
+ALTER TABLE test_results ADD COLUMN submission_id VARCHAR(36) NULL;
+CREATE UNIQUE INDEX uk_test_results_submission_id ON test_results (submission_id);
@@ -0,0 +1,101 @@
+package com.hungtv.toeic.be.cache;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicOption;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.payload.request.CreateTestRequest;
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.services.ToeicQuestionService;
+import com.hungtv.toeic.be.services.ToeicTestService;
+
+/**
+ * Kiểm tra mọi thao tác ghi của admin chạm tới bài thi đều tăng content_version của bài thi đó.
+ */
+@SpringBootTest
+class ContentVersionTrackerTests {
+
+    private static final String QUESTIONS_JSON = "[{\"question\":\"Câu hỏi nhóm mới\",\"correctAnswer\":\"A\","
+            + "\"difficultyLevel\":\"MEDIUM\",\"options\":[{\"optionKey\":\"A\",\"optionText\":\"Đáp án A\"},"
+            + "{\"optionKey\":\"B\",\"optionText\":\"Đáp án B\"}]}]";
+
+    @Autowired
+    private ContentVersionTracker contentVersions;
+
+    @Autowired
+    private ToeicTestService testService;
+
+    @Autowired
+    private ToeicQuestionService questionService;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Test
+    @WithMockUser(username = "content-admin", roles = "ADMIN")
+    void everyMutatingMethodBumpsTheTestVersion() {
+        QuestionGroup group = saveGroup("Nhóm phiên bản");
+        QuestionGroup extra = saveGroup("Nhóm bị xóa");
+        Long testId = testService.createTest(testRequest("Đề phiên bản")).getId();
+        Long[] questionId = new Long[1];
+
+        Map<String, Runnable> mutations = new LinkedHashMap<>();
+        mutations.put("addQuestionGroupToTest", () -> testService.addQuestionGroupToTest(testId, group.getId()));
+        mutations.put("updateTest", () -> testService.updateTest(testId, testRequest("Đề phiên bản đã sửa")));
+        mutations.put("setTestActiveStatus", () -> testService.setTestActiveStatus(testId, false));
+        mutations.put("createQuestion", () -> questionId[0] =
+                questionService.createQuestion(questionRequest("Câu hỏi mới", "A"), group.getId()).getId());
+        mutations.put("updateQuestion", () ->
+                questionService.updateQuestion(questionId[0], questionRequest("Câu hỏi mới", "B"), group.getId()));
+        mutations.put("updateQuestionGroup", () -> questionService.updateQuestionGroup(group.getId(),
+                "[{\"id\":" + questionId[0] + "," + QUESTIONS_JSON.substring(2), null, null, null, null, "Đoạn văn mới", null));
+        mutations.put("deleteQuestion", () -> questionService.deleteQuestion(questionId[0]));
+        mutations.put("createQuestionGroup", () -> questionService.createQuestionGroup(
+                QUESTIONS_JSON, null, null, "Đoạn văn", 7, "Nhóm tạo trong đề", testId, "READING"));
+        mutations.put("addExtraGroup", () -> testService.addQuestionGroupToTest(testId, extra.getId()));
+        mutations.put("deleteQuestionGroup", () -> questionService.deleteQuestionGroup(extra.getId()));
+        mutations.put("removeQuestionGroupFromTest", () ->
+                testService.removeQuestionGroupFromTest(testId, group.getId()));
+        mutations.put("removeAllQuestionGroupsFromTest", () -> testService.removeAllQuestionGroupsFromTest(testId));
+
+        for (Map.Entry<String, Runnable> mutation : mutations.entrySet()) {
+            long before = contentVersions.getTestVersion(testId).getVersion();
+            mutation.getValue().run();
+            long after = contentVersions.getTestVersion(testId).getVersion();
+            assertTrue(after > before, mutation.getKey());
+        }
+    }
+
+    private QuestionGroup saveGroup(String title) {
+        QuestionGroup group = new QuestionGroup();
+        group.setTitle(title);
+        group.setQuestionType(QuestionGroup.QuestionType.READING);
+        group.setPart(7);
+        return questionGroupRepository.save(group);
+    }
+
+    private static CreateTestRequest testRequest(String title) {
+        return new CreateTestRequest(title, "Mô tả", com.hungtv.toeic.be.models.Test.TestType.PRACTICE, 120, null);
+    }
+
+    private static ToeicQuestion questionRequest(String text, String correctAnswer) {
+        ToeicQuestion request = new ToeicQuestion();
+        request.setQuestion(text);
+        request.setQuestionOrder(1);
+        request.setCorrectAnswer(correctAnswer);
+        request.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+        request.setOptions(new HashSet<>(Set.of(new ToeicOption("A", "Đáp án A"), new ToeicOption("B", "Đáp án B"))));
+        return request;
+    }
+}
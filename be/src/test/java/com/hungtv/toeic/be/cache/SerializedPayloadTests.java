@@ -0,0 +1,30 @@
+package com.hungtv.toeic.be.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class SerializedPayloadTests {
+
+    @Test
+    void prefersGzipAndHonorsRejections() {
+        assertEquals(SerializedPayload.GZIP, SerializedPayload.selectEncoding("gzip, deflate, br"));
+        assertEquals(SerializedPayload.GZIP, SerializedPayload.selectEncoding("x-gzip"));
+        assertEquals(SerializedPayload.DEFLATE, SerializedPayload.selectEncoding("deflate, gzip;q=0"));
+        assertNull(SerializedPayload.selectEncoding("br"));
+        assertNull(SerializedPayload.selectEncoding(null));
+    }
+
+    @Test
+    void explicitCodingOverridesWildcard() {
+        // gzip bị từ chối rõ ràng: "*" không được bật lại gzip
+        assertEquals(SerializedPayload.DEFLATE, SerializedPayload.selectEncoding("gzip;q=0, *"));
+        assertNull(SerializedPayload.selectEncoding("gzip;q=0, deflate;q=0, *;q=1"));
+        assertEquals(SerializedPayload.GZIP, SerializedPayload.selectEncoding("*"));
+        // q cao hơn thắng, bằng nhau thì ưu tiên gzip
+        assertEquals(SerializedPayload.DEFLATE, SerializedPayload.selectEncoding("gzip;q=0.5, deflate;q=0.8"));
+        assertEquals(SerializedPayload.GZIP, SerializedPayload.selectEncoding("deflate;q=0.5, *;q=0.5"));
+        assertNull(SerializedPayload.selectEncoding("*;q=0"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.hungtv.toeic.be.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.repositories.TestRepository;
+
+/**
+ * Kiểm tra cache ảnh chụp bài thi: không phục vụ ảnh chụp cũ sau khi bài thi đổi
+ * và các request cùng lúc dùng chung một lần dựng.
+ */
+@SpringBootTest
+class TestSnapshotCacheTests {
+
+    @Autowired
+    private TestSnapshotCache snapshotCache;
+
+    @Autowired
+    private ContentVersionTracker contentVersions;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @SpyBean
+    private TestSnapshotLoader snapshotLoader;
+
+    @Test
+    void staleSnapshotIsNeverServedAfterTestChanged() {
+        Long testId = saveTest("Tiêu đề cũ");
+        TestSnapshot before = snapshotCache.get(testId);
+        assertEquals("Tiêu đề cũ", before.getTitle());
+        assertSame(before, snapshotCache.get(testId));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            com.hungtv.toeic.be.models.Test test = testRepository.findById(testId).orElseThrow();
+            test.setTitle("Tiêu đề mới");
+            testRepository.save(test);
+            contentVersions.testChanged(testId);
+        });
+
+        TestSnapshot after = snapshotCache.get(testId);
+        assertEquals("Tiêu đề mới", after.getTitle());
+        assertTrue(after.getVersion() > before.getVersion());
+    }
+
+    @Test
+    void concurrentMissesShareOneBuild() throws Exception {
+        Long testId = saveTest("Đề dựng một lần");
+        contentVersions.getTestVersion(testId);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(snapshotLoader).load(any());
+        long buildsBefore = (Long) snapshotCache.getStats().get("builds");
+
+        int waiters = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(waiters + 1);
+        try {
+            Future<TestSnapshot> first = executor.submit(() -> snapshotCache.get(testId));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            List<Future<TestSnapshot>> others = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < waiters; i++) {
+                others.add(executor.submit(() -> {
+                    synchronized (threads) {
+                        threads.add(Thread.currentThread());
+                    }
+                    return snapshotCache.get(testId);
+                }));
+            }
+            // Chờ các request sau cùng đứng đợi bản dựng đang chạy rồi mới cho bản dựng hoàn tất
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!allWaiting(threads, waiters) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            TestSnapshot snapshot = first.get(10, TimeUnit.SECONDS);
+            for (Future<TestSnapshot> other : others) {
+                assertSame(snapshot, other.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(buildsBefore + 1, (Long) snapshotCache.getStats().get("builds"));
+    }
+
+    private static boolean allWaiting(List<Thread> threads, int expected) {
+        synchronized (threads) {
+            return threads.size() == expected
+                    && threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING);
+        }
+    }
+
+    private Long saveTest(String title) {
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle(title);
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        return testRepository.save(test).getId();
+    }
+}
@@ -0,0 +1,118 @@
+package com.hungtv.toeic.be.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.hungtv.toeic.be.cache.ContentVersionTracker;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+
+/**
+ * Kiểm tra payload phát đề qua /api/tests: không lộ đáp án và lời giải, hỗ trợ GET có điều kiện.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TestControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Autowired
+    private ToeicQuestionRepository questionRepository;
+
+    @Autowired
+    private ContentVersionTracker contentVersions;
+
+    @Test
+    void deliveryPayloadsOmitAnswersAndExplanations() throws Exception {
+        Long testId = saveTest("Đề phát không đáp án");
+
+        for (String path : new String[] { "/api/tests/" + testId, "/api/tests/" + testId + "/questions" }) {
+            String body = mockMvc.perform(get(path))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            assertTrue(body.contains("Câu hỏi phát đề"), path);
+            assertFalse(body.contains("correctAnswer"), path);
+            assertFalse(body.contains("explanation"), path);
+            assertFalse(body.contains("Lời giải bí mật"), path);
+        }
+    }
+
+    @Test
+    void matchingValidatorsAnswerNotModifiedUntilTheTestChanges() throws Exception {
+        Long testId = saveTest("Đề GET có điều kiện");
+        contentVersions.testChanged(testId);
+
+        for (String path : new String[] { "/api/tests/" + testId, "/api/tests/" + testId + "/questions" }) {
+            MvcResult first = mockMvc.perform(get(path)).andExpect(status().isOk()).andReturn();
+            String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+            String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+            assertNotNull(eTag, path);
+            assertNotNull(lastModified, path);
+
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, eTag));
+            mockMvc.perform(get(path).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                    .andExpect(status().isNotModified());
+            // If-None-Match được ưu tiên hơn If-Modified-Since
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, "\"test-0-v0\"")
+                            .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                    .andExpect(status().isOk());
+        }
+
+        String eTag = mockMvc.perform(get("/api/tests/" + testId)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        contentVersions.testChanged(testId);
+        MvcResult changed = mockMvc.perform(get("/api/tests/" + testId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    private Long saveTest(String title) {
+        QuestionGroup group = new QuestionGroup();
+        group.setTitle("Nhóm phát đề");
+        group.setQuestionType(QuestionGroup.QuestionType.READING);
+        group.setPart(7);
+        group = questionGroupRepository.save(group);
+        ToeicQuestion question = new ToeicQuestion();
+        question.setQuestion("Câu hỏi phát đề");
+        question.setQuestionOrder(1);
+        question.setCorrectAnswer("A");
+        question.setExplanation("Lời giải bí mật");
+        question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+        question.setQuestionGroup(group);
+        questionRepository.save(question);
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle(title);
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        test.addQuestionGroup(group);
+        return testRepository.save(test).getId();
+    }
+}
@@ -0,0 +1,136 @@
+package com.hungtv.toeic.be.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.TestResult;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+import com.hungtv.toeic.be.submission.PendingSubmission;
+
+/**
+ * Kiểm tra các bộ ghi JDBC batch chèn đúng số dòng của bài nộp và câu trả lời.
+ */
+@SpringBootTest
+class SubmissionBatchWriterTests {
+
+    @Autowired
+    private TestResultBatchWriter resultWriter;
+
+    @Autowired
+    private UserAnswerBatchWriter answerWriter;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Autowired
+    private ToeicQuestionRepository questionRepository;
+
+    @Test
+    void resultBatchInsertsOneRowPerSubmission() {
+        User user = userRepository.save(new User("batch-results", "secret", "batch-results@example.com", "Batch"));
+        com.hungtv.toeic.be.models.Test test = saveTest();
+        List<PendingSubmission> submissions = new ArrayList<>();
+        List<PackedAnswerSheet> sheets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            submissions.add(submission("batch-" + i, user.getId(), test.getId()));
+            sheets.add(null);
+        }
+        long before = testResultRepository.count();
+
+        Map<String, Long> ids = resultWriter.insertAll(submissions, sheets);
+
+        assertEquals(3, ids.size());
+        assertEquals(before + 3, testResultRepository.count());
+        TestResult saved = testResultRepository.findById(ids.get("batch-1")).orElseThrow();
+        assertEquals(60, saved.getTotalScore());
+        assertEquals(3, saved.getCorrectAnswers());
+        assertNull(saved.getAnswerSheet());
+    }
+
+    @Test
+    void answerBatchInsertsCountRowsAcrossSeveralBatches() {
+        User user = userRepository.save(new User("batch-answers", "secret", "batch-answers@example.com", "Batch"));
+        com.hungtv.toeic.be.models.Test test = saveTest();
+        long[] questionPool = saveQuestions(3);
+        TestResult result = new TestResult(user, test);
+        result.setTotalScore(0);
+        result.setCorrectAnswers(0);
+        result.setTotalQuestions(0);
+        long resultId = testResultRepository.save(result).getId();
+
+        // Mảng dài hơn count: chỉ count phần tử đầu được chèn, qua nhiều lô 500 dòng
+        int count = 1_203;
+        long[] questionIds = new long[count + 7];
+        String[] answers = new String[count + 7];
+        boolean[] correct = new boolean[count + 7];
+        for (int i = 0; i < questionIds.length; i++) {
+            questionIds[i] = questionPool[i % questionPool.length];
+            answers[i] = i % 2 == 0 ? "A" : "B";
+            correct[i] = i % 2 == 0;
+        }
+
+        answerWriter.insertAll(resultId, questionIds, answers, correct, count);
+
+        List<Object[]> rows = userAnswerRepository.findAnswerRowsByTestResultId(resultId);
+        assertEquals(count, rows.size());
+        assertEquals((count + 1) / 2, rows.stream().filter(row -> Boolean.TRUE.equals(row[2])).count());
+        assertEquals(count / 3, rows.stream().filter(row -> questionPool[2] == ((Number) row[0]).longValue()).count());
+    }
+
+    private com.hungtv.toeic.be.models.Test saveTest() {
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề ghi theo lô");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        return testRepository.save(test);
+    }
+
+    private long[] saveQuestions(int count) {
+        QuestionGroup group = new QuestionGroup();
+        group.setTitle("Nhóm ghi theo lô");
+        group.setQuestionType(QuestionGroup.QuestionType.READING);
+        group.setPart(7);
+        group = questionGroupRepository.save(group);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ToeicQuestion question = new ToeicQuestion();
+            question.setQuestion("Câu hỏi " + (i + 1));
+            question.setQuestionOrder(i + 1);
+            question.setCorrectAnswer("A");
+            question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+            question.setQuestionGroup(group);
+            ids[i] = questionRepository.save(question).getId();
+        }
+        return ids;
+    }
+
+    private static PendingSubmission submission(String id, long userId, long testId) {
+        int[] scores = { 0, 60, 0, 0, 60, 5, 60, 3, 5 };
+        return new PendingSubmission(id, "attempt-" + id, userId, testId, "Đề ghi theo lô", 30, LocalDateTime.now(),
+                scores, 0, new long[0], new String[0], new boolean[0]);
+    }
+}
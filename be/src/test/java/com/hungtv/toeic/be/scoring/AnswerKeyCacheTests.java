@@ -0,0 +1,113 @@
+package com.hungtv.toeic.be.scoring;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicOption;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+import com.hungtv.toeic.be.services.ToeicQuestionService;
+import com.hungtv.toeic.be.services.ToeicTestService;
+
+/**
+ * Kiểm tra AnswerKeyCache được dựng lại khi đáp án hoặc danh sách nhóm của bài thi thay đổi.
+ */
+@SpringBootTest
+class AnswerKeyCacheTests {
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ToeicQuestionService questionService;
+
+    @Autowired
+    private ToeicTestService testService;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Autowired
+    private ToeicQuestionRepository questionRepository;
+
+    @Test
+    void answerChangeRebuildsTheKey() {
+        QuestionGroup group = saveGroup("Nhóm đáp án");
+        ToeicQuestion question = saveQuestion(group, "A");
+        Long testId = saveTest(group);
+
+        AnswerKey before = answerKeyCache.get(testId);
+        int index = before.indexOf(question.getId());
+        assertTrue(before.isCorrect(index, "A"));
+        assertSame(before, answerKeyCache.get(testId));
+
+        questionService.updateQuestion(question.getId(), questionRequest("B"), group.getId());
+
+        AnswerKey after = answerKeyCache.get(testId);
+        assertNotSame(before, after);
+        assertTrue(after.getVersion() > before.getVersion());
+        assertTrue(after.isCorrect(after.indexOf(question.getId()), "B"));
+        assertFalse(after.isCorrect(after.indexOf(question.getId()), "A"));
+    }
+
+    @Test
+    void removedGroupDropsOutOfTheKey() {
+        QuestionGroup group = saveGroup("Nhóm bị gỡ");
+        ToeicQuestion question = saveQuestion(group, "A");
+        Long testId = saveTest(group);
+        assertTrue(answerKeyCache.get(testId).indexOf(question.getId()) >= 0);
+
+        testService.removeQuestionGroupFromTest(testId, group.getId());
+
+        assertTrue(answerKeyCache.get(testId).indexOf(question.getId()) < 0);
+    }
+
+    private QuestionGroup saveGroup(String title) {
+        QuestionGroup group = new QuestionGroup();
+        group.setTitle(title);
+        group.setQuestionType(QuestionGroup.QuestionType.READING);
+        group.setPart(7);
+        return questionGroupRepository.save(group);
+    }
+
+    private ToeicQuestion saveQuestion(QuestionGroup group, String correctAnswer) {
+        ToeicQuestion question = questionRequest(correctAnswer);
+        question.setOptions(null);
+        question.setQuestionGroup(group);
+        return questionRepository.save(question);
+    }
+
+    private Long saveTest(QuestionGroup group) {
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề đáp án");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        test.addQuestionGroup(group);
+        return testRepository.save(test).getId();
+    }
+
+    private static ToeicQuestion questionRequest(String correctAnswer) {
+        ToeicQuestion request = new ToeicQuestion();
+        request.setQuestion("Câu hỏi đáp án");
+        request.setQuestionOrder(1);
+        request.setCorrectAnswer(correctAnswer);
+        request.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+        request.setOptions(new HashSet<>(Set.of(new ToeicOption("A", "Đáp án A"), new ToeicOption("B", "Đáp án B"))));
+        return request;
+    }
+}
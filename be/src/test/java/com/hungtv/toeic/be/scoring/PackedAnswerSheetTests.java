@@ -0,0 +1,47 @@
+package com.hungtv.toeic.be.scoring;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PackedAnswerSheetTests {
+
+    // Thứ tự câu hỏi của ảnh chụp bài thi không trùng thứ tự ID
+    private final SheetLayout layout = new SheetLayout(7L, 1L, 3L, new long[] { 30L, 10L, 20L });
+
+    @Test
+    void packsAnswersByLayoutPosition() {
+        PackedAnswerSheet sheet = PackedAnswerSheet.pack(layout,
+                new long[] { 10L, 30L }, new String[] { "B", "D" }, new boolean[] { true, false }, 2);
+
+        assertEquals(7L, sheet.getLayoutId());
+        // Byte định dạng + 2 byte cho 3 câu (4 bit mỗi câu)
+        assertEquals(3, sheet.getSheet().length);
+        byte[] codes = PackedAnswerSheet.decode(sheet.getSheet(), layout.size());
+        assertEquals("D", AnswerKey.answerOf(codes[0]));
+        assertEquals("B", AnswerKey.answerOf(codes[1]));
+        assertEquals(0, codes[2]);
+        assertFalse(PackedAnswerSheet.isCorrect(sheet.getCorrectBits(), 0));
+        assertTrue(PackedAnswerSheet.isCorrect(sheet.getCorrectBits(), 1));
+        assertEquals(1, PackedAnswerSheet.countCorrect(sheet.getCorrectBits()));
+    }
+
+    @Test
+    void fallsBackToBytePerQuestionForLateLetters() {
+        byte[] codes = { AnswerKey.answerCode("Z"), 0, AnswerKey.answerCode("A") };
+        byte[] packed = PackedAnswerSheet.encode(codes);
+
+        assertEquals(PackedAnswerSheet.FORMAT_BYTE, packed[0]);
+        assertArrayEquals(codes, PackedAnswerSheet.decode(packed, codes.length));
+    }
+
+    @Test
+    void refusesAnswersThatCannotBePacked() {
+        assertNull(PackedAnswerSheet.pack(layout, new long[] { 99L }, new String[] { "A" }, new boolean[] { true }, 1));
+        assertNull(PackedAnswerSheet.pack(layout, new long[] { 10L }, new String[] { "True" }, new boolean[] { true }, 1));
+    }
+}
@@ -0,0 +1,111 @@
+package com.hungtv.toeic.be.scoring;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+
+class ScoringEngineTests {
+
+    @Test
+    void countsEachQuestionInExactlyOneSection() {
+        // Câu hỏi trong nhóm LISTENING có category GRAMMAR: trước đây bị đếm cả vào Listening và Grammar
+        AnswerKey key = AnswerKey.of(snapshot(
+                group(1L, QuestionGroup.QuestionType.LISTENING,
+                        question(10L, "A", ToeicQuestion.QuestionCategory.GRAMMAR),
+                        question(11L, "B", null)),
+                group(2L, QuestionGroup.QuestionType.READING,
+                        question(20L, "C", null),
+                        question(21L, "D", null))));
+
+        long[] ids = { 21L, 10L, 11L, 20L, 99L };
+        String[] answers = { "D", "A", "C", null, "A" };
+        int[] indexes = new int[ids.length];
+        boolean[] correct = new boolean[ids.length];
+        ScoreResult result = ScoringEngine.score(key, ids, answers, ids.length, indexes, correct);
+
+        assertArrayEquals(new boolean[] { true, true, false, false, false }, correct);
+        assertEquals(-1, indexes[4]);
+        assertEquals(2, result.getCorrectAnswers());
+        assertEquals(2, result.getTotal(ScoringEngine.LISTENING));
+        assertEquals(1, result.getCorrect(ScoringEngine.LISTENING));
+        assertEquals(2, result.getTotal(ScoringEngine.READING));
+        assertEquals(0, result.getTotal(ScoringEngine.GRAMMAR));
+        assertEquals(50, result.getScore(ScoringEngine.LISTENING));
+        assertEquals(248, result.getListeningScaledScore());
+        assertEquals(40, result.getTotalScore());
+    }
+
+    @Test
+    void comparesNonLetterAnswersExactly() {
+        AnswerKey key = AnswerKey.of(snapshot(group(1L, QuestionGroup.QuestionType.GRAMMAR,
+                question(1L, "A", null), question(2L, "True", null))));
+
+        long[] ids = { 1L, 1L, 2L, 2L };
+        String[] answers = { "a", "A", "True", "true" };
+        boolean[] correct = new boolean[ids.length];
+        ScoringEngine.score(key, ids, answers, ids.length, new int[ids.length], correct);
+
+        assertArrayEquals(new boolean[] { false, true, true, false }, correct);
+    }
+
+    @Test
+    void scoresPositionalSheetLikeIdBasedAnswers() {
+        AnswerKey key = AnswerKey.of(snapshot(
+                group(1L, QuestionGroup.QuestionType.LISTENING,
+                        question(10L, "A", ToeicQuestion.QuestionCategory.GRAMMAR),
+                        question(11L, "B", null)),
+                group(2L, QuestionGroup.QuestionType.READING,
+                        question(20L, "C", null),
+                        question(21L, "D", null))));
+
+        // Cùng câu trả lời với countsEachQuestionInExactlyOneSection, theo vị trí 10, 11, 20, 21
+        byte[] sheet = { AnswerKey.answerCode("A"), AnswerKey.answerCode("C"), 0, AnswerKey.answerCode("D") };
+        boolean[] correct = new boolean[sheet.length];
+        ScoreResult result = ScoringEngine.scoreSheet(key, sheet, correct);
+
+        assertArrayEquals(new boolean[] { true, false, false, true }, correct);
+        assertEquals(3, result.getTotalQuestions());
+        assertEquals(2, result.getCorrectAnswers());
+        assertEquals(2, result.getTotal(ScoringEngine.LISTENING));
+        assertEquals(1, result.getTotal(ScoringEngine.READING));
+        assertEquals("D", AnswerKey.answerOf(sheet[3]));
+        assertEquals(-1, AnswerKey.answerCode("True"));
+    }
+
+    private static TestSnapshot snapshot(TestSnapshot.GroupSnapshot... groups) {
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setId(1L);
+        return new TestSnapshot(test, List.of(groups));
+    }
+
+    private static TestSnapshot.GroupSnapshot group(Long id, QuestionGroup.QuestionType type, ToeicQuestion... questions) {
+        QuestionGroup group = new QuestionGroup();
+        group.setId(id);
+        group.setQuestionType(type);
+        group.setPart(1);
+        List<ToeicQuestion> list = new ArrayList<>();
+        for (ToeicQuestion question : questions) {
+            question.setQuestionGroup(group);
+            list.add(question);
+        }
+        return new TestSnapshot.GroupSnapshot(group, list);
+    }
+
+    private static ToeicQuestion question(Long id, String correctAnswer, ToeicQuestion.QuestionCategory category) {
+        ToeicQuestion question = new ToeicQuestion();
+        question.setId(id);
+        question.setQuestion("Câu hỏi " + id);
+        question.setCorrectAnswer(correctAnswer);
+        question.setCategory(category);
+        question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+        return question;
+    }
+}
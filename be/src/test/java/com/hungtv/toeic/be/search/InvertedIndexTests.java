@@ -0,0 +1,80 @@
+package com.hungtv.toeic.be.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicOption;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+
+class InvertedIndexTests {
+
+    private final SearchFilter noFilter = new SearchFilter();
+
+    @Test
+    void foldsCaseAndVietnameseDiacritics() {
+        assertEquals(List.of("giai", "thich", "dap", "an", "dung"), TextFolding.tokenize("Giải THÍCH: đáp án Đúng!"));
+    }
+
+    @Test
+    void ranksQuestionTextAboveExplanationAndSupportsPrefix() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(IndexedQuestion.from(question(1L, "The meeting was postponed", "Chọn thì quá khứ", null)));
+        index.put(IndexedQuestion.from(question(2L, "She arrived late", "Meeting nghĩa là cuộc họp", null)));
+        index.put(IndexedQuestion.from(question(3L, "Nothing relevant", "Không liên quan", null)));
+
+        SearchResult exact = index.search("meeting ", noFilter, 0, 10);
+        assertEquals(List.of(1L, 2L), exact.getHits().stream().map(SearchResult.Hit::questionId).toList());
+
+        SearchResult prefix = index.search("meet", noFilter, 0, 10);
+        assertEquals(2, prefix.getTotal());
+
+        // Không dấu vẫn khớp nội dung có dấu; các token kết hợp theo AND
+        SearchResult folded = index.search("cuoc hop", noFilter, 0, 10);
+        assertEquals(List.of(2L), folded.getHits().stream().map(SearchResult.Hit::questionId).toList());
+    }
+
+    @Test
+    void indexesPassageAndCountsFacetsAndHandlesRemoval() {
+        QuestionGroup group = new QuestionGroup();
+        group.setId(10L);
+        group.setPart(7);
+        group.setQuestionType(QuestionGroup.QuestionType.READING);
+        group.setPassage("Annual company picnic announcement");
+
+        InvertedIndex index = new InvertedIndex();
+        index.put(IndexedQuestion.from(question(1L, "What is announced?", null, group)));
+        index.put(IndexedQuestion.from(question(2L, "When is the picnic?", null, group)));
+        index.put(IndexedQuestion.from(question(3L, "Picnic vocabulary", null, null)));
+
+        SearchResult result = index.search("picnic", noFilter, 0, 10);
+        assertEquals(3, result.getTotal());
+        assertEquals(2L, result.getFacets().get("part").get("7"));
+        assertEquals(3L, result.getFacets().get("difficulty").get("MEDIUM"));
+
+        SearchResult standalone = index.search("picnic", new SearchFilter(null, null, null, true), 0, 10);
+        assertEquals(List.of(3L), standalone.getHits().stream().map(SearchResult.Hit::questionId).toList());
+
+        index.remove(2L);
+        assertEquals(2, index.search("picnic", noFilter, 0, 10).getTotal());
+        assertTrue(index.documentsOfGroup(10L).contains(1L));
+        assertEquals(0, index.search("when", noFilter, 0, 10).getTotal());
+    }
+
+    private static ToeicQuestion question(Long id, String text, String explanation, QuestionGroup group) {
+        ToeicQuestion question = new ToeicQuestion();
+        question.setId(id);
+        question.setQuestion(text);
+        question.setExplanation(explanation);
+        question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+        question.setQuestionGroup(group);
+        ToeicOption option = new ToeicOption("A", "Option " + id);
+        option.setQuestion(question);
+        question.getOptions().add(option);
+        return question;
+    }
+}
@@ -0,0 +1,73 @@
+package com.hungtv.toeic.be.security.jwt;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.services.RefreshTokenService;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Kiểm tra AuthTokenFilter: token cấp trước khi có jti vẫn dùng được đến khi hết hạn,
+ * token đã bị thu hồi thì không.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthTokenFilterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void tokenWithoutJtiIsAcceptedUntilExpiry() throws Exception {
+        userRepository.save(new User("legacy-token", "secret", "legacy-token@example.com", "Legacy"));
+        String legacy = jwtUtils.generateAccessToken("legacy-token", null,
+                new Date(System.currentTimeMillis() + 60_000));
+
+        mockMvc.perform(get("/api/auth/me").cookie(new Cookie("toeic-jwt", legacy)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authenticated").value(true))
+                .andExpect(jsonPath("$.username").value("legacy-token"));
+
+        String expired = jwtUtils.generateAccessToken("legacy-token", null,
+                new Date(System.currentTimeMillis() - 60_000));
+        mockMvc.perform(get("/api/auth/me").cookie(new Cookie("toeic-jwt", expired)))
+                .andExpect(jsonPath("$.authenticated").value(false));
+    }
+
+    @Test
+    void revokedTokenIsRejected() throws Exception {
+        User user = userRepository.save(new User("revoked-token", "secret", "revoked-token@example.com", "Revoked"));
+        String accessToken = refreshTokenService.issue(user.getId(), user.getUsername()).accessToken();
+        Claims claims = jwtUtils.parseClaims(accessToken);
+
+        mockMvc.perform(get("/api/auth/me").cookie(new Cookie("toeic-jwt", accessToken)))
+                .andExpect(jsonPath("$.authenticated").value(true));
+
+        refreshTokenService.logout(null, claims.getId(), claims.getExpiration());
+
+        mockMvc.perform(get("/api/auth/me").cookie(new Cookie("toeic-jwt", accessToken)))
+                .andExpect(jsonPath("$.authenticated").value(false));
+    }
+}
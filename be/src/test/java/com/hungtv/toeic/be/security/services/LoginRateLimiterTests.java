@@ -0,0 +1,37 @@
+package com.hungtv.toeic.be.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hungtv.toeic.be.exception.AuthThrottledException;
+
+/**
+ * Kiểm tra giới hạn đăng nhập mặc định: cả trường học sau một NAT đăng nhập cùng lúc không bị chặn
+ * theo IP, còn dò mật khẩu một tài khoản thì bị chặn theo tên đăng nhập.
+ */
+@SpringBootTest
+class LoginRateLimiterTests {
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Test
+    void classLoginWaveFromOneAddressIsNotThrottled() {
+        String schoolNat = "203.0.113.10";
+        for (int i = 0; i < 300; i++) {
+            loginRateLimiter.acquire(schoolNat, "student-" + i);
+        }
+    }
+
+    @Test
+    void repeatedAttemptsOnOneAccountAreThrottled() {
+        String clientIp = "203.0.113.20";
+        for (int i = 0; i < 5; i++) {
+            loginRateLimiter.acquire(clientIp, "Guessed-Account");
+        }
+        assertThrows(AuthThrottledException.class, () -> loginRateLimiter.acquire(clientIp, "guessed-account"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.hungtv.toeic.be.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.hungtv.toeic.be.models.ERole;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.payload.request.UpdateUserRequest;
+import com.hungtv.toeic.be.repositories.RoleRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.services.UserService;
+
+/**
+ * Kiểm tra cache người dùng đã xác thực trả lại cùng đối tượng, và bị bỏ khi đổi vai trò hoặc xóa người dùng.
+ */
+@SpringBootTest
+class PrincipalCacheTests {
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    void roleChangeAndDeleteInvalidateCachedPrincipal() {
+        User user = new User("cached-user", "secret", "cached@example.com", "Cached User");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_USER).orElseThrow()));
+        user = userRepository.save(user);
+
+        UserDetailsImpl first = principalCache.get("cached-user");
+        assertSame(first, principalCache.get("cached-user"));
+        assertEquals(1, first.getAuthorities().size());
+
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setUsername("cached-user");
+        request.setEmail("cached@example.com");
+        request.setFullName("Cached User");
+        request.setRole("ADMIN");
+        userService.updateUser(user.getId(), request);
+        assertTrue(principalCache.get("cached-user").getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+
+        userService.deleteUser(user.getId());
+        assertThrows(UsernameNotFoundException.class, () -> principalCache.get("cached-user"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.hungtv.toeic.be.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class StripedTokenBucketTests {
+
+    @Test
+    void refillsAtConfiguredRate() {
+        // 3 lần liên tiếp, nạp lại 1 lần mỗi giây
+        StripedTokenBucket buckets = new StripedTokenBucket(1024, 3, 60);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("user", now));
+        }
+        long wait = buckets.tryAcquire("user", now);
+        assertTrue(wait > 0 && wait <= 1000, "wait = " + wait);
+        assertTrue(buckets.tryAcquire("user", now + 500) > 0);
+        assertEquals(0, buckets.tryAcquire("user", now + 1000));
+        assertTrue(buckets.tryAcquire("user", now + 1000) > 0);
+        // Sau thời gian dài chỉ nạp đến sức chứa
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("user", now + 60_000));
+        }
+        assertTrue(buckets.tryAcquire("user", now + 60_000) > 0);
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedCapacity() throws InterruptedException {
+        StripedTokenBucket buckets = new StripedTokenBucket(16, 1000, 1);
+        long now = System.currentTimeMillis();
+        AtomicInteger acquired = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (buckets.tryAcquire("10.0.0.1", now) == 0) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, acquired.get());
+    }
+}
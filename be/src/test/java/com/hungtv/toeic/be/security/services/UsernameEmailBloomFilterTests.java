@@ -0,0 +1,59 @@
+package com.hungtv.toeic.be.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.payload.request.RegisterRequest;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.services.AuthService;
+
+/**
+ * Kiểm tra kiểm tra trùng tên đăng nhập/email đi qua bloom filter, và người dùng ghi thẳng vào
+ * database (như từ node khác) vẫn bị chặn.
+ */
+@SpringBootTest
+class UsernameEmailBloomFilterTests {
+
+    @Autowired
+    private UsernameEmailBloomFilter usernameEmailFilter;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void negativeAnswersSkipDatabase() {
+        long databaseChecks = (Long) usernameEmailFilter.getStats().get("databaseChecks");
+        assertFalse(usernameEmailFilter.isUsernameTaken("chua-ai-dung"));
+        assertFalse(usernameEmailFilter.isEmailTaken("chua-ai-dung@example.com"));
+        assertEquals(databaseChecks, usernameEmailFilter.getStats().get("databaseChecks"));
+
+        assertTrue(authService.registerUser(
+                new RegisterRequest("filter-user", "filter@example.com", "Filter User", "secret123")).isSuccess());
+        assertTrue(usernameEmailFilter.isUsernameTaken("filter-user"));
+        assertTrue(usernameEmailFilter.isEmailTaken("filter@example.com"));
+        assertFalse(authService.registerUser(
+                new RegisterRequest("filter-user", "other@example.com", "Filter User", "secret123")).isSuccess());
+    }
+
+    @Test
+    void usersWrittenElsewhereAreStillRejected() {
+        userRepository.save(new User("other-node-user", "secret", "other-node@example.com", "Other Node"));
+
+        // Filter chưa biết người dùng này: ràng buộc unique chặn lại
+        assertFalse(authService.registerUser(
+                new RegisterRequest("other-node-user", "fresh@example.com", "Other Node", "secret123")).isSuccess());
+
+        usernameEmailFilter.sync();
+        assertTrue(usernameEmailFilter.isUsernameTaken("other-node-user"));
+        assertTrue(usernameEmailFilter.isEmailTaken("other-node@example.com"));
+    }
+}
@@ -0,0 +1,212 @@
+package com.hungtv.toeic.be.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicOption;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.payload.request.SaveTestResultRequest;
+import com.hungtv.toeic.be.payload.response.ExamSessionResponse;
+import com.hungtv.toeic.be.payload.response.TestResultResponse;
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.session.ExamSessionStore;
+import com.hungtv.toeic.be.session.LiveExamSession;
+
+/**
+ * Kiểm tra vòng đời lượt làm bài: bắt đầu/tiếp tục, lưu câu trả lời theo lô, nạp lại sau khi bị
+ * bỏ khỏi bộ nhớ (ánh xạ lại khi nội dung bài thi đổi) và kết thúc không tạo thêm kết quả.
+ */
+@SpringBootTest
+class ExamSessionServiceTests {
+
+    @Autowired
+    private ExamSessionService examSessionService;
+
+    @Autowired
+    private ExamSessionStore sessionStore;
+
+    @Autowired
+    private ToeicQuestionService questionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Autowired
+    private ToeicQuestionRepository questionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @WithMockUser(username = "exam-session-user")
+    void resumesFlushesAndFinalizesOnce() {
+        userRepository.save(new User("exam-session-user", "secret", "exam-session@example.com", "Exam Session"));
+        QuestionGroup group = saveGroup("Nhóm lượt làm bài");
+        List<ToeicQuestion> questions = saveQuestions(group, 2);
+        long testId = saveTest("Đề lượt làm bài", group);
+
+        ExamSessionResponse started = examSessionService.startSession(testId);
+        assertEquals("IN_PROGRESS", started.getStatus());
+        assertEquals(2, started.getTotalQuestions());
+
+        examSessionService.updateAnswers(started.getId(), List.of(answer(questions.get(0).getId(), "A")));
+        ExamSessionResponse resumed = examSessionService.startSession(testId);
+        assertEquals(started.getId(), resumed.getId());
+        assertEquals(Map.of(questions.get(0).getId(), "A"), resumed.getAnswers());
+
+        // Thay đổi chỉ nằm trong bộ nhớ đến lần lưu định kỳ
+        assertEquals(0, answeredCount(started.getId()));
+        sessionStore.flush();
+        assertEquals(1, answeredCount(started.getId()));
+
+        TestResultResponse result = examSessionService.finalizeSession(started.getId());
+        assertNotNull(result.getId());
+        assertEquals(1, result.getCorrectAnswers());
+        assertThrows(IllegalStateException.class, () -> examSessionService.finalizeSession(started.getId()));
+        assertEquals("FINALIZED", jdbcTemplate.queryForObject(
+                "SELECT status FROM exam_sessions WHERE id = ?", String.class, started.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM test_results WHERE idempotency_key = ?", Integer.class,
+                "exam-session-" + started.getId()));
+        assertEquals("FINALIZED", examSessionService.getSession(started.getId()).getStatus());
+    }
+
+    @Test
+    @WithMockUser(username = "exam-reload-user")
+    void reloadsEvictedSessionOnceAndRemapsChangedTest() throws Exception {
+        userRepository.save(new User("exam-reload-user", "secret", "exam-reload@example.com", "Exam Reload"));
+        QuestionGroup group = saveGroup("Nhóm nạp lại");
+        QuestionGroup detached = saveGroup("Nhóm ngoài đề nạp lại");
+        List<ToeicQuestion> questions = saveQuestions(group, 2);
+        long testId = saveTest("Đề nạp lại", group);
+
+        long sessionId = examSessionService.startSession(testId).getId();
+        examSessionService.updateAnswers(sessionId, List.of(answer(questions.get(0).getId(), "A"),
+                answer(questions.get(1).getId(), "B")));
+        evictAll();
+
+        // Câu 1 rời bài thi: phiếu trả lời được ánh xạ lại theo đáp án hiện hành
+        questionService.updateQuestion(questions.get(0).getId(), questionRequest("Câu hỏi 1", 1), detached.getId());
+
+        long loads = (Long) sessionStore.getStats().get("loads");
+        long remaps = (Long) sessionStore.getStats().get("remaps");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<LiveExamSession>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(() -> sessionStore.acquire(sessionId));
+            }
+            List<Future<LiveExamSession>> acquired = pool.invokeAll(tasks);
+            LiveExamSession live = acquired.get(0).get();
+            for (Future<LiveExamSession> future : acquired) {
+                assertSame(live, future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(loads + 1, sessionStore.getStats().get("loads"));
+        assertEquals(remaps + 1, sessionStore.getStats().get("remaps"));
+
+        ExamSessionResponse reloaded = examSessionService.getSession(sessionId);
+        assertEquals(1, reloaded.getTotalQuestions());
+        assertEquals(Map.of(questions.get(1).getId(), "B"), reloaded.getAnswers());
+        assertEquals(1, answeredCount(sessionId));
+        assertEquals(0, examSessionService.finalizeSession(sessionId).getCorrectAnswers());
+        assertEquals("FINALIZED", jdbcTemplate.queryForObject(
+                "SELECT status FROM exam_sessions WHERE id = ?", String.class, sessionId));
+    }
+
+    /**
+     * Lưu thay đổi rồi bỏ mọi lượt làm bài khỏi bộ nhớ như khi không hoạt động quá lâu
+     */
+    private void evictAll() {
+        Object idleEvictMinutes = ReflectionTestUtils.getField(sessionStore, "idleEvictMinutes");
+        ReflectionTestUtils.setField(sessionStore, "idleEvictMinutes", -1L);
+        try {
+            sessionStore.flush();
+        } finally {
+            ReflectionTestUtils.setField(sessionStore, "idleEvictMinutes", idleEvictMinutes);
+        }
+        assertEquals(0, sessionStore.getStats().get("liveSessions"));
+    }
+
+    private int answeredCount(long sessionId) {
+        return jdbcTemplate.queryForObject("SELECT answered_count FROM exam_sessions WHERE id = ?",
+                Integer.class, sessionId);
+    }
+
+    private static SaveTestResultRequest.UserAnswerRequest answer(Long questionId, String userAnswer) {
+        return new SaveTestResultRequest.UserAnswerRequest(questionId, userAnswer);
+    }
+
+    private QuestionGroup saveGroup(String title) {
+        QuestionGroup group = new QuestionGroup();
+        group.setTitle(title);
+        group.setQuestionType(QuestionGroup.QuestionType.READING);
+        group.setPart(7);
+        return questionGroupRepository.save(group);
+    }
+
+    private List<ToeicQuestion> saveQuestions(QuestionGroup group, int count) {
+        List<ToeicQuestion> questions = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            ToeicQuestion question = new ToeicQuestion();
+            question.setQuestion("Câu hỏi " + i);
+            question.setQuestionOrder(i);
+            question.setCorrectAnswer("A");
+            question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+            question.setQuestionGroup(group);
+            questions.add(questionRepository.save(question));
+        }
+        return questions;
+    }
+
+    private long saveTest(String title, QuestionGroup group) {
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle(title);
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        test.addQuestionGroup(group);
+        return testRepository.save(test).getId();
+    }
+
+    private static ToeicQuestion questionRequest(String text, int order) {
+        ToeicQuestion request = new ToeicQuestion();
+        request.setQuestion(text);
+        request.setQuestionOrder(order);
+        request.setCorrectAnswer("A");
+        request.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+        request.setOptions(new HashSet<>(Set.of(new ToeicOption("A", "Đáp án A"), new ToeicOption("B", "Đáp án B"))));
+        return request;
+    }
+}
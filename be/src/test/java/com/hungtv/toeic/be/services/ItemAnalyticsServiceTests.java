@@ -0,0 +1,110 @@
+package com.hungtv.toeic.be.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.hungtv.toeic.be.models.AnswerSheetLayout;
+import com.hungtv.toeic.be.models.TestResult;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.payload.response.QuestionStatsResponse;
+import com.hungtv.toeic.be.repositories.AnswerSheetLayoutRepository;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+import com.hungtv.toeic.be.scoring.SheetLayout;
+
+/**
+ * Kiểm tra độ khó/độ phân biệt tính từ phiếu trả lời nén, và lần tính tăng dần chỉ cộng bài nộp mới.
+ */
+@SpringBootTest
+class ItemAnalyticsServiceTests {
+
+    private static final long[] QUESTION_IDS = { 880001L, 880002L, 880003L };
+
+    @Autowired
+    private ItemAnalyticsService itemAnalytics;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private AnswerSheetLayoutRepository layoutRepository;
+
+    @Test
+    void computesDifficultyAndDiscriminationThenFoldsInNewAttempts() throws InterruptedException {
+        User user = userRepository.save(new User("item-user", "secret", "item@example.com", "Item User"));
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề thống kê câu hỏi");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        testRepository.save(test);
+        AnswerSheetLayout entity = layoutRepository.save(new AnswerSheetLayout(test.getId(), 1L, QUESTION_IDS.length,
+                SheetLayout.encode(QUESTION_IDS)));
+        SheetLayout layout = new SheetLayout(entity.getId(), test.getId(), 1L, QUESTION_IDS);
+
+        // Câu 1 chỉ bài điểm cao làm đúng, câu 2 chỉ bài điểm thấp làm đúng, câu 3 ai cũng đúng
+        saveAttempt(user, test, layout, 90, true, false, true);
+        saveAttempt(user, test, layout, 70, true, false, true);
+        saveAttempt(user, test, layout, 50, false, true, true);
+        saveAttempt(user, test, layout, 30, false, true, true);
+
+        runAndWait(false);
+        Map<Long, QuestionStatsResponse> stats = itemAnalytics.findStats(List.of(880001L, 880002L, 880003L));
+        assertEquals(4L, stats.get(880001L).getResponses());
+        assertEquals(0.5, stats.get(880001L).getPValue());
+        // (M1 - M0) / s * sqrt(p(1-p)) = (80 - 40) / sqrt(500) * 0.5
+        assertEquals(0.8944, stats.get(880001L).getDiscrimination(), 1e-4);
+        assertEquals(-0.8944, stats.get(880002L).getDiscrimination(), 1e-4);
+        assertEquals(1.0, stats.get(880003L).getPValue());
+        assertNull(stats.get(880003L).getDiscrimination());
+        assertTrue(itemAnalytics.findLowDiscrimination(4, 0.0, 10).stream()
+                .anyMatch(flagged -> flagged.getQuestionId() == 880002L));
+
+        // Lần tính tăng dần chỉ cộng bài nộp mới
+        saveAttempt(user, test, layout, 10, false, true, false);
+        runAndWait(true);
+        stats = itemAnalytics.findStats(List.of(880001L, 880003L));
+        assertEquals(5L, stats.get(880001L).getResponses());
+        assertEquals(0.4, stats.get(880001L).getPValue(), 1e-9);
+        assertEquals(0.8, stats.get(880003L).getPValue(), 1e-9);
+        assertEquals(1L, ((Number) itemAnalytics.getStatus().get("answerSheets")).longValue());
+    }
+
+    private void saveAttempt(User user, com.hungtv.toeic.be.models.Test test, SheetLayout layout, int totalScore,
+                             boolean... correct) {
+        PackedAnswerSheet sheet = PackedAnswerSheet.pack(layout, QUESTION_IDS, new String[] { "A", "B", "C" },
+                correct, QUESTION_IDS.length);
+        TestResult result = new TestResult(user, test);
+        result.setTotalScore(totalScore);
+        result.setCreatedAt(LocalDateTime.now().minusMinutes(1));
+        result.setAnswerSheet(sheet.getSheet());
+        result.setCorrectBits(sheet.getCorrectBits());
+        result.setSheetLayoutId(sheet.getLayoutId());
+        testResultRepository.save(result);
+    }
+
+    private void runAndWait(boolean incremental) throws InterruptedException {
+        assertTrue(itemAnalytics.start(incremental));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Boolean.TRUE.equals(itemAnalytics.getStatus().get("running")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertNull(itemAnalytics.getStatus().get("lastError"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.hungtv.toeic.be.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.cache.TestSnapshot;
+import com.hungtv.toeic.be.cache.TestSnapshotLoader;
+import com.hungtv.toeic.be.exception.QuestionGroupListTooLargeException;
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.ToeicOption;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.payload.response.KeysetPageResponse;
+import com.hungtv.toeic.be.payload.response.QuestionGroupResponse;
+import com.hungtv.toeic.be.payload.response.QuestionGroupSummaryResponse;
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.ToeicOptionRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Kiểm tra số câu truy vấn của các đường đọc nhóm câu hỏi / câu hỏi / tùy chọn
+ * không phụ thuộc vào số lượng dữ liệu (không có N+1).
+ */
+@SpringBootTest
+class QuestionFetchPlanTests {
+
+    @Autowired
+    private ToeicQuestionService questionService;
+
+    @Autowired
+    private TestSnapshotLoader snapshotLoader;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Autowired
+    private ToeicQuestionRepository questionRepository;
+
+    @Autowired
+    private ToeicOptionRepository optionRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void groupListingRunsConstantNumberOfQueries() {
+        seedGroups(2, 2);
+        long small = countStatements(() -> questionService.getAllQuestionGroups(100_000));
+
+        seedGroups(10, 5);
+        List<QuestionGroupResponse> groups = new ArrayList<>();
+        long large = countStatements(() -> groups.addAll(questionService.getAllQuestionGroups(100_000)));
+
+        // 1 truy vấn cho nhóm + bài thi, 1 truy vấn cho câu hỏi + tùy chọn
+        assertEquals(2, small);
+        assertEquals(small, large);
+        assertTrue(groups.stream().allMatch(g -> g.getQuestions().stream().allMatch(q -> q.getOptions().size() == 4)));
+    }
+
+    @Test
+    void fullGroupListingFailsInsteadOfTruncating() {
+        seedGroups(3, 1);
+        assertThrows(QuestionGroupListTooLargeException.class, () -> questionService.getAllQuestionGroups(2));
+    }
+
+    @Test
+    void fullTestSnapshotRunsConstantNumberOfQueries() {
+        Long smallTest = seedTest(seedGroups(2, 2));
+        Long largeTest = seedTest(seedGroups(12, 5));
+
+        long small = countStatements(() -> snapshotLoader.load(smallTest));
+        TestSnapshot[] snapshot = new TestSnapshot[1];
+        long large = countStatements(() -> snapshot[0] = snapshotLoader.load(largeTest));
+
+        assertEquals(small, large);
+        assertTrue(large <= 3, "Số truy vấn khi dựng ảnh chụp bài thi: " + large);
+        assertEquals(60, snapshot[0].getQuestions().size());
+    }
+
+    @Test
+    void keysetSummaryPagesWalkAllGroupsWithConstantQueries() {
+        List<QuestionGroup> seeded = seedGroups(7, 3);
+        Long afterId = seeded.get(0).getId() - 1;
+
+        List<QuestionGroupSummaryResponse> walked = new ArrayList<>();
+        KeysetPageResponse<QuestionGroupSummaryResponse> page;
+        do {
+            Long cursor = afterId;
+            @SuppressWarnings("unchecked")
+            KeysetPageResponse<QuestionGroupSummaryResponse>[] holder = new KeysetPageResponse[1];
+            long statements = countStatements(() -> holder[0] = questionService.getQuestionGroupSummariesAfter(
+                    QuestionGroup.QuestionType.READING, 7, cursor, 3));
+            page = holder[0];
+            // 1 truy vấn lấy nhóm + 1 truy vấn đếm câu hỏi
+            assertTrue(statements <= 2, "Số truy vấn mỗi trang: " + statements);
+            walked.addAll(page.getContent());
+            afterId = page.getNextAfterId();
+        } while (page.isHasMore());
+
+        List<Long> seededIds = seeded.stream().map(QuestionGroup::getId).toList();
+        assertEquals(seededIds, walked.stream().map(QuestionGroupSummaryResponse::getId)
+                .filter(seededIds::contains).toList());
+        assertTrue(walked.stream().filter(g -> seededIds.contains(g.getId())).allMatch(g -> g.getQuestionCount() == 3));
+    }
+
+    /**
+     * Đếm số câu lệnh SQL được chuẩn bị khi chạy action trong một transaction
+     * (giống open-in-view: mọi lazy load đều được tính)
+     */
+    private long countStatements(Supplier<?> action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            statistics.clear();
+            action.get();
+            return statistics.getPrepareStatementCount();
+        });
+    }
+
+    private List<QuestionGroup> seedGroups(int groupCount, int questionsPerGroup) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<QuestionGroup> groups = new ArrayList<>();
+            for (int g = 0; g < groupCount; g++) {
+                QuestionGroup group = new QuestionGroup();
+                group.setTitle("Nhóm " + g);
+                group.setQuestionType(QuestionGroup.QuestionType.READING);
+                group.setPart(7);
+                group.setPassage("Đoạn văn " + g);
+                group = questionGroupRepository.save(group);
+
+                for (int q = 1; q <= questionsPerGroup; q++) {
+                    ToeicQuestion question = new ToeicQuestion();
+                    question.setQuestion("Câu hỏi " + g + "." + q);
+                    question.setQuestionOrder(q);
+                    question.setCorrectAnswer("A");
+                    question.setExplanation("Giải thích");
+                    question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+                    question.setQuestionGroup(group);
+                    question = questionRepository.save(question);
+
+                    for (String key : new String[] { "A", "B", "C", "D" }) {
+                        ToeicOption option = new ToeicOption(key, "Đáp án " + key);
+                        option.setQuestion(question);
+                        optionRepository.save(option);
+                    }
+                }
+                groups.add(group);
+            }
+            return groups;
+        });
+    }
+
+    private Long seedTest(List<QuestionGroup> groups) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+            test.setTitle("Đề kiểm tra " + groups.size());
+            test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+            test.setDuration(120);
+            for (QuestionGroup group : groups) {
+                test.addQuestionGroup(group);
+            }
+            return testRepository.save(test).getId();
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package com.hungtv.toeic.be.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.hungtv.toeic.be.exception.TokenRefreshException;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.security.jwt.JwtUtils;
+import com.hungtv.toeic.be.security.jwt.TokenRevocationList;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Kiểm tra xoay vòng refresh token, làm mới song song trong thời gian ân hạn, phát hiện dùng lại token đã
+ * xoay vòng và thu hồi access token khi đăng xuất.
+ */
+@SpringBootTest
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reusingRotatedTokenRevokesWholeFamily() {
+        User user = userRepository.save(new User("refresh-user", "secret", "refresh@example.com", "Refresh User"));
+
+        RefreshTokenService.IssuedTokens first = refreshTokenService.issue(user.getId(), user.getUsername());
+        Claims firstAccess = jwtUtils.parseClaims(first.accessToken());
+        assertEquals("refresh-user", firstAccess.getSubject());
+        assertFalse(revocationList.isRevoked(firstAccess.getId()));
+
+        RefreshTokenService.IssuedTokens second = refreshTokenService.rotate(first.refreshToken());
+        assertNotEquals(first.refreshToken(), second.refreshToken());
+        Claims secondAccess = jwtUtils.parseClaims(second.accessToken());
+        assertFalse(revocationList.isRevoked(secondAccess.getId()));
+
+        // Trình lại ngay (hai tab làm mới cùng lúc): bị từ chối nhưng họ token không bị thu hồi
+        TokenRefreshException concurrent = assertThrows(TokenRefreshException.class,
+                () -> refreshTokenService.rotate(first.refreshToken()));
+        assertTrue(concurrent.isConcurrent());
+        assertFalse(revocationList.isRevoked(secondAccess.getId()));
+
+        // Trình lại sau thời gian ân hạn: cả họ bị thu hồi, kể cả token mới và các access token của họ
+        jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = ? WHERE revoke_reason = 'ROTATED' AND user_id = ?",
+                LocalDateTime.now().minusMinutes(1), user.getId());
+        TokenRefreshException reused = assertThrows(TokenRefreshException.class,
+                () -> refreshTokenService.rotate(first.refreshToken()));
+        assertFalse(reused.isConcurrent());
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.rotate(second.refreshToken()));
+        assertTrue(revocationList.isRevoked(firstAccess.getId()));
+        assertTrue(revocationList.isRevoked(secondAccess.getId()));
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.rotate("khong-ton-tai"));
+    }
+
+    @Test
+    void logoutRevokesAccessAndRefreshTokens() {
+        User user = userRepository.save(new User("logout-user", "secret", "logout@example.com", "Logout User"));
+
+        RefreshTokenService.IssuedTokens tokens = refreshTokenService.issue(user.getId(), user.getUsername());
+        Claims access = jwtUtils.parseClaims(tokens.accessToken());
+        refreshTokenService.logout(tokens.refreshToken(), access.getId(), access.getExpiration());
+
+        assertTrue(revocationList.isRevoked(access.getId()));
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.rotate(tokens.refreshToken()));
+
+        // Danh sách dựng lại từ bảng vẫn giữ token đã thu hồi
+        revocationList.sync();
+        assertTrue(revocationList.isRevoked(access.getId()));
+    }
+}
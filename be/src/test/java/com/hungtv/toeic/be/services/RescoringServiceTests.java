@@ -0,0 +1,302 @@
+package com.hungtv.toeic.be.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.models.QuestionGroup;
+import com.hungtv.toeic.be.models.TestResult;
+import com.hungtv.toeic.be.models.ToeicOption;
+import com.hungtv.toeic.be.models.ToeicQuestion;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.payload.response.QuestionReviewResponse;
+import com.hungtv.toeic.be.payload.response.TestResultReviewResponse;
+import com.hungtv.toeic.be.repositories.QuestionGroupRepository;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.ToeicQuestionRepository;
+import com.hungtv.toeic.be.repositories.UserAnswerBatchWriter;
+import com.hungtv.toeic.be.repositories.UserAnswerRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.scoring.AnswerKeyCache;
+import com.hungtv.toeic.be.scoring.AnswerSheetLayouts;
+import com.hungtv.toeic.be.scoring.PackedAnswerSheet;
+
+/**
+ * Kiểm tra đổi đáp án qua ToeicQuestionService chấm lại cả bài nộp dạng phiếu nén lẫn dạng dòng.
+ */
+@SpringBootTest
+class RescoringServiceTests {
+
+    @Autowired
+    private RescoringService rescoring;
+
+    @Autowired
+    private TestResultService testResultService;
+
+    @Autowired
+    private ToeicQuestionService questionService;
+
+    @Autowired
+    private AnswerSheetLayouts layouts;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private UserAnswerBatchWriter answerWriter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private QuestionGroupRepository questionGroupRepository;
+
+    @Autowired
+    private ToeicQuestionRepository questionRepository;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void answerKeyChangeRescoresPackedAndRowAttempts() throws InterruptedException {
+        User user = userRepository.save(new User("rescore-user", "secret", "rescore@example.com", "Rescore User"));
+        QuestionGroup group = new QuestionGroup();
+        group.setTitle("Nhóm chấm lại");
+        group.setQuestionType(QuestionGroup.QuestionType.READING);
+        group.setPart(7);
+        group = questionGroupRepository.save(group);
+        List<ToeicQuestion> questions = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            ToeicQuestion question = new ToeicQuestion();
+            question.setQuestion("Câu hỏi " + i);
+            question.setQuestionOrder(i);
+            question.setCorrectAnswer("A");
+            question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+            question.setQuestionGroup(group);
+            questions.add(questionRepository.save(question));
+        }
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề chấm lại");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        test.addQuestionGroup(group);
+        testRepository.save(test);
+
+        // Cả hai bài trả lời A, B: theo đáp án cũ (A, A) chỉ đúng câu 1
+        long[] questionIds = { questions.get(0).getId(), questions.get(1).getId() };
+        String[] answers = { "A", "B" };
+        boolean[] correct = { true, false };
+        PackedAnswerSheet sheet = layouts.pack(test.getId(), questionIds, answers, correct, 2);
+        TestResult packed = saveAttempt(user, test, sheet);
+        TestResult rows = saveAttempt(user, test, null);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> answerWriter.insertAll(rows.getId(), questionIds, answers, correct, 2));
+
+        ToeicQuestion request = new ToeicQuestion();
+        request.setQuestion("Câu hỏi 2");
+        request.setQuestionOrder(2);
+        request.setCorrectAnswer("B");
+        request.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+        request.setOptions(new HashSet<>(Set.of(new ToeicOption("A", "Đáp án A"), new ToeicOption("B", "Đáp án B"))));
+        questionService.updateQuestion(questionIds[1], request, group.getId());
+
+        Map<String, Object> status = awaitRescore();
+        assertNull(status.get("lastError"));
+        assertEquals(2L, status.get("affectedResults"));
+        assertEquals(2L, status.get("changedResults"));
+        assertEquals(1L, status.get("changedAnswers"));
+
+        TestResult rescoredSheet = testResultRepository.findById(packed.getId()).orElseThrow();
+        assertEquals(2, rescoredSheet.getCorrectAnswers());
+        assertEquals(100, rescoredSheet.getReadingScore());
+        assertTrue(PackedAnswerSheet.isCorrect(rescoredSheet.getCorrectBits(), 1));
+        TestResult rescoredRows = testResultRepository.findById(rows.getId()).orElseThrow();
+        assertEquals(2, rescoredRows.getCorrectAnswers());
+        assertEquals(100, rescoredRows.getTotalScore());
+        assertTrue(userAnswerRepository.findAnswerRowsByTestResultId(rows.getId()).stream()
+                .allMatch(row -> Boolean.TRUE.equals(row[2])));
+    }
+
+    @Test
+    @WithMockUser(username = "rescore-removed")
+    void questionsRemovedFromTestKeepStoredCorrectness() throws InterruptedException {
+        User user = userRepository.save(new User("rescore-removed", "secret", "rescore-removed@example.com", "Rescore"));
+        QuestionGroup group = saveGroup("Nhóm còn trong đề");
+        QuestionGroup detached = saveGroup("Nhóm ngoài đề");
+        List<ToeicQuestion> questions = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            ToeicQuestion question = new ToeicQuestion();
+            question.setQuestion("Câu hỏi " + i);
+            question.setQuestionOrder(i);
+            question.setCorrectAnswer("A");
+            question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+            question.setQuestionGroup(group);
+            questions.add(questionRepository.save(question));
+        }
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề bỏ câu hỏi");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        test.addQuestionGroup(group);
+        testRepository.save(test);
+
+        // Trả lời A, B, A theo đáp án (A, A, A): đúng câu 1 và 3
+        long[] questionIds = { questions.get(0).getId(), questions.get(1).getId(), questions.get(2).getId() };
+        String[] answers = { "A", "B", "A" };
+        boolean[] correct = { true, false, true };
+        PackedAnswerSheet sheet = layouts.pack(test.getId(), questionIds, answers, correct, 3);
+        TestResult packed = saveAttempt(user, test, sheet, 67, 2, 3);
+        TestResult rows = saveAttempt(user, test, null, 67, 2, 3);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> answerWriter.insertAll(rows.getId(), questionIds, answers, correct, 3));
+
+        // Câu 3 rời bài thi (đáp án không đổi), sau đó câu 2 đổi đáp án thành B
+        questionService.updateQuestion(questionIds[2], questionRequest("Câu hỏi 3", 3, "A"), detached.getId());
+        questionService.updateQuestion(questionIds[1], questionRequest("Câu hỏi 2", 2, "B"), group.getId());
+        assertTrue(answerKeyCache.get(test.getId()).indexOf(questionIds[2]) < 0);
+
+        Map<String, Object> status = awaitRescore();
+        assertNull(status.get("lastError"));
+        assertEquals(2L, status.get("changedResults"));
+
+        for (Long id : List.of(packed.getId(), rows.getId())) {
+            TestResult rescored = testResultRepository.findById(id).orElseThrow();
+            assertEquals(3, rescored.getCorrectAnswers());
+            assertEquals(100, rescored.getReadingScore());
+        }
+        TestResult rescoredSheet = testResultRepository.findById(packed.getId()).orElseThrow();
+        assertTrue(PackedAnswerSheet.isCorrect(rescoredSheet.getCorrectBits(), 2));
+        assertTrue(userAnswerRepository.findAnswerRowsByTestResultId(rows.getId()).stream()
+                .allMatch(row -> Boolean.TRUE.equals(row[2])));
+
+        // Xem lại bài vẫn theo câu hỏi của lượt làm bài và báo nội dung đã đổi
+        for (Long id : List.of(packed.getId(), rows.getId())) {
+            TestResultReviewResponse review = testResultService.getTestResultReview(id);
+            assertTrue(review.getContentChanged());
+            assertEquals(List.of(questionIds[0], questionIds[1], questionIds[2]),
+                    review.getQuestions().stream().map(QuestionReviewResponse::getQuestionId).toList());
+            assertEquals(List.of(true, true, false),
+                    review.getQuestions().stream().map(QuestionReviewResponse::getInCurrentTest).toList());
+            assertEquals("A", review.getQuestions().get(2).getUserAnswer());
+            assertEquals("A", review.getQuestions().get(2).getCorrectAnswer());
+        }
+        assertTrue(testResultService.getTestResultReview(packed.getId()).getAttemptContentVersion()
+                < testResultService.getTestResultReview(packed.getId()).getCurrentContentVersion());
+    }
+
+    @Test
+    void groupEditorAnswerChangeRescores() throws InterruptedException {
+        User user = userRepository.save(new User("rescore-group", "secret", "rescore-group@example.com", "Rescore"));
+        QuestionGroup group = saveGroup("Nhóm sửa qua trình soạn nhóm");
+        List<ToeicQuestion> questions = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            ToeicQuestion question = new ToeicQuestion();
+            question.setQuestion("Câu hỏi " + i);
+            question.setQuestionOrder(i);
+            question.setCorrectAnswer("A");
+            question.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+            question.setQuestionGroup(group);
+            questions.add(questionRepository.save(question));
+        }
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề sửa nhóm");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        test.addQuestionGroup(group);
+        testRepository.save(test);
+
+        long[] questionIds = { questions.get(0).getId(), questions.get(1).getId() };
+        String[] answers = { "A", "B" };
+        boolean[] correct = { true, false };
+        TestResult rows = saveAttempt(user, test, null);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> answerWriter.insertAll(rows.getId(), questionIds, answers, correct, 2));
+
+        String questionsJson = "[" + questionJson(questionIds[0], "Câu hỏi 1", "A") + ","
+                + questionJson(questionIds[1], "Câu hỏi 2", "B") + "]";
+        questionService.updateQuestionGroup(group.getId(), questionsJson, null, null, null, null, "Đoạn văn", null);
+
+        Map<String, Object> status = awaitRescore();
+        assertNull(status.get("lastError"));
+        assertEquals(List.of(questionIds[1]), status.get("questionIds"));
+        TestResult rescored = testResultRepository.findById(rows.getId()).orElseThrow();
+        assertEquals(2, rescored.getCorrectAnswers());
+    }
+
+    private static String questionJson(long id, String text, String correctAnswer) {
+        return "{\"id\":" + id + ",\"question\":\"" + text + "\",\"correctAnswer\":\"" + correctAnswer
+                + "\",\"difficultyLevel\":\"MEDIUM\",\"options\":[{\"optionKey\":\"A\",\"optionText\":\"Đáp án A\"},"
+                + "{\"optionKey\":\"B\",\"optionText\":\"Đáp án B\"}]}";
+    }
+
+    private QuestionGroup saveGroup(String title) {
+        QuestionGroup group = new QuestionGroup();
+        group.setTitle(title);
+        group.setQuestionType(QuestionGroup.QuestionType.READING);
+        group.setPart(7);
+        return questionGroupRepository.save(group);
+    }
+
+    private static ToeicQuestion questionRequest(String text, int order, String correctAnswer) {
+        ToeicQuestion request = new ToeicQuestion();
+        request.setQuestion(text);
+        request.setQuestionOrder(order);
+        request.setCorrectAnswer(correctAnswer);
+        request.setDifficultyLevel(ToeicQuestion.DifficultyLevel.MEDIUM);
+        request.setOptions(new HashSet<>(Set.of(new ToeicOption("A", "Đáp án A"), new ToeicOption("B", "Đáp án B"))));
+        return request;
+    }
+
+    private Map<String, Object> awaitRescore() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Map<String, Object> status = rescoring.getStatus();
+        while ((Boolean.TRUE.equals(status.get("running")) || status.get("finishedAt") == null)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = rescoring.getStatus();
+        }
+        return status;
+    }
+
+    private TestResult saveAttempt(User user, com.hungtv.toeic.be.models.Test test, PackedAnswerSheet sheet) {
+        return saveAttempt(user, test, sheet, 50, 1, 2);
+    }
+
+    private TestResult saveAttempt(User user, com.hungtv.toeic.be.models.Test test, PackedAnswerSheet sheet,
+                                   int score, int correctAnswers, int totalQuestions) {
+        TestResult result = new TestResult(user, test);
+        result.setReadingScore(score);
+        result.setTotalScore(score);
+        result.setCorrectAnswers(correctAnswers);
+        result.setTotalQuestions(totalQuestions);
+        if (sheet != null) {
+            result.setAnswerSheet(sheet.getSheet());
+            result.setCorrectBits(sheet.getCorrectBits());
+            result.setSheetLayoutId(sheet.getLayoutId());
+        }
+        return testResultRepository.save(result);
+    }
+}
@@ -0,0 +1,66 @@
+package com.hungtv.toeic.be.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import com.hungtv.toeic.be.models.TestResult;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+
+/**
+ * Kiểm tra chỉ chủ sở hữu hoặc admin mới xem lại được bài làm.
+ */
+@SpringBootTest
+class TestResultServiceTests {
+
+    @Autowired
+    private TestResultService testResultService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Test
+    @WithMockUser(username = "review-intruder")
+    void reviewOfAnotherUsersResultIsRejected() {
+        TestResult result = saveResult("review-owner");
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> testResultService.getTestResultReview(result.getId()));
+        assertEquals("Không có quyền truy cập kết quả này", e.getMessage());
+    }
+
+    @Test
+    @WithMockUser(username = "review-self")
+    void ownerCanReviewOwnResult() {
+        TestResult result = saveResult("review-self");
+
+        assertEquals(result.getId(), testResultService.getTestResultReview(result.getId()).getTestResultId());
+    }
+
+    private TestResult saveResult(String username) {
+        User user = userRepository.save(new User(username, "secret", username + "@example.com", "Review User"));
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề xem lại");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        test = testRepository.save(test);
+        TestResult result = new TestResult(user, test);
+        result.setTotalScore(0);
+        result.setCorrectAnswers(0);
+        result.setTotalQuestions(0);
+        return testResultRepository.save(result);
+    }
+}
@@ -0,0 +1,98 @@
+package com.hungtv.toeic.be.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.payload.response.UserImportResponse;
+import com.hungtv.toeic.be.payload.response.UserImportRowResponse;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.security.services.UsernameEmailBloomFilter;
+
+/**
+ * Kiểm tra nhập người dùng hàng loạt: dòng hợp lệ được tạo cùng vai trò và mật khẩu đã băm, dòng
+ * lỗi (sai dữ liệu, trùng trong tệp, trùng với database) được báo riêng mà không ảnh hưởng dòng khác.
+ */
+@SpringBootTest
+class UserImportServiceTests {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UsernameEmailBloomFilter usernameEmailFilter;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importsCsvAndReportsEachRow() throws Exception {
+        userRepository.save(new User("import-existing", "secret", "import-existing@example.com", "Existing"));
+        String csv = "﻿username,password,email,full_name,role\n"
+                + "import-a,secret123,import-a@example.com,\"Nguyen, Van A\",\n"
+                + "import-b,secret123,import-b@example.com,Tran Thi B,admin\n"
+                + "\n"
+                + "import-a,secret123,import-a2@example.com,Duplicate,USER\n"
+                + "import-existing,secret123,import-c@example.com,Existing,USER\n"
+                + "import-d,secret123,not-an-email,Invalid,USER\n"
+                + "import-e,secret123,import-e@example.com,Bad Role,OWNER\n";
+
+        UserImportResponse report = userImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(6, report.getTotal());
+        assertEquals(2, report.getCreated());
+        assertEquals(4, report.getFailed());
+        List<UserImportRowResponse> rows = report.getRows();
+        assertEquals(List.of(2, 3, 5, 6, 7, 8), rows.stream().map(UserImportRowResponse::getRow).toList());
+        assertEquals(UserImportRowResponse.Status.CREATED, rows.get(0).getStatus());
+        assertEquals(UserImportRowResponse.Status.CREATED, rows.get(1).getStatus());
+        assertEquals("Tên đăng nhập bị trùng trong tệp", rows.get(2).getMessage());
+        assertEquals("Tên đăng nhập đã tồn tại", rows.get(3).getMessage());
+        assertEquals("Email không hợp lệ", rows.get(4).getMessage());
+        assertTrue(rows.get(5).getMessage().startsWith("Vai trò không hợp lệ"));
+
+        User created = userRepository.findByUsername("import-a").orElseThrow();
+        assertEquals(rows.get(0).getUserId(), created.getId());
+        assertEquals("Nguyen, Van A", created.getFullName());
+        assertTrue(passwordEncoder.matches("secret123", created.getPassword()));
+        assertEquals("ROLE_ADMIN", jdbcTemplate.queryForObject(
+                "SELECT r.name FROM user_roles ur JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = ?",
+                String.class, rows.get(1).getUserId()));
+        assertTrue(usernameEmailFilter.isUsernameTaken("import-b"));
+    }
+
+    @Test
+    void importsJsonArray() throws Exception {
+        String json = "[{\"username\":\"import-json\",\"password\":\"secret123\",\"email\":\"import-json@example.com\","
+                + "\"fullName\":\"Json User\"},{\"username\":\"x\",\"password\":\"secret123\","
+                + "\"email\":\"import-x@example.com\",\"fullName\":\"Too Short\"}]";
+
+        UserImportResponse report = userImportService.importJson(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, report.getCreated());
+        assertEquals(1, report.getFailed());
+        assertNotNull(report.getRows().get(0).getUserId());
+        assertEquals("ROLE_USER", jdbcTemplate.queryForObject(
+                "SELECT r.name FROM user_roles ur JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = ?",
+                String.class, report.getRows().get(0).getUserId()));
+    }
+}
@@ -0,0 +1,114 @@
+package com.hungtv.toeic.be.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.models.TestResult;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.models.UserStatistics;
+import com.hungtv.toeic.be.payload.response.UserStatisticsResponse;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+import com.hungtv.toeic.be.repositories.UserStatisticsWriter;
+
+/**
+ * Kiểm tra thống kê cộng dồn theo từng bài nộp khớp với thống kê tính lại từ lịch sử.
+ */
+@SpringBootTest
+class UserStatisticsServiceTests {
+
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private TestResultService testResultService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void incrementalAggregateMatchesRebuildFromHistory() {
+        User user = userRepository.save(new User("stats-user", "secret", "stats@example.com", "Stats User"));
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề thống kê");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        com.hungtv.toeic.be.models.Test savedTest = testRepository.save(test);
+
+        // Lịch sử có trước khi có bảng thống kê: một bài có điểm, một bài không chấm
+        LocalDateTime now = LocalDateTime.now();
+        saveResult(user, savedTest, 500, now.minusMonths(1));
+        saveResult(user, savedTest, null, now);
+        userStatisticsService.ensureTracked(List.of(user.getId()));
+
+        // Bài nộp mới được cộng dồn trong transaction ghi bài nộp
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            TestResult first = saveResult(user, savedTest, 700, now);
+            TestResult second = saveResult(user, savedTest, 300, now);
+            userStatisticsService.record(List.of(
+                    new UserStatisticsWriter.Entry(user.getId(), first.getTotalScore(), first.getCreatedAt()),
+                    new UserStatisticsWriter.Entry(user.getId(), second.getTotalScore(), second.getCreatedAt())));
+        });
+
+        UserStatisticsResponse incremental = testResultService.getUserStatistics(user.getId());
+        assertEquals(4L, incremental.getTestsTaken());
+        assertEquals(500.0, incremental.getAverageScore());
+        assertEquals(700, incremental.getBestScore());
+        String thisMonth = UserStatisticsWriter.monthOf(now);
+        assertEquals(3L, incremental.getTestsByMonth().get(thisMonth));
+        assertEquals(500.0, incremental.getScoresByMonth().get(thisMonth));
+        assertEquals(1L, incremental.getTestsByMonth().get(UserStatisticsWriter.monthOf(now.minusMonths(1))));
+        assertEquals(4, incremental.getRecentTests().size());
+
+        userStatisticsService.rebuild(user.getId());
+        UserStatisticsResponse rebuilt = testResultService.getUserStatistics(user.getId());
+        assertEquals(incremental.getTestsTaken(), rebuilt.getTestsTaken());
+        assertEquals(incremental.getAverageScore(), rebuilt.getAverageScore());
+        assertEquals(incremental.getBestScore(), rebuilt.getBestScore());
+        assertEquals(incremental.getTestsByMonth(), rebuilt.getTestsByMonth());
+        assertEquals(incremental.getScoresByMonth(), rebuilt.getScoresByMonth());
+    }
+
+    @Test
+    void userWithoutHistoryGetsEmptyStatistics() {
+        User user = userRepository.save(new User("stats-empty", "secret", "stats-empty@example.com", "Empty"));
+
+        UserStatistics statistics = userStatisticsService.getStatistics(user.getId());
+        assertEquals(0L, statistics.getTestsTaken());
+        assertNull(statistics.getBestScore());
+
+        UserStatisticsResponse response = testResultService.getUserStatistics(user.getId());
+        assertNull(response.getAverageScore());
+        Map<String, Long> testsByMonth = response.getTestsByMonth();
+        assertEquals(6, testsByMonth.size());
+        assertEquals(0L, testsByMonth.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    private TestResult saveResult(User user, com.hungtv.toeic.be.models.Test test, Integer totalScore,
+            LocalDateTime createdAt) {
+        TestResult result = new TestResult(user, test);
+        result.setTotalScore(totalScore);
+        result.setCreatedAt(createdAt);
+        return testResultRepository.save(result);
+    }
+}
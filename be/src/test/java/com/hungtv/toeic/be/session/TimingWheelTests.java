@@ -0,0 +1,60 @@
+package com.hungtv.toeic.be.session;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+    @Test
+    void expiresEntriesOnlyInTheirRound() {
+        // 8 ô, tick 100 ms: hạn 250 và 1050 rơi vào cùng ô (tick 3 và tick 11)
+        TimingWheel wheel = new TimingWheel(100, 8, 0);
+        wheel.schedule(1L, 250);
+        wheel.schedule(2L, 1050);
+        wheel.schedule(3L, 300);
+
+        assertArrayEquals(new long[0], wheel.advance(299));
+        assertArrayEquals(new long[] { 1L, 3L }, sorted(wheel.advance(300)));
+        assertEquals(1, wheel.size());
+        assertArrayEquals(new long[0], wheel.advance(1099));
+        assertArrayEquals(new long[] { 2L }, wheel.advance(1100));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleAndCancelReplaceTheDeadline() {
+        TimingWheel wheel = new TimingWheel(100, 8, 0);
+        wheel.schedule(1L, 200);
+        wheel.schedule(1L, 900);
+        wheel.schedule(2L, 200);
+        assertTrue(wheel.cancel(2L));
+        assertFalse(wheel.cancel(2L));
+
+        assertArrayEquals(new long[0], wheel.advance(500));
+        // Hạn đã qua được xử lý ở tick tiếp theo
+        wheel.schedule(3L, 100);
+        assertArrayEquals(new long[] { 1L, 3L }, sorted(wheel.advance(900)));
+    }
+
+    @Test
+    void catchesUpAfterLongPause() {
+        TimingWheel wheel = new TimingWheel(100, 4, 0);
+        for (long id = 1; id <= 20; id++) {
+            wheel.schedule(id, id * 100);
+        }
+        assertEquals(15, wheel.advance(1500).length);
+        assertEquals(5, wheel.size());
+        assertEquals(5, wheel.advance(10_000).length);
+    }
+
+    private static long[] sorted(long[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+}
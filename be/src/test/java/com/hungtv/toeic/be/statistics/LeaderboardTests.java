@@ -0,0 +1,55 @@
+package com.hungtv.toeic.be.statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LeaderboardTests {
+
+    @Test
+    void keepsBestAttemptPerUserAndRanksTiesByTime() {
+        Leaderboard leaderboard = new Leaderboard();
+        assertTrue(leaderboard.offer(new Leaderboard.Entry(1, 10, 70, 1000)));
+        assertTrue(leaderboard.offer(new Leaderboard.Entry(2, 11, 90, 2000)));
+        assertTrue(leaderboard.offer(new Leaderboard.Entry(3, 12, 70, 500)));
+        // Lần làm thấp hơn không thay lần tốt nhất
+        assertFalse(leaderboard.offer(new Leaderboard.Entry(2, 13, 60, 3000)));
+        // Cùng điểm nhưng muộn hơn cũng không thay
+        assertFalse(leaderboard.offer(new Leaderboard.Entry(1, 14, 70, 4000)));
+        assertTrue(leaderboard.offer(new Leaderboard.Entry(1, 15, 95, 5000)));
+
+        List<Leaderboard.Entry> top = leaderboard.top(10);
+        assertEquals(3, top.size());
+        assertEquals(List.of(15L, 11L, 12L), top.stream().map(Leaderboard.Entry::resultId).toList());
+        assertEquals(3, leaderboard.size());
+        assertEquals(1, leaderboard.rankOf(leaderboard.bestOf(1)));
+        assertEquals(3, leaderboard.rankOf(leaderboard.bestOf(3)));
+        assertEquals(2, leaderboard.top(2).size());
+    }
+
+    @Test
+    void rankMatchesPositionInSortedOrder() {
+        Leaderboard leaderboard = new Leaderboard();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            leaderboard.offer(new Leaderboard.Entry(random.nextInt(1000), i, random.nextInt(101), random.nextInt(100000)));
+        }
+
+        List<Leaderboard.Entry> all = leaderboard.top(Integer.MAX_VALUE);
+        assertEquals(leaderboard.size(), all.size());
+        List<Leaderboard.Entry> sorted = new ArrayList<>(all);
+        sorted.sort(Leaderboard.ORDER);
+        assertEquals(sorted, all);
+        for (int i = 0; i < all.size(); i++) {
+            Leaderboard.Entry entry = all.get(i);
+            assertEquals(entry, leaderboard.bestOf(entry.userId()));
+            assertEquals(i + 1, leaderboard.rankOf(entry));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.hungtv.toeic.be.statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hungtv.toeic.be.models.TestResult;
+import com.hungtv.toeic.be.models.User;
+import com.hungtv.toeic.be.repositories.ScoreHistogramWriter;
+import com.hungtv.toeic.be.repositories.TestRepository;
+import com.hungtv.toeic.be.repositories.TestResultRepository;
+import com.hungtv.toeic.be.repositories.UserRepository;
+
+/**
+ * Kiểm tra phân bố điểm gộp đúng các phần của nhiều node, tính lại đúng từ test_results và
+ * không cộng trùng số đếm chờ ghi của bài nộp đã được tính lại.
+ */
+@SpringBootTest
+class ScoreDistributionStoreTests {
+
+    @Autowired
+    private ScoreDistributionStore store;
+
+    @Autowired
+    private ScoreHistogramWriter writer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void mergesShardsOfAllNodesAndRanksScores() {
+        long testId = 9001L;
+        store.record(testId, 1L, 40, 200, 100);
+        store.record(testId, 2L, 80, 400, 300);
+        assertEquals(2, store.get(testId, ScoreHistogram.Metric.TOTAL).getTotal());
+
+        // Một node khác đã ghi hai bài nộp điểm 60
+        long[] otherNode = new long[ScoreHistogram.Metric.TOTAL.bucketCount()];
+        otherNode[60] = 2;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> writer.addAll("other-node",
+                List.of(new ScoreHistogramWriter.Delta(testId, ScoreHistogram.Metric.TOTAL, otherNode))));
+
+        expireRefresh();
+        store.flush();
+
+        ScoreHistogram total = store.get(testId, ScoreHistogram.Metric.TOTAL);
+        assertEquals(4, total.getTotal());
+        // Điểm 60: một bài thấp hơn, hai bài cùng ô
+        assertEquals(50.0, total.percentileRank(60));
+        assertEquals(87.5, total.percentileRank(80));
+        assertEquals(0.0, total.percentileRank(0));
+        assertEquals(2, store.get(testId, ScoreHistogram.Metric.LISTENING_SCALED).getTotal());
+        assertNull(store.get(12345L, ScoreHistogram.Metric.TOTAL).percentileRank(50));
+    }
+
+    @Test
+    void rebuildReplacesShardsWithCountsFromResults() {
+        User user = userRepository.save(new User("histogram-user", "secret", "histogram@example.com", "Histogram"));
+        com.hungtv.toeic.be.models.Test test = new com.hungtv.toeic.be.models.Test();
+        test.setTitle("Đề phân bố điểm");
+        test.setType(com.hungtv.toeic.be.models.Test.TestType.PRACTICE);
+        test.setDuration(120);
+        long testId = testRepository.save(test).getId();
+        long lastResultId = 0;
+        for (int score : new int[] { 30, 70, 70 }) {
+            TestResult result = new TestResult(user, test);
+            result.setTotalScore(score);
+            result.setListeningScaledScore(score * 4);
+            result.setReadingScaledScore(score * 5);
+            result.setCreatedAt(LocalDateTime.now());
+            lastResultId = testResultRepository.save(result).getId();
+        }
+        // Bài nộp cuối còn chờ ghi trên node này khi bắt đầu đếm lại (afterCommit đến sau flush)
+        store.record(testId, lastResultId, 70, 280, 350);
+
+        // Dòng lệch của một node cũ bị thay bằng số đếm lại
+        long[] stale = new long[ScoreHistogram.Metric.TOTAL.bucketCount()];
+        stale[10] = 5;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> writer.addAll("old-node",
+                List.of(new ScoreHistogramWriter.Delta(testId, ScoreHistogram.Metric.TOTAL, stale))));
+
+        Long counted = new TransactionTemplate(transactionManager).execute(status -> writer.rebuild(testId));
+        assertEquals(3L, counted);
+        assertEquals(lastResultId, jdbcTemplate.queryForObject(
+                "SELECT MAX(counted_through_id) FROM score_histogram_shards WHERE test_id = ?", Long.class, testId));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM score_histogram_shards WHERE test_id = ? AND node_id = ?",
+                Integer.class, testId, ScoreHistogramWriter.REBUILD_NODE_ID));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM score_histogram_shards WHERE test_id = ? AND node_id <> ?",
+                Integer.class, testId, ScoreHistogramWriter.REBUILD_NODE_ID));
+
+        expireRefresh();
+        store.flush();
+        ScoreHistogram total = store.get(testId, ScoreHistogram.Metric.TOTAL);
+        assertEquals(3, total.getTotal());
+        assertEquals(2, total.getCounts()[70]);
+        assertEquals(1, store.get(testId, ScoreHistogram.Metric.READING_SCALED).getCounts()[30]);
+
+        // Bài nộp sau mốc đếm lại vẫn được ghi
+        store.record(testId, lastResultId + 1, 90, 360, 450);
+        expireRefresh();
+        store.flush();
+        assertEquals(4, store.get(testId, ScoreHistogram.Metric.TOTAL).getTotal());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM score_histogram_shards WHERE test_id = ? AND metric = 'TOTAL' AND node_id <> ?",
+                Integer.class, testId, ScoreHistogramWriter.REBUILD_NODE_ID));
+    }
+
+    /**
+     * Buộc lần flush tiếp theo đọc lại phân bố của mọi node
+     */
+    private void expireRefresh() {
+        ReflectionTestUtils.setField(store, "lastRefreshMillis", 0L);
+    }
+}
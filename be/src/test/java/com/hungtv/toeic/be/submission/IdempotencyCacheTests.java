@@ -0,0 +1,82 @@
+package com.hungtv.toeic.be.submission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hungtv.toeic.be.payload.response.TestResultResponse;
+
+class IdempotencyCacheTests {
+
+    @Test
+    void concurrentDuplicatesShareOneComputation() throws Exception {
+        IdempotencyCache cache = cache(100);
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestResultResponse response = new TestResultResponse();
+
+        CompletableFuture<TestResultResponse> first = CompletableFuture.supplyAsync(() -> cache.execute(1L, "k", () -> {
+            computations.incrementAndGet();
+            started.countDown();
+            await(release);
+            return response;
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<TestResultResponse> duplicate = CompletableFuture.supplyAsync(
+                () -> cache.execute(1L, "k", () -> {
+                    computations.incrementAndGet();
+                    return new TestResultResponse();
+                }));
+        release.countDown();
+
+        assertSame(response, first.get(5, TimeUnit.SECONDS));
+        assertSame(response, duplicate.get(5, TimeUnit.SECONDS));
+        // Lần gửi lại sau khi hoàn tất cũng trả về response ban đầu
+        assertSame(response, cache.execute(1L, "k", TestResultResponse::new));
+        assertEquals(1, computations.get());
+
+        // Cùng khóa nhưng khác người dùng là một bài nộp khác
+        assertNotSame(response, cache.execute(2L, "k", TestResultResponse::new));
+    }
+
+    @Test
+    void failuresAreNotCachedAndOldestEntriesAreEvicted() {
+        IdempotencyCache cache = cache(2);
+        assertThrows(IllegalStateException.class, () -> cache.execute(1L, "a", () -> {
+            throw new IllegalStateException("429");
+        }));
+        TestResultResponse retried = cache.execute(1L, "a", TestResultResponse::new);
+        assertSame(retried, cache.execute(1L, "a", TestResultResponse::new));
+
+        cache.execute(1L, "b", TestResultResponse::new);
+        cache.execute(1L, "c", TestResultResponse::new);
+        assertEquals(2, cache.getStats().get("size"));
+        // "a" đã bị loại nên được xử lý lại
+        assertNotSame(retried, cache.execute(1L, "a", TestResultResponse::new));
+    }
+
+    private static IdempotencyCache cache(int maxEntries) {
+        IdempotencyCache cache = new IdempotencyCache();
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        return cache;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
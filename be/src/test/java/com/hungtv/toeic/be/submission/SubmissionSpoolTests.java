@@ -0,0 +1,81 @@
+package com.hungtv.toeic.be.submission;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SubmissionSpoolTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversUnpersistedSubmissionsAndSkipsTornTail() throws IOException {
+        SubmissionSpool spool = open();
+        PendingSubmission persisted = submission("a");
+        PendingSubmission pending = submission("b");
+        spool.append(persisted);
+        spool.append(pending);
+        spool.markPersisted(persisted);
+
+        // Giả lập tiến trình dừng giữa lúc ghi bản ghi tiếp theo
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(p -> p.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+            Files.write(segment, new byte[] { 0, 0, 1, 0, 7 }, StandardOpenOption.APPEND);
+        }
+
+        // Segment chưa được đóng nên cả hai bài nộp được đọc lại; bên ghi bỏ qua bài đã có trong database
+        List<PendingSubmission> recovered = open().recover();
+        assertEquals(List.of("a", "b"), recovered.stream().map(PendingSubmission::getSubmissionId).toList());
+        PendingSubmission restored = recovered.get(1);
+        assertEquals(7L, restored.getUserId());
+        assertEquals("attempt-b", restored.getIdempotencyKey());
+        assertEquals(Integer.valueOf(42), restored.getCompletionTimeInMinutes());
+        assertEquals(3, restored.getCount());
+        assertArrayEquals(new long[] { 10L, 11L, 12L }, restored.getQuestionIds());
+        assertArrayEquals(new boolean[] { true, false, false }, restored.getCorrect());
+        assertNull(restored.getUserAnswers()[2]);
+        assertEquals(1, restored.getCorrectAnswers());
+    }
+
+    @Test
+    void deletesSegmentOnceEverySubmissionIsPersisted() throws IOException {
+        SubmissionSpool spool = open();
+        PendingSubmission submission = submission("c");
+        spool.append(submission);
+        spool.markPersisted(submission);
+        spool.releaseIdleSegment();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        assertEquals(List.of(), open().recover());
+    }
+
+    private SubmissionSpool open() throws IOException {
+        SubmissionSpool spool = new SubmissionSpool();
+        ReflectionTestUtils.setField(spool, "spoolDir", directory.toString());
+        ReflectionTestUtils.setField(spool, "segmentMaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(spool, "fsync", false);
+        spool.init();
+        return spool;
+    }
+
+    private static PendingSubmission submission(String id) {
+        int[] scores = { 1, 0, 0, 0, 1, 5, 5, 1, 3 };
+        return new PendingSubmission(id, "attempt-" + id, 7L, 3L, "Đề thi", 42, LocalDateTime.of(2025, 6, 1, 9, 30), scores,
+                3, new long[] { 10L, 11L, 12L }, new String[] { "A", "B", null }, new boolean[] { true, false, false });
+    }
+}
@@ -1,6 +1,14 @@
-import axios from 'axios';
+import axios, { type AxiosError, type AxiosInstance, type InternalAxiosRequestConfig } from 'axios';
 import { API_URL } from '@/config/constants';
 
+// Các request xác thực không tự làm mới token khi nhận 401
+const NO_REFRESH_URLS = ['/auth/login', '/auth/register', '/auth/refresh-token', '/auth/logout'];
+
+// Thời gian chờ tab khác lưu token mới khi hai tab làm mới cùng lúc
+const CONCURRENT_REFRESH_WAIT_MS = 500;
+
+type RetriableRequest = InternalAxiosRequestConfig & { _retry?: boolean };
+
 // Kiểu dữ liệu
 export interface AuthUser {
   id: number;
@@ -17,6 +25,7 @@ export interface AuthUser {
 class AuthModule {
   private static instance: AuthModule;
   private user: AuthUser | null = null;
+  private refreshPromise: Promise<boolean> | null = null;
   
   private constructor() {
     // Khởi tạo từ localStorage nếu có
@@ -55,38 +64,55 @@ class AuthModule {
   
   // Thiết lập interceptors cho axios
   private setupInterceptors(): void {
-    // Interceptor cho response để tự động refresh token
-    axios.interceptors.response.use(
+    this.installRefreshInterceptor(axios);
+  }
+  
+  // Interceptor duy nhất tự làm mới token khi nhận 401, dùng chung cho axios mặc định và các instance khác
+  public installRefreshInterceptor(instance: AxiosInstance): void {
+    instance.interceptors.response.use(
       (response) => response,
-      async (error) => {
-        const originalRequest = error.config;
+      async (error: AxiosError) => {
+        const originalRequest = error.config as RetriableRequest | undefined;
+        const url = originalRequest?.url || '';
         
-        if (error.response?.status === 401 && !originalRequest._retry) {
-          originalRequest._retry = true;
-          
-          try {
-            // Thử refresh token
-            const result = await this.refreshToken();
-            if (result) {
-              // Cập nhật header và thử lại request
-              return axios(originalRequest);
-            }
-          } catch (refreshError) {
-            // Xóa thông tin người dùng nếu không refresh được
-            this.clearAuth();
-            
-            // Chuyển đến trang đăng nhập nếu không ở trang đăng nhập
-            if (!window.location.pathname.includes('/login')) {
-              window.location.href = '/login';
-            }
-          }
+        // Chỉ làm mới một lần cho mỗi request, và không làm mới cho chính các request xác thực
+        if (error.response?.status !== 401 || !originalRequest || originalRequest._retry ||
+            NO_REFRESH_URLS.some((path) => url.includes(path))) {
+          return Promise.reject(error);
         }
+        originalRequest._retry = true;
         
-        return Promise.reject(error);
+        let refreshed: boolean;
+        try {
+          // Các request nhận 401 cùng lúc chờ chung một lần làm mới
+          refreshed = await this.refreshToken();
+        } catch (refreshError) {
+          this.handleSessionExpired();
+          return Promise.reject(refreshError);
+        }
+        if (!refreshed) {
+          this.handleSessionExpired();
+          return Promise.reject(error);
+        }
+        
+        // Thử lại request ban đầu với token mới
+        const token = this.getToken();
+        if (token) {
+          originalRequest.headers.Authorization = `Bearer ${token}`;
+        }
+        return instance(originalRequest);
       }
     );
   }
   
+  // Không làm mới được: xóa thông tin đăng nhập và chuyển đến trang đăng nhập
+  private handleSessionExpired(): void {
+    this.clearAuth();
+    if (!window.location.pathname.includes('/login')) {
+      window.location.href = '/login';
+    }
+  }
+  
   // Lấy token hiện tại
   public getToken(): string | null {
     return this.user?.accessToken || null;
@@ -138,8 +164,17 @@ class AuthModule {
     return hasAdminRoleInArray || hasAdminRoleAsString;
   }
   
-  // Refresh token
-  public async refreshToken(): Promise<boolean> {
+  // Refresh token: các lời gọi trong lúc đang làm mới dùng chung một request
+  public refreshToken(): Promise<boolean> {
+    if (!this.refreshPromise) {
+      this.refreshPromise = this.requestRefresh().finally(() => {
+        this.refreshPromise = null;
+      });
+    }
+    return this.refreshPromise;
+  }
+  
+  private async requestRefresh(): Promise<boolean> {
     try {
       const response = await axios.post(`${API_URL}/auth/refresh-token`, {}, {
         withCredentials: true
@@ -166,6 +201,13 @@ class AuthModule {
       
       return false;
     } catch (error) {
+      // 409: tab khác vừa làm mới bằng cùng cookie; cookie mới đã được đặt và token mới
+      // được tab đó ghi vào localStorage
+      if (axios.isAxiosError(error) && error.response?.status === 409) {
+        await new Promise((resolve) => setTimeout(resolve, CONCURRENT_REFRESH_WAIT_MS));
+        this.loadUserFromStorage();
+        return !!this.user?.accessToken;
+      }
       console.error('Lỗi refresh token:', error);
       throw error;
     }
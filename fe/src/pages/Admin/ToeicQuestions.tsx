@@ -14,7 +14,7 @@ import { Table, TableBody, TableCell, TableHead, TableHeader, TableRow } from "@
 import { AlertDialog, AlertDialogAction, AlertDialogCancel, AlertDialogContent, AlertDialogDescription, AlertDialogFooter, AlertDialogHeader, AlertDialogTitle } from "@/components/ui/alert-dialog";
 import { Info, Play, Plus, RefreshCw, FileAudio, FileText, Pencil, Trash2, MoreHorizontal, Search, AlertCircle, CheckCircle, Eye, Edit, Headphones, BookOpen, X, FileImage, Book, GraduationCap } from "lucide-react";
 import { toast } from "sonner";
-import { QuestionGroupDTO, ToeicQuestionDTO, getQuestionGroups, getQuestionGroupById, deleteQuestionGroup } from "@/services/toeicQuestionService";
+import { QuestionGroupDTO, ToeicQuestionDTO, getQuestionGroupPage, getQuestionGroupById, deleteQuestionGroup } from "@/services/toeicQuestionService";
 import ToeicQuestionService from "@/services/toeicQuestionService";
 import { QuestionType } from "@/types/toeic";
 import QuestionDetailView from "@/components/toeic/QuestionDetailView";
@@ -30,6 +30,9 @@ const ToeicQuestions: React.FC = () => {
   const [searchQuery, setSearchQuery] = useState<string>("");
   const [typeFilter, setTypeFilter] = useState<string>("ALL");
   const [partFilter, setPartFilter] = useState<string>("ALL");
+  // Phân trang theo khóa: afterId của các trang đã đi qua (trang hiện tại ở cuối) và afterId của trang sau
+  const [pageCursors, setPageCursors] = useState<number[]>([0]);
+  const [nextAfterId, setNextAfterId] = useState<number | null>(null);
   
   // Dialog states
   const [showCreateDialog, setShowCreateDialog] = useState<boolean>(false);
@@ -39,9 +42,26 @@ const ToeicQuestions: React.FC = () => {
   
   const navigate = useNavigate();
 
+  // Đổi bộ lọc thì quay về trang đầu; bộ lọc loại/part được áp dụng phía server
   useEffect(() => {
-    loadQuestionGroups();
-  }, []);
+    setPageCursors([0]);
+    loadQuestionGroups(0);
+  }, [typeFilter, partFilter]);
+
+  const currentAfterId = pageCursors[pageCursors.length - 1];
+
+  const goToNextPage = () => {
+    if (nextAfterId == null) return;
+    setPageCursors(prev => [...prev, nextAfterId]);
+    loadQuestionGroups(nextAfterId);
+  };
+
+  const goToPreviousPage = () => {
+    if (pageCursors.length <= 1) return;
+    const previous = pageCursors.slice(0, -1);
+    setPageCursors(previous);
+    loadQuestionGroups(previous[previous.length - 1]);
+  };
 
   // Hàm chuyển đổi từ string sang QuestionType enum
   const mapStringToQuestionType = (typeString: string): QuestionType => {
@@ -52,7 +72,7 @@ const ToeicQuestions: React.FC = () => {
     return QuestionType.VOCABULARY; // Mặc định
   };
 
-  const loadQuestionGroups = async () => {
+  const loadQuestionGroups = async (afterId: number = currentAfterId) => {
     try {
       // TODO: Tạm thời bỏ qua kiểm tra đăng nhập trong quá trình phát triển
       // Bình thường cần kiểm tra:
@@ -62,7 +82,12 @@ const ToeicQuestions: React.FC = () => {
       // }
       
       setLoading(true);
-      const data = await getQuestionGroups();
+      const page = await getQuestionGroupPage(afterId, {
+        questionType: typeFilter !== "ALL" ? typeFilter : undefined,
+        part: partFilter !== "ALL" ? Number(partFilter) : undefined
+      });
+      const data = page.content;
+      setNextAfterId(page.hasMore ? page.nextAfterId : null);
       console.log("Dữ liệu nhóm câu hỏi:", data);
       
       if (!data || data.length === 0) {
@@ -138,7 +163,6 @@ const ToeicQuestions: React.FC = () => {
               id: groupResponse.id,
               type: mappedType,
               part: groupResponse.part,
-              passage: groupResponse.passage,
               audioUrl: groupResponse.audioUrl,
               imageUrl: groupResponse.imageUrl,
               questions: [] // Empty questions array as fallback
@@ -620,6 +644,25 @@ const ToeicQuestions: React.FC = () => {
               </TableBody>
             </Table>
           </div>
+          <div className="flex items-center justify-end gap-2 pt-4">
+            <span className="text-sm text-muted-foreground">Trang {pageCursors.length}</span>
+            <Button
+              variant="outline"
+              size="sm"
+              onClick={goToPreviousPage}
+              disabled={loading || pageCursors.length <= 1}
+            >
+              Trang trước
+            </Button>
+            <Button
+              variant="outline"
+              size="sm"
+              onClick={goToNextPage}
+              disabled={loading || nextAfterId == null}
+            >
+              Trang sau
+            </Button>
+          </div>
         </TabsContent>
       </Tabs>
       
@@ -12,7 +12,7 @@ import { toast } from "sonner"
 
 // Services
 import * as toeicExamService from "@/services/toeicExamService"
-import { submitTestResult } from "@/services/testResultService"
+import { submitTestResult, getTestResultReview, QuestionReviewResponse } from "@/services/testResultService"
 import { QuestionGroupResponse, QuestionResponse } from "@/types/toeic"
 import { API_URL } from "@/config/constants"
 
@@ -52,11 +52,15 @@ export default function TestPage() {
   const [currentGroupIndex, setCurrentGroupIndex] = useState(0)
   const [answers, setAnswers] = useState<Record<string, string>>({})
   const [isCompleted, setIsCompleted] = useState(false)
+  // Đáp án đúng chỉ được tải sau khi nộp bài (đề thi không chứa đáp án)
+  const [review, setReview] = useState<Record<number, QuestionReviewResponse>>({})
   const [timeLeft, setTimeLeft] = useState(7200) // 2 hours in seconds
   const [isLoading, setIsLoading] = useState(true)
   const audioRef = useRef<HTMLAudioElement>(null)
   const [audioEnded, setAudioEnded] = useState(false) // Trạng thái phát của audio
   const autoNextRef = useRef<NodeJS.Timeout | null>(null) // Tham chiếu để lưu timeout
+  // Khóa idempotency cho lần làm bài này: nộp lại (mạng chập chờn) không tạo thêm kết quả
+  const attemptIdRef = useRef<string>(crypto.randomUUID())
   
   // Tham chiếu và state cho việc tải trước
   const nextAudioRef = useRef<HTMLAudioElement>(null)
@@ -382,9 +386,17 @@ export default function TestPage() {
       
       // Gọi API lưu kết quả bài thi
       console.log("Đang lưu kết quả bài thi:", saveRequest);
-      const result = await submitTestResult(saveRequest);
+      const result = await submitTestResult(saveRequest, attemptIdRef.current);
       console.log("Kết quả đã được lưu:", result);
       
+      // Tải đáp án đúng để hiển thị chi tiết kết quả
+      const reviewData = await getTestResultReview(result.id);
+      const reviewMap: Record<number, QuestionReviewResponse> = {};
+      reviewData.questions.forEach(item => {
+        reviewMap[item.questionId] = item;
+      });
+      setReview(reviewMap);
+      
       // Hiển thị thông báo
       toast.success("Kết quả bài thi đã được lưu vào lịch sử", {
         duration: 3000,
@@ -451,7 +463,7 @@ export default function TestPage() {
     test.questionGroups.forEach(group => {
       group.questions.forEach(question => {
         const userAnswer = answers[question.id];
-        if (userAnswer && userAnswer === question.correctAnswer) {
+        if (userAnswer && userAnswer === review[question.id]?.correctAnswer) {
           correctAnswers++;
         }
       });
@@ -507,7 +519,8 @@ export default function TestPage() {
                     <div className="space-y-4">
                       {group.questions.map((question, qIndex) => {
                         const userAnswer = answers[question.id] || "";
-                        const isCorrect = userAnswer === question.correctAnswer;
+                        const correctAnswer = review[question.id]?.correctAnswer;
+                        const isCorrect = userAnswer === correctAnswer;
                         
                         return (
                           <div 
@@ -526,7 +539,7 @@ export default function TestPage() {
                               </p>
                               <p className="text-sm">
                                 <span className="text-muted-foreground">Đáp án đúng:</span>{" "}
-                                <span className="text-green-600 font-medium">{question.correctAnswer}</span>
+                                <span className="text-green-600 font-medium">{correctAnswer}</span>
                               </p>
                             </div>
                           </div>
@@ -21,19 +21,7 @@ api.interceptors.request.use(
   (error) => Promise.reject(error)
 );
 
-// Interceptor để xử lý lỗi response
-api.interceptors.response.use(
-  (response) => response,
-  (error) => {
-    if (error.response) {
-      // Xử lý lỗi 401 Unauthorized - token hết hạn
-      if (error.response.status === 401) {
-        authModule.logout();
-        window.location.href = '/login';
-      }
-    }
-    return Promise.reject(error);
-  }
-);
+// Tự làm mới token khi nhận 401 (dùng chung interceptor và lần làm mới với axios mặc định)
+authModule.installRefreshInterceptor(api);
 
 export default api; 
\ No newline at end of file
@@ -10,95 +10,7 @@ axios.defaults.headers.common['Content-Type'] = 'application/json';
 axios.defaults.withCredentials = true;  // Cho phép gửi cookie
 axios.defaults.timeout = 10000; // Timeout cho các request
 
-// Biến để theo dõi trạng thái refresh token
-let isRefreshing = false;
-let refreshSubscribers: Array<(token: string) => void> = [];
-
-// Hàm đăng ký callback khi refresh token hoàn tất
-const subscribeTokenRefresh = (cb: (token: string) => void) => {
-  refreshSubscribers.push(cb);
-};
-
-// Hàm thực thi tất cả callback với token mới
-const onRefreshed = (token: string) => {
-  refreshSubscribers.forEach(cb => cb(token));
-  refreshSubscribers = [];
-};
-
-// Thêm interceptor để tự động refresh token khi token hết hạn
-axios.interceptors.response.use(
-  (response) => response,
-  async (error) => {
-    const originalRequest = error.config;
-    
-    // Danh sách các URL không cần thử refresh token
-    const shouldSkipRefresh = 
-      originalRequest.url.includes('/login') || 
-      originalRequest.url.includes('/refresh-token') ||
-      originalRequest.url.includes('/register');
-    
-    // Chỉ thử refresh token nếu đáp ứng tất cả các điều kiện:
-    // 1. Nhận lỗi 401 (Unauthorized)
-    // 2. Chưa thử refresh trước đó với request này 
-    // 3. Không phải là request login/register/refresh-token
-    // 4. Chưa có process refresh token đang chạy
-    if (error.response?.status === 401 && 
-        !originalRequest._retry && 
-        !shouldSkipRefresh &&
-        !isRefreshing) {
-      
-      originalRequest._retry = true;
-      isRefreshing = true;
-      
-      try {
-        // Gọi API refresh token
-        const response = await axios.post<AuthUser>(`${AUTH_API_URL}/refresh-token`, {}, {
-          withCredentials: true
-        });
-        
-        // Lưu thông tin người dùng
-        if (response.data) {
-          authModule.setUser(response.data);
-          
-          // Thông báo cho tất cả các request đang chờ
-          onRefreshed('token-refreshed');
-          
-          // Reset trạng thái
-          isRefreshing = false;
-          
-          // Thực hiện lại request ban đầu
-          return authModule.getUser();
-        }
-      } catch (refreshError) {
-        // Reset trạng thái refresh
-        isRefreshing = false;
-        refreshSubscribers = [];
-        
-        // Nếu không refresh được token, đăng xuất
-        authModule.logout();
-        
-        // Không redirect nếu đang ở trang login
-        if (!window.location.pathname.includes('/login')) {
-          window.location.href = '/login';
-        }
-        
-        return Promise.reject(refreshError);
-      }
-    } else if (error.response?.status === 401 && isRefreshing && !shouldSkipRefresh) {
-      // Nếu đang có quá trình refresh token, đăng ký callback để thực hiện lại request này
-      // sau khi refresh token thành công
-      return new Promise((resolve) => {
-        subscribeTokenRefresh((token: string) => {
-          // Thực hiện lại request ban đầu sau khi có token mới
-          resolve(authModule.getUser());
-        });
-      });
-    }
-    
-    // Trả về lỗi nếu không thể xử lý
-    return Promise.reject(error);
-  }
-);
+// Tự làm mới token khi nhận 401: interceptor duy nhất được cài trong authModule
 
 export interface LoginRequest {
   username: string;
@@ -17,6 +17,28 @@ export interface TestResultResponse {
   correctAnswers: number;
   totalQuestions: number;
   createdAt: string;
+  submissionId?: string;
+  // true khi bài nộp đã được chấm điểm nhưng chưa được ghi xuống database (id chưa có)
+  pending?: boolean;
+}
+
+// Interface cho đáp án đúng và giải thích của từng câu khi xem lại bài làm
+export interface QuestionReviewResponse {
+  questionId: number;
+  questionGroupId: number;
+  questionOrder: number;
+  userAnswer: string | null;
+  correctAnswer: string;
+  isCorrect: boolean;
+  explanation?: string;
+}
+
+// Interface cho dữ liệu xem lại bài làm
+export interface TestResultReviewResponse {
+  testResultId: number;
+  testId: number;
+  testTitle: string;
+  questions: QuestionReviewResponse[];
 }
 
 // Interface cho thống kê người dùng
@@ -50,17 +72,64 @@ export interface SaveTestResultRequest {
   userAnswers: UserAnswerRequest[];
 }
 
+const SUBMIT_MAX_RETRIES = 5;
+const SUBMISSION_POLL_INTERVAL_MS = 500;
+const SUBMISSION_POLL_MAX_ATTEMPTS = 60;
+
+const wait = (ms: number) => new Promise(resolve => setTimeout(resolve, ms));
+
+// Chờ bài nộp (ghi bất đồng bộ phía server) được lưu xong để có ID kết quả
+const waitForSubmission = async (submissionId: string): Promise<TestResultResponse> => {
+  for (let attempt = 0; attempt < SUBMISSION_POLL_MAX_ATTEMPTS; attempt++) {
+    await wait(SUBMISSION_POLL_INTERVAL_MS);
+    const response = await api.get(`/test-results/submissions/${submissionId}`);
+    if (!response.data.pending) {
+      return response.data;
+    }
+  }
+  throw new Error(`Bài nộp ${submissionId} chưa được lưu xong`);
+};
+
 // Lưu kết quả bài thi
-export const submitTestResult = async (request: SaveTestResultRequest): Promise<TestResultResponse> => {
+// Server có thể trả về 429 (Retry-After) khi quá tải hoặc 202 khi bài nộp đang được ghi bất đồng bộ.
+// Mọi lần gửi lại dùng cùng idempotencyKey nên server chỉ lưu một kết quả.
+export const submitTestResult = async (
+  request: SaveTestResultRequest,
+  idempotencyKey: string = crypto.randomUUID()
+): Promise<TestResultResponse> => {
   try {
-    const response = await api.post(`/test-results/submit`, request);
-    return response.data;
+    for (let attempt = 0; ; attempt++) {
+      try {
+        const response = await api.post(`/test-results/submit`, request, {
+          headers: { 'Idempotency-Key': idempotencyKey }
+        });
+        const result: TestResultResponse = response.data;
+        return result.pending && result.submissionId ? await waitForSubmission(result.submissionId) : result;
+      } catch (error: any) {
+        if (error?.response?.status !== 429 || attempt >= SUBMIT_MAX_RETRIES) {
+          throw error;
+        }
+        const retryAfter = parseInt(error.response.headers?.['retry-after'] ?? '1', 10);
+        await wait(Math.max(1, isNaN(retryAfter) ? 1 : retryAfter) * 1000);
+      }
+    }
   } catch (error) {
     console.error('Lỗi khi lưu kết quả bài thi:', error);
     throw error;
   }
 };
 
+// Lấy đáp án đúng và giải thích của một bài làm đã nộp
+export const getTestResultReview = async (resultId: number): Promise<TestResultReviewResponse> => {
+  try {
+    const response = await api.get(`/test-results/${resultId}/review`);
+    return response.data;
+  } catch (error) {
+    console.error(`Lỗi khi lấy đáp án bài làm ID=${resultId}:`, error);
+    throw error;
+  }
+};
+
 // Lấy lịch sử bài làm của người dùng hiện tại
 export const getMyTestHistory = async (page: number = 0, size: number = 10): Promise<{
   content: TestResultResponse[],
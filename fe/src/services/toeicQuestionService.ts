@@ -119,10 +119,22 @@ export interface QuestionGroupResponse {
   audioUrl?: string;
   imageUrl?: string;
   count: number;
+  questionCount?: number;
   createdAt: string;
   updatedAt: string;
 }
 
+// Một trang nhóm câu hỏi phân trang theo khóa (afterId)
+export interface KeysetPage<T> {
+  content: T[];
+  size: number;
+  nextAfterId: number | null;
+  hasMore: boolean;
+}
+
+// Số nhóm mỗi trang của danh sách nhóm câu hỏi
+export const QUESTION_GROUP_PAGE_SIZE = 20;
+
 // Interface cho response của câu hỏi
 export interface QuestionResponse {
   id: number;
@@ -212,53 +224,50 @@ export const getQuestionsByType = async (type: QuestionType): Promise<ToeicQuest
   }
 };
 
-// Lấy tất cả nhóm câu hỏi - phương thức tương thích với code hiện tại
+// Lấy tất cả nhóm câu hỏi kèm câu hỏi (danh sách đầy đủ, server từ chối nếu ngân hàng quá lớn)
 export const getAllQuestionGroups = async (): Promise<any> => {
   try {
-    console.log("Đang lấy tất cả nhóm câu hỏi từ API...");
-    const response = await axios.get(`${TOEIC_QUESTIONS_API_URL}/question-groups`, {
-      ...authModule.createAuthConfig()
-    });
-    console.log("Kết quả API getAllQuestionGroups:", response.data);
+    const response = await axios.get(`${TOEIC_QUESTIONS_API_URL}/question-groups`, authModule.createAuthConfig());
     return response.data;
-  } catch (error) {
-    console.error("Lỗi khi lấy danh sách tất cả nhóm câu hỏi:", error);
-    throw error;
-  }
-};
-
-// Lấy tất cả nhóm câu hỏi
-export const getQuestionGroups = async (): Promise<QuestionGroupResponse[]> => {
-  try {
-    console.log("Đang lấy dữ liệu nhóm câu hỏi từ API");
-    // Cần sử dụng endpoint /toeic-questions/question-groups
-    const response = await axios.get(`${TOEIC_QUESTIONS_API_URL}/question-groups`, {
-      ...authModule.createAuthConfig()
-    });
-    console.log("Dữ liệu nhóm câu hỏi nhận được:", response.data);
-    
-    // Xử lý dữ liệu API trả về - đảm bảo luôn trả về mảng kể cả khi API có cấu trúc khác
-    let questionGroups: QuestionGroupResponse[] = [];
-    
-    if (response.data) {
-      if (Array.isArray(response.data)) {
-        // Nếu là mảng, sử dụng trực tiếp
-        questionGroups = response.data;
-      } else if (response.data.content && Array.isArray(response.data.content)) {
-        // Nếu là dạng paged response có thuộc tính content
-        questionGroups = response.data.content;
-      } else {
-        console.warn("Cấu trúc dữ liệu không như mong đợi:", response.data);
-      }
-    }
-    
-    return questionGroups;
   } catch (error) {
     console.error("Lỗi khi lấy danh sách nhóm câu hỏi:", error);
     return [];
   }
 };
 
+// Bộ lọc của danh sách nhóm câu hỏi phân trang
+export interface QuestionGroupPageFilter {
+  questionType?: string;
+  part?: number;
+}
+
+// Lấy một trang nhóm câu hỏi (chỉ thông tin nhóm và số câu hỏi): các nhóm có id > afterId.
+// Trang sau được lấy bằng afterId = nextAfterId của trang hiện tại.
+export const getQuestionGroupPage = async (
+  afterId: number = 0,
+  filter: QuestionGroupPageFilter = {},
+  size: number = QUESTION_GROUP_PAGE_SIZE
+): Promise<KeysetPage<QuestionGroupResponse>> => {
+  const response = await axios.get<KeysetPage<QuestionGroupResponse>>(`${TOEIC_QUESTIONS_API_URL}/question-groups/keyset`, {
+    ...authModule.createAuthConfig(),
+    params: { afterId, size, summary: true, ...filter }
+  });
+  const page = response.data;
+  if (!page || !Array.isArray(page.content)) {
+    console.warn("Cấu trúc dữ liệu không như mong đợi:", page);
+    return { content: [], size, nextAfterId: null, hasMore: false };
+  }
+  return {
+    ...page,
+    content: page.content.map(group => ({
+      ...group,
+      // API trả về questionType; các màn hình hiện tại dùng type và count
+      type: group.type ?? (group as any).questionType,
+      count: group.questionCount ?? group.count
+    }))
+  };
+};
+
 // Lấy nhóm câu hỏi theo ID
 export const getQuestionGroupById = async (id: number): Promise<QuestionGroupDTO> => {
   try {